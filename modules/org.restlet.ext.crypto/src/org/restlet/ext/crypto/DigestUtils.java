@@ -34,9 +34,12 @@
 package org.restlet.ext.crypto;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -60,6 +63,34 @@ public class DigestUtils {
      */
     private static final char[] HEXDIGITS = "0123456789abcdef".toCharArray();
 
+    /** The message digests cloned for each digest, by algorithm. */
+    private static final Map<String, MessageDigest> prototypes = new ConcurrentHashMap<String, MessageDigest>();
+
+    /**
+     * Creates a new message digest, cloning a cached prototype when the
+     * provider supports it.
+     * 
+     * @param algorithm
+     *            The digest algorithm.
+     * @return A new message digest.
+     * @throws NoSuchAlgorithmException
+     */
+    private static MessageDigest createMessageDigest(String algorithm)
+            throws NoSuchAlgorithmException {
+        MessageDigest prototype = prototypes.get(algorithm);
+
+        if (prototype == null) {
+            prototype = MessageDigest.getInstance(algorithm);
+            prototypes.put(algorithm, prototype);
+        }
+
+        try {
+            return (MessageDigest) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            return MessageDigest.getInstance(algorithm);
+        }
+    }
+
     /**
      * Returns the digest of the target string. Target is decoded to bytes using
      * the US-ASCII charset. Supports MD5 and SHA-1 algorithms.
@@ -95,38 +126,69 @@ public class DigestUtils {
     };
 
     /**
-     * Converts a source string to its HMAC/SHA-1 value.
+     * Returns a new MAC for the given algorithm and secret key.
      * 
-     * @param source
-     *            The source string to convert.
+     * @param algorithm
+     *            The MAC algorithm.
      * @param secretKey
-     *            The secret key to use for conversion.
-     * @return The HMac value of the source string.
+     *            The secret key.
+     * @return The MAC, initialized.
      */
-    public static byte[] toHMacSha1(String source, byte[] secretKey) {
-        byte[] result = null;
-
+    private static Mac getMac(String algorithm, byte[] secretKey) {
         try {
-            // Create the HMAC/SHA1 key
-            SecretKeySpec signingKey = new SecretKeySpec(secretKey, "HmacSHA1");
-
-            // Create the message authentication code (MAC)
-            Mac mac = Mac.getInstance("HmacSHA1");
-            mac.init(signingKey);
-
-            // Compute the HMAC value
-            result = mac.doFinal(source.getBytes());
+            Mac result = Mac.getInstance(algorithm);
+            result.init(new SecretKeySpec(secretKey, algorithm));
+            return result;
         } catch (NoSuchAlgorithmException nsae) {
-            throw new RuntimeException(
-                    "Could not find the SHA-1 algorithm. HMac conversion failed.",
-                    nsae);
+            throw new RuntimeException("Could not find the " + algorithm
+                    + " algorithm. HMac conversion failed.", nsae);
         } catch (InvalidKeyException ike) {
             throw new RuntimeException(
                     "Invalid key exception detected. HMac conversion failed.",
                     ike);
         }
+    }
 
-        return result;
+    /**
+     * Converts a source byte array to its HMAC/SHA-1 value.
+     * 
+     * @param source
+     *            The source byte array to convert.
+     * @param secretKey
+     *            The secret key to use for conversion.
+     * @return The HMac value of the source byte array.
+     */
+    public static byte[] toHMacSha1(byte[] source, byte[] secretKey) {
+        return getMac("HmacSHA1", secretKey).doFinal(source);
+    }
+
+    /**
+     * Converts the remaining bytes of a source buffer to their HMAC/SHA-1
+     * value. The position of the buffer is moved to its limit.
+     * 
+     * @param source
+     *            The source buffer to convert.
+     * @param secretKey
+     *            The secret key to use for conversion.
+     * @return The HMac value of the remaining bytes of the source buffer.
+     */
+    public static byte[] toHMacSha1(ByteBuffer source, byte[] secretKey) {
+        Mac mac = getMac("HmacSHA1", secretKey);
+        mac.update(source);
+        return mac.doFinal();
+    }
+
+    /**
+     * Converts a source string to its HMAC/SHA-1 value.
+     * 
+     * @param source
+     *            The source string to convert.
+     * @param secretKey
+     *            The secret key to use for conversion.
+     * @return The HMac value of the source string.
+     */
+    public static byte[] toHMacSha1(String source, byte[] secretKey) {
+        return toHMacSha1(source.getBytes(), secretKey);
     }
 
     /**
@@ -142,6 +204,35 @@ public class DigestUtils {
         return toHMacSha1(source, secretKey.getBytes());
     }
 
+    /**
+     * Converts a source byte array to its HMAC/SHA256 value.
+     * 
+     * @param source
+     *            The source byte array to convert.
+     * @param secretKey
+     *            The secret key to use for conversion.
+     * @return The HMac value of the source byte array.
+     */
+    public static byte[] toHMacSha256(byte[] source, byte[] secretKey) {
+        return getMac("HmacSHA256", secretKey).doFinal(source);
+    }
+
+    /**
+     * Converts the remaining bytes of a source buffer to their HMAC/SHA256
+     * value. The position of the buffer is moved to its limit.
+     * 
+     * @param source
+     *            The source buffer to convert.
+     * @param secretKey
+     *            The secret key to use for conversion.
+     * @return The HMac value of the remaining bytes of the source buffer.
+     */
+    public static byte[] toHMacSha256(ByteBuffer source, byte[] secretKey) {
+        Mac mac = getMac("HmacSHA256", secretKey);
+        mac.update(source);
+        return mac.doFinal();
+    }
+
     /**
      * Converts a source string to its HMAC/SHA256 value.
      * 
@@ -152,37 +243,12 @@ public class DigestUtils {
      * @return The HMac value of the source string.
      */
     public static byte[] toHMacSha256(String source, byte[] secretKey) {
-        byte[] result = null;
-
         try {
-            // Create the HMAC/SHA256 key
-            SecretKeySpec signingKey = new SecretKeySpec(secretKey,
-                    "HmacSHA256");
-
-            // Create the message authentication code (MAC)
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(signingKey);
-
-            // Compute the HMAC value
-            result = mac.doFinal(source.getBytes("UTF-8"));
-        } catch (NoSuchAlgorithmException nsae) {
-            throw new RuntimeException(
-                    "Could not find the SHA256 algorithm. HMac conversion failed.",
-                    nsae);
-        } catch (InvalidKeyException ike) {
-            throw new RuntimeException(
-                    "Invalid key exception detected. HMac conversion failed.",
-                    ike);
-        } catch (IllegalStateException ise) {
-            throw new RuntimeException(
-                    "IIllegal state exception detected. HMac conversion failed.",
-                    ise);
+            return toHMacSha256(source.getBytes("UTF-8"), secretKey);
         } catch (UnsupportedEncodingException uee) {
             throw new RuntimeException(
                     "Unsuported encoding UTF-8. HMac conversion failed.", uee);
         }
-
-        return result;
     }
 
     /**
@@ -258,7 +324,7 @@ public class DigestUtils {
     public static String toMd5(String target, String charsetName)
             throws UnsupportedEncodingException {
         try {
-            final byte[] md5 = MessageDigest.getInstance("MD5").digest(
+            final byte[] md5 = createMessageDigest("MD5").digest(
                     target.getBytes(charsetName));
             final char[] md5Chars = new char[32];
             int i = 0;
@@ -307,7 +373,7 @@ public class DigestUtils {
             throws UnsupportedEncodingException {
         try {
             return Base64.encode(
-                    MessageDigest.getInstance("SHA1").digest(
+                    createMessageDigest("SHA1").digest(
                             target.getBytes(charsetName)), false);
         } catch (NoSuchAlgorithmException nsae) {
             throw new RuntimeException(
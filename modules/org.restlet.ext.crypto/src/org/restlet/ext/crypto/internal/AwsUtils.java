@@ -178,9 +178,28 @@ public class AwsUtils {
      * @return The AWS compatible signature
      */
     public static String getHmacSha1Signature(String stringToSign, char[] secret) {
-        return Base64.encode(
-                DigestUtils.toHMacSha1(stringToSign,
-                        BioUtils.toByteArray(secret)), false);
+        return getHmacSha1Signature(stringToSign, secret, null);
+    }
+
+    /**
+     * Returns the AWS authentication compatible signature for the given string
+     * to sign and secret, reusing the MACs of the given pool.
+     * 
+     * @param stringToSign
+     *            The string to sign.
+     * @param secret
+     *            The user secret to sign with
+     * @param enginePool
+     *            The pool of MACs of the caller or null.
+     * @return The AWS compatible signature
+     */
+    public static String getHmacSha1Signature(String stringToSign,
+            char[] secret, EnginePool enginePool) {
+        byte[] secretKey = BioUtils.toByteArray(secret);
+        byte[] signature = (enginePool == null) ? DigestUtils.toHMacSha1(
+                stringToSign, secretKey) : enginePool.toHMac("HmacSHA1",
+                stringToSign.getBytes(), secretKey);
+        return Base64.encode(signature, false);
     }
 
     /**
@@ -195,9 +214,28 @@ public class AwsUtils {
      */
     public static String getHmacSha256Signature(String stringToSign,
             char[] secret) {
-        return Base64.encode(
-                DigestUtils.toHMacSha256(stringToSign,
-                        BioUtils.toByteArray(secret)), false);
+        return getHmacSha256Signature(stringToSign, secret, null);
+    }
+
+    /**
+     * Returns the AWS authentication compatible signature for the given string
+     * to sign and secret, reusing the MACs of the given pool.
+     * 
+     * @param stringToSign
+     *            The string to sign.
+     * @param secret
+     *            The user secret to sign with
+     * @param enginePool
+     *            The pool of MACs of the caller or null.
+     * @return The AWS compatible signature
+     */
+    public static String getHmacSha256Signature(String stringToSign,
+            char[] secret, EnginePool enginePool) {
+        byte[] secretKey = BioUtils.toByteArray(secret);
+        byte[] signature = (enginePool == null) ? DigestUtils.toHMacSha256(
+                stringToSign, secretKey) : enginePool.toHMacSha256(
+                stringToSign, secretKey);
+        return Base64.encode(signature, false);
     }
 
     /**
@@ -216,8 +254,31 @@ public class AwsUtils {
      */
     public static String getQuerySignature(Method method,
             Reference resourceRef, List<Parameter> params, char[] secret) {
+        return getQuerySignature(method, resourceRef, params, secret, null);
+    }
+
+    /**
+     * Returns the AWS SimpleDB authentication compatible signature for the
+     * given request and secret, reusing the MACs of the given pool.
+     * 
+     * @param method
+     *            The request method.
+     * @param resourceRef
+     *            The target resource reference.
+     * @param params
+     *            The request parameters.
+     * @param secret
+     *            The user secret to sign with
+     * @param enginePool
+     *            The pool of MACs of the caller or null.
+     * @return The AWS SimpleDB compatible signature
+     */
+    public static String getQuerySignature(Method method,
+            Reference resourceRef, List<Parameter> params, char[] secret,
+            EnginePool enginePool) {
         return getHmacSha256Signature(
-                getQueryStringToSign(method, resourceRef, params), secret);
+                getQueryStringToSign(method, resourceRef, params), secret,
+                enginePool);
     }
 
     /**
@@ -274,10 +335,27 @@ public class AwsUtils {
      * @return The AWS S3 compatible signature
      */
     public static String getS3Signature(Request request, char[] secret) {
+        return getS3Signature(request, secret, null);
+    }
+
+    /**
+     * Returns the AWS S3 authentication compatible signature for the given
+     * request and secret, reusing the MACs of the given pool.
+     * 
+     * @param request
+     *            The request to create the signature for
+     * @param secret
+     *            The user secret to sign with
+     * @param enginePool
+     *            The pool of MACs of the caller or null.
+     * @return The AWS S3 compatible signature
+     */
+    public static String getS3Signature(Request request, char[] secret,
+            EnginePool enginePool) {
         @SuppressWarnings("unchecked")
         Series<Header> headers = (Series<Header>) request.getAttributes().get(
                 HeaderConstants.ATTRIBUTE_HEADERS);
-        return getS3Signature(request, headers, secret);
+        return getS3Signature(request, headers, secret, enginePool);
     }
 
     /**
@@ -294,7 +372,27 @@ public class AwsUtils {
      */
     public static String getS3Signature(Request request,
             Series<Header> headers, char[] secret) {
-        return getHmacSha1Signature(getS3StringToSign(request, headers), secret);
+        return getS3Signature(request, headers, secret, null);
+    }
+
+    /**
+     * Returns the AWS S3 authentication compatible signature for the given
+     * request and secret, reusing the MACs of the given pool.
+     * 
+     * @param request
+     *            The request to create the signature for
+     * @param headers
+     *            The HTTP headers associated with the request
+     * @param secret
+     *            The user secret to sign with
+     * @param enginePool
+     *            The pool of MACs of the caller or null.
+     * @return The AWS S3 compatible signature
+     */
+    public static String getS3Signature(Request request,
+            Series<Header> headers, char[] secret, EnginePool enginePool) {
+        return getHmacSha1Signature(getS3StringToSign(request, headers),
+                secret, enginePool);
     }
 
     /**
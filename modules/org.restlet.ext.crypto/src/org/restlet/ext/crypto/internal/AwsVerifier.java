@@ -65,6 +65,9 @@ public class AwsVerifier extends SecretVerifier {
      */
     private static final long DEFAULT_MAX_REQUEST_AGE = 15 * 60 * 1000L;
 
+    /** The pool of MACs reused for verifying the signatures. */
+    private final EnginePool enginePool;
+
     /**
      * The maximum age of a request, in milliseconds, before it is considered
      * stale.
@@ -97,10 +100,21 @@ public class AwsVerifier extends SecretVerifier {
      */
     public AwsVerifier(LocalVerifier wrappedVerifier, long maxRequestAge) {
         super();
+        this.enginePool = new EnginePool();
         setMaxRequestAge(maxRequestAge);
         setWrappedVerifier(wrappedVerifier);
     }
 
+    /**
+     * Returns the pool of MACs reused for verifying the signatures. It can be
+     * cleared to erase the copies of the secret keys.
+     * 
+     * @return The pool of MACs reused for verifying the signatures.
+     */
+    public EnginePool getEnginePool() {
+        return enginePool;
+    }
+
     /**
      * Returns the user identifier portion of an Amazon S3 compatible
      * {@code Authorization} header.
@@ -232,7 +246,8 @@ public class AwsVerifier extends SecretVerifier {
 
         char[] userSecret = getLocalSecret(userId);
         char[] signature = getSecret(request, response);
-        String sigToCompare = AwsUtils.getS3Signature(request, userSecret);
+        String sigToCompare = AwsUtils.getS3Signature(request, userSecret,
+                getEnginePool());
 
         if (!compare(signature, sigToCompare.toCharArray()))
             return RESULT_INVALID;
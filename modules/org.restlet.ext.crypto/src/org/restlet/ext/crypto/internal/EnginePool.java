@@ -0,0 +1,283 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.ext.crypto.internal;
+
+import java.io.UnsupportedEncodingException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Pool of the MAC engines from JRE, owned by a signing component such as an
+ * authenticator helper or a verifier. Looking up a MAC from the security
+ * providers and initializing it with a key is costly compared to signing a
+ * short message. Instead, the idle MACs are kept by algorithm and secret key,
+ * for the secret keys most recently used, and reused by the next signatures.
+ * Each MAC is only used by one thread at a time.<br>
+ * <br>
+ * The pool keeps copies of the secret keys until they are evicted or until
+ * {@link #clear()} is called, and they are released with the pool.
+ * 
+ * @author Jerome Louvel
+ */
+public class EnginePool {
+
+    /** Key of a MAC initialized with a secret key. */
+    private static final class MacKey {
+
+        /** The MAC algorithm. */
+        private final String algorithm;
+
+        /** The hash code, computed once. */
+        private final int hashCode;
+
+        /** The secret key. */
+        private final byte[] secretKey;
+
+        /**
+         * Constructor.
+         * 
+         * @param algorithm
+         *            The MAC algorithm.
+         * @param secretKey
+         *            The secret key.
+         */
+        private MacKey(String algorithm, byte[] secretKey) {
+            this.algorithm = algorithm;
+            this.hashCode = (31 * algorithm.hashCode())
+                    + Arrays.hashCode(secretKey);
+            this.secretKey = secretKey;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof MacKey)) {
+                return false;
+            }
+
+            MacKey other = (MacKey) obj;
+            return (hashCode == other.hashCode)
+                    && algorithm.equals(other.algorithm)
+                    && Arrays.equals(secretKey, other.secretKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /** The default maximum number of secret keys whose MACs are kept. */
+    public static final int DEFAULT_MAX_KEYS = 16;
+
+    /** The idle MACs, by algorithm and secret key, in access order. */
+    private final LinkedHashMap<MacKey, Queue<Mac>> macs;
+
+    /** The maximum number of secret keys whose MACs are kept. */
+    private final int maxKeys;
+
+    /**
+     * Constructor keeping the MACs of at most {@link #DEFAULT_MAX_KEYS} secret
+     * keys.
+     */
+    public EnginePool() {
+        this(DEFAULT_MAX_KEYS);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxKeys
+     *            The maximum number of secret keys whose MACs are kept.
+     */
+    public EnginePool(int maxKeys) {
+        if (maxKeys <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum number of keys must be positive");
+        }
+
+        this.macs = new LinkedHashMap<MacKey, Queue<Mac>>(maxKeys, 0.75f,
+                true);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Takes an idle MAC initialized with the given secret key, or creates a
+     * new one.
+     * 
+     * @param key
+     *            The algorithm and secret key.
+     * @return The MAC.
+     * @throws NoSuchAlgorithmException
+     * @throws InvalidKeyException
+     */
+    private Mac acquire(MacKey key) throws NoSuchAlgorithmException,
+            InvalidKeyException {
+        Mac result = null;
+
+        synchronized (this) {
+            Queue<Mac> idleMacs = this.macs.get(key);
+
+            if (idleMacs != null) {
+                result = idleMacs.poll();
+            }
+        }
+
+        if (result == null) {
+            result = Mac.getInstance(key.algorithm);
+            result.init(new SecretKeySpec(key.secretKey, key.algorithm));
+        }
+
+        return result;
+    }
+
+    /**
+     * Removes all the MACs and erases the copies of the secret keys.
+     */
+    public synchronized void clear() {
+        for (MacKey key : this.macs.keySet()) {
+            Arrays.fill(key.secretKey, (byte) 0);
+        }
+
+        this.macs.clear();
+    }
+
+    /**
+     * Returns the maximum number of secret keys whose MACs are kept.
+     * 
+     * @return The maximum number of secret keys whose MACs are kept.
+     */
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    /**
+     * Gives back an idle MAC, evicting the MACs of the least recently used
+     * secret key if necessary.
+     * 
+     * @param key
+     *            The algorithm and secret key.
+     * @param mac
+     *            The idle MAC, reset.
+     */
+    private synchronized void release(MacKey key, Mac mac) {
+        Queue<Mac> idleMacs = this.macs.get(key);
+
+        if (idleMacs == null) {
+            if (this.macs.size() >= this.maxKeys) {
+                Iterator<Map.Entry<MacKey, Queue<Mac>>> iterator = this.macs
+                        .entrySet().iterator();
+                Arrays.fill(iterator.next().getKey().secretKey, (byte) 0);
+                iterator.remove();
+            }
+
+            // Copy the key as the caller may reuse its array
+            idleMacs = new ArrayDeque<Mac>();
+            this.macs.put(
+                    new MacKey(key.algorithm, key.secretKey.clone()),
+                    idleMacs);
+        }
+
+        idleMacs.add(mac);
+    }
+
+    /**
+     * Returns the number of secret keys whose MACs are kept.
+     * 
+     * @return The number of secret keys whose MACs are kept.
+     */
+    public synchronized int size() {
+        return this.macs.size();
+    }
+
+    /**
+     * Converts a source byte array to its HMAC value.
+     * 
+     * @param algorithm
+     *            The MAC algorithm, such as "HmacSHA1" or "HmacSHA256".
+     * @param source
+     *            The source byte array to convert.
+     * @param secretKey
+     *            The secret key to use for conversion.
+     * @return The HMac value of the source byte array.
+     */
+    public byte[] toHMac(String algorithm, byte[] source, byte[] secretKey) {
+        MacKey key = new MacKey(algorithm, secretKey);
+
+        try {
+            Mac mac = acquire(key);
+            byte[] result = mac.doFinal(source);
+
+            // The MAC has been reset by the completion
+            release(key, mac);
+            return result;
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new RuntimeException("Could not find the " + algorithm
+                    + " algorithm. HMac conversion failed.", nsae);
+        } catch (InvalidKeyException ike) {
+            throw new RuntimeException(
+                    "Invalid key exception detected. HMac conversion failed.",
+                    ike);
+        }
+    }
+
+    /**
+     * Converts a source string to its HMAC/SHA256 value. The source is
+     * encoded in UTF-8.
+     * 
+     * @param source
+     *            The source string to convert.
+     * @param secretKey
+     *            The secret key to use for conversion.
+     * @return The HMac value of the source string.
+     */
+    public byte[] toHMacSha256(String source, byte[] secretKey) {
+        try {
+            return toHMac("HmacSHA256", source.getBytes("UTF-8"), secretKey);
+        } catch (UnsupportedEncodingException uee) {
+            throw new RuntimeException(
+                    "Unsuported encoding UTF-8. HMac conversion failed.", uee);
+        }
+    }
+
+}
@@ -50,11 +50,25 @@ import org.restlet.engine.util.DateUtils;
  */
 public class HttpAwsQueryHelper extends AuthenticatorHelper {
 
+    /** The pool of MACs reused for signing. */
+    private final EnginePool enginePool;
+
     /**
      * Constructor.
      */
     public HttpAwsQueryHelper() {
         super(ChallengeScheme.HTTP_AWS_QUERY, true, false);
+        this.enginePool = new EnginePool();
+    }
+
+    /**
+     * Returns the pool of MACs reused for signing. It can be cleared to erase
+     * the copies of the secret keys.
+     * 
+     * @return The pool of MACs reused for signing.
+     */
+    public EnginePool getEnginePool() {
+        return enginePool;
     }
 
     @Override
@@ -76,7 +90,8 @@ public class HttpAwsQueryHelper extends AuthenticatorHelper {
             // Compute then add the signature parameter
             String signature = AwsUtils.getQuerySignature(request.getMethod(),
                     request.getResourceRef(), query, request
-                            .getChallengeResponse().getSecret());
+                            .getChallengeResponse().getSecret(),
+                    getEnginePool());
             query.add("Signature", signature);
             result = new Reference(resourceRef);
             result.setQuery(query.getQueryString());
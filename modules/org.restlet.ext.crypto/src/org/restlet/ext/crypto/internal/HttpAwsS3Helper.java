@@ -48,11 +48,15 @@ import org.restlet.util.Series;
  */
 public class HttpAwsS3Helper extends AuthenticatorHelper {
 
+    /** The pool of MACs reused for signing. */
+    private final EnginePool enginePool;
+
     /**
      * Constructor.
      */
     public HttpAwsS3Helper() {
         super(ChallengeScheme.HTTP_AWS_S3, true, true);
+        this.enginePool = new EnginePool();
     }
 
     @Override
@@ -63,7 +67,17 @@ public class HttpAwsS3Helper extends AuthenticatorHelper {
         cw.append(challenge.getIdentifier())
                 .append(':')
                 .append(AwsUtils.getS3Signature(request, httpHeaders,
-                        challenge.getSecret()));
+                        challenge.getSecret(), getEnginePool()));
+    }
+
+    /**
+     * Returns the pool of MACs reused for signing. It can be cleared to erase
+     * the copies of the secret keys.
+     * 
+     * @return The pool of MACs reused for signing.
+     */
+    public EnginePool getEnginePool() {
+        return enginePool;
     }
 
 }
@@ -52,7 +52,6 @@ import org.restlet.engine.security.AuthenticatorHelper;
 import org.restlet.engine.util.Base64;
 import org.restlet.engine.util.DateUtils;
 import org.restlet.engine.util.SystemUtils;
-import org.restlet.ext.crypto.DigestUtils;
 import org.restlet.util.Series;
 
 /**
@@ -124,11 +123,15 @@ public class HttpAzureSharedKeyHelper extends AuthenticatorHelper {
         return resourceRef.getPath();
     }
 
+    /** The pool of MACs reused for signing. */
+    private final EnginePool enginePool;
+
     /**
      * Constructor.
      */
     public HttpAzureSharedKeyHelper() {
         super(ChallengeScheme.HTTP_AZURE_SHAREDKEY, true, false);
+        this.enginePool = new EnginePool();
     }
 
     @Override
@@ -210,7 +213,17 @@ public class HttpAzureSharedKeyHelper extends AuthenticatorHelper {
         cw.append(challenge.getIdentifier())
                 .append(':')
                 .append(Base64.encode(
-                        DigestUtils.toHMacSha256(rest.toString(),
+                        getEnginePool().toHMacSha256(rest.toString(),
                                 Base64.decode(challenge.getSecret())), true));
     }
+
+    /**
+     * Returns the pool of MACs reused for signing. It can be cleared to erase
+     * the copies of the secret keys.
+     * 
+     * @return The pool of MACs reused for signing.
+     */
+    public EnginePool getEnginePool() {
+        return enginePool;
+    }
 }
@@ -47,7 +47,6 @@ import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.security.AuthenticatorHelper;
 import org.restlet.engine.util.Base64;
 import org.restlet.engine.util.DateUtils;
-import org.restlet.ext.crypto.DigestUtils;
 import org.restlet.util.Series;
 
 /**
@@ -81,11 +80,15 @@ public class HttpAzureSharedKeyLiteHelper extends AuthenticatorHelper {
         return resourceRef.getPath();
     }
 
+    /** The pool of MACs reused for signing. */
+    private final EnginePool enginePool;
+
     /**
      * Constructor.
      */
     public HttpAzureSharedKeyLiteHelper() {
         super(ChallengeScheme.HTTP_AZURE_SHAREDKEY_LITE, true, false);
+        this.enginePool = new EnginePool();
     }
 
     @Override
@@ -124,7 +127,17 @@ public class HttpAzureSharedKeyLiteHelper extends AuthenticatorHelper {
         cw.append(challenge.getIdentifier())
                 .append(':')
                 .append(Base64.encode(
-                        DigestUtils.toHMacSha256(rest.toString(),
+                        getEnginePool().toHMacSha256(rest.toString(),
                                 Base64.decode(challenge.getSecret())), true));
     }
+
+    /**
+     * Returns the pool of MACs reused for signing. It can be cleared to erase
+     * the copies of the secret keys.
+     * 
+     * @return The pool of MACs reused for signing.
+     */
+    public EnginePool getEnginePool() {
+        return enginePool;
+    }
 }
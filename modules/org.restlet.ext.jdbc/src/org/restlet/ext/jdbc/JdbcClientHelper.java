@@ -36,6 +36,7 @@ package org.restlet.ext.jdbc;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
@@ -43,30 +44,28 @@ import java.util.List;
 import java.util.Properties;
 import java.util.logging.Level;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.commons.dbcp.ConnectionFactory;
 import org.apache.commons.dbcp.DriverManagerConnectionFactory;
 import org.apache.commons.dbcp.PoolableConnectionFactory;
 import org.apache.commons.pool.ObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.commons.pool.impl.GenericKeyedObjectPoolFactory;
 import org.apache.commons.pool.impl.GenericObjectPool;
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Protocol;
 import org.restlet.data.Status;
 import org.restlet.engine.ClientHelper;
 import org.restlet.engine.Engine;
 import org.restlet.ext.jdbc.internal.ConnectionSource;
+import org.restlet.ext.jdbc.internal.RequestReader;
+import org.restlet.ext.jdbc.internal.SqlStatement;
 import org.restlet.representation.Representation;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
 /**
@@ -83,6 +82,12 @@ import org.xml.sax.SAXException;
  * first result (0 by default) and "limit" for the maximum number of results
  * retrieved (unlimited by default).
  * <p>
+ * By default, results are cached in memory then written as a WebRowSet XML
+ * document. For large results, set the "format" header element to "csv" or
+ * "json" to stream the rows from the live result set instead, as CSV or JSON
+ * lines. The "fetchSize" header element then sets the number of rows fetched
+ * from the database at once.
+ * <p>
  * Do not forget to register your JDBC drivers before using this client. See
  * {@link DriverManager} for details.
  * <p>
@@ -106,24 +111,62 @@ import org.xml.sax.SAXException;
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code <limit>20</limit>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;
  * {@code <returnGeneratedKeys>true</returnGeneratedKeys>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <format>json</format>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <fetchSize>500</fetchSize>}<br>
  * &nbsp;&nbsp;{@code </header>}<br>
  * &nbsp;&nbsp;{@code <body>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code <statement>UPDATE myTable SET
  * myField1="value1" </statement>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code <statement>INSERT INTO myTable (myField1,
+ * myField2) VALUES (?, ?)}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;{@code <parameters>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;
+ * {@code <parameter>value2</parameter>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;{@code <parameter
+ * type="INTEGER">12</parameter>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;{@code </parameters>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;{@code <parameters>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;
+ * {@code <parameter>value3</parameter>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;{@code <parameter
+ * type="INTEGER" null="true"/>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;{@code </parameters>}<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;{@code </statement>}<br>
  * &nbsp;&nbsp;&nbsp;&nbsp;{@code <statement>SELECT msField1, myField2 FROM
- * myTable</statement>}<br>
+ * myTable WHERE myField2 > ?<parameter
+ * type="INTEGER">10</parameter></statement>}<br>
  * &nbsp;&nbsp;{@code </body>}<br>
  * {@code </request>}
  * <p>
- * Several SQL Statements can be specified. A {@link RowSetRepresentation} of
- * the last correctly executed SQL request is returned to the Client.
+ * Several SQL Statements can be specified. A {@link RowSetRepresentation} or a
+ * {@link ResultSetRepresentation} of the last correctly executed SQL request is
+ * returned to the Client.
+ * <p>
+ * Statements containing "parameter" elements are executed as prepared
+ * statements, once for each "parameters" element, or once if the parameters
+ * are directly specified. The optional "type" attribute gives the name of a
+ * {@link java.sql.Types} constant, and the "null" attribute indicates a SQL
+ * NULL value. When pooling is used, prepared statements are cached for each
+ * connection, up to {@link #MAX_PREPARED_STATEMENTS}.
+ * <p>
+ * When a request contains several statements or several sets of parameters, all
+ * of them are executed in a single transaction which is rolled back on error.
+ * If the driver supports it, the statements before the last one are sent as
+ * JDBC batches, so they must not return results.
  * 
  * @see org.restlet.ext.jdbc.RowSetRepresentation
+ * @see org.restlet.ext.jdbc.ResultSetRepresentation
  * 
  * @author Jerome Louvel
  * @author Thierry Boileau
  */
 public class JdbcClientHelper extends ClientHelper {
+    /**
+     * The maximum number of prepared statements kept open for each pooled
+     * connection.
+     */
+    public static final int MAX_PREPARED_STATEMENTS = 64;
+
     /**
      * Creates an uniform call.
      * 
@@ -162,11 +205,18 @@ public class JdbcClientHelper extends ClientHelper {
         ConnectionFactory connectionFactory = new DriverManagerConnectionFactory(
                 uri, properties);
 
+        // Create a pool of prepared statements for each connection, keyed by
+        // their SQL text
+        GenericKeyedObjectPoolFactory statementPoolFactory = new GenericKeyedObjectPoolFactory(
+                null, -1, GenericKeyedObjectPool.WHEN_EXHAUSTED_FAIL, 0, 1,
+                MAX_PREPARED_STATEMENTS);
+
         // Create the PoolableConnectionFactory, which wraps the "real"
         // Connections created by the ConnectionFactory with
         // the classes that implement the pooling functionality.
         PoolableConnectionFactory poolableConnectionFactory = new PoolableConnectionFactory(
-                connectionFactory, result, null, null, false, false);
+                connectionFactory, result, statementPoolFactory, null, false,
+                false);
 
         // To remove warnings
         poolableConnectionFactory.getPool();
@@ -215,6 +265,21 @@ public class JdbcClientHelper extends ClientHelper {
         this.connectionSources = new ArrayList<ConnectionSource>();
     }
 
+    /**
+     * Executes the SQL statements added to a batch then closes it.
+     * 
+     * @param batch
+     *            The batch to execute.
+     * @throws SQLException
+     */
+    private void executeBatch(Statement batch) throws SQLException {
+        try {
+            batch.executeBatch();
+        } finally {
+            batch.close();
+        }
+    }
+
     /**
      * Returns a JDBC connection.
      * 
@@ -286,79 +351,42 @@ public class JdbcClientHelper extends ClientHelper {
                 String connectionURI = request.getResourceRef().toString();
 
                 // Parse the request to extract necessary info
-                DocumentBuilder docBuilder = DocumentBuilderFactory
-                        .newInstance().newDocumentBuilder();
-                Document requestDoc = docBuilder.parse(new InputSource(request
-                        .getEntity().getReader()));
-
-                Element rootElt = (Element) requestDoc.getElementsByTagName(
-                        "request").item(0);
-                Element headerElt = (Element) rootElt.getElementsByTagName(
-                        "header").item(0);
-                Element connectionElt = (Element) headerElt
-                        .getElementsByTagName("connection").item(0);
-
-                // Read the connection pooling setting
-                Node usePoolingNode = connectionElt.getElementsByTagName(
-                        "usePooling").item(0);
-                boolean usePooling = usePoolingNode.getTextContent().equals(
-                        "true") ? true : false;
-
-                // Read the paging setting
-                Node startNode = headerElt.getElementsByTagName("start")
-                        .item(0);
-                int start = startNode != null
-                        && startNode.getTextContent().trim().length() > 0 ? Integer
-                        .parseInt(startNode.getTextContent()) : 0;
-
-                Node limitNode = headerElt.getElementsByTagName("limit")
-                        .item(0);
-                int limit = limitNode != null
-                        && limitNode.getTextContent().trim().length() > 0 ? Integer
-                        .parseInt(limitNode.getTextContent()) : -1;
-
-                // Read the connection properties
-                NodeList propertyNodes = connectionElt
-                        .getElementsByTagName("property");
-                Node propertyNode = null;
-                Properties properties = null;
-                String name = null;
-                String value = null;
-                for (int i = 0; i < propertyNodes.getLength(); i++) {
-                    propertyNode = propertyNodes.item(i);
-
-                    if (properties == null) {
-                        properties = new Properties();
-                    }
-                    name = propertyNode.getAttributes().getNamedItem("name")
-                            .getTextContent();
-                    value = propertyNode.getTextContent();
-                    properties.setProperty(name, value);
+                RequestReader requestReader = new RequestReader();
+                requestReader.parse(request.getEntity().getReader());
+                int start = requestReader.getStart();
+                int limit = requestReader.getLimit();
+
+                // Read the streaming settings
+                MediaType format = null;
+                if ("csv".equalsIgnoreCase(requestReader.getFormat())) {
+                    format = MediaType.TEXT_CSV;
+                } else if ("json".equalsIgnoreCase(requestReader.getFormat())) {
+                    format = MediaType.APPLICATION_JSON;
                 }
 
-                Node returnGeneratedKeysNode = headerElt.getElementsByTagName(
-                        "returnGeneratedKeys").item(0);
-                boolean returnGeneratedKeys = returnGeneratedKeysNode
-                        .getTextContent().equals("true") ? true : false;
-
-                // Read the SQL body and get the list of sql statements
-                Element bodyElt = (Element) rootElt
-                        .getElementsByTagName("body").item(0);
-                NodeList statementNodes = bodyElt
-                        .getElementsByTagName("statement");
-                List<String> sqlRequests = new ArrayList<String>();
-                for (int i = 0; i < statementNodes.getLength(); i++) {
-                    String sqlRequest = statementNodes.item(i).getTextContent();
-                    sqlRequests.add(sqlRequest);
+                int fetchSize = ResultSetRepresentation.DEFAULT_FETCH_SIZE;
+                if (requestReader.getFetchSize() != null) {
+                    fetchSize = requestReader.getFetchSize();
                 }
 
                 // Execute the List of SQL requests
-                connection = getConnection(connectionURI, properties,
-                        usePooling);
+                connection = getConnection(connectionURI,
+                        requestReader.getProperties(),
+                        requestReader.isUsePooling());
                 JdbcResult result = handleSqlRequests(connection,
-                        returnGeneratedKeys, sqlRequests);
-                response.setEntity(new RowSetRepresentation(result, start,
-                        limit));
+                        requestReader.isReturnGeneratedKeys(),
+                        (format == null) ? 0 : fetchSize,
+                        requestReader.getStatements());
+
+                if ((format != null) && (result != null)) {
+                    ResultSetRepresentation rsr = new ResultSetRepresentation(
+                            result, format, start, limit);
+                    rsr.setFetchSize(fetchSize);
+                    response.setEntity(rsr);
+                } else {
+                    response.setEntity(new RowSetRepresentation(result, start,
+                            limit));
+                }
             } catch (SQLException se) {
                 getLogger().log(Level.WARNING,
                         "Error while processing the SQL request", se);
@@ -381,25 +409,153 @@ public class JdbcClientHelper extends ClientHelper {
         }
     }
 
+    /**
+     * Executes a prepared statement once for each of its sets of parameters.
+     * When several executions are required and batching is supported, they are
+     * sent as a single batch. The prepared statement is taken from the
+     * statement pool of the connection when pooling is used.
+     * 
+     * @param connection
+     *            The JDBC connection.
+     * @param returnGeneratedKeys
+     *            Indicates if the generated keys must be returned.
+     * @param fetchSize
+     *            The number of rows fetched at once or 0 for the driver
+     *            default.
+     * @param batching
+     *            Indicates if batches are supported.
+     * @param sqlStatement
+     *            The SQL statement to execute.
+     * @return The executed prepared statement.
+     * @throws SQLException
+     */
+    private PreparedStatement handlePreparedStatement(Connection connection,
+            boolean returnGeneratedKeys, int fetchSize, boolean batching,
+            SqlStatement sqlStatement) throws SQLException {
+        // Generated keys bypass the statement pool, so only request them
+        // when they are actually returned
+        PreparedStatement statement = returnGeneratedKeys ? connection
+                .prepareStatement(sqlStatement.getSql(),
+                        Statement.RETURN_GENERATED_KEYS) : connection
+                .prepareStatement(sqlStatement.getSql());
+        int count = sqlStatement.getParameterSets().size();
+
+        try {
+            if (fetchSize > 0) {
+                statement.setFetchSize(fetchSize);
+            }
+
+            if (batching && (count > 1)) {
+                for (int i = 0; i < count; i++) {
+                    sqlStatement.setParameters(statement, i);
+                    statement.addBatch();
+                }
+
+                statement.executeBatch();
+
+                // Otherwise the statement can't be returned to the pool
+                statement.clearBatch();
+            } else {
+                for (int i = 0; i < count; i++) {
+                    sqlStatement.setParameters(statement, i);
+                    statement.execute();
+                }
+            }
+        } catch (SQLException se) {
+            statement.close();
+            throw se;
+        }
+
+        return statement;
+    }
+
     /**
      * Helper
      * 
      * @param connection
      * @param returnGeneratedKeys
-     * @param sqlRequests
+     * @param fetchSize
+     *            The number of rows fetched at once or 0 for the driver
+     *            default.
+     * @param sqlStatements
      * @return the result of the last executed SQL request
      */
     private JdbcResult handleSqlRequests(Connection connection,
-            boolean returnGeneratedKeys, List<String> sqlRequests) {
+            boolean returnGeneratedKeys, int fetchSize,
+            List<SqlStatement> sqlStatements) {
         JdbcResult result = null;
+        Statement batch = null;
+
         try {
-            connection.setAutoCommit(true);
-            Statement statement = connection.createStatement();
-            for (String sqlRequest : sqlRequests) {
-                statement.execute(sqlRequest,
-                        returnGeneratedKeys ? Statement.RETURN_GENERATED_KEYS
-                                : Statement.NO_GENERATED_KEYS);
-                result = new JdbcResult(statement);
+            // Several executions are grouped in a single transaction
+            boolean transaction = sqlStatements.size() > 1;
+            for (SqlStatement sqlStatement : sqlStatements) {
+                transaction = transaction
+                        || (sqlStatement.getParameterSets().size() > 1);
+            }
+
+            connection.setAutoCommit(!transaction);
+            boolean batching = transaction
+                    && connection.getMetaData().supportsBatchUpdates();
+
+            for (int i = 0; i < sqlStatements.size(); i++) {
+                SqlStatement sqlStatement = sqlStatements.get(i);
+                boolean last = (i == sqlStatements.size() - 1);
+
+                if (sqlStatement.isPrepared()) {
+                    if (batch != null) {
+                        // Preserve the order of execution
+                        executeBatch(batch);
+                        batch = null;
+                    }
+
+                    PreparedStatement statement = handlePreparedStatement(
+                            connection, returnGeneratedKeys && last,
+                            fetchSize, batching, sqlStatement);
+
+                    if (last) {
+                        result = new JdbcResult(statement);
+                    } else {
+                        // Returns the statement to the pool
+                        statement.close();
+                    }
+                } else if (batching && !last) {
+                    if (batch == null) {
+                        batch = connection.createStatement();
+                    }
+
+                    batch.addBatch(sqlStatement.getSql());
+                } else {
+                    if (batch != null) {
+                        executeBatch(batch);
+                        batch = null;
+                    }
+
+                    Statement statement = connection.createStatement();
+
+                    try {
+                        if (fetchSize > 0) {
+                            statement.setFetchSize(fetchSize);
+                        }
+
+                        int keys = Statement.NO_GENERATED_KEYS;
+                        if (returnGeneratedKeys && last) {
+                            keys = Statement.RETURN_GENERATED_KEYS;
+                        }
+
+                        statement.execute(sqlStatement.getSql(), keys);
+                    } catch (SQLException se) {
+                        statement.close();
+                        throw se;
+                    }
+
+                    if (last) {
+                        result = new JdbcResult(statement);
+                    } else {
+                        // Only the result of the last statement is returned
+                        statement.close();
+                    }
+                }
             }
 
             // Commit any changes to the database
@@ -409,6 +565,7 @@ public class JdbcClientHelper extends ClientHelper {
         } catch (SQLException se) {
             getLogger().log(Level.WARNING,
                     "Error while processing the SQL requests", se);
+            result = null;
             try {
                 if (!connection.getAutoCommit()) {
                     connection.rollback();
@@ -417,7 +574,18 @@ public class JdbcClientHelper extends ClientHelper {
                 getLogger().log(Level.WARNING,
                         "Error while rollbacking the transaction", se);
             }
+        } finally {
+            if (batch != null) {
+                // The batch wasn't executed because of an error
+                try {
+                    batch.close();
+                } catch (SQLException se) {
+                    getLogger().log(Level.FINE,
+                            "Unable to close the batch statement", se);
+                }
+            }
         }
+
         return result;
 
     }
@@ -0,0 +1,410 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.jdbc;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.data.MediaType;
+import org.restlet.representation.WriterRepresentation;
+
+/**
+ * Streamed representation of a ResultSet wrapped in a JdbcResult instance.
+ * Contrary to the {@link RowSetRepresentation}, rows aren't cached in memory
+ * but read from the live ResultSet as they are written, so that the size of
+ * the results is only limited by the database.<br>
+ * <br>
+ * Two formats are supported. With the {@link MediaType#TEXT_CSV} media type,
+ * a header line with the column labels is followed by a line for each row, as
+ * described by RFC 4180. With the {@link MediaType#APPLICATION_JSON} media
+ * type, each row is written as a JSON object on its own line, keyed by column
+ * label ("JSON lines").<br>
+ * <br>
+ * The connection of the JdbcResult is released once the representation is
+ * written or released. This representation is therefore transient.
+ * 
+ * @see JdbcClientHelper
+ * @author Jerome Louvel
+ */
+public class ResultSetRepresentation extends WriterRepresentation {
+
+    /** The default number of rows fetched from the database at once. */
+    public static final int DEFAULT_FETCH_SIZE = 100;
+
+    /**
+     * Appends a value to a CSV line, quoting it if needed.
+     * 
+     * @param value
+     *            The value or null.
+     * @param writer
+     *            The writer.
+     * @throws IOException
+     */
+    private static void writeCsv(String value, Writer writer)
+            throws IOException {
+        if (value == null) {
+            return;
+        }
+
+        boolean quote = false;
+
+        for (int i = 0; !quote && (i < value.length()); i++) {
+            char c = value.charAt(i);
+            quote = (c == ',') || (c == '"') || (c == '\r') || (c == '\n');
+        }
+
+        if (quote) {
+            writer.write('"');
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+
+                if (c == '"') {
+                    writer.write('"');
+                }
+
+                writer.write(c);
+            }
+
+            writer.write('"');
+        } else {
+            writer.write(value);
+        }
+    }
+
+    /**
+     * Writes a JSON string.
+     * 
+     * @param value
+     *            The string value.
+     * @param writer
+     *            The writer.
+     * @throws IOException
+     */
+    private static void writeJson(String value, Writer writer)
+            throws IOException {
+        writer.write('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+            case '"':
+                writer.write("\\\"");
+                break;
+            case '\\':
+                writer.write("\\\\");
+                break;
+            case '\n':
+                writer.write("\\n");
+                break;
+            case '\r':
+                writer.write("\\r");
+                break;
+            case '\t':
+                writer.write("\\t");
+                break;
+            default:
+                if ((c < 0x20) || (c == '\u2028') || (c == '\u2029')) {
+                    String hex = Integer.toHexString(c);
+                    writer.write("\\u");
+
+                    for (int j = hex.length(); j < 4; j++) {
+                        writer.write('0');
+                    }
+
+                    writer.write(hex);
+                } else {
+                    writer.write(c);
+                }
+            }
+        }
+
+        writer.write('"');
+    }
+
+    /** The number of rows fetched from the database at once. */
+    private volatile int fetchSize;
+
+    /** JdbcResult instance that gives access to the resultSet. */
+    private volatile JdbcResult jdbcResult;
+
+    /** The page size or -1 if no limit is set. */
+    private final int limit;
+
+    /** The start index of the page or 0 for the first result. */
+    private final int start;
+
+    /**
+     * Constructor. Writes all the rows as JSON lines.
+     * 
+     * @param jdbcResult
+     *            The inner JdbcResult.
+     */
+    public ResultSetRepresentation(JdbcResult jdbcResult) {
+        this(jdbcResult, MediaType.APPLICATION_JSON, 0, -1);
+    }
+
+    /**
+     * Constructor with paging.
+     * 
+     * @param jdbcResult
+     *            The inner JdbcResult.
+     * @param mediaType
+     *            The media type, either {@link MediaType#TEXT_CSV} or
+     *            {@link MediaType#APPLICATION_JSON}.
+     * @param start
+     *            The start index of the page or 0 for the first result.
+     * @param limit
+     *            The page size or -1 if no limit is set.
+     */
+    public ResultSetRepresentation(JdbcResult jdbcResult, MediaType mediaType,
+            int start, int limit) {
+        super(mediaType);
+
+        if (!MediaType.TEXT_CSV.equals(mediaType, true)
+                && !MediaType.APPLICATION_JSON.equals(mediaType, true)) {
+            throw new IllegalArgumentException("Unsupported media type: "
+                    + mediaType);
+        }
+
+        this.fetchSize = DEFAULT_FETCH_SIZE;
+        this.jdbcResult = jdbcResult;
+        this.limit = limit;
+        this.start = start;
+        setTransient(true);
+    }
+
+    /**
+     * Returns the number of rows fetched from the database at once.
+     * 
+     * @return The number of rows fetched from the database at once.
+     */
+    public int getFetchSize() {
+        return this.fetchSize;
+    }
+
+    /**
+     * Returns the inner JdbcResult instance or null once released.
+     * 
+     * @return The inner JdbcResult instance or null.
+     */
+    public JdbcResult getJdbcResult() {
+        return this.jdbcResult;
+    }
+
+    /**
+     * Indicates if the JDBC type of a column is written as a JSON number.
+     * 
+     * @param type
+     *            The JDBC type.
+     * @return True if the JDBC type is written as a JSON number.
+     */
+    private boolean isNumber(int type) {
+        switch (type) {
+        case Types.BIGINT:
+        case Types.DECIMAL:
+        case Types.INTEGER:
+        case Types.NUMERIC:
+        case Types.SMALLINT:
+        case Types.TINYINT:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Releases the connection of the JdbcResult if not done yet.
+     */
+    @Override
+    public void release() {
+        JdbcResult result = this.jdbcResult;
+        this.jdbcResult = null;
+
+        if (result != null) {
+            try {
+                result.release();
+            } catch (SQLException se) {
+                Context.getCurrentLogger().log(Level.WARNING,
+                        "Unable to release the JDBC connection", se);
+            }
+        }
+
+        super.release();
+    }
+
+    /**
+     * Sets the number of rows fetched from the database at once.
+     * 
+     * @param fetchSize
+     *            The number of rows fetched from the database at once.
+     */
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void write(Writer writer) throws IOException {
+        JdbcResult result = this.jdbcResult;
+
+        if (result == null) {
+            throw new IOException(
+                    "The JDBC result has already been written or released");
+        }
+
+        try {
+            ResultSet resultSet = result.getResultSet();
+
+            if (resultSet != null) {
+                resultSet.setFetchSize(getFetchSize());
+
+                if (MediaType.TEXT_CSV.equals(getMediaType(), true)) {
+                    writeCsv(resultSet, writer);
+                } else {
+                    writeJson(resultSet, writer);
+                }
+
+                resultSet.close();
+            }
+
+            writer.flush();
+        } catch (SQLException se) {
+            throw new IOException(se.getMessage());
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Writes the rows of the page as CSV lines, after a header line.
+     * 
+     * @param resultSet
+     *            The result set.
+     * @param writer
+     *            The writer.
+     * @throws SQLException
+     * @throws IOException
+     */
+    private void writeCsv(ResultSet resultSet, Writer writer)
+            throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+
+        for (int i = 1; i <= count; i++) {
+            if (i > 1) {
+                writer.write(',');
+            }
+
+            writeCsv(metaData.getColumnLabel(i), writer);
+        }
+
+        writer.write("\r\n");
+
+        for (int row = 0; ((limit < 0) || (row < start + limit))
+                && resultSet.next(); row++) {
+            if (row >= start) {
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+
+                    writeCsv(resultSet.getString(i), writer);
+                }
+
+                writer.write("\r\n");
+            }
+        }
+    }
+
+    /**
+     * Writes the rows of the page as JSON objects, one per line.
+     * 
+     * @param resultSet
+     *            The result set.
+     * @param writer
+     *            The writer.
+     * @throws SQLException
+     * @throws IOException
+     */
+    private void writeJson(ResultSet resultSet, Writer writer)
+            throws SQLException, IOException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int count = metaData.getColumnCount();
+        String[] labels = new String[count + 1];
+        int[] types = new int[count + 1];
+
+        for (int i = 1; i <= count; i++) {
+            labels[i] = metaData.getColumnLabel(i);
+            types[i] = metaData.getColumnType(i);
+        }
+
+        for (int row = 0; ((limit < 0) || (row < start + limit))
+                && resultSet.next(); row++) {
+            if (row >= start) {
+                writer.write('{');
+
+                for (int i = 1; i <= count; i++) {
+                    if (i > 1) {
+                        writer.write(',');
+                    }
+
+                    writeJson(labels[i], writer);
+                    writer.write(':');
+                    String value = resultSet.getString(i);
+
+                    if (value == null) {
+                        writer.write("null");
+                    } else if (types[i] == Types.BOOLEAN
+                            || types[i] == Types.BIT) {
+                        writer.write(resultSet.getBoolean(i) ? "true" : "false");
+                    } else if (isNumber(types[i])) {
+                        writer.write(value);
+                    } else {
+                        writeJson(value, writer);
+                    }
+                }
+
+                writer.write("}\n");
+            }
+        }
+    }
+
+}
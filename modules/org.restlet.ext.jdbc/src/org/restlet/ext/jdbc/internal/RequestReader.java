@@ -0,0 +1,337 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.ext.jdbc.internal;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Streaming reader of JDBC request documents. The document is parsed with SAX
+ * so that large bulk requests don't need to be loaded as a DOM tree first.
+ * 
+ * @author Thierry Boileau
+ */
+public class RequestReader extends DefaultHandler {
+
+    /**
+     * Returns the SQL type matching a name of a constant of {@link Types}.
+     * 
+     * @param name
+     *            The name of the SQL type, such as "INTEGER".
+     * @return The SQL type.
+     * @throws SAXException
+     */
+    private static int getSqlType(String name) throws SAXException {
+        try {
+            return Types.class.getField(name.trim().toUpperCase()).getInt(
+                    null);
+        } catch (Exception e) {
+            throw new SAXException("Unknown SQL type: " + name);
+        }
+    }
+
+    /** Indicates if the current parameter is a SQL NULL. */
+    private boolean currentParameterNull;
+
+    /** The current set of parameters. */
+    private List<SqlStatement.Parameter> currentParameters;
+
+    /** The sets of parameters of the current statement. */
+    private List<List<SqlStatement.Parameter>> currentParameterSets;
+
+    /** The current parameter type. */
+    private Integer currentParameterType;
+
+    /** The current property name. */
+    private String currentPropertyName;
+
+    /** The SQL text of the current statement. */
+    private StringBuilder currentSql;
+
+    /** The number of rows fetched at once or null. */
+    private Integer fetchSize;
+
+    /** The name of the streaming format or null. */
+    private String format;
+
+    /** The maximum number of results or -1. */
+    private int limit;
+
+    /** The names of the elements currently open. */
+    private final List<String> path;
+
+    /** The connection properties. */
+    private final Properties properties;
+
+    /** Indicates if the generated keys must be returned. */
+    private boolean returnGeneratedKeys;
+
+    /** The index of the first result. */
+    private int start;
+
+    /** The SQL statements. */
+    private final List<SqlStatement> statements;
+
+    /** The text content of the current element. */
+    private final StringBuilder text;
+
+    /** Indicates if the connection pooling should be used. */
+    private boolean usePooling;
+
+    /**
+     * Constructor.
+     */
+    public RequestReader() {
+        this.limit = -1;
+        this.path = new ArrayList<String>();
+        this.properties = new Properties();
+        this.statements = new ArrayList<SqlStatement>();
+        this.text = new StringBuilder();
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length)
+            throws SAXException {
+        if (this.currentSql != null && "statement".equals(getCurrent())) {
+            this.currentSql.append(ch, start, length);
+        } else {
+            this.text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName)
+            throws SAXException {
+        String name = this.path.remove(this.path.size() - 1);
+        String value = this.text.toString().trim();
+
+        if ("statement".equals(name) && (this.currentSql != null)) {
+            SqlStatement statement = new SqlStatement(this.currentSql
+                    .toString().trim());
+            statement.getParameterSets().addAll(this.currentParameterSets);
+            this.statements.add(statement);
+            this.currentSql = null;
+            this.currentParameterSets = null;
+            this.currentParameters = null;
+        } else if ("parameters".equals(name)) {
+            this.currentParameters = null;
+        } else if ("parameter".equals(name)
+                && (this.currentParameters != null)) {
+            this.currentParameters.add(new SqlStatement.Parameter(
+                    this.currentParameterNull ? null : this.text.toString(),
+                    this.currentParameterType));
+        } else if ("property".equals(name)) {
+            if (this.currentPropertyName != null) {
+                this.properties.setProperty(this.currentPropertyName,
+                        this.text.toString());
+            }
+        } else if ("usePooling".equals(name)) {
+            this.usePooling = "true".equals(value);
+        } else if ("returnGeneratedKeys".equals(name)) {
+            this.returnGeneratedKeys = "true".equals(value);
+        } else if ("start".equals(name)) {
+            this.start = (value.length() > 0) ? parseInt(value) : 0;
+        } else if ("limit".equals(name)) {
+            this.limit = (value.length() > 0) ? parseInt(value) : -1;
+        } else if ("format".equals(name)) {
+            this.format = value;
+        } else if ("fetchSize".equals(name)) {
+            this.fetchSize = (value.length() > 0) ? parseInt(value) : null;
+        }
+
+        this.text.setLength(0);
+    }
+
+    /**
+     * Returns the name of the element currently open.
+     * 
+     * @return The name of the element currently open or null.
+     */
+    private String getCurrent() {
+        return this.path.isEmpty() ? null : this.path
+                .get(this.path.size() - 1);
+    }
+
+    /**
+     * Returns the number of rows fetched at once or null.
+     * 
+     * @return The number of rows fetched at once or null.
+     */
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * Returns the name of the streaming format or null.
+     * 
+     * @return The name of the streaming format or null.
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the maximum number of results or -1.
+     * 
+     * @return The maximum number of results or -1.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the connection properties.
+     * 
+     * @return The connection properties.
+     */
+    public Properties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Returns the index of the first result.
+     * 
+     * @return The index of the first result.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the SQL statements.
+     * 
+     * @return The SQL statements.
+     */
+    public List<SqlStatement> getStatements() {
+        return statements;
+    }
+
+    /**
+     * Indicates if the generated keys must be returned.
+     * 
+     * @return True if the generated keys must be returned.
+     */
+    public boolean isReturnGeneratedKeys() {
+        return returnGeneratedKeys;
+    }
+
+    /**
+     * Indicates if the connection pooling should be used.
+     * 
+     * @return True if the connection pooling should be used.
+     */
+    public boolean isUsePooling() {
+        return usePooling;
+    }
+
+    /**
+     * Parses a JDBC request document.
+     * 
+     * @param reader
+     *            The reader of the document.
+     * @throws IOException
+     * @throws ParserConfigurationException
+     * @throws SAXException
+     */
+    public void parse(Reader reader) throws IOException,
+            ParserConfigurationException, SAXException {
+        SAXParserFactory.newInstance().newSAXParser()
+                .parse(new InputSource(reader), this);
+    }
+
+    /**
+     * Parses an integer value.
+     * 
+     * @param value
+     *            The value to parse.
+     * @return The integer value.
+     * @throws SAXException
+     */
+    private int parseInt(String value) throws SAXException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException nfe) {
+            throw new SAXException("Invalid integer value: " + value, nfe);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName,
+            Attributes attributes) throws SAXException {
+        String name = (localName.length() > 0) ? localName : qName;
+        String parent = getCurrent();
+
+        if ("statement".equals(name) && "body".equals(parent)) {
+            this.currentSql = new StringBuilder();
+            this.currentParameterSets = new ArrayList<List<SqlStatement.Parameter>>();
+        } else if ("parameters".equals(name) && (this.currentSql != null)) {
+            this.currentParameters = new ArrayList<SqlStatement.Parameter>();
+            this.currentParameterSets.add(this.currentParameters);
+        } else if ("parameter".equals(name) && (this.currentSql != null)) {
+            if ("statement".equals(parent)) {
+                // Parameters directly inside the statement form a single set
+                if (this.currentParameterSets.isEmpty()) {
+                    this.currentParameterSets
+                            .add(new ArrayList<SqlStatement.Parameter>());
+                }
+
+                this.currentParameters = this.currentParameterSets.get(0);
+            }
+
+            String type = attributes.getValue("type");
+            this.currentParameterType = (type == null) ? null : Integer
+                    .valueOf(getSqlType(type));
+            this.currentParameterNull = "true".equals(attributes
+                    .getValue("null"));
+        } else if ("property".equals(name)) {
+            this.currentPropertyName = attributes.getValue("name");
+        }
+
+        this.path.add(name);
+        this.text.setLength(0);
+    }
+}
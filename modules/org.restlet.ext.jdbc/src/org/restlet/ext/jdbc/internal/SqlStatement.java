@@ -0,0 +1,181 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.ext.jdbc.internal;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SQL statement read from a JDBC request document. When parameters are
+ * specified, the statement is executed as a prepared statement, once for each
+ * set of parameters.
+ * 
+ * @author Thierry Boileau
+ */
+public class SqlStatement {
+
+    /**
+     * Parameter of a prepared statement.
+     */
+    public static class Parameter {
+        /** The SQL type as defined by {@link Types} or null. */
+        private final Integer type;
+
+        /** The value or null for a SQL NULL. */
+        private final String value;
+
+        /**
+         * Constructor.
+         * 
+         * @param value
+         *            The value or null for a SQL NULL.
+         * @param type
+         *            The SQL type as defined by {@link Types} or
+         *            null.
+         */
+        public Parameter(String value, Integer type) {
+            this.value = value;
+            this.type = type;
+        }
+
+        /**
+         * Returns the SQL type as defined by {@link Types} or null.
+         * 
+         * @return The SQL type or null.
+         */
+        public Integer getType() {
+            return type;
+        }
+
+        /**
+         * Returns the value or null for a SQL NULL.
+         * 
+         * @return The value or null for a SQL NULL.
+         */
+        public String getValue() {
+            return value;
+        }
+
+        /**
+         * Sets this parameter on a prepared statement. Typed values are
+         * converted by the driver.
+         * 
+         * @param statement
+         *            The prepared statement.
+         * @param index
+         *            The index of the parameter, starting at 1.
+         * @throws SQLException
+         */
+        public void setOn(PreparedStatement statement, int index)
+                throws SQLException {
+            if (getType() == null) {
+                if (getValue() == null) {
+                    statement.setNull(index, Types.VARCHAR);
+                } else {
+                    statement.setString(index, getValue());
+                }
+            } else if (getValue() == null) {
+                statement.setNull(index, getType());
+            } else {
+                statement.setObject(index, getValue(), getType());
+            }
+        }
+    }
+
+    /** The sets of parameters, one for each execution. */
+    private final List<List<Parameter>> parameterSets;
+
+    /** The SQL text. */
+    private final String sql;
+
+    /**
+     * Constructor.
+     * 
+     * @param sql
+     *            The SQL text.
+     */
+    public SqlStatement(String sql) {
+        this.sql = sql;
+        this.parameterSets = new ArrayList<List<Parameter>>();
+    }
+
+    /**
+     * Returns the sets of parameters, one for each execution.
+     * 
+     * @return The sets of parameters.
+     */
+    public List<List<Parameter>> getParameterSets() {
+        return parameterSets;
+    }
+
+    /**
+     * Returns the SQL text.
+     * 
+     * @return The SQL text.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Indicates if the statement must be executed as a prepared statement.
+     * 
+     * @return True if parameters were specified.
+     */
+    public boolean isPrepared() {
+        return !this.parameterSets.isEmpty();
+    }
+
+    /**
+     * Sets a set of parameters on a prepared statement.
+     * 
+     * @param statement
+     *            The prepared statement.
+     * @param index
+     *            The index of the set of parameters.
+     * @throws SQLException
+     */
+    public void setParameters(PreparedStatement statement, int index)
+            throws SQLException {
+        List<Parameter> parameters = this.parameterSets.get(index);
+
+        for (int i = 0; i < parameters.size(); i++) {
+            parameters.get(i).setOn(statement, i + 1);
+        }
+    }
+}
@@ -36,10 +36,12 @@ package org.restlet.ext.oauth;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.logging.Level;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.restlet.Application;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.ChallengeRequest;
@@ -54,6 +56,7 @@ import org.restlet.ext.json.JsonRepresentation;
 import org.restlet.ext.oauth.internal.CookieCopyClientResource;
 import org.restlet.ext.oauth.internal.JsonStringRepresentation;
 import org.restlet.ext.oauth.internal.Scopes;
+import org.restlet.ext.oauth.internal.ValidationCache;
 import org.restlet.representation.Representation;
 import org.restlet.resource.ClientResource;
 import org.restlet.security.Role;
@@ -76,6 +79,13 @@ import org.restlet.util.Series;
  * be validated against that owner. The owner is also specified as request
  * attribute (defaults to DEFAULT_OWNER_ATTRIBUTE)
  * 
+ * By default each request is validated by the validation resource. Set a cache
+ * size to keep the validations of the most recently used tokens, for their
+ * time to live and no longer than the expiration of the tokens. Rejections are
+ * also cached, for a shorter time. When a refresh ahead time is set, cached
+ * validations about to expire are refreshed in the background by the task
+ * service of the application.
+ * 
  * Example invocation:
  * 
  * <pre>
@@ -134,6 +144,24 @@ public class OAuthAuthorizer extends RoleAuthorizer {
 
     private final String roleAttribute;
 
+    /** The default time to live of the cached validations, in milliseconds. */
+    public static final long DEFAULT_CACHE_TIME_TO_LIVE = 60000L;
+
+    /** The default time to live of the cached rejections, in milliseconds. */
+    public static final long DEFAULT_CACHE_NEGATIVE_TIME_TO_LIVE = 5000L;
+
+    /** The cached validations or null if they aren't cached. */
+    private volatile ValidationCache cache;
+
+    /** The time to live of the cached rejections, in milliseconds. */
+    private volatile long cacheNegativeTimeToLive = DEFAULT_CACHE_NEGATIVE_TIME_TO_LIVE;
+
+    /** The time before expiration when a validation is refreshed. */
+    private volatile long cacheRefreshAheadTime;
+
+    /** The time to live of the cached validations, in milliseconds. */
+    private volatile long cacheTimeToLive = DEFAULT_CACHE_TIME_TO_LIVE;
+
     /**
      * Default constructor.
      */
@@ -274,71 +302,66 @@ public class OAuthAuthorizer extends RoleAuthorizer {
             resp.setStatus(Status.CLIENT_ERROR_BAD_REQUEST);
         } else {
             getLogger().fine("Found Access Token " + accessToken);
-            ClientResource authResource = new CookieCopyClientResource(
-                    this.validateRef);
-            if (this.client != null) {
-                authResource.setNext(this.client);
-            }
 
-            JSONObject request;
             try {
-                request = createValidationRequest(accessToken, req);
-                // Representation repr = new JsonRepresentation(request);
-                Representation repr = new JsonStringRepresentation(request);
-                getLogger().fine("Posting to validator... json = " + request);
-                // RETRIEVE JSON...WORKAROUND TO HANDLE ANDROID
-                Representation r = authResource.post(repr);
-                getLogger().fine("After posting to validator...");
-                repr.release();
-                getLogger().fine(
-                        "Got Respose from auth resource OK "
-                                + r.getClass().getCanonicalName());
-                JsonRepresentation returned = new JsonRepresentation(r);
-
-                // GET OBJECT
-                JSONObject response = returned.getJsonObject();
-                boolean authenticated = response.getBoolean("authenticated");
-
-                if (response.has("tokenOwner")) {
-                    setUser(req, response, accessToken);
+                JSONObject request = createValidationRequest(accessToken, req);
+                ValidationCache cache = this.cache;
+                String key = null;
+                ValidationCache.Entry entry = null;
+
+                if (cache != null) {
+                    key = getCacheKey(request);
+                    entry = cache.get(key);
+
+                    if (entry != null) {
+                        getLogger().fine("Found cached validation");
+                        refresh(key, request, entry);
+                    }
                 }
 
-                String error = null;
-                if (response.has("error")) {
-                    error = response.getString("error");
+                if (entry == null) {
+                    entry = validate(request);
+
+                    if (cache != null) {
+                        cache.put(key, entry);
+                    }
                 }
 
-                getLogger().fine("In Auth Filer -> " + authenticated);
+                if (entry.getTokenOwner() != null) {
+                    setUser(req, entry.getTokenOwner(), accessToken);
+                }
 
-                // Clean-up
-                returned.release();
-                r.release();
-                authResource.release();
+                getLogger().fine("In Auth Filer -> " + entry.isAuthenticated());
 
-                if (authenticated) {
+                if (entry.isAuthenticated()) {
                     return true;
                 }
 
                 // handle any errors:
-                handleError(error, resp);
-
+                handleError(entry.getError(), resp);
             } catch (JSONException e) {
                 // TODO Auto-generated catch block
                 e.printStackTrace();
             } catch (IOException e) {
                 // TODO Auto-generated catch block
                 e.printStackTrace();
-            } finally {
-                if (authResource != null) {
-                    authResource.getResponse().release();
-                    authResource.release();
-                }
             }
         }
 
         return false;
     }
 
+    /**
+     * Removes all the cached validations.
+     */
+    public void clearCache() {
+        ValidationCache cache = this.cache;
+
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
     // GET SIZE TO HANDLE BUG IN GLASSFISH
     /*
      * private Representation createJsonRepresentation(JSONObject request){
@@ -438,6 +461,90 @@ public class OAuthAuthorizer extends RoleAuthorizer {
         return accessToken;
     }
 
+    /**
+     * Returns the number of validations found in the cache.
+     * 
+     * @return The number of validations found in the cache.
+     */
+    public long getCacheHitCount() {
+        ValidationCache cache = this.cache;
+        return (cache == null) ? 0 : cache.getHitCount();
+    }
+
+    /**
+     * Returns the key of a validation request in the cache. It is made of the
+     * access token, the owner and the scopes, as the URI of the request
+     * doesn't change the answer of the validation resource.
+     * 
+     * @param request
+     *            The validation request.
+     * @return The key of the validation request in the cache.
+     * @throws JSONException
+     */
+    private String getCacheKey(JSONObject request) throws JSONException {
+        StringBuilder sb = new StringBuilder();
+        sb.append(request.getString("access_token"));
+        sb.append(' ').append(request.optString("owner"));
+
+        if (request.has("scope")) {
+            sb.append(' ').append(request.getJSONArray("scope"));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns the number of validations not found in the cache.
+     * 
+     * @return The number of validations not found in the cache.
+     */
+    public long getCacheMissCount() {
+        ValidationCache cache = this.cache;
+        return (cache == null) ? 0 : cache.getMissCount();
+    }
+
+    /**
+     * Returns the time to live of the cached rejections, in milliseconds.
+     * 
+     * @return The time to live of the cached rejections, in milliseconds.
+     */
+    public long getCacheNegativeTimeToLive() {
+        return cacheNegativeTimeToLive;
+    }
+
+    /**
+     * Returns the time before the expiration of a cached validation when it is
+     * refreshed in the background, in milliseconds. Zero means that cached
+     * validations are never refreshed.
+     * 
+     * @return The time before the expiration of a cached validation when it is
+     *         refreshed, in milliseconds.
+     */
+    public long getCacheRefreshAheadTime() {
+        return cacheRefreshAheadTime;
+    }
+
+    /**
+     * Returns the maximum number of cached validations. Zero means that the
+     * validations aren't cached.
+     * 
+     * @return The maximum number of cached validations.
+     */
+    public int getCacheSize() {
+        ValidationCache cache = this.cache;
+        return (cache == null) ? 0 : cache.getMaxSize();
+    }
+
+    /**
+     * Returns the time to live of the cached validations, in milliseconds. The
+     * expiration of the access token is also taken into account.
+     * 
+     * @return The time to live of the cached validations, in milliseconds.
+     */
+    public long getCacheTimeToLive() {
+        return cacheTimeToLive;
+    }
+
     /**
      * Completes the given {@link Response} according to the given error.
      * 
@@ -486,21 +593,102 @@ public class OAuthAuthorizer extends RoleAuthorizer {
         }
     }
 
+    /**
+     * Refreshes a cached validation in the background if it is about to
+     * expire. The task service of the current application is used.
+     * 
+     * @param key
+     *            The key of the validation request in the cache.
+     * @param request
+     *            The validation request.
+     * @param entry
+     *            The cached validation.
+     */
+    private void refresh(final String key, final JSONObject request,
+            ValidationCache.Entry entry) {
+        long refreshAheadTime = getCacheRefreshAheadTime();
+        Application application = getApplication();
+
+        if ((refreshAheadTime > 0)
+                && (application != null)
+                && entry.isAuthenticated()
+                && (entry.getExpirationTime() - System.currentTimeMillis() <= refreshAheadTime)
+                && entry.startRefresh()) {
+            application.getTaskService().execute(new Runnable() {
+                public void run() {
+                    try {
+                        ValidationCache.Entry refreshed = validate(request);
+                        ValidationCache cache = OAuthAuthorizer.this.cache;
+
+                        if (cache != null) {
+                            cache.put(key, refreshed);
+                        }
+                    } catch (Exception e) {
+                        getLogger().log(Level.FINE,
+                                "Unable to refresh a cached validation", e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Sets the time to live of the cached rejections, in milliseconds.
+     * 
+     * @param cacheNegativeTimeToLive
+     *            The time to live of the cached rejections, in milliseconds.
+     */
+    public void setCacheNegativeTimeToLive(long cacheNegativeTimeToLive) {
+        this.cacheNegativeTimeToLive = cacheNegativeTimeToLive;
+    }
+
+    /**
+     * Sets the time before the expiration of a cached validation when it is
+     * refreshed in the background, in milliseconds. Zero means that cached
+     * validations are never refreshed.
+     * 
+     * @param cacheRefreshAheadTime
+     *            The time before the expiration of a cached validation when it
+     *            is refreshed, in milliseconds.
+     */
+    public void setCacheRefreshAheadTime(long cacheRefreshAheadTime) {
+        this.cacheRefreshAheadTime = cacheRefreshAheadTime;
+    }
+
+    /**
+     * Sets the maximum number of cached validations. Zero, the default value,
+     * means that each request is validated by the validation resource. The
+     * cached validations are discarded.
+     * 
+     * @param cacheSize
+     *            The maximum number of cached validations.
+     */
+    public void setCacheSize(int cacheSize) {
+        this.cache = (cacheSize > 0) ? new ValidationCache(cacheSize) : null;
+    }
+
+    /**
+     * Sets the time to live of the cached validations, in milliseconds.
+     * 
+     * @param cacheTimeToLive
+     *            The time to live of the cached validations, in milliseconds.
+     */
+    public void setCacheTimeToLive(long cacheTimeToLive) {
+        this.cacheTimeToLive = cacheTimeToLive;
+    }
+
     /**
      * Instantiates the {@link User} according to the given credentials and
      * update the given {@link Request}.
      * 
      * @param req
      *            The request.
-     * @param response
-     *            The {@link JSONObject} that represents the response.
+     * @param tokenOwner
+     *            The owner of the token.
      * @param accessToken
      *            The access token.
-     * @throws JSONException
      */
-    private void setUser(Request req, JSONObject response, String accessToken)
-            throws JSONException {
-        String tokenOwner = response.getString("tokenOwner");
+    private void setUser(Request req, String tokenOwner, String accessToken) {
         getLogger().fine(
                 "User " + tokenOwner + " is accessing : "
                         + req.getOriginalRef());
@@ -525,4 +713,68 @@ public class OAuthAuthorizer extends RoleAuthorizer {
          */
         return STOP;
     }
+
+    /**
+     * Posts a validation request to the validation resource.
+     * 
+     * @param request
+     *            The validation request.
+     * @return The answer of the validation resource.
+     * @throws JSONException
+     * @throws IOException
+     */
+    private ValidationCache.Entry validate(JSONObject request)
+            throws JSONException, IOException {
+        ClientResource authResource = new CookieCopyClientResource(
+                this.validateRef);
+        if (this.client != null) {
+            authResource.setNext(this.client);
+        }
+
+        try {
+            // Representation repr = new JsonRepresentation(request);
+            Representation repr = new JsonStringRepresentation(request);
+            getLogger().fine("Posting to validator... json = " + request);
+            // RETRIEVE JSON...WORKAROUND TO HANDLE ANDROID
+            Representation r = authResource.post(repr);
+            getLogger().fine("After posting to validator...");
+            repr.release();
+            getLogger().fine(
+                    "Got Respose from auth resource OK "
+                            + r.getClass().getCanonicalName());
+            JsonRepresentation returned = new JsonRepresentation(r);
+
+            // GET OBJECT
+            JSONObject response = returned.getJsonObject();
+            boolean authenticated = response.getBoolean("authenticated");
+
+            String tokenOwner = null;
+            if (response.has("tokenOwner")) {
+                tokenOwner = response.getString("tokenOwner");
+            }
+
+            String error = null;
+            if (response.has("error")) {
+                error = response.getString("error");
+            }
+
+            // The validation can't be kept after the token expires
+            long timeToLive = authenticated ? getCacheTimeToLive()
+                    : getCacheNegativeTimeToLive();
+            if (authenticated && response.has(OAuthServerResource.EXPIRES_IN)) {
+                timeToLive = Math.min(timeToLive, response
+                        .getLong(OAuthServerResource.EXPIRES_IN) * 1000L);
+            }
+
+            // Clean-up
+            returned.release();
+            r.release();
+
+            return new ValidationCache.Entry(authenticated, tokenOwner, error,
+                    System.currentTimeMillis() + timeToLive);
+        } finally {
+            authResource.getResponse().release();
+            authResource.release();
+        }
+    }
 }
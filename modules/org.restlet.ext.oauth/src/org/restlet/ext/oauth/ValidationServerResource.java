@@ -191,6 +191,11 @@ public class ValidationServerResource extends OAuthServerResource {
                     }
                 }
 
+                // Lets the authorizers know how long the answer holds
+                if (authenticated && (t instanceof ExpireToken)) {
+                    response.put(EXPIRES_IN, ((ExpireToken) t).getExpiresIn());
+                }
+
                 response.put("authenticated", authenticated);
 
                 if (error != null) {
@@ -49,6 +49,8 @@ public class ExpireToken extends Token {
 
     private final long expireTime;
 
+    private volatile long issueTime;
+
     private final String refreshToken;
     
     private final AuthenticatedUser user;
@@ -63,6 +65,7 @@ public class ExpireToken extends Token {
         this.token = token;
         this.user = user;
         expireTime = expTimeSec;
+        issueTime = System.currentTimeMillis();
     }
 
     public void setFuture(ScheduledFuture<?> future) {
@@ -77,6 +80,11 @@ public class ExpireToken extends Token {
         return expireTime;
     }
 
+    public long getExpiresIn() {
+        long elapsed = (System.currentTimeMillis() - issueTime) / 1000;
+        return Math.max(0, expireTime - elapsed);
+    }
+
     public String getRefreshToken() {
         return refreshToken;
     }
@@ -97,6 +105,7 @@ public class ExpireToken extends Token {
 
     void setToken(String token) {
         this.token = token;
+        this.issueTime = System.currentTimeMillis();
     }
 
     @Override
@@ -0,0 +1,444 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.oauth.internal;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.ext.oauth.AuthenticatedUser;
+
+/**
+ * TokenGenerator implementation that keeps a bounded number of codes and tokens
+ * in memory. Codes expire after a fixed time to live, and expiring tokens after
+ * their expire period. Instead of scheduling a task per token, expired entries
+ * are removed by a single task run periodically, which only visits the entries
+ * due. When the capacity is reached, the oldest entries are evicted. Note that
+ * tokens generated will not be persisted after a JVM restart.
+ * 
+ * @author Kristoffer Gronowski
+ */
+public class ExpiringTokenGenerator extends TokenGenerator {
+
+    /** Stored code. */
+    private static class CodeEntry {
+
+        private final long expirationTime;
+
+        private final AuthenticatedUser user;
+
+        private CodeEntry(AuthenticatedUser user, long expirationTime) {
+            this.expirationTime = expirationTime;
+            this.user = user;
+        }
+    }
+
+    /** Stored token, by access or refresh token. */
+    private static class TokenEntry {
+
+        /** The expiration second or -1 if it doesn't expire. */
+        private final long expiration;
+
+        private final Token token;
+
+        private TokenEntry(Token token, long expiration) {
+            this.expiration = expiration;
+            this.token = token;
+        }
+    }
+
+    /** The default maximum number of codes and of tokens. */
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    /** The default time to live of the codes, in seconds. */
+    public static final long DEFAULT_CODE_TIME_TO_LIVE = 600;
+
+    /** The default period between two sweeps, in seconds. */
+    public static final long DEFAULT_SWEEP_PERIOD = 10;
+
+    /** The maximum number of codes and of tokens. */
+    private final int capacity;
+
+    /** The codes, in insertion and expiration order. */
+    private final LinkedHashMap<String, CodeEntry> codeStore;
+
+    /** The time to live of the codes, in seconds. */
+    private final long codeTimeToLive;
+
+    /** The number of evicted codes and tokens. */
+    private final AtomicLong evictionCount;
+
+    /** The number of expired codes and tokens removed. */
+    private final AtomicLong expirationCount;
+
+    /** The expiring access tokens, by expiration second. */
+    private final TreeMap<Long, Set<String>> expirations;
+
+    /** The tokens, by access token and refresh token, in insertion order. */
+    private final LinkedHashMap<String, TokenEntry> tokenStore;
+
+    /**
+     * Constructor using the default capacity, code time to live and sweep
+     * period.
+     * 
+     * @param executor
+     *            The executor running the sweeps.
+     */
+    public ExpiringTokenGenerator(ScheduledExecutorService executor) {
+        this(executor, DEFAULT_CAPACITY, DEFAULT_CODE_TIME_TO_LIVE,
+                DEFAULT_SWEEP_PERIOD);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param executor
+     *            The executor running the sweeps.
+     * @param capacity
+     *            The maximum number of codes and of tokens.
+     * @param codeTimeToLive
+     *            The time to live of the codes, in seconds.
+     * @param sweepPeriod
+     *            The period between two sweeps, in seconds.
+     */
+    public ExpiringTokenGenerator(ScheduledExecutorService executor,
+            int capacity, long codeTimeToLive, long sweepPeriod) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "The capacity of the store must be positive");
+        }
+
+        this.capacity = capacity;
+        this.codeStore = new LinkedHashMap<String, CodeEntry>();
+        this.codeTimeToLive = codeTimeToLive;
+        this.evictionCount = new AtomicLong();
+        this.expirationCount = new AtomicLong();
+        this.expirations = new TreeMap<Long, Set<String>>();
+        this.tokenStore = new LinkedHashMap<String, TokenEntry>();
+
+        executor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                sweep();
+            }
+        }, sweepPeriod, sweepPeriod, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Token exchangeForToken(String code, long expire)
+            throws IllegalArgumentException {
+        CodeEntry entry;
+
+        synchronized (this) {
+            entry = codeStore.remove(code);
+        }
+
+        if ((entry == null)
+                || (entry.expirationTime <= System.currentTimeMillis()))
+            throw new IllegalArgumentException("Code not valid");
+        Token t = generateToken(entry.user, expire);
+        entry.user.clearCode();
+        return t;
+    }
+
+    /**
+     * Removes an expired access token.
+     * 
+     * @param token
+     *            The access token.
+     * @param entry
+     *            The stored token.
+     */
+    private void expire(String token, TokenEntry entry) {
+        remove(token);
+        expirationCount.incrementAndGet();
+
+        // Set the token to null until refreshed
+        ((ExpireToken) entry.token).expireToken();
+    }
+
+    @Override
+    public long expiresInSec(Token token) {
+        if (token instanceof ExpireToken) {
+            return ((ExpireToken) token).getExpiresIn();
+        }
+
+        return super.expiresInSec(token);
+    }
+
+    @Override
+    public synchronized Token findToken(String token) {
+        TokenEntry entry = tokenStore.get(token);
+
+        if ((entry != null) && (entry.expiration != -1)
+                && (entry.expiration * 1000 <= System.currentTimeMillis())) {
+            // Expired but not swept yet
+            expire(token, entry);
+            entry = null;
+        }
+
+        return (entry == null) ? null : entry.token;
+    }
+
+    @Override
+    public String generateCode(AuthenticatedUser user) {
+        String code = super.generateCode(user);
+        CodeEntry oldValue;
+
+        // Store the code for later use
+        synchronized (this) {
+            oldValue = codeStore.put(code, new CodeEntry(user, System
+                    .currentTimeMillis() + codeTimeToLive * 1000));
+
+            while (codeStore.size() > capacity) {
+                Iterator<CodeEntry> iterator = codeStore.values().iterator();
+                iterator.next();
+                iterator.remove();
+                evictionCount.incrementAndGet();
+            }
+        }
+
+        // Something is wrong in the code generation!
+        if (oldValue != null)
+            oldValue.user.setCode(code);
+
+        return code;
+    }
+
+    @Override
+    public Token generateToken(AuthenticatedUser user, long expire) {
+        Token t = super.generateToken(user, expire);
+
+        synchronized (this) {
+            if (t instanceof ExpireToken) {
+                ExpireToken et = (ExpireToken) t;
+                // RefreshToken is stored twice for faster lookup
+                // One key is the token while the other the refreshToken
+                put(et.getRefreshToken(), et, -1);
+                store(et);
+            } else {
+                put(t.getToken(), t, -1);
+            }
+        }
+
+        return t;
+    }
+
+    /**
+     * Returns the maximum number of codes and of tokens.
+     * 
+     * @return The maximum number of codes and of tokens.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of stored codes, including the expired ones not yet
+     * swept.
+     * 
+     * @return The number of stored codes.
+     */
+    public synchronized int getCodeCount() {
+        return codeStore.size();
+    }
+
+    /**
+     * Returns the number of codes and tokens evicted because the capacity was
+     * reached.
+     * 
+     * @return The number of evicted codes and tokens.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Returns the number of expired codes and access tokens removed.
+     * 
+     * @return The number of expired codes and access tokens removed.
+     */
+    public long getExpirationCount() {
+        return expirationCount.get();
+    }
+
+    /**
+     * Returns the number of stored tokens, counting the access and refresh
+     * tokens of expiring tokens separately.
+     * 
+     * @return The number of stored tokens.
+     */
+    public synchronized int getTokenCount() {
+        return tokenStore.size();
+    }
+
+    /**
+     * Stores a token, evicting the oldest tokens if the capacity is reached.
+     * 
+     * @param key
+     *            The access or refresh token.
+     * @param token
+     *            The token.
+     * @param expiration
+     *            The expiration second or -1.
+     */
+    private void put(String key, Token token, long expiration) {
+        remove(key);
+        tokenStore.put(key, new TokenEntry(token, expiration));
+
+        if (expiration != -1) {
+            Set<String> keys = expirations.get(expiration);
+
+            if (keys == null) {
+                keys = new HashSet<String>();
+                expirations.put(expiration, keys);
+            }
+
+            keys.add(key);
+        }
+
+        while (tokenStore.size() > capacity) {
+            remove(tokenStore.keySet().iterator().next());
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void refreshToken(ExpireToken token) {
+        super.refreshToken(token);
+
+        // Store the new generated token
+        synchronized (this) {
+            store(token);
+        }
+    }
+
+    /**
+     * Removes a stored token.
+     * 
+     * @param key
+     *            The access or refresh token.
+     * @return The removed token or null.
+     */
+    private TokenEntry remove(String key) {
+        TokenEntry result = tokenStore.remove(key);
+
+        if ((result != null) && (result.expiration != -1)) {
+            Set<String> keys = expirations.get(result.expiration);
+
+            if (keys != null) {
+                keys.remove(key);
+
+                if (keys.isEmpty()) {
+                    expirations.remove(result.expiration);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public void revokeExpireToken(ExpireToken token) {
+        TokenEntry entry;
+
+        synchronized (this) {
+            entry = remove(token.getRefreshToken());
+        }
+
+        if (entry != null) {
+            revokeToken(entry.token); // Also clean pending tokens
+        }
+    }
+
+    @Override
+    public synchronized void revokeToken(Token token) {
+        String id = token.getToken();
+
+        if (id != null) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Stores the current access token of an expiring token.
+     * 
+     * @param token
+     *            The expiring token.
+     */
+    private void store(ExpireToken token) {
+        long expiration = (System.currentTimeMillis()
+                + token.getExpirePeriod() * 1000 + 999) / 1000;
+        put(token.getToken(), token, expiration);
+    }
+
+    /**
+     * Removes the expired codes and access tokens. Called periodically, it
+     * only visits the entries due.
+     */
+    public void sweep() {
+        long now = System.currentTimeMillis();
+
+        synchronized (this) {
+            // Codes are stored in expiration order
+            Iterator<CodeEntry> iterator = codeStore.values().iterator();
+
+            while (iterator.hasNext()
+                    && (iterator.next().expirationTime <= now)) {
+                iterator.remove();
+                expirationCount.incrementAndGet();
+            }
+
+            SortedMap<Long, Set<String>> due = expirations
+                    .headMap((now / 1000) + 1);
+
+            while (!due.isEmpty()) {
+                for (String key : due.remove(due.firstKey())) {
+                    TokenEntry entry = tokenStore.remove(key);
+
+                    if (entry != null) {
+                        expirationCount.incrementAndGet();
+                        ((ExpireToken) entry.token).expireToken();
+                    }
+                }
+            }
+        }
+    }
+
+}
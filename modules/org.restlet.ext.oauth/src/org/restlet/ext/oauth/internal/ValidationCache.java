@@ -0,0 +1,277 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.oauth.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the answers of a validation resource. Each answer is kept
+ * until its expiration time. When the cache is full, the least recently used
+ * answer is evicted.
+ * 
+ * @author Kristoffer Gronowski
+ */
+public class ValidationCache {
+
+    /**
+     * Answer of the validation resource for a given token.
+     */
+    public static class Entry {
+
+        /** Indicates if the token was accepted. */
+        private final boolean authenticated;
+
+        /** The error returned by the validation resource. */
+        private final String error;
+
+        /** The expiration time, in milliseconds. */
+        private final long expirationTime;
+
+        /** Indicates if a refresh of the entry is pending. */
+        private volatile boolean refreshing;
+
+        /** The owner of the token. */
+        private final String tokenOwner;
+
+        /**
+         * Constructor.
+         * 
+         * @param authenticated
+         *            Indicates if the token was accepted.
+         * @param tokenOwner
+         *            The owner of the token.
+         * @param error
+         *            The error returned by the validation resource.
+         * @param expirationTime
+         *            The expiration time, in milliseconds.
+         */
+        public Entry(boolean authenticated, String tokenOwner, String error,
+                long expirationTime) {
+            this.authenticated = authenticated;
+            this.error = error;
+            this.expirationTime = expirationTime;
+            this.tokenOwner = tokenOwner;
+        }
+
+        /**
+         * Returns the error returned by the validation resource.
+         * 
+         * @return The error returned by the validation resource.
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * Returns the expiration time, in milliseconds.
+         * 
+         * @return The expiration time, in milliseconds.
+         */
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+
+        /**
+         * Returns the owner of the token.
+         * 
+         * @return The owner of the token.
+         */
+        public String getTokenOwner() {
+            return tokenOwner;
+        }
+
+        /**
+         * Indicates if the token was accepted.
+         * 
+         * @return True if the token was accepted.
+         */
+        public boolean isAuthenticated() {
+            return authenticated;
+        }
+
+        /**
+         * Indicates if the entry has expired.
+         * 
+         * @param now
+         *            The current time, in milliseconds.
+         * @return True if the entry has expired.
+         */
+        public boolean isExpired(long now) {
+            return now >= expirationTime;
+        }
+
+        /**
+         * Marks the entry as being refreshed.
+         * 
+         * @return True if the entry wasn't already being refreshed.
+         */
+        public synchronized boolean startRefresh() {
+            boolean result = !refreshing;
+            refreshing = true;
+            return result;
+        }
+    }
+
+    /** The cached entries, in access order. */
+    private final Map<String, Entry> entries;
+
+    /** The number of lookups that found a valid entry. */
+    private final AtomicLong hitCount;
+
+    /** The maximum number of entries. */
+    private final int maxSize;
+
+    /** The number of lookups that didn't find a valid entry. */
+    private final AtomicLong missCount;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum number of entries.
+     */
+    public ValidationCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(
+                    "The maximum size of the cache must be positive");
+        }
+
+        this.hitCount = new AtomicLong();
+        this.maxSize = maxSize;
+        this.missCount = new AtomicLong();
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, ValidationCache.Entry> eldest) {
+                return size() > ValidationCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the entry of a key if it hasn't expired.
+     * 
+     * @param key
+     *            The key.
+     * @return The entry or null.
+     */
+    public synchronized Entry get(String key) {
+        Entry result = entries.get(key);
+
+        if ((result != null)
+                && result.isExpired(System.currentTimeMillis())) {
+            entries.remove(key);
+            result = null;
+        }
+
+        if (result == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of lookups that found a valid entry.
+     * 
+     * @return The number of lookups that found a valid entry.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     * 
+     * @return The maximum number of entries.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of lookups that didn't find a valid entry.
+     * 
+     * @return The number of lookups that didn't find a valid entry.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Adds or replaces the entry of a key.
+     * 
+     * @param key
+     *            The key.
+     * @param entry
+     *            The entry.
+     */
+    public synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * Removes the entry of a key.
+     * 
+     * @param key
+     *            The key.
+     */
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Returns the number of entries, including the expired ones not yet
+     * removed.
+     * 
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
@@ -36,9 +36,11 @@ package org.restlet.ext.odata;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.restlet.Application;
 import org.restlet.Context;
 import org.restlet.data.MediaType;
 import org.restlet.data.Parameter;
@@ -50,6 +52,7 @@ import org.restlet.ext.atom.Relation;
 import org.restlet.ext.odata.internal.EntryContentHandler;
 import org.restlet.ext.odata.internal.EntryIterator;
 import org.restlet.ext.odata.internal.FeedContentHandler;
+import org.restlet.ext.odata.internal.StreamingEntryIterator;
 import org.restlet.ext.odata.internal.edm.EntityType;
 import org.restlet.ext.odata.internal.edm.Metadata;
 import org.restlet.representation.Representation;
@@ -98,6 +101,12 @@ public class Query<T> implements Iterable<T> {
     /** Type of query: unknown. */
     public static final int TYPE_UNKNOWN = 0;
 
+    /**
+     * The default maximum number of parsed entities kept in memory by a
+     * streaming iterator.
+     */
+    public static final int DEFAULT_STREAMING_CAPACITY = 100;
+
     /** The number of entities. */
     private int count;
 
@@ -308,10 +317,10 @@ public class Query<T> implements Iterable<T> {
                 case TYPE_UNKNOWN:
                     // Guess the type of query based on the returned
                     // representation
-                    Representation rep = new StringRepresentation(
-                            result.getText());
-                    String string = rep.getText().substring(0,
-                            Math.min(100, rep.getText().length()));
+                    String text = result.getText();
+                    Representation rep = new StringRepresentation(text);
+                    String string = text.substring(0,
+                            Math.min(100, text.length()));
                     if (string.contains("<feed")) {
                         feedContentHandler = new FeedContentHandler<T>(
                                 entityClass, entityType, metadata, getLogger());
@@ -648,6 +657,81 @@ public class Query<T> implements Iterable<T> {
         this.query = query;
     }
 
+    /**
+     * Returns a streaming iterator over the entities of an entity set, keeping
+     * at most {@link #DEFAULT_STREAMING_CAPACITY} parsed entities in memory.
+     * 
+     * @return A streaming iterator or null if the query can't be executed.
+     * @see #streamingIterator(int)
+     */
+    public Iterator<T> streamingIterator() {
+        return streamingIterator(DEFAULT_STREAMING_CAPACITY);
+    }
+
+    /**
+     * Returns a streaming iterator over the entities of an entity set. The
+     * entities are parsed one by one as the Atom feed is read, and the next
+     * pages of the server-paging mode are followed automatically. The pages
+     * are retrieved in the background, by the task service of the current
+     * application if any, while the entities of the previous page are
+     * consumed. The returned iterator implements {@link java.io.Closeable}
+     * and should be closed if it isn't consumed until its end. For other types
+     * of queries, the result of {@link #iterator()} is returned.
+     * 
+     * @param capacity
+     *            The maximum number of parsed entities kept in memory.
+     * @return A streaming iterator or null if the query can't be executed.
+     * @see #streamingIterator(int, Executor)
+     */
+    public Iterator<T> streamingIterator(int capacity) {
+        Executor executor = null;
+
+        // [ifndef gae]
+        Application application = Application.getCurrent();
+
+        if (application != null) {
+            executor = application.getTaskService();
+        }
+        // [enddef]
+
+        return streamingIterator(capacity, executor);
+    }
+
+    /**
+     * Returns a streaming iterator over the entities of an entity set. The
+     * entities are parsed one by one as the Atom feed is read, and the next
+     * pages of the server-paging mode are followed automatically. The pages
+     * are retrieved in the background, while the entities of the previous page
+     * are consumed. The returned iterator implements {@link java.io.Closeable}
+     * and should be closed if it isn't consumed until its end. For other types
+     * of queries, the result of {@link #iterator()} is returned.
+     * 
+     * @param capacity
+     *            The maximum number of parsed entities kept in memory.
+     * @param executor
+     *            The executor retrieving the pages in the background or null
+     *            to start a dedicated daemon thread.
+     * @return A streaming iterator or null if the query can't be executed.
+     */
+    public Iterator<T> streamingIterator(int capacity, Executor executor) {
+        Iterator<T> result = null;
+        String targetUri = createTargetUri();
+
+        if (guessType(targetUri) != TYPE_ENTITY_SET) {
+            result = iterator();
+        } else if (getService().getMetadata() == null) {
+            getLogger().warning(
+                    "Can't execute the query without the service's metadata.");
+        } else {
+            result = new StreamingEntryIterator<T>(getService(),
+                    new Reference(targetUri), this.entityClass,
+                    this.entityType, (Metadata) getService().getMetadata(),
+                    capacity, executor, getLogger());
+        }
+
+        return result;
+    }
+
     /**
      * Creates a new Query<T> with the $skip option set in the URI generated by
      * the returned query.
@@ -0,0 +1,408 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.odata.internal;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.ext.atom.Entry;
+import org.restlet.ext.atom.Feed;
+import org.restlet.ext.atom.Link;
+import org.restlet.ext.atom.Relation;
+import org.restlet.ext.odata.Service;
+import org.restlet.ext.odata.internal.edm.EntityType;
+import org.restlet.ext.odata.internal.edm.Metadata;
+import org.restlet.representation.Representation;
+import org.restlet.resource.ClientResource;
+import org.restlet.resource.ResourceException;
+
+/**
+ * Iterator that parses the entities of an entity set one by one, as the Atom
+ * feed is read, and that transparently supports server-side paging. The pages
+ * are retrieved and parsed by a background task which runs ahead of the
+ * consumer, so the next page is requested while the current one is consumed.
+ * At most a given number of parsed entities are kept in memory, whatever the
+ * size of the entity set. If a page can't be retrieved or parsed, the iterator
+ * throws a {@link ResourceException} once the entities of the previous pages
+ * have been consumed. The iterator should be closed if it isn't consumed until
+ * its end. Otherwise, the background task stops once the iterator has been
+ * garbage collected.
+ * 
+ * @author Thierry Boileau
+ * 
+ * @param <E>
+ *            The type of the parsed entities.
+ */
+public class StreamingEntryIterator<E> implements Iterator<E>, Closeable {
+
+    /**
+     * Marker of the failure of the retrieval or parsing of a page, which ends
+     * the iteration.
+     */
+    private static class Failure {
+
+        /** The exception to throw to the consumer. */
+        private final ResourceException exception;
+
+        /**
+         * Constructor.
+         * 
+         * @param cause
+         *            The exception thrown while retrieving or parsing a page.
+         */
+        private Failure(Exception cause) {
+            if (cause instanceof ResourceException) {
+                this.exception = (ResourceException) cause;
+            } else {
+                this.exception = new ResourceException(cause);
+            }
+        }
+    }
+
+    /**
+     * Background task retrieving and parsing the pages. It only weakly
+     * references the iterator, so that it can detect when the iterator has
+     * been abandoned.
+     * 
+     * @param <E>
+     *            The type of the parsed entities.
+     */
+    private static class Producer<E> implements Runnable {
+
+        /** Indicates if the iterator has been closed. */
+        private volatile boolean closed;
+
+        /** The class of the listed objects. */
+        private final Class<?> entityClass;
+
+        /** The entity type of the listed objects. */
+        private final EntityType entityType;
+
+        /** The reference to the first page. */
+        private final Reference firstPage;
+
+        /** Internal logger. */
+        private final Logger logger;
+
+        /** The metadata of the OData service. */
+        private final Metadata metadata;
+
+        /** The iterator consuming the parsed entities. */
+        private final WeakReference<StreamingEntryIterator<E>> owner;
+
+        /** The parsed entities not consumed yet. */
+        private final BlockingQueue<Object> queue;
+
+        /** The underlying service. */
+        private final Service service;
+
+        /**
+         * Constructor.
+         * 
+         * @param owner
+         *            The iterator consuming the parsed entities.
+         * @param service
+         *            The underlying service.
+         * @param firstPage
+         *            The reference to the first page.
+         * @param entityClass
+         *            The class of the listed objects.
+         * @param entityType
+         *            The entity type of the listed objects.
+         * @param metadata
+         *            The metadata of the OData service.
+         * @param queue
+         *            The parsed entities not consumed yet.
+         * @param logger
+         *            The logger.
+         */
+        private Producer(StreamingEntryIterator<E> owner, Service service,
+                Reference firstPage, Class<?> entityClass,
+                EntityType entityType, Metadata metadata,
+                BlockingQueue<Object> queue, Logger logger) {
+            this.closed = false;
+            this.entityClass = entityClass;
+            this.entityType = entityType;
+            this.firstPage = firstPage;
+            this.logger = logger;
+            this.metadata = metadata;
+            this.owner = new WeakReference<StreamingEntryIterator<E>>(owner);
+            this.queue = queue;
+            this.service = service;
+        }
+
+        /**
+         * Indicates if the iterator has been closed or abandoned.
+         * 
+         * @return True if the iterator has been closed or abandoned.
+         */
+        private boolean isCancelled() {
+            return this.closed || (this.owner.get() == null);
+        }
+
+        /**
+         * Retrieves and parses a page, then returns the reference to the next
+         * page.
+         * 
+         * @param page
+         *            The reference to the page.
+         * @return The reference to the next page or null.
+         * @throws Exception
+         */
+        private Reference parse(Reference page) throws Exception {
+            Reference result = null;
+            ClientResource resource = this.service.createResource(page);
+            Representation representation = resource
+                    .get(MediaType.APPLICATION_ATOM);
+            FeedContentHandler<E> handler = new FeedContentHandler<E>(
+                    this.entityClass, this.entityType, this.metadata,
+                    this.logger) {
+                /** The parsed feed. */
+                private Feed feed;
+
+                @Override
+                public void endEntry(Entry entry) {
+                    super.endEntry(entry);
+
+                    // Only keep the entities not consumed yet
+                    if (this.feed != null) {
+                        this.feed.getEntries().clear();
+                    }
+
+                    for (E entity : getEntities()) {
+                        put(entity);
+                    }
+
+                    getEntities().clear();
+                }
+
+                @Override
+                public void startFeed(Feed feed) {
+                    super.startFeed(feed);
+                    this.feed = feed;
+                }
+            };
+
+            try {
+                Feed feed = new Feed(representation, handler);
+
+                for (Link link : feed.getLinks()) {
+                    if (Relation.NEXT.equals(link.getRel())) {
+                        result = link.getHref();
+                        break;
+                    }
+                }
+            } finally {
+                representation.release();
+            }
+
+            return result;
+        }
+
+        /**
+         * Adds an element to the queue, waiting for some space if necessary.
+         * 
+         * @param element
+         *            The element to add.
+         * @throws CancellationException
+         *             If the iterator has been closed or abandoned.
+         */
+        private void put(Object element) {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+
+            try {
+                while (!this.queue.offer(element, 100, TimeUnit.MILLISECONDS)) {
+                    if (isCancelled()) {
+                        throw new CancellationException();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException();
+            }
+        }
+
+        /**
+         * Retrieves and parses the pages, until the last one, until a page
+         * fails or until the iterator is closed or abandoned.
+         */
+        public void run() {
+            Reference page = this.firstPage;
+            Object last = END;
+
+            try {
+                while ((page != null) && !isCancelled()) {
+                    page = parse(page);
+                }
+            } catch (CancellationException e) {
+                // The iterator has been closed or abandoned
+            } catch (Exception e) {
+                // The parser may wrap the cancellation
+                if (!isCancelled()) {
+                    this.logger.log(Level.FINE,
+                            "Can't parse the content of " + page, e);
+                    last = new Failure(e);
+                }
+            } finally {
+                try {
+                    put(last);
+                } catch (CancellationException e) {
+                    // The iterator has been closed or abandoned
+                }
+            }
+        }
+    }
+
+    /** Marker of the end of the iteration. */
+    private static final Object END = new Object();
+
+    /** The next element, already taken from the queue. */
+    private Object next;
+
+    /** The background task retrieving and parsing the pages. */
+    private final Producer<E> producer;
+
+    /** The parsed entities not consumed yet. */
+    private final BlockingQueue<Object> queue;
+
+    /**
+     * Constructor. Starts retrieving and parsing the first page.
+     * 
+     * @param service
+     *            The underlying service.
+     * @param firstPage
+     *            The reference to the first page.
+     * @param entityClass
+     *            The class of the listed objects.
+     * @param entityType
+     *            The entity type of the listed objects.
+     * @param metadata
+     *            The metadata of the OData service.
+     * @param capacity
+     *            The maximum number of parsed entities not consumed yet.
+     * @param executor
+     *            The executor running the background task or null to start a
+     *            dedicated daemon thread.
+     * @param logger
+     *            The logger.
+     */
+    public StreamingEntryIterator(Service service, Reference firstPage,
+            Class<?> entityClass, EntityType entityType, Metadata metadata,
+            int capacity, Executor executor, Logger logger) {
+        this.next = null;
+        this.queue = new ArrayBlockingQueue<Object>(capacity);
+        this.producer = new Producer<E>(this, service, firstPage,
+                entityClass, entityType, metadata, this.queue, logger);
+
+        if (executor != null) {
+            executor.execute(this.producer);
+        } else {
+            Thread thread = new Thread(this.producer, "Restlet-OData-"
+                    + firstPage);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the retrieval of the pages and releases the parsed entities.
+     */
+    public void close() {
+        this.producer.closed = true;
+        this.next = END;
+        this.queue.clear();
+    }
+
+    /**
+     * Indicates if more entities are available, waiting for the next one to be
+     * parsed if necessary.
+     * 
+     * @return True if more entities are available.
+     * @throws ResourceException
+     *             If a page couldn't be retrieved or parsed.
+     */
+    public boolean hasNext() {
+        if (this.next == null) {
+            try {
+                this.next = this.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.next = END;
+            }
+        }
+
+        if (this.next instanceof Failure) {
+            throw ((Failure) this.next).exception;
+        }
+
+        return this.next != END;
+    }
+
+    /**
+     * Returns the next entity, waiting for it to be parsed if necessary.
+     * 
+     * @return The next entity.
+     * @throws NoSuchElementException
+     *             If there are no more entities.
+     * @throws ResourceException
+     *             If a page couldn't be retrieved or parsed.
+     */
+    @SuppressWarnings("unchecked")
+    public E next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        E result = (E) this.next;
+        this.next = null;
+        return result;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
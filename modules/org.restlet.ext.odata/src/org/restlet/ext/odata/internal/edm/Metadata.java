@@ -40,6 +40,7 @@ import java.util.Iterator;
 import java.util.List;
 
 import org.restlet.data.Reference;
+import org.restlet.ext.odata.internal.reflect.ClassAccessors;
 import org.restlet.ext.xml.SaxRepresentation;
 import org.restlet.representation.Representation;
 
@@ -229,8 +230,8 @@ public class Metadata extends SaxRepresentation {
                         + keyName.substring(0, 1).toUpperCase()
                         + keyName.substring(1);
                 try {
-                    Method getter = entity.getClass().getDeclaredMethod(
-                            getterName, (Class[]) null);
+                    Method getter = ClassAccessors.getAccessors(
+                            entity.getClass()).getGetter(getterName);
                     Object value = getter.invoke(entity, (Object[]) null);
                     String strValue = TypeUtils.toEdmKey(value, key.getType());
                     if (strValue != null) {
@@ -251,8 +252,8 @@ public class Metadata extends SaxRepresentation {
                             + keyName.substring(0, 1).toUpperCase()
                             + keyName.substring(1);
                     try {
-                        Method getter = entity.getClass().getDeclaredMethod(
-                                getterName, (Class[]) null);
+                        Method getter = ClassAccessors.getAccessors(
+                                entity.getClass()).getGetter(getterName);
                         Object value = getter.invoke(entity, (Object[]) null);
                         String strValue = TypeUtils.toEdmKey(value, key
                                 .getType());
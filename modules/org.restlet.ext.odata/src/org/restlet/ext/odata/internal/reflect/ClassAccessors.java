@@ -0,0 +1,227 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.ext.odata.internal.reflect;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reflective accessors of a class, looked up once then shared. Declared fields
+ * are indexed by name, ignoring or not the case. Declared getters (methods
+ * without parameter) and setters (methods with one parameter) are indexed by
+ * method name. When several methods have the same name, the first declared
+ * one is retained.
+ * 
+ * @author Thierry Boileau
+ */
+public class ClassAccessors {
+
+    /** The accessors of the classes already introspected. */
+    private static final ConcurrentMap<Class<?>, ClassAccessors> accessors = new ConcurrentHashMap<Class<?>, ClassAccessors>();
+
+    /**
+     * Returns the accessors of a class.
+     * 
+     * @param clazz
+     *            The class.
+     * @return The accessors of the class.
+     */
+    public static ClassAccessors getAccessors(Class<?> clazz) {
+        ClassAccessors result = accessors.get(clazz);
+
+        if (result == null) {
+            result = new ClassAccessors(clazz);
+            ClassAccessors current = accessors.putIfAbsent(clazz, result);
+
+            if (current != null) {
+                result = current;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if a parameter type can receive a converted string value.
+     * 
+     * @param parameterType
+     *            The parameter type.
+     * @return True if the parameter type can receive a converted string value.
+     */
+    private static boolean isConvertible(Class<?> parameterType) {
+        return String.class.equals(parameterType)
+                || Integer.class.equals(parameterType)
+                || int.class.equals(parameterType);
+    }
+
+    /** The setters accepting a converted string value, by name. */
+    private final Map<String, Method> convertibleSetters;
+
+    /** The declared fields. */
+    private final List<Field> fields;
+
+    /** The declared fields, by name. */
+    private final Map<String, Field> fieldsByName;
+
+    /** The declared fields, by lower case name. */
+    private final Map<String, Field> fieldsByLowerCaseName;
+
+    /** The getters, by name. */
+    private final Map<String, Method> getters;
+
+    /** The setters, by name. */
+    private final Map<String, Method> setters;
+
+    /**
+     * Constructor. Introspects the declared fields and methods of the class.
+     * 
+     * @param clazz
+     *            The class to introspect.
+     */
+    private ClassAccessors(Class<?> clazz) {
+        Field[] declaredFields = clazz.getDeclaredFields();
+        this.fields = Collections.unmodifiableList(Arrays
+                .asList(declaredFields));
+        this.fieldsByName = new HashMap<String, Field>();
+        this.fieldsByLowerCaseName = new HashMap<String, Field>();
+
+        for (Field field : declaredFields) {
+            this.fieldsByName.put(field.getName(), field);
+            String lowerCaseName = field.getName().toLowerCase();
+
+            if (!this.fieldsByLowerCaseName.containsKey(lowerCaseName)) {
+                this.fieldsByLowerCaseName.put(lowerCaseName, field);
+            }
+        }
+
+        this.convertibleSetters = new HashMap<String, Method>();
+        this.getters = new HashMap<String, Method>();
+        this.setters = new HashMap<String, Method>();
+
+        for (Method method : clazz.getDeclaredMethods()) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+
+            if (parameterTypes.length == 0) {
+                if (!this.getters.containsKey(method.getName())) {
+                    this.getters.put(method.getName(), method);
+                }
+            } else if (parameterTypes.length == 1) {
+                if (!this.setters.containsKey(method.getName())) {
+                    this.setters.put(method.getName(), method);
+                }
+
+                if (isConvertible(parameterTypes[0])
+                        && !this.convertibleSetters.containsKey(method
+                                .getName())) {
+                    this.convertibleSetters.put(method.getName(), method);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first declared setter with the given name whose parameter
+     * is a String, an Integer or an int.
+     * 
+     * @param name
+     *            The name of the setter.
+     * @return The setter or null.
+     */
+    public Method getConvertibleSetter(String name) {
+        return this.convertibleSetters.get(name);
+    }
+
+    /**
+     * Returns the declared field with the given name.
+     * 
+     * @param name
+     *            The name of the field.
+     * @return The field or null.
+     */
+    public Field getField(String name) {
+        return this.fieldsByName.get(name);
+    }
+
+    /**
+     * Returns the first declared field with the given name, ignoring the case.
+     * 
+     * @param name
+     *            The name of the field.
+     * @return The field or null.
+     */
+    public Field getFieldIgnoreCase(String name) {
+        return this.fieldsByLowerCaseName.get(name.toLowerCase());
+    }
+
+    /**
+     * Returns the declared fields.
+     * 
+     * @return The declared fields.
+     */
+    public List<Field> getFields() {
+        return this.fields;
+    }
+
+    /**
+     * Returns the first declared method with the given name and without
+     * parameter.
+     * 
+     * @param name
+     *            The name of the getter.
+     * @return The getter or null.
+     */
+    public Method getGetter(String name) {
+        return this.getters.get(name);
+    }
+
+    /**
+     * Returns the first declared method with the given name and one
+     * parameter.
+     * 
+     * @param name
+     *            The name of the setter.
+     * @return The setter or null.
+     */
+    public Method getSetter(String name) {
+        return this.setters.get(name);
+    }
+
+}
@@ -103,6 +103,29 @@ public class ReflectUtils {
         return result;
     }
 
+    /**
+     * Returns a declared field of a class, based on the cached accessors of
+     * the class.
+     * 
+     * @param clazz
+     *            The class.
+     * @param fieldName
+     *            The name of the field.
+     * @return The declared field.
+     * @throws NoSuchFieldException
+     *             If the class doesn't declare such a field.
+     */
+    private static Field getField(Class<?> clazz, String fieldName)
+            throws NoSuchFieldException {
+        Field result = ClassAccessors.getAccessors(clazz).getField(fieldName);
+
+        if (result == null) {
+            throw new NoSuchFieldException(fieldName);
+        }
+
+        return result;
+    }
+
     /**
      * Returns the class of this entity's attribute, or if it is a Collection
      * (array, generic list, set), it returns the generic type.
@@ -117,7 +140,7 @@ public class ReflectUtils {
         Class<?> result = null;
         String normPteName = normalize(propertyName);
         try {
-            Field field = entity.getClass().getDeclaredField(normPteName);
+            Field field = getField(entity.getClass(), normPteName);
             if (field.getType().isArray()) {
                 result = field.getType().getComponentType();
             } else {
@@ -158,7 +181,7 @@ public class ReflectUtils {
         Object result = null;
 
         if (propertyName != null && entity != null) {
-            propertyName = propertyName.replaceAll("/", ".");
+            propertyName = propertyName.replace('/', '.');
             Object o = entity;
             String pty = propertyName;
             int index = propertyName.indexOf(".");
@@ -177,16 +200,8 @@ public class ReflectUtils {
                     getterName = "get" + pty;
                 }
 
-                Method getter = null;
-                Method method;
-                for (int i = 0; (getter == null)
-                        && (i < entity.getClass().getDeclaredMethods().length); i++) {
-                    method = entity.getClass().getDeclaredMethods()[i];
-
-                    if (method.getName().equals(getterName)) {
-                        getter = method;
-                    }
-                }
+                Method getter = ClassAccessors.getAccessors(
+                        entity.getClass()).getGetter(getterName);
 
                 if (getter != null) {
                     result = getter.invoke(o);
@@ -211,7 +226,7 @@ public class ReflectUtils {
     public static void invokeSetter(Object entity, String propertyName,
             Object propertyValue) throws Exception {
         if (propertyName != null && entity != null) {
-            propertyName = propertyName.replaceAll("/", ".");
+            propertyName = propertyName.replace('/', '.');
             Object o = entity;
             String pty = propertyName;
             String[] strings = propertyName.split("\\.");
@@ -221,12 +236,10 @@ public class ReflectUtils {
                     Object p = invokeGetter(o, string);
                     if (p == null) {
                         // Try to instantiate it
-                        Field[] fields = o.getClass().getDeclaredFields();
-                        for (Field field : fields) {
-                            if (field.getName().equalsIgnoreCase(string)) {
-                                p = field.getType().newInstance();
-                                break;
-                            }
+                        Field field = ClassAccessors.getAccessors(
+                                o.getClass()).getFieldIgnoreCase(string);
+                        if (field != null) {
+                            p = field.getType().newInstance();
                         }
                     }
                     o = p;
@@ -243,19 +256,8 @@ public class ReflectUtils {
                 setterName = "set" + pty;
             }
 
-            Method setter = null;
-            Method method;
-            for (int i = 0; (setter == null)
-                    && (i < o.getClass().getDeclaredMethods().length); i++) {
-                method = o.getClass().getDeclaredMethods()[i];
-
-                if (method.getName().equals(setterName)) {
-                    if ((method.getParameterTypes() != null)
-                            && (method.getParameterTypes().length == 1)) {
-                        setter = method;
-                    }
-                }
-            }
+            Method setter = ClassAccessors.getAccessors(o.getClass())
+                    .getSetter(setterName);
 
             if (setter != null) {
                 setter.invoke(o, propertyValue);
@@ -280,7 +282,7 @@ public class ReflectUtils {
             String propertyValue, String propertyType) throws Exception {
 
         if (propertyName != null) {
-            propertyName = propertyName.replaceAll("/", ".");
+            propertyName = propertyName.replace('/', '.');
             Object o = entity;
             String pty = propertyName;
 
@@ -291,12 +293,10 @@ public class ReflectUtils {
                     Object p = invokeGetter(o, string);
                     if (p == null) {
                         // Try to instantiate it
-                        Field[] fields = o.getClass().getDeclaredFields();
-                        for (Field field : fields) {
-                            if (field.getName().equalsIgnoreCase(string)) {
-                                p = field.getType().newInstance();
-                                break;
-                            }
+                        Field field = ClassAccessors.getAccessors(
+                                o.getClass()).getFieldIgnoreCase(string);
+                        if (field != null) {
+                            p = field.getType().newInstance();
                         }
                     }
                     o = p;
@@ -313,34 +313,15 @@ public class ReflectUtils {
                 setterName = "set" + pty;
             }
 
-            Method setter = null;
-            Object setterParameter = null;
-            Method method;
-            for (int i = 0; (setter == null)
-                    && (i < o.getClass().getDeclaredMethods().length); i++) {
-                method = o.getClass().getDeclaredMethods()[i];
-
-                if (method.getName().equals(setterName)) {
-                    if ((method.getParameterTypes() != null)
-                            && (method.getParameterTypes().length == 1)) {
-                        Class<?> parameterType = method.getParameterTypes()[0];
-
-                        if (String.class.equals(parameterType)) {
-                            setterParameter = propertyValue;
-                            setter = method;
-                        } else if (Integer.class.equals(parameterType)) {
-                            setterParameter = Integer.valueOf(propertyValue);
-                            setter = method;
-                        } else if (int.class.equals(parameterType)) {
-                            setterParameter = Integer.valueOf(propertyValue);
-                            setter = method;
-                        }
-                    }
-                }
-            }
+            Method setter = ClassAccessors.getAccessors(o.getClass())
+                    .getConvertibleSetter(setterName);
 
             if (setter != null) {
-                setter.invoke(o, setterParameter);
+                if (String.class.equals(setter.getParameterTypes()[0])) {
+                    setter.invoke(o, propertyValue);
+                } else {
+                    setter.invoke(o, Integer.valueOf(propertyValue));
+                }
             }
         }
     }
@@ -455,7 +436,7 @@ public class ReflectUtils {
         }
         boolean isGeneric = false;
         boolean isArray = false;
-        Field field = entity.getClass().getDeclaredField(normPteName);
+        Field field = getField(entity.getClass(), normPteName);
         if (field.getType().isArray()) {
             isArray = true;
         } else {
@@ -33,7 +33,15 @@
 
 package org.restlet.ext.rdf;
 
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 import org.restlet.data.MediaType;
 import org.restlet.data.Reference;
@@ -41,18 +49,322 @@ import org.restlet.representation.Representation;
 
 /**
  * Graph composed of links. This also called a set of RDF statements or a RDF
- * model.
+ * model.<br>
+ * <br>
+ * The links are indexed by source, type and target (SPO, POS and OSP indexes),
+ * so adding a link, testing its presence and looking up links matching a
+ * pattern with {@link #getLinks(Object, Reference, Object)} don't depend on the
+ * size of the graph. Equal references and literals are shared between the
+ * links of the graph. Graphs and links used as sources or targets are compared
+ * by identity. Note that links must not be modified once added.<br>
+ * <br>
+ * The graph is thread-safe. Its iterator works on a snapshot of the links,
+ * preserving their insertion order.
  * 
  * @author Jerome Louvel
  */
-public class Graph extends CopyOnWriteArraySet<Link> {
+public class Graph extends AbstractSet<Link> implements Serializable {
+
+    /**
+     * Key of a link, based on the keys of its source, type and target nodes.
+     */
+    private static final class LinkKey {
+
+        /** The precomputed hash code. */
+        private final int hashCode;
+
+        /** The source key. */
+        private final Object source;
+
+        /** The target key. */
+        private final Object target;
+
+        /** The type key. */
+        private final Object type;
+
+        /**
+         * Constructor.
+         * 
+         * @param source
+         *            The source key.
+         * @param type
+         *            The type key.
+         * @param target
+         *            The target key.
+         */
+        private LinkKey(Object source, Object type, Object target) {
+            this.source = source;
+            this.type = type;
+            this.target = target;
+            this.hashCode = (31 * (31 * hashCode(source) + hashCode(type)))
+                    + hashCode(target);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            boolean result = (this == other);
+
+            if (!result && (other instanceof LinkKey)) {
+                LinkKey key = (LinkKey) other;
+                result = (this.hashCode == key.hashCode)
+                        && equals(this.source, key.source)
+                        && equals(this.type, key.type)
+                        && equals(this.target, key.target);
+            }
+
+            return result;
+        }
+
+        /**
+         * Indicates if two keys are equal.
+         * 
+         * @param key1
+         *            The first key or null.
+         * @param key2
+         *            The second key or null.
+         * @return True if both keys are equal.
+         */
+        private boolean equals(Object key1, Object key2) {
+            return (key1 == null) ? (key2 == null) : key1.equals(key2);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        /**
+         * Returns the hash code of a key.
+         * 
+         * @param key
+         *            The key or null.
+         * @return The hash code.
+         */
+        private int hashCode(Object key) {
+            return (key == null) ? 0 : key.hashCode();
+        }
+    }
+
+    /**
+     * Key of a node compared by identity, used for graphs and links whose
+     * content may change.
+     */
+    private static final class NodeKey {
+
+        /** The node. */
+        private final Object node;
+
+        /**
+         * Constructor.
+         * 
+         * @param node
+         *            The node.
+         */
+        private NodeKey(Object node) {
+            this.node = node;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return (other instanceof NodeKey)
+                    && (((NodeKey) other).node == this.node);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(this.node);
+        }
+    }
 
     /** The serialization unique identifier. */
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Adds the links of an index level to a list. A null key matches all the
+     * entries of the level.
+     * 
+     * @param index
+     *            The index.
+     * @param key1
+     *            The first level key or null.
+     * @param key2
+     *            The second level key or null.
+     * @param key3
+     *            The third level key or null.
+     * @param result
+     *            The list of matching links to complete.
+     */
+    private static void collect(
+            Map<Object, Map<Object, Map<Object, Link>>> index, Object key1,
+            Object key2, Object key3, List<Link> result) {
+        if (key1 == null) {
+            for (Map<Object, Map<Object, Link>> level2 : index.values()) {
+                collect(level2, key2, key3, result);
+            }
+        } else {
+            Map<Object, Map<Object, Link>> level2 = index.get(key1);
+
+            if (level2 != null) {
+                collect(level2, key2, key3, result);
+            }
+        }
+    }
+
+    /**
+     * Adds the links of the second index level to a list. A null key matches
+     * all the entries of the level.
+     * 
+     * @param level2
+     *            The second index level.
+     * @param key2
+     *            The second level key or null.
+     * @param key3
+     *            The third level key or null.
+     * @param result
+     *            The list of matching links to complete.
+     */
+    private static void collect(Map<Object, Map<Object, Link>> level2,
+            Object key2, Object key3, List<Link> result) {
+        if (key2 == null) {
+            for (Map<Object, Link> level3 : level2.values()) {
+                collect(level3, key3, result);
+            }
+        } else {
+            Map<Object, Link> level3 = level2.get(key2);
+
+            if (level3 != null) {
+                collect(level3, key3, result);
+            }
+        }
+    }
+
+    /**
+     * Adds the links of the third index level to a list. A null key matches
+     * all the entries of the level.
+     * 
+     * @param level3
+     *            The third index level.
+     * @param key3
+     *            The third level key or null.
+     * @param result
+     *            The list of matching links to complete.
+     */
+    private static void collect(Map<Object, Link> level3, Object key3,
+            List<Link> result) {
+        if (key3 == null) {
+            result.addAll(level3.values());
+        } else {
+            Link link = level3.get(key3);
+
+            if (link != null) {
+                result.add(link);
+            }
+        }
+    }
+
+    /**
+     * Adds a link to an index.
+     * 
+     * @param index
+     *            The index.
+     * @param key1
+     *            The first level key.
+     * @param key2
+     *            The second level key.
+     * @param key3
+     *            The third level key.
+     * @param link
+     *            The link to index.
+     */
+    private static void index(
+            Map<Object, Map<Object, Map<Object, Link>>> index, Object key1,
+            Object key2, Object key3, Link link) {
+        Map<Object, Map<Object, Link>> level2 = index.get(key1);
+
+        if (level2 == null) {
+            level2 = new HashMap<Object, Map<Object, Link>>();
+            index.put(key1, level2);
+        }
+
+        Map<Object, Link> level3 = level2.get(key2);
+
+        if (level3 == null) {
+            level3 = new HashMap<Object, Link>(4);
+            level2.put(key2, level3);
+        }
+
+        level3.put(key3, link);
+    }
+
+    /**
+     * Returns the key of a node. References and literals are compared by
+     * value, other nodes by identity.
+     * 
+     * @param node
+     *            The node.
+     * @return The key of the node.
+     */
+    private static Object key(Object node) {
+        if ((node == null) || (node instanceof Reference)
+                || (node instanceof Literal)) {
+            return node;
+        }
+
+        return new NodeKey(node);
+    }
+
+    /**
+     * Removes a link from an index.
+     * 
+     * @param index
+     *            The index.
+     * @param key1
+     *            The first level key.
+     * @param key2
+     *            The second level key.
+     * @param key3
+     *            The third level key.
+     */
+    private static void unindex(
+            Map<Object, Map<Object, Map<Object, Link>>> index, Object key1,
+            Object key2, Object key3) {
+        Map<Object, Map<Object, Link>> level2 = index.get(key1);
+
+        if (level2 != null) {
+            Map<Object, Link> level3 = level2.get(key2);
+
+            if (level3 != null) {
+                level3.remove(key3);
+
+                if (level3.isEmpty()) {
+                    level2.remove(key2);
+
+                    if (level2.isEmpty()) {
+                        index.remove(key1);
+                    }
+                }
+            }
+        }
+    }
+
     /** The default link that is used to complete new links. */
     private Link defaultLink;
 
+    /** The links, in insertion order. */
+    private final Map<LinkKey, Link> links;
+
+    /** The shared references and literals. */
+    private final Map<Object, Object> nodes;
+
+    /** The index by target, then source, then type. */
+    private final Map<Object, Map<Object, Map<Object, Link>>> osp;
+
+    /** The index by type, then target, then source. */
+    private final Map<Object, Map<Object, Map<Object, Link>>> pos;
+
+    /** The index by source, then type, then target. */
+    private final Map<Object, Map<Object, Map<Object, Link>>> spo;
+
     /**
      * Default constructor.
      */
@@ -68,6 +380,44 @@ public class Graph extends CopyOnWriteArraySet<Link> {
      */
     public Graph(Link defaultLink) {
         this.defaultLink = defaultLink;
+        this.links = new LinkedHashMap<LinkKey, Link>();
+        this.nodes = new HashMap<Object, Object>();
+        this.osp = new HashMap<Object, Map<Object, Map<Object, Link>>>();
+        this.pos = new HashMap<Object, Map<Object, Map<Object, Link>>>();
+        this.spo = new HashMap<Object, Map<Object, Map<Object, Link>>>();
+    }
+
+    /**
+     * Adds a link if no equal link is already in the graph. The references and
+     * literals of the link are replaced by the equal ones already used in the
+     * graph, if any.
+     * 
+     * @param link
+     *            The link to add.
+     * @return True if the link was added.
+     */
+    @Override
+    @SuppressWarnings("deprecation")
+    public synchronized boolean add(Link link) {
+        if (link == null) {
+            throw new IllegalArgumentException("Cannot add a null link.");
+        }
+
+        LinkKey key = new LinkKey(key(link.getSource()),
+                key(link.getTypeRef()), key(link.getTarget()));
+
+        if (this.links.containsKey(key)) {
+            return false;
+        }
+
+        link.setFirst(intern(link.getSource()));
+        link.setSecond((Reference) intern(link.getTypeRef()));
+        link.setThird(intern(link.getTarget()));
+        this.links.put(key, link);
+        index(this.spo, key.source, key.type, key.target, link);
+        index(this.pos, key.type, key.target, key.source, link);
+        index(this.osp, key.target, key.source, key.type, link);
+        return true;
     }
 
     /**
@@ -309,6 +659,28 @@ public class Graph extends CopyOnWriteArraySet<Link> {
                 new Reference(targetRef));
     }
 
+    @Override
+    public synchronized void clear() {
+        this.links.clear();
+        this.nodes.clear();
+        this.osp.clear();
+        this.pos.clear();
+        this.spo.clear();
+    }
+
+    @Override
+    public synchronized boolean contains(Object object) {
+        boolean result = false;
+
+        if (object instanceof Link) {
+            Link link = (Link) object;
+            result = this.links.containsKey(new LinkKey(key(link.getSource()),
+                    key(link.getTypeRef()), key(link.getTarget())));
+        }
+
+        return result;
+    }
+
     /**
      * Returns the default link that is used to complete new links.
      * 
@@ -318,6 +690,39 @@ public class Graph extends CopyOnWriteArraySet<Link> {
         return defaultLink;
     }
 
+    /**
+     * Returns the links matching a pattern. Each null parameter matches any
+     * value.
+     * 
+     * @param source
+     *            The source reference, graph or link, or null.
+     * @param typeRef
+     *            The type reference or null.
+     * @param target
+     *            The target reference, literal, graph or link, or null.
+     * @return The list of matching links.
+     */
+    public synchronized List<Link> getLinks(Object source, Reference typeRef,
+            Object target) {
+        List<Link> result = new ArrayList<Link>();
+        Object sourceKey = key(source);
+        Object targetKey = key(target);
+
+        if ((sourceKey != null) && (typeRef == null) && (targetKey != null)) {
+            collect(this.osp, targetKey, sourceKey, null, result);
+        } else if (sourceKey != null) {
+            collect(this.spo, sourceKey, typeRef, targetKey, result);
+        } else if (typeRef != null) {
+            collect(this.pos, typeRef, targetKey, null, result);
+        } else if (targetKey != null) {
+            collect(this.osp, targetKey, null, null, result);
+        } else {
+            result.addAll(this.links.values());
+        }
+
+        return result;
+    }
+
     /**
      * Returns a representation in the RDF/n3 format.
      * 
@@ -444,6 +849,88 @@ public class Graph extends CopyOnWriteArraySet<Link> {
         return result;
     }
 
+    /**
+     * Returns the reference or literal equal to the given node already used in
+     * the graph, or registers the given node. Other nodes are returned as is.
+     * 
+     * @param node
+     *            The node.
+     * @return The shared node.
+     */
+    private Object intern(Object node) {
+        Object result = node;
+
+        if ((node instanceof Reference) || (node instanceof Literal)) {
+            result = this.nodes.get(node);
+
+            if (result == null) {
+                this.nodes.put(node, node);
+                result = node;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the links, in insertion order.
+     * 
+     * @return An iterator over a snapshot of the links.
+     */
+    @Override
+    public synchronized Iterator<Link> iterator() {
+        final Link[] snapshot = this.links.values().toArray(
+                new Link[this.links.size()]);
+
+        return new Iterator<Link>() {
+            /** The index of the next link. */
+            private int index = 0;
+
+            public boolean hasNext() {
+                return this.index < snapshot.length;
+            }
+
+            public Link next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return snapshot[this.index++];
+            }
+
+            public void remove() {
+                if (this.index == 0) {
+                    throw new IllegalStateException();
+                }
+
+                Graph.this.remove(snapshot[this.index - 1]);
+            }
+        };
+    }
+
+    @Override
+    public synchronized boolean remove(Object object) {
+        boolean result = false;
+
+        if (object instanceof Link) {
+            Link link = (Link) object;
+            LinkKey key = new LinkKey(key(link.getSource()),
+                    key(link.getTypeRef()), key(link.getTarget()));
+            result = (this.links.remove(key) != null);
+
+            if (result) {
+                unindex(this.spo, key.source, key.type, key.target);
+                unindex(this.pos, key.type, key.target, key.source);
+                unindex(this.osp, key.target, key.source, key.type);
+                unintern(key.source);
+                unintern(key.type);
+                unintern(key.target);
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Sets the default link that is used to complete new links.
      * 
@@ -454,4 +941,23 @@ public class Graph extends CopyOnWriteArraySet<Link> {
         this.defaultLink = defaultLink;
     }
 
+    @Override
+    public synchronized int size() {
+        return this.links.size();
+    }
+
+    /**
+     * Stops sharing a reference or literal that isn't used by any link anymore.
+     * 
+     * @param key
+     *            The key of the node.
+     */
+    private void unintern(Object key) {
+        if ((key != null) && !(key instanceof NodeKey)
+                && !this.spo.containsKey(key) && !this.pos.containsKey(key)
+                && !this.osp.containsKey(key)) {
+            this.nodes.remove(key);
+        }
+    }
+
 }
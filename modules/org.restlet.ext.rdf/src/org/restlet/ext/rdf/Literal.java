@@ -35,6 +35,7 @@ package org.restlet.ext.rdf;
 
 import org.restlet.data.Language;
 import org.restlet.data.Reference;
+import org.restlet.engine.util.SystemUtils;
 
 /**
  * Literal as defined by RDF. Composed of the literal value, optional datatype
@@ -93,6 +94,31 @@ public class Literal {
         this.language = language;
     }
 
+    /**
+     * Indicates if the given object is a literal with the same value, datatype
+     * reference and language.
+     * 
+     * @param other
+     *            The object to compare.
+     * @return True if the object is an equal literal.
+     */
+    @Override
+    public boolean equals(Object other) {
+        boolean result = (this == other);
+
+        if (!result && (other instanceof Literal)) {
+            Literal literal = (Literal) other;
+            result = ((getValue() == null) ? literal.getValue() == null
+                    : getValue().equals(literal.getValue()))
+                    && ((getDatatypeRef() == null) ? literal.getDatatypeRef() == null
+                            : getDatatypeRef().equals(literal.getDatatypeRef()))
+                    && ((getLanguage() == null) ? literal.getLanguage() == null
+                            : getLanguage().equals(literal.getLanguage()));
+        }
+
+        return result;
+    }
+
     /**
      * Returns the optional datatype reference.
      * 
@@ -120,6 +146,11 @@ public class Literal {
         return value;
     }
 
+    @Override
+    public int hashCode() {
+        return SystemUtils.hashCode(getValue(), getDatatypeRef(), getLanguage());
+    }
+
     /**
      * Indicates if the literal is plain. Plain literals have a value and an
      * optional language tag.
@@ -35,6 +35,7 @@ package org.restlet.ext.rdf;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Iterator;
 import java.util.logging.Level;
 
 import org.restlet.Context;
@@ -55,7 +56,14 @@ import org.restlet.representation.WriterRepresentation;
  * Generic RDF representation. Provides support for the Resource Description
  * Framework (RDF) Semantic Web standard. It supports major RDF serialization
  * formats (n3, Turtle, N-Triples and RDF/XML) and is able to both serialize and
- * deserialize a {@link Graph}.
+ * deserialize a {@link Graph}.<br>
+ * <br>
+ * Large documents can be processed without building a graph. The
+ * {@link #parse(GraphHandler)} method invokes the graph handler as each
+ * statement is read. Links supplied by an iterator are written as they are
+ * iterated. A representation wrapping another RDF representation writes the
+ * links as they are parsed, which converts a document between two
+ * serialization formats with bounded memory.
  * 
  * @author Jerome Louvel
  */
@@ -64,6 +72,9 @@ public class RdfRepresentation extends WriterRepresentation {
     /** The inner graph of links. */
     private Graph graph;
 
+    /** The iterator over the links to write. */
+    private Iterator<Link> links;
+
     /** The inner RDF representation. */
     private Representation rdfRepresentation;
 
@@ -87,6 +98,22 @@ public class RdfRepresentation extends WriterRepresentation {
         this.graph = linkSet;
     }
 
+    /**
+     * Constructor writing the links supplied by an iterator, without building
+     * a graph. The links are iterated only once, so the representation is
+     * transient.
+     * 
+     * @param links
+     *            The iterator over the links to write.
+     * @param mediaType
+     *            The representation's mediaType.
+     */
+    public RdfRepresentation(Iterator<Link> links, MediaType mediaType) {
+        super(mediaType);
+        this.links = links;
+        setTransient(true);
+    }
+
     /**
      * Constructor with argument.
      * 
@@ -219,7 +246,16 @@ public class RdfRepresentation extends WriterRepresentation {
     public Graph getGraph() throws IOException {
         if (this.graph == null) {
             this.graph = new Graph();
-            parse(createBuilder(this.graph));
+
+            if (this.links != null) {
+                while (this.links.hasNext()) {
+                    this.graph.add(this.links.next());
+                }
+
+                this.links = null;
+            } else {
+                parse(createBuilder(this.graph));
+            }
         }
         return this.graph;
     }
@@ -271,57 +307,81 @@ public class RdfRepresentation extends WriterRepresentation {
     }
 
     /**
-     * Writes the
+     * Writes a link with the given graph handler.
      * 
+     * @param link
+     *            The link to write.
      * @param graphHandler
+     *            The graph handler.
+     */
+    private void write(Link link, GraphHandler graphHandler) {
+        if (link.hasReferenceSource()) {
+            if (link.hasReferenceTarget()) {
+                graphHandler.link(link.getSourceAsReference(),
+                        link.getTypeRef(), link.getTargetAsReference());
+            } else if (link.hasLiteralTarget()) {
+                graphHandler.link(link.getSourceAsReference(),
+                        link.getTypeRef(), link.getTargetAsLiteral());
+            } else if (link.hasLinkTarget()) {
+                Context.getCurrentLogger()
+                        .warning(
+                                "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
+            } else {
+                Context.getCurrentLogger()
+                        .warning(
+                                "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
+            }
+        } else if (link.hasGraphSource()) {
+            if (link.hasReferenceTarget()) {
+                graphHandler.link(link.getSourceAsGraph(), link.getTypeRef(),
+                        link.getTargetAsReference());
+            } else if (link.hasLiteralTarget()) {
+                graphHandler.link(link.getSourceAsGraph(), link.getTypeRef(),
+                        link.getTargetAsLiteral());
+            } else if (link.hasLinkTarget()) {
+                Context.getCurrentLogger()
+                        .warning(
+                                "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
+            } else {
+                Context.getCurrentLogger()
+                        .warning(
+                                "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
+            }
+        }
+    }
+
+    /**
+     * Writes the links of the graph, of the iterator or of the inner RDF
+     * representation with the given graph handler. Only the links of a graph
+     * are scanned beforehand to discover the namespaces, the others are
+     * written as they are iterated or parsed.
+     * 
+     * @param graphHandler
+     *            The graph handler.
      * @throws IOException
      */
     public void write(GraphHandler graphHandler) throws IOException {
         try {
-            if (graph != null) {
-                discoverNamespaces(graph, graphHandler);
+            if (this.graph != null) {
+                discoverNamespaces(this.graph, graphHandler);
+                graphHandler.startGraph();
+
+                for (Link link : this.graph) {
+                    write(link, graphHandler);
+                }
+
+                graphHandler.endGraph();
+            } else if (this.links != null) {
                 graphHandler.startGraph();
 
-                for (Link link : graph) {
-                    if (link.hasReferenceSource()) {
-                        if (link.hasReferenceTarget()) {
-                            graphHandler.link(link.getSourceAsReference(),
-                                    link.getTypeRef(),
-                                    link.getTargetAsReference());
-                        } else if (link.hasLiteralTarget()) {
-                            graphHandler.link(link.getSourceAsReference(),
-                                    link.getTypeRef(),
-                                    link.getTargetAsLiteral());
-                        } else if (link.hasLinkTarget()) {
-                            Context.getCurrentLogger()
-                                    .warning(
-                                            "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
-                        } else {
-                            Context.getCurrentLogger()
-                                    .warning(
-                                            "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
-                        }
-                    } else if (link.hasGraphSource()) {
-                        if (link.hasReferenceTarget()) {
-                            graphHandler.link(link.getSourceAsGraph(),
-                                    link.getTypeRef(),
-                                    link.getTargetAsReference());
-                        } else if (link.hasLiteralTarget()) {
-                            graphHandler.link(link.getSourceAsGraph(),
-                                    link.getTypeRef(),
-                                    link.getTargetAsLiteral());
-                        } else if (link.hasLinkTarget()) {
-                            Context.getCurrentLogger()
-                                    .warning(
-                                            "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
-                        } else {
-                            Context.getCurrentLogger()
-                                    .warning(
-                                            "Cannot write the representation of a statement due to the fact that the object is neither a Reference nor a literal.");
-                        }
-                    }
+                while (this.links.hasNext()) {
+                    write(this.links.next(), graphHandler);
                 }
 
+                graphHandler.endGraph();
+            } else if (this.rdfRepresentation != null) {
+                graphHandler.startGraph();
+                parse(graphHandler);
                 graphHandler.endGraph();
             }
         } catch (Exception e) {
@@ -154,7 +154,7 @@ public class RdfNTriplesReader extends RdfReader {
     protected String getCurrentToken() {
         StringBuilder builder = new StringBuilder();
         if (startTokenIndex <= scoutIndex) {
-            if (scoutIndex <= BUFFER_SIZE) {
+            if ((scoutIndex <= BUFFER_SIZE) || (startTokenIndex > BUFFER_SIZE)) {
                 for (int i = startTokenIndex; i < scoutIndex; i++) {
                     builder.append(buffer[i]);
                 }
@@ -419,7 +419,7 @@ public class RdfNTriplesReader extends RdfReader {
                 // Reached the end of the first part of the buffer, read into
                 // the second one.
                 scoutIndex++;
-                int len = this.br.read(buffer, 0, BUFFER_SIZE);
+                int len = this.br.read(buffer, BUFFER_SIZE + 1, BUFFER_SIZE);
                 if (len == -1) {
                     // End of the stream reached
                     buffer[scoutIndex] = EOF;
@@ -38,7 +38,6 @@ import java.net.InetSocketAddress;
 import java.nio.channels.SocketChannel;
 
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLEngine;
 
 import org.restlet.Client;
 import org.restlet.data.Protocol;
@@ -47,6 +46,7 @@ import org.restlet.engine.connector.Connection;
 import org.restlet.engine.connector.ConnectionController;
 import org.restlet.engine.connector.InboundWay;
 import org.restlet.engine.connector.OutboundWay;
+import org.restlet.ext.ssl.internal.HandshakeService;
 import org.restlet.ext.ssl.internal.HttpsClientInboundWay;
 import org.restlet.ext.ssl.internal.HttpsClientOutboundWay;
 import org.restlet.ext.ssl.internal.SslConnection;
@@ -63,6 +63,21 @@ import org.restlet.ext.ssl.internal.SslUtils;
  * <th>Description</th>
  * </tr>
  * <tr>
+ * <td>handshakeThreads</td>
+ * <td>int</td>
+ * <td>Number of processors</td>
+ * <td>Number of threads running the CPU intensive tasks of the SSL handshakes.
+ * Those threads are separate from the worker threads processing the calls.</td>
+ * </tr>
+ * <tr>
+ * <td>maxQueuedHandshakes</td>
+ * <td>int</td>
+ * <td>1024</td>
+ * <td>Maximum number of SSL handshake tasks that can be queued if there aren't
+ * any handshake thread available to run them. Beyond, new connections are
+ * closed.</td>
+ * </tr>
+ * <tr>
  * <td>sslContextFactory</td>
  * <td>String</td>
  * <td>org.restlet.ext.ssl.DefaultSslContextFactory</td>
@@ -78,6 +93,9 @@ import org.restlet.ext.ssl.internal.SslUtils;
  */
 public class HttpsClientHelper extends ClientConnectionHelper {
 
+    /** The service running the delegated tasks of the SSL handshakes. */
+    private volatile HandshakeService handshakeService;
+
     /** The SSL context. */
     private volatile SSLContext sslContext;
 
@@ -93,21 +111,31 @@ public class HttpsClientHelper extends ClientConnectionHelper {
     }
 
     @Override
-    protected Connection<Client> createConnection(SocketChannel socketChannel,
+    protected Connection<Client> checkout(SocketChannel socketChannel,
             ConnectionController controller, InetSocketAddress socketAddress)
             throws IOException {
-        // Create the SSL engine
-        SSLEngine engine;
-
-        if (socketAddress != null) {
-            engine = getSslContext().createSSLEngine(
-                    socketAddress.getHostName(), socketAddress.getPort());
+        Connection<Client> result = null;
+
+        if (isPooledConnection()) {
+            // SSL engines can't be reused, so pooled connections need a new one
+            result = getConnectionPool().checkout();
+            ((SslConnection<Client>) result).setSslEngine(SslUtils
+                    .createSslEngine(getSslContext(), socketAddress));
+            result.reuse(socketChannel, controller, socketAddress);
         } else {
-            engine = getSslContext().createSSLEngine();
+            result = createConnection(socketChannel, controller, socketAddress);
         }
 
+        return result;
+    }
+
+    @Override
+    protected Connection<Client> createConnection(SocketChannel socketChannel,
+            ConnectionController controller, InetSocketAddress socketAddress)
+            throws IOException {
         return new SslConnection<Client>(this, socketChannel, controller,
-                socketAddress, engine);
+                socketAddress, SslUtils.createSslEngine(getSslContext(),
+                        socketAddress), getHandshakeService());
     }
 
     @Override
@@ -122,6 +150,15 @@ public class HttpsClientHelper extends ClientConnectionHelper {
         return new HttpsClientOutboundWay(connection, bufferSize);
     }
 
+    /**
+     * Returns the service running the delegated tasks of the SSL handshakes.
+     * 
+     * @return The service running the delegated tasks of the SSL handshakes.
+     */
+    protected HandshakeService getHandshakeService() {
+        return handshakeService;
+    }
+
     /**
      * Returns the SSL context.
      * 
@@ -145,7 +182,17 @@ public class HttpsClientHelper extends ClientConnectionHelper {
     public synchronized void start() throws Exception {
         SslContextFactory factory = SslUtils.getSslContextFactory(this);
         setSslContext(factory.createSslContext());
+        this.handshakeService = SslUtils.createHandshakeService(this);
         super.start();
     }
 
+    @Override
+    public synchronized void stop() throws Exception {
+        super.stop();
+
+        if (getHandshakeService() != null) {
+            getHandshakeService().shutdown();
+        }
+    }
+
 }
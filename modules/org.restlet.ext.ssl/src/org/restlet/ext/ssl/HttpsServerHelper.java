@@ -38,7 +38,6 @@ import java.net.InetSocketAddress;
 import java.nio.channels.SocketChannel;
 
 import javax.net.ssl.SSLContext;
-import javax.net.ssl.SSLEngine;
 
 import org.restlet.Request;
 import org.restlet.Server;
@@ -48,6 +47,7 @@ import org.restlet.engine.connector.ConnectionController;
 import org.restlet.engine.connector.HttpServerHelper;
 import org.restlet.engine.connector.InboundWay;
 import org.restlet.engine.connector.OutboundWay;
+import org.restlet.ext.ssl.internal.HandshakeService;
 import org.restlet.ext.ssl.internal.HttpsInboundRequest;
 import org.restlet.ext.ssl.internal.HttpsServerInboundWay;
 import org.restlet.ext.ssl.internal.HttpsServerOutboundWay;
@@ -65,6 +65,21 @@ import org.restlet.ext.ssl.internal.SslUtils;
  * <th>Description</th>
  * </tr>
  * <tr>
+ * <td>handshakeThreads</td>
+ * <td>int</td>
+ * <td>Number of processors</td>
+ * <td>Number of threads running the CPU intensive tasks of the SSL handshakes.
+ * Those threads are separate from the worker threads processing the calls.</td>
+ * </tr>
+ * <tr>
+ * <td>maxQueuedHandshakes</td>
+ * <td>int</td>
+ * <td>1024</td>
+ * <td>Maximum number of SSL handshake tasks that can be queued if there aren't
+ * any handshake thread available to run them. Beyond, new connections are
+ * closed.</td>
+ * </tr>
+ * <tr>
  * <td>sslContextFactory</td>
  * <td>String</td>
  * <td>org.restlet.ext.ssl.DefaultSslContextFactory</td>
@@ -80,6 +95,9 @@ import org.restlet.ext.ssl.internal.SslUtils;
  */
 public class HttpsServerHelper extends HttpServerHelper {
 
+    /** The service running the delegated tasks of the SSL handshakes. */
+    private volatile HandshakeService handshakeService;
+
     /** The SSL context. */
     private volatile SSLContext sslContext;
 
@@ -94,21 +112,31 @@ public class HttpsServerHelper extends HttpServerHelper {
     }
 
     @Override
-    protected Connection<Server> createConnection(SocketChannel socketChannel,
+    protected Connection<Server> checkout(SocketChannel socketChannel,
             ConnectionController controller, InetSocketAddress socketAddress)
             throws IOException {
-        // Create the SSL engine
-        SSLEngine engine;
-
-        if (socketAddress != null) {
-            engine = getSslContext().createSSLEngine(
-                    socketAddress.getHostName(), socketAddress.getPort());
+        Connection<Server> result = null;
+
+        if (isPooledConnection()) {
+            // SSL engines can't be reused, so pooled connections need a new one
+            result = getConnectionPool().checkout();
+            ((SslConnection<Server>) result).setSslEngine(SslUtils
+                    .createSslEngine(getSslContext(), socketAddress));
+            result.reuse(socketChannel, controller, socketAddress);
         } else {
-            engine = getSslContext().createSSLEngine();
+            result = createConnection(socketChannel, controller, socketAddress);
         }
 
+        return result;
+    }
+
+    @Override
+    protected Connection<Server> createConnection(SocketChannel socketChannel,
+            ConnectionController controller, InetSocketAddress socketAddress)
+            throws IOException {
         return new SslConnection<Server>(this, socketChannel, controller,
-                socketAddress, engine);
+                socketAddress, SslUtils.createSslEngine(getSslContext(),
+                        socketAddress), getHandshakeService());
     }
 
     @Override
@@ -130,6 +158,38 @@ public class HttpsServerHelper extends HttpServerHelper {
                 resourceUri, protocol);
     }
 
+    /**
+     * Returns the number of full SSL handshakes completed since the start of
+     * the connector. A full handshake negotiates a new SSL session.
+     * 
+     * @return The number of full SSL handshakes completed.
+     */
+    public long getFullHandshakeCount() {
+        return (getHandshakeService() == null) ? 0L : getHandshakeService()
+                .getFullCount();
+    }
+
+    /**
+     * Returns the service running the delegated tasks of the SSL handshakes.
+     * 
+     * @return The service running the delegated tasks of the SSL handshakes.
+     */
+    protected HandshakeService getHandshakeService() {
+        return handshakeService;
+    }
+
+    /**
+     * Returns the number of SSL handshakes that resumed a previous SSL session
+     * since the start of the connector. Those handshakes skip the costly key
+     * exchange.
+     * 
+     * @return The number of SSL handshakes that resumed a previous session.
+     */
+    public long getResumedHandshakeCount() {
+        return (getHandshakeService() == null) ? 0L : getHandshakeService()
+                .getResumedCount();
+    }
+
     /**
      * Returns the SSL context.
      * 
@@ -153,7 +213,17 @@ public class HttpsServerHelper extends HttpServerHelper {
     public synchronized void start() throws Exception {
         SslContextFactory factory = SslUtils.getSslContextFactory(this);
         setSslContext(factory.createSslContext());
+        this.handshakeService = SslUtils.createHandshakeService(this);
         super.start();
     }
 
+    @Override
+    public synchronized void stop() throws Exception {
+        super.stop();
+
+        if (getHandshakeService() != null) {
+            getHandshakeService().shutdown();
+        }
+    }
+
 }
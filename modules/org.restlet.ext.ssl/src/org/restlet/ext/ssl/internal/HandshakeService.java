@@ -0,0 +1,170 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.ext.ssl.internal;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+import org.restlet.engine.log.LoggingThreadFactory;
+
+/**
+ * Bounded service running the delegated tasks of the SSL handshakes, shared by
+ * all the connections of a connector. Those tasks, such as the verification of
+ * certificates or the computation of keys, are CPU intensive. Running them
+ * apart from the worker service prevents a burst of new SSL connections from
+ * starving the processing of requests. When the queue of pending tasks is
+ * full, new handshakes are rejected.<br>
+ * <br>
+ * It also counts the handshakes completed, distinguishing the full ones from
+ * the ones that resumed a previous SSL session.
+ * 
+ * @author Jerome Louvel
+ */
+public class HandshakeService {
+
+    /** The executor running the delegated tasks. */
+    private final ThreadPoolExecutor executor;
+
+    /** The number of full handshakes completed. */
+    private final AtomicLong fullCount;
+
+    /** The number of handshake tasks rejected. */
+    private final AtomicLong rejectedCount;
+
+    /** The number of handshakes completed by resuming a session. */
+    private final AtomicLong resumedCount;
+
+    /**
+     * Constructor.
+     * 
+     * @param logger
+     *            The logger of the parent connector.
+     * @param threads
+     *            The number of threads running the delegated tasks.
+     * @param maxQueued
+     *            The maximum number of delegated tasks waiting for a thread.
+     */
+    public HandshakeService(Logger logger, int threads, int maxQueued) {
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads),
+                Math.max(1, threads), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, maxQueued)),
+                new LoggingThreadFactory(logger, true));
+        this.fullCount = new AtomicLong();
+        this.rejectedCount = new AtomicLong();
+        this.resumedCount = new AtomicLong();
+    }
+
+    /**
+     * Runs the delegated tasks of a handshake in a separate thread.
+     * 
+     * @param task
+     *            The task to run.
+     * @return True if the task was accepted, false if the service is busy or
+     *         shut down.
+     */
+    public boolean execute(Runnable task) {
+        boolean result = false;
+
+        try {
+            this.executor.execute(task);
+            result = true;
+        } catch (RejectedExecutionException e) {
+            this.rejectedCount.incrementAndGet();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of full handshakes completed.
+     * 
+     * @return The number of full handshakes completed.
+     */
+    public long getFullCount() {
+        return this.fullCount.get();
+    }
+
+    /**
+     * Returns the number of handshake tasks rejected because the service was
+     * busy or shut down.
+     * 
+     * @return The number of handshake tasks rejected.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Returns the number of handshakes completed by resuming a session.
+     * 
+     * @return The number of handshakes completed by resuming a session.
+     */
+    public long getResumedCount() {
+        return this.resumedCount.get();
+    }
+
+    /**
+     * Callback method invoked when a handshake has been completed.
+     * 
+     * @param resumed
+     *            True if a previous SSL session was resumed.
+     */
+    public void onFinished(boolean resumed) {
+        if (resumed) {
+            this.resumedCount.incrementAndGet();
+        } else {
+            this.fullCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Shuts down the service. Pending tasks are still run.
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "Handshake service (full | resumed | rejected | queued): "
+                + getFullCount() + " | " + getResumedCount() + " | "
+                + getRejectedCount() + " | " + this.executor.getQueue().size();
+    }
+
+}
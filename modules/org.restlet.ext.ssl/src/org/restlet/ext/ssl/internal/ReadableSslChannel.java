@@ -73,8 +73,7 @@ public class ReadableSslChannel extends ReadableBufferedChannel implements
      */
     public ReadableSslChannel(ReadableSelectionChannel source,
             SslConnection<?> connection, WakeupListener wakeupListener) {
-        super(null, new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), source, wakeupListener);
+        super(null, connection.createPacketBuffer(), source, wakeupListener);
 
         if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
             Context.getCurrentLogger().log(
@@ -123,6 +122,9 @@ public class ReadableSslChannel extends ReadableBufferedChannel implements
     @Override
     public void postProcess(int drained) throws IOException {
         getConnection().handleSslResult();
+
+        // Return the packet buffer to its pool if it is empty
+        getBuffer().release();
     }
 
 }
@@ -54,6 +54,8 @@ import org.restlet.Connector;
 import org.restlet.engine.connector.Connection;
 import org.restlet.engine.connector.ConnectionController;
 import org.restlet.engine.connector.ConnectionHelper;
+import org.restlet.engine.connector.ConnectionState;
+import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.engine.io.WritableSelectionChannel;
@@ -67,17 +69,33 @@ import org.restlet.engine.io.WritableSelectionChannel;
  */
 public class SslConnection<T extends Connector> extends Connection<T> {
 
+    /** The service running the delegated tasks of the handshakes. */
+    private final HandshakeService handshakeService;
+
+    /** The time when the current handshake started. */
+    private volatile long handshakeStartTime;
+
     /** The peer address. */
     private volatile InetSocketAddress peerAddress;
 
+    /** The readable channel unwrapping the network data. */
+    private volatile ReadableSslChannel readableSslChannel;
+
     /** The engine to use for wrapping and unwrapping. */
     private volatile SSLEngine sslEngine;
 
     /** The engine result. */
     private volatile SSLEngineResult sslEngineResult;
 
+    /** Indicates if delegated tasks of the handshake are being run. */
+    private volatile boolean tasksRunning;
+
+    /** The writable channel wrapping the application data. */
+    private volatile WritableSslChannel writableSslChannel;
+
     /**
-     * Constructor.
+     * Constructor. The delegated tasks of the handshakes are run by the worker
+     * service of the helper.
      * 
      * @param helper
      *            The parent connector helper.
@@ -96,25 +114,85 @@ public class SslConnection<T extends Connector> extends Connection<T> {
             SocketChannel socketChannel, ConnectionController controller,
             InetSocketAddress socketAddress, SSLEngine sslEngine)
             throws IOException {
+        this(helper, socketChannel, controller, socketAddress, sslEngine, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param helper
+     *            The parent connector helper.
+     * @param socketChannel
+     *            The underlying NIO socket channel.
+     * @param controller
+     *            The IO controller.
+     * @param socketAddress
+     *            The associated IP address.
+     * @param sslEngine
+     *            The engine to use for wrapping and unwrapping.
+     * @param handshakeService
+     *            The service running the delegated tasks of the handshakes or
+     *            null to use the worker service of the helper.
+     * @throws IOException
+     */
+    public SslConnection(ConnectionHelper<T> helper,
+            SocketChannel socketChannel, ConnectionController controller,
+            InetSocketAddress socketAddress, SSLEngine sslEngine,
+            HandshakeService handshakeService) throws IOException {
         super(helper, socketChannel, controller, socketAddress, sslEngine
                 .getSession().getApplicationBufferSize(), sslEngine
                 .getSession().getApplicationBufferSize());
+        this.handshakeService = handshakeService;
         this.sslEngine = sslEngine;
         this.sslEngineResult = null;
-        getSslEngine().setUseClientMode(isClientSide());
         initSslEngine();
     }
 
+    @Override
+    public void clear() {
+        releasePacketBuffers();
+        this.readableSslChannel = null;
+        this.tasksRunning = false;
+        this.writableSslChannel = null;
+        super.clear();
+    }
+
+    @Override
+    public void close(boolean graceful) {
+        super.close(graceful);
+
+        if (getState() == ConnectionState.CLOSED) {
+            releasePacketBuffers();
+        }
+    }
+
+    /**
+     * Creates a buffer for the SSL packets. If the helper pools its buffers,
+     * the byte buffer is borrowed from the pool shared by all the connections
+     * only while SSL packets are being read or written.
+     * 
+     * @return A new buffer for the SSL packets.
+     */
+    protected Buffer createPacketBuffer() {
+        return getHelper().isPooledBuffers() ? new Buffer(getHelper()
+                .getBufferPool(getPacketBufferSize())) : new Buffer(
+                getPacketBufferSize(), getHelper().isDirectBuffers());
+    }
+
     @Override
     protected ReadableSelectionChannel createReadableSelectionChannel() {
-        return new ReadableSslChannel(super.createReadableSelectionChannel(),
-                this, getRegistration().getWakeupListener());
+        this.readableSslChannel = new ReadableSslChannel(
+                super.createReadableSelectionChannel(), this,
+                getRegistration().getWakeupListener());
+        return this.readableSslChannel;
     }
 
     @Override
     protected WritableSelectionChannel createWritableSelectionChannel() {
-        return new WritableSslChannel(super.createWritableSelectionChannel(),
-                this, getRegistration().getWakeupListener());
+        this.writableSslChannel = new WritableSslChannel(
+                super.createWritableSelectionChannel(), this,
+                getRegistration().getWakeupListener());
+        return this.writableSslChannel;
     }
 
     /**
@@ -127,6 +205,16 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                 .getApplicationBufferSize();
     }
 
+    /**
+     * Returns the service running the delegated tasks of the handshakes.
+     * 
+     * @return The service running the delegated tasks of the handshakes or
+     *         null.
+     */
+    public HandshakeService getHandshakeService() {
+        return handshakeService;
+    }
+
     @Override
     public int getInboundBufferSize() {
         return Math.max(super.getInboundBufferSize(), getSslSession()
@@ -300,6 +388,12 @@ public class SslConnection<T extends Connector> extends Connection<T> {
      * @throws IOException
      */
     public synchronized void handleSslResult() throws IOException {
+        if (this.tasksRunning) {
+            // The handshake is resumed once the delegated tasks are done
+            setSslEngineResult(null);
+            return;
+        }
+
         switch (getSslEngineStatus()) {
         case BUFFER_OVERFLOW:
             if (getLogger().isLoggable(Level.FINER)) {
@@ -343,9 +437,23 @@ public class SslConnection<T extends Connector> extends Connection<T> {
      * @throws SSLException
      */
     public void initSslEngine() throws SSLException {
+        this.handshakeStartTime = System.currentTimeMillis();
+        getSslEngine().setUseClientMode(isClientSide());
         getSslEngine().beginHandshake();
     }
 
+    /**
+     * Indicates if inbound bytes were already read from the network but not
+     * processed yet, either as SSL packets or as application data.
+     * 
+     * @return True if inbound bytes are waiting to be processed.
+     */
+    private boolean isInboundBuffered() {
+        return !getInboundWay().getBuffer().isEmpty()
+                || ((this.readableSslChannel != null) && !this.readableSslChannel
+                        .getBuffer().isEmpty());
+    }
+
     /**
      * Indicates if the SSL handshake is going on.
      * 
@@ -360,11 +468,20 @@ public class SslConnection<T extends Connector> extends Connection<T> {
      * exchanged.
      */
     private void onFinished() {
+        if (getHandshakeService() != null) {
+            // A resumed session was created before the handshake started
+            getHandshakeService().onFinished(
+                    getSslSession().getCreationTime() < this.handshakeStartTime);
+        }
+
         if (isClientSide()) {
             getInboundWay().setIoState(IoState.IDLE);
             getOutboundWay().setIoState(IoState.INTEREST);
         } else {
-            getInboundWay().setIoState(IoState.INTEREST);
+            // The first request might have been received with the end of
+            // the handshake
+            getInboundWay().setIoState(
+                    isInboundBuffered() ? IoState.READY : IoState.INTEREST);
             getOutboundWay().setIoState(IoState.IDLE);
         }
     }
@@ -373,28 +490,30 @@ public class SslConnection<T extends Connector> extends Connection<T> {
      * Runs the pending lengthy task.
      */
     private void onNeedTask() {
-        // Delegate lengthy tasks to the connector's worker
-        // service before checking again
-        final Runnable task = getSslEngine().getDelegatedTask();
+        // Delegate lengthy tasks to the handshake service or to the
+        // connector's worker service before checking again
+        final SSLEngine engine = getSslEngine();
+        final Runnable task = engine.getDelegatedTask();
 
         if (task != null) {
             // Suspend IO processing until the task completes
             getInboundWay().setIoState(IoState.IDLE);
             getOutboundWay().setIoState(IoState.IDLE);
+            this.tasksRunning = true;
 
             // Runs the pending lengthy task.
-            getHelper().getWorkerService().execute(new Runnable() {
+            Runnable tasks = new Runnable() {
                 public void run() {
                     getLogger().log(Level.FINER, "Running delegated tasks...");
                     task.run();
 
                     // Check if a next task is pending
-                    Runnable nextTask = getSslEngine().getDelegatedTask();
+                    Runnable nextTask = engine.getDelegatedTask();
 
                     // Run any pending task sequentially
                     while (nextTask != null) {
                         nextTask.run();
-                        nextTask = getSslEngine().getDelegatedTask();
+                        nextTask = engine.getDelegatedTask();
                     }
 
                     if (getLogger().isLoggable(Level.FINER)) {
@@ -404,14 +523,32 @@ public class SslConnection<T extends Connector> extends Connection<T> {
                                         + SslConnection.this.toString());
                     }
 
+                    if (engine != getSslEngine()) {
+                        // The connection was closed and reused meanwhile
+                        return;
+                    }
+
                     try {
+                        tasksRunning = false;
                         handleSslResult();
+
+                        // Let the controller resume the IO processing
+                        setDirty(true);
                     } catch (IOException e) {
                         getLogger().log(Level.INFO,
                                 "Unable to handle SSL handshake", e);
                     }
                 }
-            });
+            };
+
+            if (getHandshakeService() == null) {
+                getHelper().getWorkerService().execute(tasks);
+            } else if (!getHandshakeService().execute(tasks)) {
+                this.tasksRunning = false;
+                getLogger().log(Level.WARNING,
+                        "Too many pending SSL handshakes. Closing connection.");
+                close(false);
+            }
         }
     }
 
@@ -424,7 +561,12 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         getOutboundWay().setIoState(IoState.IDLE);
 
         if (getInboundWay().getIoState() != IoState.PROCESSING) {
-            getInboundWay().setIoState(IoState.READY);
+            if ((getSslEngineResult() == null) && !isInboundBuffered()) {
+                // Nothing left to unwrap, wait for more network data
+                getInboundWay().setIoState(IoState.INTEREST);
+            } else {
+                getInboundWay().setIoState(IoState.READY);
+            }
         }
     }
 
@@ -441,6 +583,22 @@ public class SslConnection<T extends Connector> extends Connection<T> {
         }
     }
 
+    /**
+     * Returns the packet buffers of the SSL channels to their pool, if they are
+     * pooled.
+     */
+    private void releasePacketBuffers() {
+        if (this.readableSslChannel != null) {
+            this.readableSslChannel.getBuffer().clear();
+            this.readableSslChannel.getBuffer().release();
+        }
+
+        if (this.writableSslChannel != null) {
+            this.writableSslChannel.getBuffer().clear();
+            this.writableSslChannel.getBuffer().release();
+        }
+    }
+
     @Override
     public void reuse(SocketChannel socketChannel,
             ConnectionController controller, InetSocketAddress socketAddress)
@@ -33,11 +33,15 @@
 
 package org.restlet.ext.ssl.internal;
 
+import java.net.InetSocketAddress;
 import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
 import org.restlet.Context;
 import org.restlet.engine.RestletHelper;
 import org.restlet.ext.ssl.DefaultSslContextFactory;
@@ -53,6 +57,51 @@ public class SslUtils {
     /** Cache of SSL key sizes for various cipher suites. */
     private final static ConcurrentMap<String, Integer> keySizesCache = new ConcurrentHashMap<String, Integer>();
 
+    /**
+     * Creates the service running the delegated tasks of the SSL handshakes,
+     * based on the "handshakeThreads" and "maxQueuedHandshakes" parameters of
+     * the helper.
+     * 
+     * @param helper
+     *            The connector helper.
+     * @return The new handshake service.
+     */
+    public static HandshakeService createHandshakeService(
+            RestletHelper<?> helper) {
+        int threads = Integer.parseInt(helper.getHelpedParameters()
+                .getFirstValue(
+                        "handshakeThreads",
+                        Integer.toString(Runtime.getRuntime()
+                                .availableProcessors())));
+        int maxQueued = Integer.parseInt(helper.getHelpedParameters()
+                .getFirstValue("maxQueuedHandshakes", "1024"));
+        return new HandshakeService(helper.getLogger(), threads, maxQueued);
+    }
+
+    /**
+     * Creates a new SSL engine for a given peer. The peer address lets client
+     * engines resume previous SSL sessions.
+     * 
+     * @param sslContext
+     *            The SSL context.
+     * @param socketAddress
+     *            The peer address or null.
+     * @return The new SSL engine.
+     */
+    public static SSLEngine createSslEngine(SSLContext sslContext,
+            InetSocketAddress socketAddress) {
+        SSLEngine result;
+
+        if (socketAddress != null) {
+            result = sslContext.createSSLEngine(socketAddress.getHostName(),
+                    socketAddress.getPort());
+        } else {
+            result = sslContext.createSSLEngine();
+        }
+
+        return result;
+    }
+
     /**
      * Extract the SSL key size of a given cipher suite.
      * 
@@ -72,8 +72,7 @@ public class WritableSslChannel extends WritableBufferedChannel implements
      */
     public WritableSslChannel(WritableSelectionChannel target,
             SslConnection<?> connection, WakeupListener wakeupListener) {
-        super(new Buffer(connection.getPacketBufferSize(), connection
-                .getHelper().isDirectBuffers()), target, wakeupListener);
+        super(connection.createPacketBuffer(), target, wakeupListener);
         this.connection = connection;
     }
 
@@ -122,6 +121,9 @@ public class WritableSslChannel extends WritableBufferedChannel implements
     @Override
     public void postProcess(int drained) throws IOException {
         getConnection().handleSslResult();
+
+        // Return the packet buffer to its pool if it is empty
+        getBuffer().release();
     }
 
     @Override
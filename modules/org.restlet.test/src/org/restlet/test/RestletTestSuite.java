@@ -65,6 +65,7 @@ import org.restlet.test.ext.html.HtmlTestSuite;
 import org.restlet.test.ext.jaxb.JaxbBasicConverterTestCase;
 import org.restlet.test.ext.jaxb.JaxbIntegrationConverterTestCase;
 import org.restlet.test.ext.jaxrs.JaxRsTestSuite;
+import org.restlet.test.ext.jdbc.JdbcTestSuite;
 import org.restlet.test.ext.odata.ODataTestSuite;
 import org.restlet.test.ext.sip.SipTests;
 import org.restlet.test.ext.spring.SpringTestSuite;
@@ -76,16 +77,19 @@ import org.restlet.test.ext.xml.TransformerTestCase;
 import org.restlet.test.regression.RegressionTestSuite;
 import org.restlet.test.representation.AppendableRepresentationTestCase;
 import org.restlet.test.representation.DigesterRepresentationTestCase;
+import org.restlet.test.representation.EncodeRepresentationTestCase;
 import org.restlet.test.representation.RangeRepresentationTestCase;
 import org.restlet.test.resource.ResourceTestSuite;
 import org.restlet.test.routing.FilterTestCase;
 import org.restlet.test.routing.RedirectTestCase;
 import org.restlet.test.routing.RouteListTestCase;
+import org.restlet.test.routing.RouteTreeTestCase;
 import org.restlet.test.routing.ValidatorTestCase;
 import org.restlet.test.security.HttpBasicTestCase;
 import org.restlet.test.security.RoleTestCase;
 import org.restlet.test.security.SecurityTestCase;
 import org.restlet.test.service.ServiceTestSuite;
+import org.restlet.test.util.SeriesTestCase;
 import org.restlet.test.util.TemplateTestCase;
 
 /**
@@ -115,6 +119,7 @@ public class RestletTestSuite extends TestSuite {
         addTestSuite(ComponentXmlConfigTestCase.class);
         addTestSuite(CookieTestCase.class);
         addTestSuite(ClientInfoTestCase.class);
+        addTestSuite(EncodeRepresentationTestCase.class);
         addTestSuite(FileClientTestCase.class);
         addTestSuite(FileReferenceTestCase.class);
         addTestSuite(FilterTestCase.class);
@@ -132,9 +137,11 @@ public class RestletTestSuite extends TestSuite {
         addTestSuite(RestletXmlTestCase.class);
         addTestSuite(RiapTestCase.class);
         addTestSuite(RouteListTestCase.class);
+        addTestSuite(RouteTreeTestCase.class);
         addTestSuite(DigestVerifierTestCase.class);
         addTestSuite(RecipientInfoTestCase.class);
         addTestSuite(RoleTestCase.class);
+        addTestSuite(SeriesTestCase.class);
         addTestSuite(StatusTestCase.class);
         addTestSuite(TemplateTestCase.class);
         addTestSuite(TransformerTestCase.class);
@@ -144,6 +151,7 @@ public class RestletTestSuite extends TestSuite {
         addTest(CryptoTestSuite.suite());
         addTest(EmfTestSuite.suite());
         addTest(HtmlTestSuite.suite());
+        addTest(JdbcTestSuite.suite());
         addTest(ODataTestSuite.suite());
         addTest(WadlTestSuite.suite());
 
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Date;
+
+import org.restlet.engine.util.DateUtils;
+
+public class TestDateFormatting {
+
+    private static final String[] DATES = new String[] {
+            "Sun, 06 Nov 1994 08:49:37 GMT", "Sunday, 06-Nov-94 08:49:37 GMT",
+            "Sun Nov  6 08:49:37 1994" };
+
+    public static void main(String[] args) throws Exception {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0])
+                : 1000000;
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        long now = System.currentTimeMillis();
+
+        // Warm up, then measure
+        for (int run = 0; run < 3; run++) {
+            // Formatting of the current date, as for the Date header
+            long allocated = getAllocatedBytes(threadBean);
+            long start = System.nanoTime();
+            int length = 0;
+
+            for (int i = 0; i < iterations; i++) {
+                length += DateUtils.format(new Date(now + (i / 1000)))
+                        .length();
+            }
+
+            print(run, "format current date", start, allocated, threadBean,
+                    iterations);
+
+            // Formatting of various dates, as for Last-Modified headers
+            allocated = getAllocatedBytes(threadBean);
+            start = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                length += DateUtils.format(new Date(now - (i * 7919000L)))
+                        .length();
+            }
+
+            print(run, "format other dates", start, allocated, threadBean,
+                    iterations);
+
+            // Parsing of repeated dates, as for If-Modified-Since headers
+            allocated = getAllocatedBytes(threadBean);
+            start = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                length += DateUtils.parse(DATES[0]).getTime() > 0 ? 1 : 0;
+            }
+
+            print(run, "parse RFC 1123 date", start, allocated, threadBean,
+                    iterations);
+
+            // Parsing of various dates with the formats accepted by HTTP
+            allocated = getAllocatedBytes(threadBean);
+            start = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                String date = DateUtils.format(new Date(now - (i * 7919000L)));
+                length += DateUtils.parse(date).getTime() > 0 ? 1 : 0;
+            }
+
+            print(run, "format and parse other dates", start, allocated,
+                    threadBean, iterations);
+
+            allocated = getAllocatedBytes(threadBean);
+            start = System.nanoTime();
+
+            for (int i = 0; i < iterations; i++) {
+                length += DateUtils.parse(DATES[1], DateUtils.FORMAT_RFC_1036)
+                        .getTime() > 0 ? 1 : 0;
+                length += DateUtils.parse(DATES[2], DateUtils.FORMAT_ASC_TIME)
+                        .getTime() > 0 ? 1 : 0;
+            }
+
+            print(run, "parse RFC 1036 and asctime dates", start, allocated,
+                    threadBean, iterations);
+
+            if (length == 0) {
+                System.out.println("Unexpected length");
+            }
+        }
+    }
+
+    private static long getAllocatedBytes(ThreadMXBean threadBean) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return 0;
+    }
+
+    private static void print(int run, String name, long start,
+            long allocated, ThreadMXBean threadBean, int iterations) {
+        long duration = System.nanoTime() - start;
+        allocated = getAllocatedBytes(threadBean) - allocated;
+
+        if (run > 0) {
+            System.out.println(name + ": " + (duration / iterations)
+                    + " ns and " + (allocated / iterations) + " bytes");
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+import org.restlet.Application;
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.connector.HttpServerHelper;
+import org.restlet.representation.StringRepresentation;
+
+public class TestEncodingThroughput {
+
+    public static void main(String[] args) throws Exception {
+        final int level = (args.length > 0) ? Integer.parseInt(args[0]) : -1;
+        int requests = (args.length > 1) ? Integer.parseInt(args[1]) : 500;
+        int threads = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; sb.length() < 256 * 1024; i++) {
+            sb.append("<item id=\"").append(i).append("\">Item number ")
+                    .append(i).append("</item>\n");
+        }
+
+        final String content = sb.toString();
+        Engine.getInstance().getRegisteredServers()
+                .add(0, new HttpServerHelper(null));
+        Component component = new Component();
+        component.getServers().add(Protocol.HTTP, 8554);
+        Application application = new Application() {
+            @Override
+            public Restlet createInboundRoot() {
+                return new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(new StringRepresentation(content,
+                                MediaType.TEXT_XML));
+                    }
+                };
+            }
+        };
+        application.getEncoderService().setEnabled(true);
+        application.getEncoderService().setCompressionLevel(level);
+        component.getDefaultHost().attach(application);
+        component.start();
+
+        // Warm up, then measure
+        for (int run = 0; run < 2; run++) {
+            final int perThread = requests / threads;
+            final long[] bytes = new long[threads];
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+
+            for (int t = 0; t < threads; t++) {
+                final int index = t;
+                workers[t] = new Thread() {
+                    @Override
+                    public void run() {
+                        byte[] buffer = new byte[8192];
+
+                        try {
+                            for (int i = 0; i < perThread; i++) {
+                                HttpURLConnection connection = (HttpURLConnection) new URL(
+                                        "http://localhost:8554/")
+                                        .openConnection();
+                                connection.setRequestProperty(
+                                        "Accept-Encoding", "gzip");
+                                InputStream in = new GZIPInputStream(
+                                        connection.getInputStream());
+
+                                for (int read = in.read(buffer); read != -1; read = in
+                                        .read(buffer)) {
+                                    bytes[index] += read;
+                                }
+
+                                in.close();
+                            }
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
+                    }
+                };
+                workers[t].start();
+            }
+
+            long total = 0;
+
+            for (int t = 0; t < threads; t++) {
+                workers[t].join();
+                total += bytes[t];
+            }
+
+            long duration = (System.nanoTime() - start) / 1000000;
+
+            if (run > 0) {
+                System.out.println("Level " + level + ", " + (perThread * threads)
+                        + " gzip responses in " + duration + " ms, "
+                        + (total / 1024 / Math.max(1, duration)) + " KB/ms");
+            }
+        }
+
+        component.stop();
+    }
+
+}
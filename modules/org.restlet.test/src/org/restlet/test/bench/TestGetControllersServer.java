@@ -0,0 +1,131 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.engine.ConnectorHelper;
+import org.restlet.engine.Engine;
+
+public class TestGetControllersServer {
+
+    public static void main(String[] args) throws Exception {
+        ConnectorHelper<Server> helper;
+        helper = new org.restlet.engine.connector.HttpServerHelper(null);
+        Engine.getInstance().getRegisteredServers().add(0, helper);
+
+        int maxControllers = (args.length > 0) ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        int clients = (args.length > 1) ? Integer.parseInt(args[1]) : 32;
+        int iterations = (args.length > 2) ? Integer.parseInt(args[2]) : 200;
+
+        for (int count = 1; count <= maxControllers; count *= 2) {
+            Server server = new Server(new Context(), Protocol.HTTP, 0,
+                    new Restlet() {
+                        @Override
+                        public void handle(Request request, Response response) {
+                            response.setEntity("hello, world!",
+                                    MediaType.TEXT_PLAIN);
+                        }
+                    });
+            server.getContext().getParameters()
+                    .add("controllerCount", Integer.toString(count));
+            server.getContext().getParameters().add("maxThreads", "100");
+            server.getContext().getParameters().add("lowThreads", "90");
+            server.start();
+
+            long duration = run(server.getEphemeralPort(), clients, iterations);
+            long calls = (long) clients * iterations;
+            System.out.println(count + " controller(s): " + calls
+                    + " calls in " + duration + " ms ("
+                    + ((calls * 1000) / Math.max(1, duration)) + " calls/s)");
+            server.stop();
+        }
+    }
+
+    private static long run(final int port, int clients, final int iterations)
+            throws Exception {
+        final CountDownLatch latch = new CountDownLatch(clients);
+        final AtomicLong errors = new AtomicLong();
+        long start = System.currentTimeMillis();
+
+        for (int i = 0; i < clients; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    byte[] buf = new byte[1024];
+
+                    try {
+                        URL url = new URL("http://localhost:" + port + "/");
+
+                        for (int j = 0; j < iterations; j++) {
+                            HttpURLConnection conn = (HttpURLConnection) url
+                                    .openConnection();
+                            InputStream in = conn.getInputStream();
+
+                            while (in.read(buf) != -1) {
+                            }
+
+                            in.close();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        latch.await();
+
+        if (errors.get() > 0) {
+            System.out.println("ERROR: " + errors.get() + " client(s) failed");
+        }
+
+        return System.currentTimeMillis() - start;
+    }
+}
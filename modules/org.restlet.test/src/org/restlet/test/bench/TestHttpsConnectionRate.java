@@ -0,0 +1,186 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.KeyStore;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.ext.ssl.HttpsServerHelper;
+
+public class TestHttpsConnectionRate {
+
+    private static long run(final SSLContext sslContext, final int port,
+            int threads, final int connections, final boolean resuming,
+            final AtomicInteger errors) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        final byte[] request = ("GET / HTTP/1.1\r\nHost: localhost:" + port
+                + "\r\nConnection: close\r\n\r\n").getBytes();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    byte[] buffer = new byte[1024];
+
+                    for (int j = 0; j < connections; j++) {
+                        try {
+                            SSLSocket socket = (SSLSocket) sslContext
+                                    .getSocketFactory().createSocket(
+                                            "localhost", port);
+                            socket.setSoTimeout(10000);
+                            socket.getOutputStream().write(request);
+                            socket.getOutputStream().flush();
+                            InputStream in = socket.getInputStream();
+                            int total = 0;
+
+                            for (int read = in.read(buffer); read != -1; read = in
+                                    .read(buffer)) {
+                                total += read;
+                            }
+
+                            if (total == 0) {
+                                errors.incrementAndGet();
+                            }
+
+                            if (!resuming) {
+                                socket.getSession().invalidate();
+                            }
+
+                            socket.close();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                    }
+
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executor.shutdown();
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+        int connections = (args.length > 1) ? Integer.parseInt(args[1]) : 200;
+        int port = (args.length > 2) ? Integer.parseInt(args[2]) : 8443;
+
+        // Copy the test key store into a temporary file
+        File keyStoreFile = File.createTempFile("restlet", ".jks");
+        keyStoreFile.deleteOnExit();
+        InputStream in = TestHttpsConnectionRate.class
+                .getResourceAsStream("/org/restlet/test/engine/dummy.jks");
+        OutputStream out = new FileOutputStream(keyStoreFile);
+        BioUtils.copy(in, out);
+        out.close();
+
+        // The helper is directly created to access its statistics
+        Engine.getInstance().getRegisteredServers().clear();
+        Server server = new Server(new Context(), Protocol.HTTPS, port,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello, world!",
+                                MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters()
+                .add("keyStorePath", keyStoreFile.getPath());
+        server.getContext().getParameters().add("keyStorePassword", "testtest");
+        server.getContext().getParameters().add("keyPassword", "testtest");
+        server.start();
+        HttpsServerHelper helper = new HttpsServerHelper(server);
+        helper.start();
+
+        // Trust the test certificate
+        KeyStore trustStore = KeyStore.getInstance("JKS");
+        in = TestHttpsConnectionRate.class
+                .getResourceAsStream("/org/restlet/test/engine/dummy.jks");
+        trustStore.load(in, "testtest".toCharArray());
+        in.close();
+        TrustManagerFactory tmf = TrustManagerFactory
+                .getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        tmf.init(trustStore);
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, tmf.getTrustManagers(), null);
+
+        for (int round = 0; round < 3; round++) {
+            for (int mode = 0; mode < 2; mode++) {
+                boolean resuming = (mode == 1);
+                AtomicInteger errors = new AtomicInteger();
+                long full = helper.getFullHandshakeCount();
+                long resumed = helper.getResumedHandshakeCount();
+                long duration = run(sslContext, port, threads, connections,
+                        resuming, errors);
+                System.out.println((resuming ? "Resuming" : "Full")
+                        + " handshakes: " + (threads * connections)
+                        + " connections in " + duration + " ms ("
+                        + (threads * connections * 1000L / duration)
+                        + " connections/s, " + errors + " errors, "
+                        + (helper.getFullHandshakeCount() - full) + " full, "
+                        + (helper.getResumedHandshakeCount() - resumed)
+                        + " resumed)");
+            }
+        }
+
+        helper.stop();
+        server.stop();
+        System.exit(0);
+    }
+
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.engine.ConnectorHelper;
+import org.restlet.engine.Engine;
+
+public class TestIdleConnections {
+
+    private static long getDirectMemoryUsed() {
+        for (BufferPoolMXBean pool : ManagementFactory
+                .getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                return pool.getMemoryUsed();
+            }
+        }
+
+        return 0;
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConnectorHelper<Server> helper;
+        helper = new org.restlet.engine.connector.HttpServerHelper(null);
+        Engine.getInstance().getRegisteredServers().add(0, helper);
+
+        int connections = (args.length > 0) ? Integer.parseInt(args[0])
+                : 500;
+
+        for (int mode = 0; mode < 2; mode++) {
+            boolean pooled = (mode == 1);
+            long before = getDirectMemoryUsed();
+            Server server = new Server(new Context(), Protocol.HTTP, 0,
+                    new Restlet() {
+                        @Override
+                        public void handle(Request request, Response response) {
+                            response.setEntity("hello, world!",
+                                    MediaType.TEXT_PLAIN);
+                        }
+                    });
+            server.getContext().getParameters().add("directBuffers", "true");
+            server.getContext().getParameters()
+                    .add("pooledBuffers", Boolean.toString(pooled));
+            server.getContext().getParameters().add("maxIoIdleTimeMs", "0");
+            server.start();
+
+            // Opens keep-alive connections, each one left idle after a call
+            List<Socket> sockets = new ArrayList<Socket>();
+            byte[] request = ("GET / HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                    .getBytes("US-ASCII");
+            byte[] response = new byte[1024];
+
+            for (int i = 0; i < connections; i++) {
+                Socket socket = new Socket("localhost",
+                        server.getEphemeralPort());
+                OutputStream out = socket.getOutputStream();
+                out.write(request);
+                out.flush();
+                InputStream in = socket.getInputStream();
+                int read = 0;
+
+                while (!new String(response, 0, read, "US-ASCII")
+                        .endsWith("hello, world!")) {
+                    read += in.read(response, read, response.length - read);
+                }
+
+                sockets.add(socket);
+            }
+
+            Thread.sleep(500);
+            long used = getDirectMemoryUsed() - before;
+            System.out.println((pooled ? "Pooled" : "Unpooled")
+                    + " buffers: " + connections + " idle connections use "
+                    + (used / 1024) + " KB of direct memory ("
+                    + (used / connections) + " bytes per connection)");
+
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+
+            server.stop();
+        }
+
+        System.exit(0);
+    }
+
+}
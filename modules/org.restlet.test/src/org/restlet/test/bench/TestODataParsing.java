@@ -0,0 +1,140 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.util.Iterator;
+
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Protocol;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.routing.Router;
+import org.restlet.test.ext.odata.cafe.Cafe;
+import org.restlet.test.ext.odata.cafe.CafeService;
+
+public class TestODataParsing {
+
+    public static void main(String[] args) throws Exception {
+        int entries = (args.length > 0) ? Integer.parseInt(args[0]) : 20000;
+        int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 5;
+        final String metadata = new InputRepresentation(
+                CafeService.class.getResourceAsStream("metadata.xml"))
+                .getText();
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"yes\"?>\n");
+        sb.append("<feed xml:base=\"http://localhost:8111/Cafe.svc/\"");
+        sb.append(" xmlns:d=\"http://schemas.microsoft.com/ado/2007/08/dataservices\"");
+        sb.append(" xmlns:m=\"http://schemas.microsoft.com/ado/2007/08/dataservices/metadata\"");
+        sb.append(" xmlns=\"http://www.w3.org/2005/Atom\">\n");
+        sb.append("<title type=\"text\">Cafes</title>\n");
+        sb.append("<id>http://localhost:8111/Cafe.svc/Cafes</id>\n");
+        sb.append("<updated>2010-02-17T11:28:13Z</updated>\n");
+        sb.append("<link rel=\"self\" title=\"Cafes\" href=\"Cafes\" />\n");
+
+        for (int i = 0; i < entries; i++) {
+            sb.append("<entry>\n");
+            sb.append("<id>http://localhost:8111/Cafe.svc/Cafes('").append(i)
+                    .append("')</id>\n");
+            sb.append("<title type=\"text\"></title>\n");
+            sb.append("<updated>2010-02-17T11:28:13Z</updated>\n");
+            sb.append("<author><name /></author>\n");
+            sb.append("<link rel=\"edit\" title=\"Cafe\" href=\"Cafes('")
+                    .append(i).append("')\" />\n");
+            sb.append("<category term=\"org.restlet.test.ext.odata.cafe.Cafe\"");
+            sb.append(" scheme=\"http://schemas.microsoft.com/ado/2007/08/dataservices/scheme\" />\n");
+            sb.append("<content type=\"application/xml\"><m:properties>\n");
+            sb.append("<d:ID>").append(i).append("</d:ID>\n");
+            sb.append("<d:Name>Cafe ").append(i).append("</d:Name>\n");
+            sb.append("<d:ZipCode m:type=\"Edm.Int32\">")
+                    .append(10000 + (i % 90000)).append("</d:ZipCode>\n");
+            sb.append("<d:City>City ").append(i % 100).append("</d:City>\n");
+            sb.append("<d:CompanyName>Company ").append(i % 10)
+                    .append("</d:CompanyName>\n");
+            sb.append("</m:properties></content>\n");
+            sb.append("</entry>\n");
+        }
+
+        sb.append("</feed>\n");
+        final String feed = sb.toString();
+        System.out.println("Feed of " + entries + " entries: "
+                + (feed.length() / 1024) + " KB");
+
+        Component component = new Component();
+        component.getServers().add(Protocol.HTTP, 8111);
+        Router router = new Router(component.getContext().createChildContext());
+        router.attach("/$metadata", new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setEntity(new StringRepresentation(metadata,
+                        MediaType.APPLICATION_XML));
+            }
+        });
+        router.attach("/Cafes", new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                response.setEntity(new StringRepresentation(feed,
+                        MediaType.APPLICATION_ATOM));
+            }
+        });
+        component.getDefaultHost().attach("/Cafe.svc", router);
+        component.start();
+
+        try {
+            for (int run = 0; run < runs; run++) {
+                long start = System.nanoTime();
+                Iterator<Cafe> iterator = new CafeService().createCafeQuery(
+                        "/Cafes").iterator();
+                int count = 0;
+                long zipCodes = 0;
+
+                while (iterator.hasNext()) {
+                    zipCodes += iterator.next().getZipCode();
+                    count++;
+                }
+
+                long duration = (System.nanoTime() - start) / 1000000;
+                System.out.println("Parsed " + count + " entities in "
+                        + duration + " ms (" + (count * 1000L / (duration + 1))
+                        + " entities/s, checksum " + zipCodes + ")");
+            }
+        } finally {
+            component.stop();
+        }
+    }
+
+}
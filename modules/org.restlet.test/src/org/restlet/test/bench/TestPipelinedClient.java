@@ -0,0 +1,136 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.Engine;
+
+public class TestPipelinedClient {
+
+    private static long run(final Client client, final String uri,
+            int threads, final int calls, final AtomicInteger errors)
+            throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch latch = new CountDownLatch(threads);
+        long start = System.nanoTime();
+
+        for (int i = 0; i < threads; i++) {
+            executor.execute(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < calls; j++) {
+                        Response response = client.handle(new Request(
+                                Method.GET, uri));
+
+                        if (response.getStatus().isSuccess()) {
+                            try {
+                                response.getEntity().exhaust();
+                            } catch (Exception e) {
+                                errors.incrementAndGet();
+                            }
+                        } else {
+                            errors.incrementAndGet();
+                        }
+
+                        response.release();
+                    }
+
+                    latch.countDown();
+                }
+            });
+        }
+
+        latch.await();
+        executor.shutdown();
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Engine.getInstance().getRegisteredServers()
+                .add(0, new org.restlet.engine.connector.HttpServerHelper(null));
+        Engine.getInstance().getRegisteredClients()
+                .add(0, new org.restlet.engine.connector.HttpClientHelper(null));
+
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : 16;
+        int calls = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity("hello, world!",
+                                MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters().add("pipeliningConnections", "true");
+        server.start();
+        String uri = "http://localhost:" + server.getEphemeralPort() + "/";
+
+        for (int round = 0; round < 3; round++) {
+            for (int mode = 0; mode < 2; mode++) {
+                boolean pipelining = (mode == 1);
+                Client client = new Client(new Context(), Protocol.HTTP);
+                client.getContext().getParameters()
+                        .add("maxConnectionsPerHost", "2");
+                client.getContext().getParameters()
+                        .add("pipeliningConnections",
+                                Boolean.toString(pipelining));
+                client.start();
+
+                AtomicInteger errors = new AtomicInteger();
+                long duration = run(client, uri, threads, calls, errors);
+                System.out.println((pipelining ? "Pipelined" : "Queued")
+                        + ": " + (threads * calls) + " GETs in " + duration
+                        + " ms (" + (threads * calls * 1000L / duration)
+                        + " calls/s, " + errors + " errors)");
+                client.stop();
+            }
+        }
+
+        server.stop();
+        System.exit(0);
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.ext.rdf.Graph;
+import org.restlet.ext.rdf.Literal;
+import org.restlet.ext.rdf.RdfRepresentation;
+import org.restlet.representation.FileRepresentation;
+
+public class TestRdfGraph {
+
+    private static final String EX = "http://www.example.com/";
+
+    public static void main(String[] args) throws Exception {
+        int triples = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+        int subjects = triples / 10;
+        File file = File.createTempFile("restlet-bench", ".nt");
+        file.deleteOnExit();
+
+        // Each subject has a name, a type and eight links to other subjects
+        BufferedWriter writer = new BufferedWriter(new FileWriter(file));
+
+        for (int i = 0; i < triples; i++) {
+            int subject = i / 10;
+            writer.write("<" + EX + "s" + subject + "> ");
+
+            switch (i % 10) {
+            case 0:
+                writer.write("<" + EX + "name> \"Subject " + subject + "\" .\n");
+                break;
+            case 1:
+                writer.write("<" + EX + "type> <" + EX + "Type"
+                        + (subject % 20) + "> .\n");
+                break;
+            default:
+                writer.write("<" + EX + "knows> <" + EX + "s"
+                        + ((subject * 31 + i) % subjects) + "> .\n");
+            }
+        }
+
+        writer.close();
+        System.out.println("File of " + triples + " triples: "
+                + (file.length() / 1024) + " KB");
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            Graph graph = new RdfRepresentation(new FileRepresentation(file,
+                    MediaType.TEXT_PLAIN)).getGraph();
+            long loaded = System.nanoTime();
+
+            int found = 0;
+            Reference knows = new Reference(EX + "knows");
+            Reference type = new Reference(EX + "type");
+
+            for (int i = 0; i < subjects; i++) {
+                Reference subject = new Reference(EX + "s" + i);
+                found += graph.getLinks(subject, null, null).size();
+                found += graph.getLinks(subject, knows, null).size();
+                found += graph.getLinks(null, knows, subject).size();
+                found += graph.getLinks(null, null,
+                        new Literal("Subject " + i)).size();
+            }
+
+            for (int i = 0; i < 20; i++) {
+                found += graph.getLinks(null, type,
+                        new Reference(EX + "Type" + i)).size();
+            }
+
+            long queried = System.nanoTime();
+            System.out.println("Loaded " + graph.size() + " links in "
+                    + ((loaded - start) / 1000000) + " ms, "
+                    + (subjects * 4 + 20) + " queries (" + found
+                    + " links found) in " + ((queried - loaded) / 1000000)
+                    + " ms");
+        }
+    }
+
+}
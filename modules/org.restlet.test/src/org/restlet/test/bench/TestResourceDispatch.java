@@ -0,0 +1,109 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import org.restlet.Application;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.resource.Get;
+import org.restlet.resource.Post;
+import org.restlet.resource.ServerResource;
+
+public class TestResourceDispatch {
+
+    public static class BenchServerResource extends ServerResource {
+
+        @Post("txt:txt")
+        public String accept(String entity) {
+            return entity;
+        }
+
+        @Get("txt|html")
+        public String represent() {
+            return "hello, world!";
+        }
+
+    }
+
+    private static long run(Context context, boolean post, int calls) {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < calls; i++) {
+            Request request = new Request(post ? Method.POST : Method.GET,
+                    "http://localhost/bench");
+            request.getClientInfo().getAcceptedMediaTypes()
+                    .add(new Preference<MediaType>(MediaType.TEXT_PLAIN));
+
+            if (post) {
+                request.setEntity(new StringRepresentation("hello, world!"));
+            }
+
+            Response response = new Response(request);
+            BenchServerResource resource = new BenchServerResource();
+            resource.init(context, request, response);
+            resource.handle();
+            resource.release();
+
+            if (!response.getStatus().isSuccess()) {
+                throw new IllegalStateException(response.getStatus()
+                        .toString());
+            }
+        }
+
+        return (System.nanoTime() - start) / 1000;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int calls = (args.length > 0) ? Integer.parseInt(args[0]) : 200000;
+        Application application = new Application();
+        Application.setCurrent(application);
+        Context context = application.getContext();
+
+        for (int round = 0; round < 3; round++) {
+            long duration = run(context, false, calls);
+            System.out.println("GET: " + calls + " calls, "
+                    + (duration * 1000 / calls) + " ns per call");
+            duration = run(context, true, calls);
+            System.out.println("POST: " + calls + " calls, "
+                    + (duration * 1000 / calls) + " ns per call");
+        }
+    }
+
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.routing.Router;
+
+public class TestRouterModes {
+
+    public static void main(String[] args) throws Exception {
+        int routes = (args.length > 0) ? Integer.parseInt(args[0]) : 300;
+        int iterations = (args.length > 1) ? Integer.parseInt(args[1])
+                : 200000;
+        Router router = new Router();
+        Restlet target = new Restlet() {
+        };
+
+        for (int i = 0; i < routes; i++) {
+            switch (i % 3) {
+            case 0:
+                router.attach("/api/resource" + i, target);
+                break;
+            case 1:
+                router.attach("/api/resource" + i + "/{id}", target);
+                break;
+            default:
+                router.attach("/api/resource" + i + "/{id}/items/{item}",
+                        target);
+                break;
+            }
+        }
+
+        String[] uris = new String[routes];
+
+        for (int i = 0; i < routes; i++) {
+            switch (i % 3) {
+            case 0:
+                uris[i] = "/api/resource" + i;
+                break;
+            case 1:
+                uris[i] = "/api/resource" + i + "/1234";
+                break;
+            default:
+                uris[i] = "/api/resource" + i + "/1234/items/abc";
+                break;
+            }
+        }
+
+        int[] modes = new int[] { Router.MODE_FIRST_MATCH,
+                Router.MODE_BEST_MATCH, Router.MODE_TREE_MATCH };
+        String[] names = new String[] { "first match", "best match",
+                "tree match" };
+
+        // Warm up, then measure
+        for (int run = 0; run < 2; run++) {
+            for (int m = 0; m < modes.length; m++) {
+                router.setRoutingMode(modes[m]);
+                long start = System.nanoTime();
+
+                for (int i = 0; i < iterations; i++) {
+                    Request request = new Request(Method.GET, uris[i % routes]);
+                    request.setLoggable(false);
+                    Response response = new Response(request);
+
+                    if (router.getNext(request, response) == null) {
+                        throw new IllegalStateException("No route for "
+                                + request.getResourceRef());
+                    }
+                }
+
+                long duration = System.nanoTime() - start;
+
+                if (run > 0) {
+                    System.out.println(names[m] + ": "
+                            + (duration / iterations) + " ns per call with "
+                            + routes + " routes");
+                }
+            }
+        }
+    }
+
+}
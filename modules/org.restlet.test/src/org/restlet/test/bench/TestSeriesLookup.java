@@ -0,0 +1,102 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.bench;
+
+import java.util.Vector;
+
+import org.restlet.engine.header.Header;
+import org.restlet.util.Series;
+
+public class TestSeriesLookup {
+
+    private static final String[] LOOKUPS = new String[] { "host",
+            "content-type", "content-length", "accept", "accept-encoding",
+            "if-none-match", "if-modified-since", "authorization",
+            "x-forwarded-for", "expect" };
+
+    private static Series<Header> createHeaders(int count, boolean indexed) {
+        Series<Header> result = indexed ? new Series<Header>(Header.class)
+                : new Series<Header>(Header.class, new Vector<Header>());
+        result.add("Host", "www.example.com");
+        result.add("Accept", "text/html");
+        result.add("Accept-Encoding", "gzip");
+        result.add("Content-Type", "text/plain");
+        result.add("Content-Length", "12");
+
+        for (int i = 0; result.size() < count; i++) {
+            result.add("X-Header-" + i, Integer.toString(i));
+        }
+
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = (args.length > 0) ? Integer.parseInt(args[0])
+                : 200000;
+        int[] counts = new int[] { 5, 10, 20, 50 };
+
+        // Warm up, then measure
+        for (int run = 0; run < 3; run++) {
+            for (int c = 0; c < counts.length; c++) {
+                for (int mode = 0; mode < 2; mode++) {
+                    boolean indexed = (mode == 1);
+                    long start = System.nanoTime();
+                    int found = 0;
+
+                    for (int i = 0; i < iterations; i++) {
+                        Series<Header> headers = createHeaders(counts[c],
+                                indexed);
+
+                        for (int l = 0; l < LOOKUPS.length; l++) {
+                            if (headers.getFirstValue(LOOKUPS[l], true) != null) {
+                                found++;
+                            }
+                        }
+                    }
+
+                    long duration = System.nanoTime() - start;
+
+                    if (run > 0) {
+                        System.out.println(counts[c] + " headers, "
+                                + (indexed ? "indexed" : "scanned") + ": "
+                                + (duration / iterations) + " ns per request ("
+                                + found + " found)");
+                    }
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.bench;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.ext.crypto.internal.EnginePool;
+
+public class TestSigningThroughput {
+
+    private static final String STRING_TO_SIGN = "GET\n\n\nTue, 27 Mar 2007 19:36:42 +0000\n/johnsmith/photos/puppy.jpg";
+
+    private static final byte[] SECRET = "wJalrXUtnFEMI/K7MDENG/bPxRfiCYEXAMPLEKEY"
+            .getBytes();
+
+    private static long run(final int mode, final int signatures, int threads)
+            throws Exception {
+        final EnginePool pool = new EnginePool();
+        Thread[] workers = new Thread[threads];
+        long start = System.nanoTime();
+
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        byte[] bytes = STRING_TO_SIGN.getBytes("UTF-8");
+
+                        for (int i = 0; i < signatures; i++) {
+                            switch (mode) {
+                            case 0:
+                                // One engine looked up and initialized per
+                                // signature
+                                Mac mac = Mac.getInstance("HmacSHA256");
+                                mac.init(new SecretKeySpec(SECRET, "HmacSHA256"));
+                                mac.doFinal(STRING_TO_SIGN.getBytes("UTF-8"));
+                                break;
+                            case 1:
+                                DigestUtils.toHMacSha256(STRING_TO_SIGN, SECRET);
+                                break;
+                            case 2:
+                                pool.toHMacSha256(STRING_TO_SIGN, SECRET);
+                                break;
+                            default:
+                                pool.toHMac("HmacSHA256", bytes, SECRET);
+                            }
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            };
+            workers[t].start();
+        }
+
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int signatures = (args.length > 0) ? Integer.parseInt(args[0])
+                : 200000;
+        int threads = (args.length > 1) ? Integer.parseInt(args[1]) : 4;
+        String[] modes = { "Mac.getInstance per signature",
+                "DigestUtils with a string", "EnginePool with a string",
+                "EnginePool with bytes" };
+
+        for (int round = 0; round < 3; round++) {
+            for (int mode = 0; mode < modes.length; mode++) {
+                long duration = run(mode, signatures, threads);
+                System.out.println(modes[mode] + ": " + (signatures * threads)
+                        + " signatures in " + duration + " ms ("
+                        + (signatures * threads * 1000L / (duration + 1))
+                        + " signatures/s)");
+            }
+        }
+    }
+
+}
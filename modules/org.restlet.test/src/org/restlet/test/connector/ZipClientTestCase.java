@@ -34,13 +34,19 @@
 package org.restlet.test.connector;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.restlet.data.LocalReference;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
 import org.restlet.engine.io.BioUtils;
 import org.restlet.representation.EmptyRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
 import org.restlet.resource.ClientResource;
 import org.restlet.resource.ResourceException;
@@ -137,4 +143,43 @@ public class ZipClientTestCase extends RestletTestCase {
         } catch (ResourceException e) {
         }
     }
+
+    public void testStoredEntry() throws IOException {
+        byte[] content = "Stored content\nLine 2".getBytes("UTF-8");
+        CRC32 crc = new CRC32();
+        crc.update(content);
+
+        ZipEntry entry = new ZipEntry("dir/stored.txt");
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCrc(crc.getValue());
+
+        ZipOutputStream zos = new ZipOutputStream(
+                new FileOutputStream(zipFile));
+        zos.putNextEntry(new ZipEntry("dir/"));
+        zos.closeEntry();
+        zos.putNextEntry(entry);
+        zos.write(content);
+        zos.closeEntry();
+        zos.close();
+
+        LocalReference fr = LocalReference.createFileReference(zipFile);
+        Reference zr = new Reference("zip:" + fr.toString());
+
+        // Stored entries are exposed as a region of the archive file
+        ClientResource r = new ClientResource(zr + "!/dir/stored.txt");
+        Representation entity = r.get();
+        assertTrue(r.getStatus().equals(Status.SUCCESS_OK));
+        assertTrue(entity.getChannel() instanceof FileChannel);
+        entity.release();
+
+        entity = r.get();
+        assertEquals(new String(content, "UTF-8"), entity.getText());
+        r.release();
+
+        // The directory listing comes from the same archive
+        ClientResource rd = new ClientResource(zr + "!/dir/");
+        assertTrue(rd.get().getText().contains("stored.txt"));
+        rd.release();
+    }
 }
@@ -59,10 +59,15 @@ public class ConnectorsTestSuite extends TestSuite {
         // [ifdef jse]
         addTestSuite(ChunkedEncodingPutTestCase.class);
         addTestSuite(ChunkedEncodingTestCase.class);
+        addTestSuite(GetEntitiesTestCase.class);
         addTestSuite(GetTestCase.class);
         addTestSuite(GetChunkedTestCase.class);
         addTestSuite(PostPutTestCase.class);
         addTestSuite(RemoteClientAddressTestCase.class);
+        addTestSuite(org.restlet.test.engine.connector.ControllersTestCase.class);
+        addTestSuite(org.restlet.test.engine.connector.HostConnectionsTestCase.class);
+        addTestSuite(org.restlet.test.engine.connector.PipeliningTestCase.class);
+        addTestSuite(org.restlet.test.engine.connector.WorkerServiceTestCase.class);
         addTestSuite(org.restlet.test.ext.ssl.SslGetTestCase.class);
         addTestSuite(org.restlet.test.ext.ssl.SslClientContextGetTestCase.class);
         // [enddef]
@@ -33,7 +33,12 @@
 
 package org.restlet.test.engine;
 
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.TimeZone;
 
 import org.restlet.engine.util.DateUtils;
 import org.restlet.test.RestletTestCase;
@@ -63,6 +68,90 @@ public class DateTestCase extends RestletTestCase {
 
     private String DATE_RFC822_1 = "Fri, 12 Apr 85 23:20:50 GMT";
 
+    /**
+     * Parses a date with a new SimpleDateFormat instance.
+     * 
+     * @param date
+     *            The date to parse.
+     * @param format
+     *            The date format.
+     * @return The parsed date or null.
+     */
+    private Date parse(String date, String format) {
+        try {
+            return newDateFormat(format).parse(date);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a new SimpleDateFormat instance for the GMT time zone.
+     * 
+     * @param format
+     *            The date format.
+     * @return The new SimpleDateFormat instance.
+     */
+    private SimpleDateFormat newDateFormat(String format) {
+        SimpleDateFormat result = new SimpleDateFormat(format, Locale.US);
+        result.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return result;
+    }
+
+    /**
+     * Tests that the cached and hand written date formats behave like
+     * SimpleDateFormat.
+     */
+    public void testFastFormats() throws Exception {
+        Random random = new Random(1);
+        List<?>[] formatsList = { DateUtils.FORMAT_RFC_1123,
+                DateUtils.FORMAT_ASC_TIME, DateUtils.FORMAT_RFC_1036 };
+
+        for (int i = 0; i < 2000; i++) {
+            // Mostly around 1970, sometimes out of the years 1600 to 9999
+            double range = (i % 4 == 0) ? 3e14 : 4e12;
+            long time = (long) (((random.nextDouble() * 2) - 1) * range);
+
+            for (List<?> formats : formatsList) {
+                @SuppressWarnings("unchecked")
+                List<String> list = (List<String>) formats;
+                String expected = newDateFormat(list.get(0)).format(
+                        new Date(time));
+                assertEquals(expected,
+                        DateUtils.format(new Date(time), list.get(0)));
+                assertEquals(parse(expected, list.get(0)),
+                        DateUtils.parse(expected, list));
+            }
+        }
+
+        String[] dates = { "Sun Nov  6 08:49:37 1994",
+                "Sun Nov 06 08:49:37 1994", "Mon Nov  6 08:49:37 1994",
+                "Thu Feb 29 08:49:37 2001", "Thu Feb 29 08:49:37 2000",
+                "Sun Nov 31 08:49:37 1994", "Sun Nov  6 08:49:37 1994 GMT" };
+
+        for (String date : dates) {
+            assertEquals(date, parse(date, DateUtils.FORMAT_ASC_TIME.get(0)),
+                    DateUtils.parse(date, DateUtils.FORMAT_ASC_TIME));
+        }
+
+        dates = new String[] { "Sun, 06 Nov 1994 08:49:37 GMT",
+                "Sun, 6 Nov 1994 08:49:37 GMT",
+                "Mon, 06 Nov 1994 08:49:37 GMT",
+                "Thu, 29 Feb 2001 08:49:37 GMT",
+                "Tue, 29 Feb 2000 08:49:37 GMT",
+                "Sun, 06 Nov 1994 08:49:60 GMT",
+                "Sun, 06 Nov 1994 08:49:37 PST",
+                "Sun, 06 Nov 1994 08:49:37 GMT+01:00" };
+
+        for (String date : dates) {
+            // Parse twice to go through the cache of parsed dates
+            assertEquals(date, parse(date, DateUtils.FORMAT_RFC_1123.get(0)),
+                    DateUtils.parse(date));
+            assertEquals(date, parse(date, DateUtils.FORMAT_RFC_1123.get(0)),
+                    DateUtils.parse(date));
+        }
+    }
+
     /**
      * Tests for dates in the RFC 822 format.
      */
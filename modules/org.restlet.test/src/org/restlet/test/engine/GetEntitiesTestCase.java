@@ -0,0 +1,159 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.engine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import org.restlet.Application;
+import org.restlet.Client;
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CharacterSet;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.FileRepresentation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.routing.Router;
+
+/**
+ * Test that large in-memory and file entities, written directly to the socket
+ * by the internal server connector, are correctly received.
+ * 
+ * @author Jerome Louvel
+ */
+public class GetEntitiesTestCase extends BaseConnectorsTestCase {
+
+    private static final int SIZE = 300000;
+
+    private byte[] bytes;
+
+    private File file;
+
+    private String text;
+
+    private void assertEntity(Client client, String uri, byte[] expected)
+            throws Exception {
+        Response response = client.handle(new Request(Method.GET, uri));
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        response.getEntity().write(baos);
+        assertTrue(Arrays.equals(expected, baos.toByteArray()));
+    }
+
+    @Override
+    protected void call(String uri) throws Exception {
+        Client client = new Client(Protocol.HTTP);
+        assertEntity(client, uri + "/bytes", this.bytes);
+        assertEntity(client, uri + "/file", this.bytes);
+        assertEntity(client, uri + "/string", this.text.getBytes("UTF-8"));
+        client.stop();
+    }
+
+    @Override
+    protected Application createApplication(Component component) {
+        final Application application = new Application() {
+            @Override
+            public Restlet createInboundRoot() {
+                final Router router = new Router(getContext());
+                router.attach("/test/bytes", new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(new ByteArrayRepresentation(bytes,
+                                MediaType.APPLICATION_OCTET_STREAM,
+                                bytes.length));
+                    }
+                });
+                router.attach("/test/file", new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(new FileRepresentation(file,
+                                MediaType.APPLICATION_OCTET_STREAM));
+                    }
+                });
+                router.attach("/test/string", new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        response.setEntity(new StringRepresentation(text,
+                                MediaType.TEXT_PLAIN, null, CharacterSet.UTF_8));
+                    }
+                });
+                return router;
+            }
+        };
+
+        return application;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.bytes = new byte[SIZE];
+
+        for (int i = 0; i < SIZE; i++) {
+            this.bytes[i] = (byte) (i * 31);
+        }
+
+        this.file = File.createTempFile("restlet-get", ".bin");
+        FileOutputStream fos = new FileOutputStream(this.file);
+        fos.write(this.bytes);
+        fos.close();
+
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < SIZE / 2; i++) {
+            sb.append((char) ('a' + (i % 26))).append('\u00e9');
+        }
+
+        this.text = sb.toString();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.file.delete();
+        this.bytes = null;
+        this.file = null;
+        this.text = null;
+        super.tearDown();
+    }
+
+}
@@ -41,6 +41,8 @@ import org.restlet.data.ClientInfo;
 import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.engine.header.EncodingReader;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.header.HeaderReader;
 import org.restlet.engine.header.PreferenceReader;
 import org.restlet.engine.header.TokenReader;
@@ -184,6 +186,22 @@ public class HeaderTestCase extends RestletTestCase {
                 1.0F);
     }
 
+    /**
+     * Tests the parsing of header lines.
+     */
+    public void testReadHeader() throws Exception {
+        Header header = HeaderReader.readHeader(new StringBuilder(
+                "Content-Type: text/plain"));
+        assertSame(HeaderConstants.HEADER_CONTENT_TYPE, header.getName());
+        assertEquals("text/plain", header.getValue());
+
+        header = HeaderReader.readHeader(new StringBuilder("X-Custom:  value"));
+        assertEquals("X-Custom", header.getName());
+        assertEquals("value", header.getValue());
+
+        assertNull(HeaderReader.readHeader(new StringBuilder()));
+    }
+
     /**
      * Test that the parsing of a header returns the given array of values.
      * 
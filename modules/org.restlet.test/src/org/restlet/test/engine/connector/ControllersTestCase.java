@@ -0,0 +1,175 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.engine.connector.ClientConnectionHelper;
+import org.restlet.engine.connector.Connection;
+import org.restlet.engine.connector.InboundRequest;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the internal connectors running several controllers, each one
+ * with its own NIO selector.
+ * 
+ * @author Jerome Louvel
+ */
+public class ControllersTestCase extends RestletTestCase {
+
+    public void testSecondaryControllers() throws Exception {
+        // Number of requests handled on each server connection
+        final ConcurrentMap<Connection<Server>, AtomicInteger> requests = new ConcurrentHashMap<Connection<Server>, AtomicInteger>();
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        Connection<Server> connection = ((InboundRequest) request)
+                                .getConnection();
+                        requests.putIfAbsent(connection, new AtomicInteger());
+                        requests.get(connection).incrementAndGet();
+
+                        try {
+                            Thread.sleep(5);
+                        } catch (InterruptedException e) {
+                        }
+
+                        response.setEntity(request.getResourceRef().getPath(),
+                                MediaType.TEXT_PLAIN);
+                    }
+                });
+        server.getContext().getParameters().add("controllerCount", "3");
+        server.start();
+
+        final Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters().add("controllerCount", "2");
+        client.getContext().getParameters().add("maxConnectionsPerHost", "4");
+        client.start();
+
+        final String uri = "http://localhost:" + server.getEphemeralPort()
+                + "/call";
+        final int threads = 8;
+        final int calls = 20;
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            for (int j = 0; j < calls; j++) {
+                                String path = "/call" + thread + "-" + j;
+                                Response response = client.handle(new Request(
+                                        Method.GET, uri + thread + "-" + j));
+
+                                if (!response.getStatus().isSuccess()
+                                        || !path.equals(response.getEntity()
+                                                .getText())) {
+                                    errors.incrementAndGet();
+                                }
+
+                                response.release();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+
+            assertTrue("Calls stalled", latch.await(30, TimeUnit.SECONDS));
+            assertEquals(0, errors.get());
+
+            // New server connections are assigned to the controllers in turn,
+            // and are kept alive by the secondary ones
+            int secondaryRequests = 0;
+            int total = 0;
+
+            for (Map.Entry<Connection<Server>, AtomicInteger> entry : requests
+                    .entrySet()) {
+                if (!entry.getKey().getController().isMain()) {
+                    secondaryRequests = Math.max(secondaryRequests, entry
+                            .getValue().get());
+                }
+
+                total += entry.getValue().get();
+            }
+
+            assertEquals(threads * calls, total);
+            assertTrue("Connections not kept alive by a secondary controller",
+                    secondaryRequests > 1);
+
+            // Same on the client side
+            ClientConnectionHelper helper = (ClientConnectionHelper) client
+                    .getContext().getAttributes()
+                    .get("org.restlet.engine.helper");
+            boolean secondary = false;
+
+            for (Connection<Client> connection : helper.getConnections()) {
+                secondary = secondary || !connection.getController().isMain();
+            }
+
+            assertTrue("No client connection on a secondary controller",
+                    secondary);
+        } finally {
+            executor.shutdownNow();
+            client.stop();
+            server.stop();
+        }
+    }
+
+}
@@ -0,0 +1,302 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.engine.connector.ClientConnectionHelper;
+import org.restlet.engine.connector.HostConnections;
+import org.restlet.engine.connector.HttpClientHelper;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the grouping of the connections of the internal HTTP client by
+ * host, with the queue of the requests waiting for a connection and the cache
+ * of the resolved host addresses.
+ * 
+ * @author Jerome Louvel
+ */
+public class HostConnectionsTestCase extends RestletTestCase {
+
+    /**
+     * Client helper giving access to the resolution of host addresses.
+     */
+    private static class ResolvingClientHelper extends HttpClientHelper {
+
+        public ResolvingClientHelper(Client client) {
+            super(client);
+        }
+
+        @Override
+        public InetSocketAddress resolve(String hostDomain, int hostPort)
+                throws UnknownHostException {
+            return super.resolve(hostDomain, hostPort);
+        }
+    }
+
+    /** The client connector. */
+    private Client client;
+
+    /** The paths of the requests, in their order of arrival on the server. */
+    private List<String> paths;
+
+    /** Latch blocking the handling of the first request on the server. */
+    private CountDownLatch release;
+
+    /** The server connector. */
+    private Server server;
+
+    /**
+     * Sends a GET request on a separate thread.
+     * 
+     * @param path
+     *            The request path.
+     * @param statuses
+     *            The list where to add the response status.
+     * @param done
+     *            The latch to count down once the response is received.
+     */
+    private void call(final String path, final List<Status> statuses,
+            final CountDownLatch done) {
+        new Thread(new Runnable() {
+            public void run() {
+                Response response = client.handle(new Request(Method.GET,
+                        "http://localhost:" + server.getEphemeralPort()
+                                + path));
+                statuses.add(response.getStatus());
+
+                // Reads the entity to make the connection available again
+                response.getEntityAsText();
+                done.countDown();
+            }
+        }).start();
+    }
+
+    /**
+     * Returns the connections of the client to the test server.
+     * 
+     * @return The connections of the client to the test server.
+     */
+    private HostConnections getHost() {
+        ClientConnectionHelper helper = (ClientConnectionHelper) client
+                .getContext().getAttributes().get("org.restlet.engine.helper");
+        return helper.getHostConnections().isEmpty() ? null : helper
+                .getHostConnections().values().iterator().next();
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.paths = Collections.synchronizedList(new ArrayList<String>());
+        this.release = new CountDownLatch(1);
+        this.server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        String path = request.getResourceRef().getPath();
+                        paths.add(path);
+
+                        if ("/0".equals(path)) {
+                            try {
+                                release.await(30, TimeUnit.SECONDS);
+                            } catch (InterruptedException e) {
+                            }
+                        }
+
+                        response.setEntity(path, MediaType.TEXT_PLAIN);
+                    }
+                });
+        this.server.start();
+
+        // A single connection, without pipelining, so that the next requests
+        // wait for the first one
+        this.client = new Client(new Context(), Protocol.HTTP);
+        this.client.getContext().getParameters()
+                .add("maxConnectionsPerHost", "1");
+        this.client.start();
+    }
+
+    /**
+     * Sends a first request, blocked on the server, then the given number of
+     * requests waiting for the connection, one after the other.
+     * 
+     * @param pending
+     *            The number of requests waiting for the connection.
+     * @param statuses
+     *            The list where to add the response statuses.
+     * @param done
+     *            The latch to count down for each response received.
+     * @throws InterruptedException
+     */
+    private void startCalls(int pending, List<Status> statuses,
+            CountDownLatch done) throws InterruptedException {
+        call("/0", statuses, done);
+        waitFor(0);
+
+        for (int i = 1; i <= pending; i++) {
+            call("/" + i, statuses, done);
+            waitFor(i);
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.release.countDown();
+        this.client.stop();
+        this.server.stop();
+        this.client = null;
+        this.paths = null;
+        this.release = null;
+        this.server = null;
+        super.tearDown();
+    }
+
+    public void testCounts() throws Exception {
+        List<Status> statuses = Collections
+                .synchronizedList(new ArrayList<Status>());
+        CountDownLatch done = new CountDownLatch(4);
+        startCalls(3, statuses, done);
+
+        HostConnections host = getHost();
+        assertEquals(0, host.getIdleCount());
+        assertEquals(1, host.getBusyCount());
+        assertEquals(3, host.getPendingCount());
+
+        this.release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+
+        // The persistent connection is kept for the next requests
+        assertEquals(1, host.getIdleCount());
+        assertEquals(0, host.getBusyCount());
+        assertEquals(0, host.getPendingCount());
+    }
+
+    public void testFifoOrder() throws Exception {
+        List<Status> statuses = Collections
+                .synchronizedList(new ArrayList<Status>());
+        CountDownLatch done = new CountDownLatch(6);
+        startCalls(5, statuses, done);
+        this.release.countDown();
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(6, statuses.size());
+
+        for (Status status : statuses) {
+            assertEquals(Status.SUCCESS_OK, status);
+        }
+
+        assertEquals("[/0, /1, /2, /3, /4, /5]", this.paths.toString());
+    }
+
+    public void testResolvedAddresses() throws Exception {
+        Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters()
+                .add("dnsCacheTimeToLiveMs", "200");
+        ResolvingClientHelper helper = new ResolvingClientHelper(client);
+
+        // Reused during the time to live, then resolved again
+        InetSocketAddress address = helper.resolve("localhost", 8182);
+        assertEquals(8182, address.getPort());
+        assertSame(address, helper.resolve("localhost", 8182));
+        assertNotSame(address, helper.resolve("localhost", 8183));
+        Thread.sleep(300);
+        assertNotSame(address, helper.resolve("localhost", 8182));
+
+        // Resolved for each request when the cache is disabled
+        client.getContext().getParameters()
+                .set("dnsCacheTimeToLiveMs", "0");
+        address = helper.resolve("localhost", 8182);
+        assertNotSame(address, helper.resolve("localhost", 8182));
+    }
+
+    public void testStopReleasesPending() throws Exception {
+        List<Status> statuses = Collections
+                .synchronizedList(new ArrayList<Status>());
+        CountDownLatch done = new CountDownLatch(3);
+        startCalls(2, statuses, done);
+        this.client.stop();
+
+        // Neither the request in flight nor the ones waiting for a connection
+        // wait for the blocked server
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, statuses.size());
+
+        for (Status status : statuses) {
+            assertEquals(Status.CONNECTOR_ERROR_COMMUNICATION, status);
+        }
+
+        assertEquals(1, this.paths.size());
+    }
+
+    /**
+     * Waits until the request with the given index is either handled by the
+     * server or waiting for a connection.
+     * 
+     * @param index
+     *            The index of the request.
+     * @throws InterruptedException
+     */
+    private void waitFor(int index) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            HostConnections host = getHost();
+
+            if ((index == 0) ? !this.paths.isEmpty() : ((host != null) && (host
+                    .getPendingCount() == index))) {
+                return;
+            }
+
+            Thread.sleep(10);
+        }
+
+        fail("Request " + index + " not sent");
+    }
+
+}
@@ -0,0 +1,588 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the pipelining of requests on the connections of the internal
+ * HTTP client. The server side is a raw socket server answering with canned
+ * responses, so that the way the client frames, correlates and retries the
+ * pipelined messages can be checked.
+ * 
+ * @author Jerome Louvel
+ */
+public class PipeliningTestCase extends RestletTestCase {
+
+    /**
+     * Raw HTTP server handing each accepted connection to a script.
+     */
+    private abstract static class ScriptedServer implements Runnable {
+
+        /** The number of connections accepted. */
+        private final AtomicInteger connectionCount;
+
+        /** The number of requests read. */
+        private final AtomicInteger requestCount;
+
+        /** The server socket. */
+        private final ServerSocket serverSocket;
+
+        /**
+         * Constructor.
+         * 
+         * @throws IOException
+         */
+        public ScriptedServer() throws IOException {
+            this.connectionCount = new AtomicInteger();
+            this.requestCount = new AtomicInteger();
+            this.serverSocket = new ServerSocket(0);
+        }
+
+        /**
+         * Returns the number of connections accepted.
+         * 
+         * @return The number of connections accepted.
+         */
+        public int getConnectionCount() {
+            return this.connectionCount.get();
+        }
+
+        /**
+         * Returns the URI of a resource on this server.
+         * 
+         * @param path
+         *            The resource path.
+         * @return The URI of the resource.
+         */
+        public String getUri(String path) {
+            return "http://localhost:" + this.serverSocket.getLocalPort()
+                    + path;
+        }
+
+        /**
+         * Returns the number of requests read.
+         * 
+         * @return The number of requests read.
+         */
+        public int getRequestCount() {
+            return this.requestCount.get();
+        }
+
+        /**
+         * Handles an accepted connection.
+         * 
+         * @param index
+         *            The index of the connection, starting at 0.
+         * @param in
+         *            The input stream of the connection.
+         * @param out
+         *            The output stream of the connection.
+         * @throws IOException
+         */
+        protected abstract void handle(int index, InputStream in,
+                OutputStream out) throws IOException;
+
+        /**
+         * Reads the next request and returns its path. The entity, if any,
+         * must have a known length and is skipped.
+         * 
+         * @param in
+         *            The input stream of the connection.
+         * @return The path of the request or null if the connection was
+         *         closed.
+         * @throws IOException
+         */
+        protected String readRequest(InputStream in) throws IOException {
+            String result = null;
+            String line = readLine(in);
+            int length = 0;
+
+            if (line != null) {
+                result = line.split(" ")[1];
+
+                for (line = readLine(in); (line != null)
+                        && !line.isEmpty(); line = readLine(in)) {
+                    if (line.toLowerCase().startsWith("content-length:")) {
+                        length = Integer.parseInt(line.substring(15).trim());
+                    }
+                }
+
+                for (int i = 0; i < length; i++) {
+                    in.read();
+                }
+
+                this.requestCount.incrementAndGet();
+            }
+
+            return result;
+        }
+
+        /**
+         * Reads a line ending with CRLF.
+         * 
+         * @param in
+         *            The input stream of the connection.
+         * @return The line without its end or null if the connection was
+         *         closed.
+         * @throws IOException
+         */
+        private String readLine(InputStream in) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int next = in.read();
+
+            while ((next != -1) && (next != '\n')) {
+                if (next != '\r') {
+                    sb.append((char) next);
+                }
+
+                next = in.read();
+            }
+
+            return (next == -1) ? null : sb.toString();
+        }
+
+        public void run() {
+            while (!this.serverSocket.isClosed()) {
+                try {
+                    final Socket socket = this.serverSocket.accept();
+                    final int index = this.connectionCount.getAndIncrement();
+                    Thread thread = new Thread(new Runnable() {
+                        public void run() {
+                            try {
+                                handle(index, new BufferedInputStream(socket
+                                        .getInputStream()), socket
+                                        .getOutputStream());
+                            } catch (IOException e) {
+                                // Closed by the client
+                            } finally {
+                                try {
+                                    socket.close();
+                                } catch (IOException e) {
+                                }
+                            }
+                        }
+                    });
+                    thread.setDaemon(true);
+                    thread.start();
+                } catch (IOException e) {
+                    // Stopped
+                }
+            }
+        }
+
+        /**
+         * Starts accepting connections.
+         */
+        public void start() {
+            Thread thread = new Thread(this);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Stops accepting connections.
+         * 
+         * @throws IOException
+         */
+        public void stop() throws IOException {
+            this.serverSocket.close();
+        }
+
+        /**
+         * Writes a canned response.
+         * 
+         * @param out
+         *            The output stream of the connection.
+         * @param response
+         *            The response to write.
+         * @throws IOException
+         */
+        protected void write(OutputStream out, String response)
+                throws IOException {
+            out.write(response.getBytes("US-ASCII"));
+            out.flush();
+        }
+    }
+
+    /**
+     * Returns a canned response echoing the request path.
+     * 
+     * @param path
+     *            The request path.
+     * @return The canned response.
+     */
+    private static String echo(String path) {
+        return "HTTP/1.1 200 OK\r\nContent-Type: text/plain\r\nContent-Length: "
+                + path.length() + "\r\n\r\n" + path;
+    }
+
+    /**
+     * Waits for the next bytes sent by the client.
+     * 
+     * @param in
+     *            The input stream of the connection.
+     * @param timeout
+     *            The maximum time to wait in milliseconds.
+     * @return True if some bytes are available.
+     * @throws IOException
+     */
+    private static boolean waitForData(InputStream in, long timeout)
+            throws IOException {
+        long end = System.currentTimeMillis() + timeout;
+
+        while ((in.available() == 0) && (System.currentTimeMillis() < end)) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException();
+            }
+        }
+
+        return in.available() > 0;
+    }
+
+    /**
+     * Sends GET requests on concurrent threads and checks that each response
+     * echoes the path of its own request.
+     * 
+     * @param client
+     *            The client connector.
+     * @param server
+     *            The scripted server.
+     * @param paths
+     *            The paths of the requests.
+     * @return The number of responses not matching their request.
+     * @throws InterruptedException
+     */
+    private int callConcurrently(final Client client,
+            final ScriptedServer server, String... paths)
+            throws InterruptedException {
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(paths.length);
+        final Set<String> pending = new ConcurrentSkipListSet<String>(
+                Arrays.asList(paths));
+
+        for (final String path : paths) {
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        Response response = client.handle(new Request(
+                                Method.GET, server.getUri(path)));
+
+                        if (!Status.SUCCESS_OK.equals(response.getStatus())
+                                || !path.equals(response.getEntity()
+                                        .getText())) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        pending.remove(path);
+                        latch.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        boolean completed = latch.await(30, TimeUnit.SECONDS);
+        assertTrue("Calls stalled: " + pending, completed);
+        return errors.get();
+    }
+
+    /**
+     * Creates and starts a client pipelining requests on a single connection
+     * per host.
+     * 
+     * @param maxPipelinedRequests
+     *            The maximum number of requests in flight.
+     * @param maxRetries
+     *            The maximum number of times a request is sent again.
+     * @return The started client.
+     * @throws Exception
+     */
+    private Client createClient(int maxPipelinedRequests, int maxRetries)
+            throws Exception {
+        Client result = new Client(new Context(), Protocol.HTTP);
+        result.getContext().getParameters()
+                .add("pipeliningConnections", "true");
+        result.getContext().getParameters().add("maxConnectionsPerHost", "1");
+        result.getContext()
+                .getParameters()
+                .add("maxPipelinedRequests",
+                        Integer.toString(maxPipelinedRequests));
+        result.getContext().getParameters()
+                .add("maxRetries", Integer.toString(maxRetries));
+        result.start();
+        return result;
+    }
+
+    /**
+     * Checks the matching of responses and requests when the server closes
+     * the connection after answering the first pipelined request.
+     * 
+     * @param closeAnnounced
+     *            Indicates if the server announces the close.
+     * @throws Exception
+     */
+    private void testClose(final boolean closeAnnounced) throws Exception {
+        ScriptedServer server = new ScriptedServer() {
+            @Override
+            protected void handle(int index, InputStream in, OutputStream out)
+                    throws IOException {
+                List<String> paths = new ArrayList<String>();
+
+                for (String path = readRequest(in); path != null;
+                        path = readRequest(in)) {
+                    if (index > 0) {
+                        write(out, echo(path));
+                    } else {
+                        paths.add(path);
+
+                        if (!waitForData(in, 300)) {
+                            // Answer the first request only, then close
+                            String response = echo(paths.get(0));
+
+                            if (closeAnnounced) {
+                                response = response.replace("\r\n\r\n",
+                                        "\r\nConnection: close\r\n\r\n");
+                            }
+
+                            write(out, response);
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        server.start();
+        Client client = createClient(3, 1);
+
+        try {
+            assertEquals(0, callConcurrently(client, server, "/a", "/b", "/c",
+                    "/d"));
+            assertTrue(server.getConnectionCount() > 1);
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    /**
+     * Checks the retries of a request whose connection is always closed by the
+     * server without response.
+     * 
+     * @param request
+     *            The request to send.
+     * @param expectedAttempts
+     *            The expected number of times the request is sent.
+     * @throws Exception
+     */
+    private void testRetries(Request request, int expectedAttempts)
+            throws Exception {
+        ScriptedServer server = new ScriptedServer() {
+            @Override
+            protected void handle(int index, InputStream in, OutputStream out)
+                    throws IOException {
+                readRequest(in);
+            }
+        };
+        server.start();
+        Client client = createClient(3, 2);
+
+        try {
+            request.setResourceRef(server.getUri("/retry"));
+            Response response = client.handle(request);
+            assertEquals(Status.CONNECTOR_ERROR_COMMUNICATION,
+                    response.getStatus());
+            assertEquals(expectedAttempts, server.getRequestCount());
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    public void testCloseAfterResponse() throws Exception {
+        testClose(false);
+    }
+
+    public void testCloseAnnounced() throws Exception {
+        testClose(true);
+    }
+
+    public void testEmptyEntities() throws Exception {
+        ScriptedServer server = new ScriptedServer() {
+            @Override
+            protected void handle(int index, InputStream in, OutputStream out)
+                    throws IOException {
+                for (String path = readRequest(in); path != null;
+                        path = readRequest(in)) {
+                    if ("/head".equals(path) || "/304".equals(path)) {
+                        // The length of the representation, without body
+                        write(out, "HTTP/1.1 "
+                                + ("/head".equals(path) ? "200 OK"
+                                        : "304 Not Modified")
+                                + "\r\nContent-Type: text/plain"
+                                + "\r\nContent-Length: 5\r\n\r\n");
+                    } else if ("/204".equals(path)) {
+                        write(out, "HTTP/1.1 204 No Content\r\n\r\n");
+                    } else if ("/100".equals(path)) {
+                        write(out, "HTTP/1.1 100 Continue\r\n\r\n"
+                                + echo(path));
+                    } else {
+                        write(out, echo(path));
+                    }
+                }
+            }
+        };
+        server.start();
+        Client client = createClient(3, 1);
+
+        try {
+            Response response = client.handle(new Request(Method.HEAD, server
+                    .getUri("/head")));
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertFalse(response.isEntityAvailable());
+            assertEquals(MediaType.TEXT_PLAIN, response.getEntity()
+                    .getMediaType());
+
+            response = client.handle(new Request(Method.GET, server
+                    .getUri("/204")));
+            assertEquals(Status.SUCCESS_NO_CONTENT, response.getStatus());
+            assertFalse(response.isEntityAvailable());
+
+            response = client.handle(new Request(Method.GET, server
+                    .getUri("/304")));
+            assertEquals(Status.REDIRECTION_NOT_MODIFIED, response.getStatus());
+            assertFalse(response.isEntityAvailable());
+
+            response = client.handle(new Request(Method.GET, server
+                    .getUri("/100")));
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertEquals("/100", response.getEntity().getText());
+
+            // The framing of the next response wasn't broken
+            assertEquals(0, callConcurrently(client, server, "/a", "/b", "/c"));
+            assertEquals(1, server.getConnectionCount());
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    public void testInFlightDepth() throws Exception {
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        ScriptedServer server = new ScriptedServer() {
+            @Override
+            protected void handle(int index, InputStream in, OutputStream out)
+                    throws IOException {
+                List<String> paths = new ArrayList<String>();
+
+                for (String path = readRequest(in); path != null;
+                        path = readRequest(in)) {
+                    paths.add(path);
+
+                    if (!waitForData(in, 300)) {
+                        // The client stopped sending, answer all the requests
+                        // in flight
+                        if (paths.size() > maxInFlight.get()) {
+                            maxInFlight.set(paths.size());
+                        }
+
+                        for (String p : paths) {
+                            write(out, echo(p));
+                        }
+
+                        paths.clear();
+                    }
+                }
+            }
+        };
+        server.start();
+        Client client = createClient(3, 1);
+
+        try {
+            assertEquals(0, callConcurrently(client, server, "/a", "/b", "/c",
+                    "/d", "/e", "/f", "/g", "/h"));
+            assertEquals(1, server.getConnectionCount());
+            assertTrue("Requests not pipelined", maxInFlight.get() > 1);
+            assertTrue("Too many requests in flight", maxInFlight.get() <= 3);
+        } finally {
+            client.stop();
+            server.stop();
+        }
+    }
+
+    public void testRetriesIdempotent() throws Exception {
+        // The first attempt and two retries
+        testRetries(new Request(Method.GET, "http://localhost/"), 3);
+    }
+
+    public void testRetriesNonIdempotent() throws Exception {
+        testRetries(new Request(Method.POST, "http://localhost/"), 1);
+    }
+
+    public void testRetriesWithEntity() throws Exception {
+        Request request = new Request(Method.PUT, "http://localhost/");
+        request.setEntity(new StringRepresentation("entity"));
+        testRetries(request, 1);
+    }
+
+}
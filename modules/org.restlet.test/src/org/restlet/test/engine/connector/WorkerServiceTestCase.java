@@ -0,0 +1,137 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.engine.connector;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.restlet.Client;
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.Server;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the tasks rejected by a busy worker service of the internal
+ * connectors.
+ * 
+ * @author Jerome Louvel
+ */
+public class WorkerServiceTestCase extends RestletTestCase {
+
+    public void testRejectedTasks() throws Exception {
+        Server server = new Server(new Context(), Protocol.HTTP, 0,
+                new Restlet() {
+                    @Override
+                    public void handle(Request request, Response response) {
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException e) {
+                        }
+
+                        response.setEntity(request.getResourceRef().getPath(),
+                                MediaType.TEXT_PLAIN);
+                    }
+                });
+
+        // A single worker thread without queue, so that concurrent calls
+        // are rejected by the worker service
+        server.getContext().getParameters().add("minThreads", "1");
+        server.getContext().getParameters().add("maxThreads", "1");
+        server.getContext().getParameters().add("maxQueued", "0");
+        server.start();
+
+        final Client client = new Client(new Context(), Protocol.HTTP);
+        client.getContext().getParameters()
+                .add("pipeliningConnections", "true");
+        client.getContext().getParameters().add("maxConnectionsPerHost", "2");
+        client.start();
+
+        final String uri = "http://localhost:" + server.getEphemeralPort()
+                + "/call";
+        final int threads = 8;
+        final int calls = 10;
+        final AtomicInteger errors = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            for (int i = 0; i < threads; i++) {
+                final int thread = i;
+
+                executor.execute(new Runnable() {
+                    public void run() {
+                        try {
+                            for (int j = 0; j < calls; j++) {
+                                String path = "/call" + thread + "-" + j;
+                                Response response = client.handle(new Request(
+                                        Method.GET, uri + thread + "-" + j));
+
+                                if (!response.getStatus().isSuccess()
+                                        || !path.equals(response.getEntity()
+                                                .getText())) {
+                                    errors.incrementAndGet();
+                                }
+
+                                response.release();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        } finally {
+                            latch.countDown();
+                        }
+                    }
+                });
+            }
+
+            // Rejected calls used to wait for the idle time out (60 s)
+            assertTrue("Calls stalled", latch.await(30, TimeUnit.SECONDS));
+            assertEquals(0, errors.get());
+        } finally {
+            executor.shutdownNow();
+            client.stop();
+            server.stop();
+        }
+    }
+
+}
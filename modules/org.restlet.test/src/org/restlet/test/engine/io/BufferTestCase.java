@@ -36,6 +36,7 @@ package org.restlet.test.engine.io;
 import java.io.IOException;
 
 import org.restlet.engine.io.Buffer;
+import org.restlet.engine.io.BufferPool;
 import org.restlet.engine.io.BufferState;
 import org.restlet.test.RestletTestCase;
 
@@ -46,6 +47,40 @@ import org.restlet.test.RestletTestCase;
  */
 public class BufferTestCase extends RestletTestCase {
 
+    private void testDrainLines(boolean direct) throws IOException {
+        Buffer buffer = new Buffer(8192, direct);
+        buffer.fill("GET / HTTP/1.1\r\nHost: loc");
+        buffer.flip();
+
+        StringBuilder sb = new StringBuilder();
+        BufferState state = buffer.drain(sb, BufferState.IDLE);
+        assertEquals(BufferState.DRAINING, state);
+        assertEquals("GET / HTTP/1.1", sb.toString());
+
+        sb.delete(0, sb.length());
+        state = buffer.drain(sb, BufferState.IDLE);
+        assertEquals(BufferState.FILLING, state);
+        assertEquals("Host: loc", sb.toString());
+
+        buffer.flip();
+        buffer.fill("alhost\r");
+        buffer.flip();
+        state = buffer.drain(sb, state);
+        assertEquals(BufferState.FILLED, state);
+
+        buffer.flip();
+        buffer.fill("\n");
+        buffer.flip();
+        state = buffer.drain(sb, state);
+        assertEquals(BufferState.DRAINING, state);
+        assertEquals("Host: localhost", sb.toString());
+    }
+
+    public void testDrainLines() throws IOException {
+        testDrainLines(false);
+        testDrainLines(true);
+    }
+
     public void testFlip() throws IOException {
         Buffer buffer = new Buffer(8192);
         buffer.fill("abcdefghijklm");
@@ -73,4 +108,44 @@ public class BufferTestCase extends RestletTestCase {
         buffer.drain(sb, BufferState.FILLING);
         assertEquals("Remaining buffer", "ijklmnopqrstuvwxyz", sb.toString());
     }
+    public void testPooledBuffers() throws IOException {
+        BufferPool pool = new BufferPool(1024, 4, true);
+        Buffer buffer1 = new Buffer(pool);
+        Buffer buffer2 = new Buffer(pool);
+
+        // Nothing borrowed until the byte buffer is needed
+        assertTrue(buffer1.isEmpty());
+        assertEquals(1024, buffer1.capacity());
+        assertEquals(1024, buffer1.remaining());
+        assertEquals(0, pool.getSlabCount());
+
+        buffer1.fill("GET / HTTP/1.1\r\n\r\n");
+        buffer2.fill("HTTP/1.1 200 OK\r\n\r\n");
+        assertEquals(1, pool.getSlabCount());
+        assertEquals(2, pool.getBorrowedCount());
+        assertEquals(2, pool.getAvailableCount());
+
+        // Not released while not empty
+        buffer1.flip();
+        assertFalse(buffer1.release());
+        StringBuilder sb = new StringBuilder();
+        buffer1.drain(sb, BufferState.IDLE);
+        assertEquals("GET / HTTP/1.1", sb.toString());
+        buffer1.drain(sb, BufferState.IDLE);
+        assertTrue(buffer1.isEmpty());
+        assertTrue(buffer1.release());
+        assertEquals(1, pool.getBorrowedCount());
+
+        // Borrowed again on next access, from the same slab
+        buffer1.fill("abc");
+        assertEquals(2, pool.getBorrowedCount());
+        assertEquals(1, pool.getSlabCount());
+        buffer1.clear();
+        buffer2.clear();
+        assertTrue(buffer1.release());
+        assertTrue(buffer2.release());
+        assertEquals(0, pool.getBorrowedCount());
+        assertEquals(2, pool.getPeakBorrowedCount());
+        assertEquals(4096, pool.getMemorySize());
+    }
 }
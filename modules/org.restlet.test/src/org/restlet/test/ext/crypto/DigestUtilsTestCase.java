@@ -0,0 +1,103 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.crypto;
+
+import java.nio.ByteBuffer;
+
+import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Restlet unit tests for the DigestUtils class.
+ * 
+ * @author Jerome Louvel
+ */
+public class DigestUtilsTestCase extends RestletTestCase {
+
+    private static final String MESSAGE = "The quick brown fox jumps over the lazy dog";
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+
+        for (byte b : bytes) {
+            sb.append(Integer.toHexString((b & 0xFF) | 0x100).substring(1));
+        }
+
+        return sb.toString();
+    }
+
+    public void testDigests() throws Exception {
+        assertEquals("68e109f0f40ca72a15e05cc22786f8e6",
+                DigestUtils.toMd5("HelloWorld"));
+        assertEquals("68e109f0f40ca72a15e05cc22786f8e6",
+                DigestUtils.toMd5("HelloWorld"));
+        assertEquals("L9ThxnotKPzthJ7hu3bnORuT6xI=",
+                DigestUtils.toSha1(MESSAGE));
+        assertEquals("L9ThxnotKPzthJ7hu3bnORuT6xI=",
+                DigestUtils.toSha1(MESSAGE));
+    }
+
+    public void testHMacSha1() throws Exception {
+        String expected = "de7c9b85b8b78aa6bc8a7a36f70a90701c9db4d9";
+        byte[] key = "key".getBytes();
+
+        assertEquals(expected, toHex(DigestUtils.toHMacSha1(MESSAGE, "key")));
+        assertEquals(expected,
+                toHex(DigestUtils.toHMacSha1(MESSAGE.getBytes(), key)));
+        assertEquals(expected, toHex(DigestUtils.toHMacSha1(
+                ByteBuffer.wrap(MESSAGE.getBytes()), key)));
+
+        // The key must not be retained by reference
+        key[0] = 'K';
+        assertFalse(expected.equals(toHex(DigestUtils.toHMacSha1(
+                MESSAGE.getBytes(), key))));
+        assertEquals(expected, toHex(DigestUtils.toHMacSha1(MESSAGE, "key")));
+    }
+
+    public void testHMacSha256() throws Exception {
+        String expected = "f7bc83f430538424b13298e6aa6fb143ef4d59a14946175997479dbc2d1a3cd8";
+
+        assertEquals(expected,
+                toHex(DigestUtils.toHMacSha256(MESSAGE, "key")));
+        assertEquals(expected, toHex(DigestUtils.toHMacSha256(
+                MESSAGE.getBytes(), "key".getBytes())));
+
+        ByteBuffer buffer = ByteBuffer.wrap(("xx" + MESSAGE).getBytes());
+        buffer.position(2);
+        assertEquals(expected,
+                toHex(DigestUtils.toHMacSha256(buffer, "key".getBytes())));
+        assertFalse(buffer.hasRemaining());
+    }
+
+}
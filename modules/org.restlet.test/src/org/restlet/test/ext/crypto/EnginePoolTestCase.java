@@ -0,0 +1,148 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.crypto;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.restlet.ext.crypto.DigestUtils;
+import org.restlet.ext.crypto.internal.EnginePool;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Restlet unit tests for the EnginePool class.
+ * 
+ * @author Jerome Louvel
+ */
+public class EnginePoolTestCase extends RestletTestCase {
+
+    private static final String MESSAGE = "The quick brown fox jumps over the lazy dog";
+
+    public void testClear() throws Exception {
+        EnginePool pool = new EnginePool();
+        byte[] key = "key".getBytes();
+        byte[] expected = DigestUtils.toHMacSha256(MESSAGE, key);
+
+        assertTrue(Arrays.equals(expected, pool.toHMacSha256(MESSAGE, key)));
+        assertEquals(1, pool.size());
+        pool.clear();
+        assertEquals(0, pool.size());
+
+        // The secret key of the caller is left untouched
+        assertTrue(Arrays.equals("key".getBytes(), key));
+        assertTrue(Arrays.equals(expected, pool.toHMacSha256(MESSAGE, key)));
+    }
+
+    public void testConcurrentSigning() throws Exception {
+        final EnginePool pool = new EnginePool(4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            Future<?>[] futures = new Future<?>[8];
+
+            for (int t = 0; t < futures.length; t++) {
+                futures[t] = executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        for (int i = 0; i < 500; i++) {
+                            byte[] key = ("key" + (i % 6)).getBytes();
+
+                            assertTrue(Arrays.equals(
+                                    DigestUtils.toHMacSha256(MESSAGE, key),
+                                    pool.toHMacSha256(MESSAGE, key)));
+                        }
+
+                        return null;
+                    }
+                });
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(pool.size() <= 4);
+    }
+
+    public void testHMac() throws Exception {
+        EnginePool pool = new EnginePool();
+        byte[] key = "key".getBytes();
+
+        assertTrue(Arrays.equals(
+                DigestUtils.toHMacSha1(MESSAGE.getBytes(), key),
+                pool.toHMac("HmacSHA1", MESSAGE.getBytes(), key)));
+        assertTrue(Arrays.equals(
+                DigestUtils.toHMacSha256(MESSAGE.getBytes(), key),
+                pool.toHMac("HmacSHA256", MESSAGE.getBytes(), key)));
+
+        // The key must not be retained by reference
+        byte[] expected = pool.toHMac("HmacSHA1", MESSAGE.getBytes(), key);
+        key[0] = 'K';
+        assertFalse(Arrays.equals(expected,
+                pool.toHMac("HmacSHA1", MESSAGE.getBytes(), key)));
+        assertTrue(Arrays.equals(expected,
+                pool.toHMac("HmacSHA1", MESSAGE.getBytes(), "key".getBytes())));
+    }
+
+    public void testManyKeys() throws Exception {
+        EnginePool pool = new EnginePool();
+        byte[][] results = new byte[40][];
+
+        // More keys than the MACs kept by the pool
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < results.length; i++) {
+                byte[] result = pool.toHMacSha256(MESSAGE,
+                        ("key" + i).getBytes());
+
+                if (round == 0) {
+                    results[i] = result;
+                } else {
+                    assertTrue(Arrays.equals(results[i], result));
+                }
+            }
+        }
+
+        assertEquals(EnginePool.DEFAULT_MAX_KEYS, pool.size());
+        assertFalse(Arrays.equals(results[0], results[1]));
+        assertTrue(Arrays.equals(results[0],
+                DigestUtils.toHMacSha256(MESSAGE, "key0".getBytes())));
+    }
+
+}
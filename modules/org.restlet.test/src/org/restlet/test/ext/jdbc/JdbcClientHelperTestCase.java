@@ -0,0 +1,325 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.ext.jdbc.JdbcClientHelper;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the execution of the SQL statements by the JDBC client
+ * connector, against a proxied JDBC connection recording the calls. Statements
+ * whose SQL text contains "FAIL" raise an error when executed.
+ * 
+ * @author Jerome Louvel
+ */
+public class JdbcClientHelperTestCase extends RestletTestCase {
+
+    /** Indicates if the auto-commit mode is enabled. */
+    private boolean autoCommit;
+
+    /** Indicates if the proxied driver supports batches. */
+    private boolean batching;
+
+    /** The SQL texts added to the batch of each statement. */
+    private Map<String, List<String>> batches;
+
+    /** The recorded calls. */
+    private List<String> calls;
+
+    /** The proxied connection. */
+    private Connection connection;
+
+    /** The names of the statements not closed. */
+    private Set<String> openStatements;
+
+    /** The SQL text of each prepared statement. */
+    private Map<String, String> sqls;
+
+    /** The number of statements created. */
+    private int statementCount;
+
+    /**
+     * Sends a JDBC request to the helper.
+     * 
+     * @param body
+     *            The body of the XML request.
+     */
+    private void handle(String body) {
+        JdbcClientHelper helper = new JdbcClientHelper(null) {
+            @Override
+            protected Connection getConnection(String uri,
+                    Properties properties, boolean usePooling)
+                    throws SQLException {
+                return connection;
+            }
+        };
+
+        String xml = "<?xml version=\"1.0\"?><request><header>"
+                + "<connection><usePooling>false</usePooling></connection>"
+                + "</header><body>" + body + "</body></request>";
+        Request request = JdbcClientHelper.create("jdbc:test",
+                new StringRepresentation(xml));
+        helper.handle(request, new Response(request));
+    }
+
+    /**
+     * Handles a call on a proxied JDBC object.
+     * 
+     * @param name
+     *            The name of the proxied object.
+     * @param method
+     *            The method called.
+     * @param args
+     *            The arguments or null.
+     * @return The result of the call.
+     * @throws SQLException
+     */
+    private Object invoke(String name, Method method, Object[] args)
+            throws SQLException {
+        String methodName = method.getName();
+        String sql = this.sqls.get(name);
+
+        if ((args != null) && (args.length > 0)
+                && (args[0] instanceof String)) {
+            sql = (String) args[0];
+        }
+
+        if ("getAutoCommit".equals(methodName)) {
+            return this.autoCommit;
+        } else if ("getConnection".equals(methodName)) {
+            return this.connection;
+        } else if ("getMetaData".equals(methodName)) {
+            return proxy(DatabaseMetaData.class, "metaData");
+        } else if ("supportsBatchUpdates".equals(methodName)) {
+            return this.batching;
+        } else if (!methodName.startsWith("get")
+                && !"setFetchSize".equals(methodName)) {
+            this.calls.add(name + "." + methodName
+                    + ((args == null) ? "()" : Arrays.asList(args)));
+        }
+
+        if ("setAutoCommit".equals(methodName)) {
+            this.autoCommit = (Boolean) args[0];
+        } else if ("createStatement".equals(methodName)) {
+            String statement = "s" + (++this.statementCount);
+            this.openStatements.add(statement);
+            return proxy(Statement.class, statement);
+        } else if ("prepareStatement".equals(methodName)) {
+            String statement = "p" + (++this.statementCount);
+            this.openStatements.add(statement);
+            this.sqls.put(statement, sql);
+            return proxy(PreparedStatement.class, statement);
+        } else if ("close".equals(methodName)) {
+            this.openStatements.remove(name);
+        } else if ("addBatch".equals(methodName)) {
+            if (sql.contains("FAIL")) {
+                throw new SQLException("Invalid statement: " + sql);
+            }
+
+            List<String> batch = this.batches.get(name);
+
+            if (batch == null) {
+                batch = new ArrayList<String>();
+                this.batches.put(name, batch);
+            }
+
+            batch.add(sql);
+        } else if ("executeBatch".equals(methodName)) {
+            List<String> batch = this.batches.remove(name);
+
+            if ((batch != null) && batch.toString().contains("FAIL")) {
+                throw new SQLException("Invalid batch: " + batch);
+            }
+
+            return new int[(batch == null) ? 0 : batch.size()];
+        } else if (methodName.startsWith("execute")) {
+            if (sql.contains("FAIL")) {
+                throw new SQLException("Invalid statement: " + sql);
+            }
+        }
+
+        Class<?> type = method.getReturnType();
+
+        if (type == Boolean.TYPE) {
+            return Boolean.FALSE;
+        } else if (type == Integer.TYPE) {
+            return Integer.valueOf(0);
+        } else if (type == Long.TYPE) {
+            return Long.valueOf(0);
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a proxied JDBC object.
+     * 
+     * @param type
+     *            The JDBC interface.
+     * @param name
+     *            The name of the object, used to record the calls.
+     * @return The proxied JDBC object.
+     */
+    private Object proxy(Class<?> type, final String name) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { type }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) throws Throwable {
+                        return JdbcClientHelperTestCase.this.invoke(name,
+                                method, args);
+                    }
+                });
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.autoCommit = true;
+        this.batching = true;
+        this.batches = new HashMap<String, List<String>>();
+        this.calls = new ArrayList<String>();
+        this.openStatements = new HashSet<String>();
+        this.sqls = new HashMap<String, String>();
+        this.statementCount = 0;
+        this.connection = (Connection) proxy(Connection.class, "c");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.batches = null;
+        this.calls = null;
+        this.connection = null;
+        this.openStatements = null;
+        this.sqls = null;
+        super.tearDown();
+    }
+
+    public void testBatchOrder() {
+        handle("<statement>UPDATE A</statement>"
+                + "<statement>INSERT B<parameters><parameter>b1</parameter>"
+                + "</parameters><parameters><parameter>b2</parameter>"
+                + "</parameters></statement>"
+                + "<statement>UPDATE C</statement>"
+                + "<statement>SELECT D</statement>");
+
+        // The plain statements before and after the prepared one are sent in
+        // separate batches, in the order of the request
+        assertEquals(Arrays.asList("c.setAutoCommit[false]",
+                "c.createStatement()", "s1.addBatch[UPDATE A]",
+                "s1.executeBatch()", "s1.close()",
+                "c.prepareStatement[INSERT B]", "p2.setString[1, b1]",
+                "p2.addBatch()", "p2.setString[1, b2]", "p2.addBatch()",
+                "p2.executeBatch()", "p2.clearBatch()", "p2.close()",
+                "c.createStatement()", "s3.addBatch[UPDATE C]",
+                "s3.executeBatch()", "s3.close()", "c.createStatement()",
+                "s4.execute[SELECT D, 2]", "c.commit()"), this.calls);
+
+        // Only the statement of the result is left open
+        assertEquals("[s4]", this.openStatements.toString());
+    }
+
+    public void testRollbackOnBatchError() {
+        handle("<statement>UPDATE A</statement>"
+                + "<statement>UPDATE FAIL</statement>"
+                + "<statement>SELECT C</statement>");
+
+        assertTrue(this.calls.contains("c.rollback()"));
+        assertFalse(this.calls.contains("c.commit()"));
+        assertFalse(this.calls.toString().contains("SELECT C"));
+        assertTrue(this.openStatements.isEmpty());
+    }
+
+    public void testRollbackOnPreparedError() {
+        this.batching = false;
+        handle("<statement>UPDATE A</statement>"
+                + "<statement>UPDATE FAIL<parameter type=\"INTEGER\">1"
+                + "</parameter></statement>"
+                + "<statement>SELECT C</statement>");
+
+        assertEquals(Arrays.asList("c.setAutoCommit[false]",
+                "c.createStatement()", "s1.execute[UPDATE A, 2]",
+                "s1.close()", "c.prepareStatement[UPDATE FAIL]",
+                "p2.setObject[1, 1, 4]", "p2.execute()", "p2.close()",
+                "c.rollback()"), this.calls);
+        assertTrue(this.openStatements.isEmpty());
+    }
+
+    public void testSingleStatement() {
+        handle("<statement>SELECT A</statement>");
+
+        // Executed in auto-commit mode, without batch
+        assertEquals(Arrays.asList("c.setAutoCommit[true]",
+                "c.createStatement()", "s1.execute[SELECT A, 2]"),
+                this.calls);
+        assertEquals("[s1]", this.openStatements.toString());
+    }
+
+    public void testStatementsWithoutBatching() {
+        this.batching = false;
+        handle("<statement>UPDATE A</statement>"
+                + "<statement>UPDATE B</statement>"
+                + "<statement>SELECT C</statement>");
+
+        // The statements whose result is superseded are closed
+        assertEquals(Arrays.asList("c.setAutoCommit[false]",
+                "c.createStatement()", "s1.execute[UPDATE A, 2]",
+                "s1.close()", "c.createStatement()",
+                "s2.execute[UPDATE B, 2]", "s2.close()",
+                "c.createStatement()", "s3.execute[SELECT C, 2]",
+                "c.commit()"), this.calls);
+        assertEquals("[s3]", this.openStatements.toString());
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.jdbc;
+
+import java.io.StringReader;
+import java.sql.Types;
+import java.util.List;
+
+import org.restlet.ext.jdbc.internal.RequestReader;
+import org.restlet.ext.jdbc.internal.SqlStatement;
+import org.restlet.test.RestletTestCase;
+import org.xml.sax.SAXException;
+
+/**
+ * Unit test for the SAX reader of the JDBC request documents.
+ * 
+ * @author Jerome Louvel
+ */
+public class RequestReaderTestCase extends RestletTestCase {
+
+    /**
+     * Parses a JDBC request document.
+     * 
+     * @param xml
+     *            The XML document.
+     * @return The reader of the document.
+     * @throws Exception
+     */
+    private RequestReader parse(String xml) throws Exception {
+        RequestReader result = new RequestReader();
+        result.parse(new StringReader(xml));
+        return result;
+    }
+
+    public void testDefaults() throws Exception {
+        RequestReader reader = parse("<request><header/><body>"
+                + "<statement>SELECT A</statement></body></request>");
+
+        assertEquals(0, reader.getStart());
+        assertEquals(-1, reader.getLimit());
+        assertNull(reader.getFetchSize());
+        assertNull(reader.getFormat());
+        assertFalse(reader.isReturnGeneratedKeys());
+        assertFalse(reader.isUsePooling());
+        assertTrue(reader.getProperties().isEmpty());
+        assertEquals(1, reader.getStatements().size());
+        assertFalse(reader.getStatements().get(0).isPrepared());
+    }
+
+    public void testHeader() throws Exception {
+        RequestReader reader = parse("<?xml version=\"1.0\"?><request><header>"
+                + "<connection><usePooling>true</usePooling>"
+                + "<property name=\"user\">scott</property>"
+                + "<property name=\"password\"> tiger </property>"
+                + "</connection><start>10</start><limit>20</limit>"
+                + "<returnGeneratedKeys>true</returnGeneratedKeys>"
+                + "<format>csv</format><fetchSize>500</fetchSize>"
+                + "</header><body/></request>");
+
+        assertTrue(reader.isUsePooling());
+        assertEquals("scott", reader.getProperties().getProperty("user"));
+        assertEquals(" tiger ", reader.getProperties()
+                .getProperty("password"));
+        assertEquals(10, reader.getStart());
+        assertEquals(20, reader.getLimit());
+        assertTrue(reader.isReturnGeneratedKeys());
+        assertEquals("csv", reader.getFormat());
+        assertEquals(Integer.valueOf(500), reader.getFetchSize());
+        assertTrue(reader.getStatements().isEmpty());
+    }
+
+    public void testInvalidInteger() throws Exception {
+        try {
+            parse("<request><header><limit>ten</limit></header></request>");
+            fail("The invalid limit should be rejected");
+        } catch (SAXException e) {
+            // Expected
+        }
+    }
+
+    public void testParameters() throws Exception {
+        RequestReader reader = parse("<request><body>"
+                + "<statement>INSERT INTO T (A, B) VALUES (?, ?)"
+                + "<parameters><parameter>a1</parameter>"
+                + "<parameter type=\"integer\">12</parameter></parameters>"
+                + "<parameters><parameter> a2 </parameter>"
+                + "<parameter type=\"INTEGER\" null=\"true\"/></parameters>"
+                + "</statement>"
+                + "<statement>SELECT A FROM T WHERE B &gt; ?"
+                + "<parameter type=\"INTEGER\">10</parameter></statement>"
+                + "<statement>DELETE FROM T WHERE A = ?"
+                + "<parameter null=\"true\"/></statement>"
+                + "</body></request>");
+        List<SqlStatement> statements = reader.getStatements();
+        assertEquals(3, statements.size());
+
+        // Several sets of parameters
+        SqlStatement statement = statements.get(0);
+        assertEquals("INSERT INTO T (A, B) VALUES (?, ?)", statement.getSql());
+        assertTrue(statement.isPrepared());
+        assertEquals(2, statement.getParameterSets().size());
+        List<SqlStatement.Parameter> parameters = statement
+                .getParameterSets().get(0);
+        assertEquals(2, parameters.size());
+        assertEquals("a1", parameters.get(0).getValue());
+        assertNull(parameters.get(0).getType());
+        assertEquals("12", parameters.get(1).getValue());
+        assertEquals(Integer.valueOf(Types.INTEGER), parameters.get(1)
+                .getType());
+        parameters = statement.getParameterSets().get(1);
+        assertEquals(" a2 ", parameters.get(0).getValue());
+        assertNull(parameters.get(1).getValue());
+        assertEquals(Integer.valueOf(Types.INTEGER), parameters.get(1)
+                .getType());
+
+        // Parameters directly inside the statement form a single set
+        statement = statements.get(1);
+        assertEquals("SELECT A FROM T WHERE B > ?", statement.getSql());
+        assertEquals(1, statement.getParameterSets().size());
+        assertEquals("10", statement.getParameterSets().get(0).get(0)
+                .getValue());
+
+        // Untyped SQL NULL
+        statement = statements.get(2);
+        assertEquals(1, statement.getParameterSets().size());
+        assertNull(statement.getParameterSets().get(0).get(0).getValue());
+        assertNull(statement.getParameterSets().get(0).get(0).getType());
+    }
+
+    public void testUnknownType() throws Exception {
+        try {
+            parse("<request><body><statement>SELECT ?"
+                    + "<parameter type=\"UNKNOWN\">1</parameter>"
+                    + "</statement></body></request>");
+            fail("The unknown SQL type should be rejected");
+        } catch (SAXException e) {
+            // Expected
+        }
+    }
+
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.jdbc;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.restlet.data.MediaType;
+import org.restlet.ext.jdbc.JdbcResult;
+import org.restlet.ext.jdbc.ResultSetRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the streaming of a proxied result set as CSV or JSON lines.
+ * 
+ * @author Jerome Louvel
+ */
+public class ResultSetRepresentationTestCase extends RestletTestCase {
+
+    /** The recorded calls, except the ones reading the values. */
+    private List<String> calls;
+
+    /** The labels of the columns. */
+    private String[] labels;
+
+    /** The index of the current row, starting at 0. */
+    private int row;
+
+    /** The values of each row. */
+    private String[][] rows;
+
+    /** The JDBC types of the columns. */
+    private int[] types;
+
+    /**
+     * Creates a representation of the proxied result set.
+     * 
+     * @param mediaType
+     *            The media type.
+     * @param start
+     *            The start index of the page.
+     * @param limit
+     *            The page size or -1.
+     * @return The representation.
+     */
+    private ResultSetRepresentation create(MediaType mediaType, int start,
+            int limit) {
+        return new ResultSetRepresentation(new JdbcResult(
+                (Statement) proxy(Statement.class)), mediaType, start, limit);
+    }
+
+    /**
+     * Handles a call on a proxied JDBC object.
+     * 
+     * @param type
+     *            The JDBC interface.
+     * @param method
+     *            The method called.
+     * @param args
+     *            The arguments or null.
+     * @return The result of the call.
+     */
+    private Object invoke(Class<?> type, Method method, Object[] args) {
+        String name = method.getName();
+
+        if ("getConnection".equals(name)) {
+            return proxy(Connection.class);
+        } else if ("getResultSet".equals(name)) {
+            return proxy(ResultSet.class);
+        } else if ("getMetaData".equals(name)) {
+            return proxy(ResultSetMetaData.class);
+        } else if ("getColumnCount".equals(name)) {
+            return this.labels.length;
+        } else if ("getColumnLabel".equals(name)) {
+            return this.labels[(Integer) args[0] - 1];
+        } else if ("getColumnType".equals(name)) {
+            return this.types[(Integer) args[0] - 1];
+        } else if ("getString".equals(name) || "getBoolean".equals(name)) {
+            String value = this.rows[this.row - 1][(Integer) args[0] - 1];
+            return "getString".equals(name) ? value : Boolean.valueOf(value);
+        }
+
+        this.calls.add(type.getSimpleName() + "." + name
+                + ((args == null) ? "()" : "(" + args[0] + ")"));
+
+        if ("next".equals(name)) {
+            return (this.row++ < this.rows.length);
+        }
+
+        return null;
+    }
+
+    /**
+     * Creates a proxied JDBC object.
+     * 
+     * @param type
+     *            The JDBC interface.
+     * @return The proxied JDBC object.
+     */
+    private Object proxy(final Class<?> type) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { type }, new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method,
+                            Object[] args) throws Throwable {
+                        return ResultSetRepresentationTestCase.this.invoke(
+                                type, method, args);
+                    }
+                });
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.calls = new ArrayList<String>();
+        this.labels = new String[] { "id", "name", "note" };
+        this.row = 0;
+        this.rows = new String[][] { { "1", "plain", null },
+                { "2", "a,b", "say \"hi\"" }, { "3", "line\r\nbreak", "" },
+                { "4", " d ", "x" }, { "5", "e", "y" } };
+        this.types = new int[] { Types.INTEGER, Types.VARCHAR, Types.VARCHAR };
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.calls = null;
+        this.labels = null;
+        this.rows = null;
+        this.types = null;
+        super.tearDown();
+    }
+
+    public void testCsv() throws Exception {
+        ResultSetRepresentation rsr = create(MediaType.TEXT_CSV, 0, 3);
+        StringWriter writer = new StringWriter();
+        rsr.write(writer);
+
+        // Fields with commas, quotes or line breaks are quoted and the quotes
+        // doubled. Null and empty values are empty fields.
+        assertEquals("id,name,note\r\n" + "1,plain,\r\n"
+                + "2,\"a,b\",\"say \"\"hi\"\"\"\r\n"
+                + "3,\"line\r\nbreak\",\r\n", writer.toString());
+    }
+
+    public void testJson() throws Exception {
+        this.labels = new String[] { "id", "name", "active", "price", "tab\"" };
+        this.types = new int[] { Types.BIGINT, Types.VARCHAR, Types.BOOLEAN,
+                Types.DECIMAL, Types.DATE };
+        this.rows = new String[][] {
+                { "1", "a \"b\" \\ c", "true", "1.50", "2012-01-31" },
+                { "2", "\t\n\u0001\u2028", "false", null, null } };
+        ResultSetRepresentation rsr = create(MediaType.APPLICATION_JSON, 0, -1);
+        StringWriter writer = new StringWriter();
+        rsr.write(writer);
+
+        // Numbers and booleans aren't quoted, other types are strings
+        assertEquals("{\"id\":1,\"name\":\"a \\\"b\\\" \\\\ c\","
+                + "\"active\":true,\"price\":1.50,"
+                + "\"tab\\\"\":\"2012-01-31\"}\n"
+                + "{\"id\":2,\"name\":\"\\t\\n\\u0001\\u2028\","
+                + "\"active\":false,\"price\":null,\"tab\\\"\":null}\n",
+                writer.toString());
+    }
+
+    public void testPaging() throws Exception {
+        ResultSetRepresentation rsr = create(MediaType.TEXT_CSV, 1, 2);
+        rsr.setFetchSize(20);
+        StringWriter writer = new StringWriter();
+        rsr.write(writer);
+        assertEquals("id,name,note\r\n" + "2,\"a,b\",\"say \"\"hi\"\"\"\r\n"
+                + "3,\"line\r\nbreak\",\r\n", writer.toString());
+
+        // The rows after the page aren't read
+        assertEquals("[ResultSet.setFetchSize(20), ResultSet.next(), "
+                + "ResultSet.next(), ResultSet.next(), ResultSet.close(), "
+                + "Connection.close()]", this.calls.toString());
+
+        // Past the last row
+        this.row = 0;
+        writer = new StringWriter();
+        create(MediaType.APPLICATION_JSON, 5, -1).write(writer);
+        assertEquals("", writer.toString());
+
+        // Without limit
+        this.row = 0;
+        writer = new StringWriter();
+        create(MediaType.APPLICATION_JSON, 3, -1).write(writer);
+        assertEquals("{\"id\":4,\"name\":\" d \",\"note\":\"x\"}\n"
+                + "{\"id\":5,\"name\":\"e\",\"note\":\"y\"}\n",
+                writer.toString());
+    }
+
+    public void testRelease() throws Exception {
+        ResultSetRepresentation rsr = create(MediaType.TEXT_CSV, 0, -1);
+        rsr.release();
+        assertNull(rsr.getJdbcResult());
+        assertEquals("[Connection.close()]", this.calls.toString());
+
+        // Released only once
+        rsr.release();
+        assertEquals("[Connection.close()]", this.calls.toString());
+
+        try {
+            rsr.write(new StringWriter());
+            fail("A released representation can't be written");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    public void testReleaseOnWrite() throws Exception {
+        ResultSetRepresentation rsr = create(MediaType.TEXT_CSV, 0, 1);
+        assertTrue(rsr.isTransient());
+        rsr.write(new StringWriter());
+        assertNull(rsr.getJdbcResult());
+        assertTrue(this.calls.contains("ResultSet.close()"));
+        assertTrue(this.calls.contains("Connection.close()"));
+
+        try {
+            rsr.write(new StringWriter());
+            fail("The representation can only be written once");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        // Not released again
+        rsr.release();
+        assertEquals(1,
+                Collections.frequency(this.calls, "Connection.close()"));
+    }
+
+    public void testUnsupportedMediaType() {
+        try {
+            create(MediaType.TEXT_XML, 0, -1);
+            fail("Only CSV and JSON are supported");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+}
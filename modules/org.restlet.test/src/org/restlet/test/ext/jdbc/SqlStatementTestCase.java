@@ -0,0 +1,93 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.ext.jdbc;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.restlet.ext.jdbc.internal.SqlStatement;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test for the binding of the parameters of a SQL statement to a proxied
+ * prepared statement.
+ * 
+ * @author Jerome Louvel
+ */
+public class SqlStatementTestCase extends RestletTestCase {
+
+    public void testSetParameters() throws Exception {
+        final List<String> calls = new ArrayList<String>();
+        PreparedStatement statement = (PreparedStatement) Proxy
+                .newProxyInstance(getClass().getClassLoader(),
+                        new Class<?>[] { PreparedStatement.class },
+                        new InvocationHandler() {
+                            public Object invoke(Object proxy, Method method,
+                                    Object[] args) throws Throwable {
+                                calls.add(method.getName()
+                                        + Arrays.asList(args));
+                                return null;
+                            }
+                        });
+
+        SqlStatement sqlStatement = new SqlStatement("UPDATE T SET ?, ?, ?, ?");
+        sqlStatement.getParameterSets().add(
+                Arrays.asList(new SqlStatement.Parameter("a", null),
+                        new SqlStatement.Parameter(null, null),
+                        new SqlStatement.Parameter("12", Types.INTEGER),
+                        new SqlStatement.Parameter(null, Types.DATE)));
+        sqlStatement.getParameterSets().add(
+                Arrays.asList(new SqlStatement.Parameter("b", null)));
+        assertTrue(sqlStatement.isPrepared());
+
+        // Untyped values are strings, typed values are converted by the
+        // driver
+        sqlStatement.setParameters(statement, 0);
+        assertEquals(Arrays.asList("setString[1, a]", "setNull[2, "
+                + Types.VARCHAR + "]", "setObject[3, 12, " + Types.INTEGER
+                + "]", "setNull[4, " + Types.DATE + "]"), calls);
+
+        calls.clear();
+        sqlStatement.setParameters(statement, 1);
+        assertEquals(Arrays.asList("setString[1, b]"), calls);
+    }
+
+}
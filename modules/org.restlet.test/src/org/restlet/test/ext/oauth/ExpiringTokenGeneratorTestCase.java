@@ -0,0 +1,162 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.oauth;
+
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import org.restlet.ext.oauth.AuthenticatedUser;
+import org.restlet.ext.oauth.internal.AuthenticatedUserImpl;
+import org.restlet.ext.oauth.internal.ExpireToken;
+import org.restlet.ext.oauth.internal.ExpiringTokenGenerator;
+import org.restlet.ext.oauth.internal.Token;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the {@link ExpiringTokenGenerator}.
+ * 
+ * @author Kristoffer Gronowski
+ */
+public class ExpiringTokenGeneratorTestCase extends RestletTestCase {
+
+    private ScheduledThreadPoolExecutor pool;
+
+    private ExpiringTokenGenerator createGenerator(int capacity,
+            long codeTimeToLive) {
+        ExpiringTokenGenerator result = new ExpiringTokenGenerator(pool,
+                capacity, codeTimeToLive, 3600);
+        result.setMaxTokenTime(3600);
+        return result;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        pool = new ScheduledThreadPoolExecutor(1);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        pool.shutdownNow();
+        pool = null;
+        super.tearDown();
+    }
+
+    public void testCapacity() throws Exception {
+        ExpiringTokenGenerator generator = createGenerator(10, 600);
+        AuthenticatedUser user = new AuthenticatedUserImpl("1234567890", null);
+        Token first = generator.generateToken(user, Token.UNLIMITED);
+        Token last = null;
+
+        for (int i = 0; i < 19; i++) {
+            last = generator.generateToken(user, Token.UNLIMITED);
+        }
+
+        assertEquals(10, generator.getTokenCount());
+        assertEquals(10, generator.getEvictionCount());
+        assertNull(generator.findToken(first.getToken()));
+        assertSame(last, generator.findToken(last.getToken()));
+
+        for (int i = 0; i < 20; i++) {
+            generator.generateCode(user);
+        }
+
+        assertEquals(10, generator.getCodeCount());
+        assertEquals(20, generator.getEvictionCount());
+    }
+
+    public void testCodeExpiration() throws Exception {
+        ExpiringTokenGenerator generator = createGenerator(10, 0);
+        AuthenticatedUser user = new AuthenticatedUserImpl("1234567890", null);
+        String code = generator.generateCode(user);
+        generator.generateCode(user);
+        assertEquals(2, generator.getCodeCount());
+
+        try {
+            generator.exchangeForToken(code, Token.UNLIMITED);
+            fail("Expired code exchanged");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+
+        generator.sweep();
+        assertEquals(0, generator.getCodeCount());
+        assertEquals(1, generator.getExpirationCount());
+    }
+
+    public void testCodeExchange() throws Exception {
+        ExpiringTokenGenerator generator = createGenerator(10, 600);
+        AuthenticatedUser user = new AuthenticatedUserImpl("1234567890", null);
+        String code = generator.generateCode(user);
+        Token token = generator.exchangeForToken(code, Token.UNLIMITED);
+        assertEquals("1234567890", token.getUser().getId());
+        assertSame(token, generator.findToken(token.getToken()));
+        assertEquals(0, generator.getCodeCount());
+    }
+
+    public void testRefreshAndRevoke() throws Exception {
+        ExpiringTokenGenerator generator = createGenerator(10, 600);
+        AuthenticatedUser user = new AuthenticatedUserImpl("1234567890", null);
+        ExpireToken token = (ExpireToken) generator.generateToken(user, 60);
+        String accessToken = token.getToken();
+        assertEquals(2, generator.getTokenCount());
+
+        generator.refreshToken(token);
+        assertNull(generator.findToken(accessToken));
+        assertSame(token, generator.findToken(token.getToken()));
+        assertSame(token, generator.findToken(token.getRefreshToken()));
+        assertEquals(2, generator.getTokenCount());
+
+        generator.revokeExpireToken(token);
+        assertEquals(0, generator.getTokenCount());
+    }
+
+    public void testTokenExpiration() throws Exception {
+        ExpiringTokenGenerator generator = createGenerator(10, 600);
+        AuthenticatedUser user = new AuthenticatedUserImpl("1234567890", null);
+        ExpireToken token = (ExpireToken) generator.generateToken(user, 1);
+        String accessToken = token.getToken();
+        assertSame(token, generator.findToken(accessToken));
+
+        Thread.sleep(2100);
+        generator.sweep();
+        assertEquals(1, generator.getExpirationCount());
+        assertNull(generator.findToken(accessToken));
+        assertNull(token.getToken());
+
+        // The refresh token is kept
+        assertSame(token, generator.findToken(token.getRefreshToken()));
+        assertEquals(1, generator.getTokenCount());
+    }
+
+}
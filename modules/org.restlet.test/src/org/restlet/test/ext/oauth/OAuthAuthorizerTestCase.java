@@ -0,0 +1,218 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.oauth;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.json.JSONObject;
+import org.restlet.Component;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.ChallengeResponse;
+import org.restlet.data.ChallengeScheme;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Protocol;
+import org.restlet.data.Status;
+import org.restlet.ext.json.JsonRepresentation;
+import org.restlet.ext.oauth.OAuthAuthorizer;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the cache of validations of the {@link OAuthAuthorizer}.
+ * 
+ * @author Kristoffer Gronowski
+ */
+public class OAuthAuthorizerTestCase extends RestletTestCase {
+
+    private Component component;
+
+    private AtomicInteger validations;
+
+    private OAuthAuthorizer createAuthorizer() {
+        return new OAuthAuthorizer("http://localhost:" + TEST_PORT
+                + "/validate");
+    }
+
+    private Request createRequest(String token, String owner) {
+        Request request = new Request(Method.GET, "http://localhost/me");
+        request.setOriginalRef(request.getResourceRef());
+        ChallengeResponse cr = new ChallengeResponse(ChallengeScheme.HTTP_OAUTH);
+        cr.setRawValue(token);
+        request.setChallengeResponse(cr);
+
+        if (owner != null) {
+            request.getAttributes().put(
+                    OAuthAuthorizer.DEFAULT_OWNER_ATTRIBUTE, owner);
+        }
+
+        return request;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.validations = new AtomicInteger();
+        this.component = new Component();
+        this.component.getServers().add(Protocol.HTTP, TEST_PORT);
+        this.component.getDefaultHost().attach("/validate", new Restlet() {
+            @Override
+            public void handle(Request request, Response response) {
+                validations.incrementAndGet();
+
+                try {
+                    JSONObject call = new JsonRepresentation(request
+                            .getEntity()).getJsonObject();
+                    String token = call.getString("access_token");
+                    JSONObject result = new JSONObject();
+
+                    if (token.startsWith("good")) {
+                        result.put("authenticated", true);
+                        result.put("tokenOwner", "scott");
+
+                        if (token.equals("good-expired")) {
+                            result.put("expires_in", 0);
+                        }
+                    } else {
+                        result.put("authenticated", false);
+                        result.put("error", "invalid_token");
+                    }
+
+                    response.setEntity(new StringRepresentation(result
+                            .toString(), MediaType.APPLICATION_JSON));
+                } catch (Exception e) {
+                    response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
+                }
+            }
+        });
+        this.component.start();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.component.stop();
+        this.component = null;
+        super.tearDown();
+    }
+
+    public void testCache() throws Exception {
+        OAuthAuthorizer authorizer = createAuthorizer();
+        authorizer.setCacheSize(10);
+
+        Request request = createRequest("good", null);
+        assertTrue(authorizer.authorize(request, new Response(request)));
+        request = createRequest("good", null);
+        assertTrue(authorizer.authorize(request, new Response(request)));
+        assertEquals("scott", request.getClientInfo().getUser()
+                .getIdentifier());
+        assertEquals(1, validations.get());
+        assertEquals(1, authorizer.getCacheHitCount());
+        assertEquals(1, authorizer.getCacheMissCount());
+
+        // The owner is part of the key
+        request = createRequest("good", "scott");
+        assertTrue(authorizer.authorize(request, new Response(request)));
+        assertEquals(2, validations.get());
+
+        authorizer.clearCache();
+        request = createRequest("good", null);
+        assertTrue(authorizer.authorize(request, new Response(request)));
+        assertEquals(3, validations.get());
+    }
+
+    public void testCacheDisabled() throws Exception {
+        OAuthAuthorizer authorizer = createAuthorizer();
+
+        for (int i = 0; i < 3; i++) {
+            Request request = createRequest("good", null);
+            assertTrue(authorizer.authorize(request, new Response(request)));
+        }
+
+        assertEquals(3, validations.get());
+        assertEquals(0, authorizer.getCacheHitCount());
+    }
+
+    public void testCacheEviction() throws Exception {
+        OAuthAuthorizer authorizer = createAuthorizer();
+        authorizer.setCacheSize(1);
+
+        Request request = createRequest("good1", null);
+        assertTrue(authorizer.authorize(request, new Response(request)));
+        request = createRequest("good2", null);
+        assertTrue(authorizer.authorize(request, new Response(request)));
+        request = createRequest("good1", null);
+        assertTrue(authorizer.authorize(request, new Response(request)));
+        assertEquals(3, validations.get());
+    }
+
+    public void testExpiredToken() throws Exception {
+        OAuthAuthorizer authorizer = createAuthorizer();
+        authorizer.setCacheSize(10);
+
+        for (int i = 0; i < 2; i++) {
+            Request request = createRequest("good-expired", null);
+            assertTrue(authorizer.authorize(request, new Response(request)));
+        }
+
+        assertEquals(2, validations.get());
+    }
+
+    public void testNegativeCache() throws Exception {
+        OAuthAuthorizer authorizer = createAuthorizer();
+        authorizer.setCacheSize(10);
+
+        for (int i = 0; i < 2; i++) {
+            Request request = createRequest("bad", null);
+            Response response = new Response(request);
+            assertFalse(authorizer.authorize(request, response));
+            assertEquals(Status.CLIENT_ERROR_UNAUTHORIZED, response
+                    .getStatus());
+        }
+
+        assertEquals(1, validations.get());
+
+        authorizer.setCacheNegativeTimeToLive(0);
+        authorizer.clearCache();
+
+        for (int i = 0; i < 2; i++) {
+            Request request = createRequest("bad", null);
+            assertFalse(authorizer.authorize(request, new Response(request)));
+        }
+
+        assertEquals(3, validations.get());
+    }
+
+}
@@ -47,6 +47,8 @@ public class OAuthTestSuite extends TestSuite{
         result.addTestSuite(TimedTokenTestCase.class);
         result.addTestSuite(TimedTokenHttpsTestCase.class);
         result.addTestSuite(TokenGeneratorTestCase.class);
+        result.addTestSuite(ExpiringTokenGeneratorTestCase.class);
+        result.addTestSuite(OAuthAuthorizerTestCase.class);
         //result.addTestSuite(MultipleUserAuthorizationServerTestCase.class);
         result.addTestSuite(MultipleUserAuthorizationServerHttpsTestCase.class);
         return result;
@@ -33,11 +33,18 @@
 
 package org.restlet.test.ext.odata;
 
+import java.io.Closeable;
 import java.util.Iterator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restlet.Component;
 import org.restlet.data.Protocol;
+import org.restlet.data.Status;
 import org.restlet.ext.odata.Query;
+import org.restlet.resource.ResourceException;
 import org.restlet.test.RestletTestCase;
 import org.restlet.test.ext.odata.cafe.Cafe;
 import org.restlet.test.ext.odata.cafe.CafeService;
@@ -243,4 +250,99 @@ public class ODataCafeTestCase extends RestletTestCase {
         assertEquals("Marly Le Roi", cafe.getCity());
         assertEquals(78310, cafe.getZipCode());
     }
+
+    /**
+     * Tests the server paging feature with a streaming iterator.
+     */
+    public void testServerPagingStreaming() throws Exception {
+        Query<Cafe> query = service.createCafeQuery("/Cafes").skipToken(
+                "Skip1");
+
+        // Only one parsed entity can wait to be consumed
+        Iterator<Cafe> iterator = query.streamingIterator(1);
+        String[] ids = new String[] { "1", "2", "1", "2" };
+
+        for (String id : ids) {
+            assertTrue(iterator.hasNext());
+            assertEquals(id, iterator.next().getId());
+        }
+
+        assertFalse(iterator.hasNext());
+
+        // Stop before the end
+        iterator = query.streamingIterator(1);
+        assertTrue(iterator.hasNext());
+        assertEquals("Le Cafe Louis", iterator.next().getName());
+        ((Closeable) iterator).close();
+        assertFalse(iterator.hasNext());
+    }
+
+    /**
+     * Tests the background task of a streaming iterator run by a given
+     * executor, and its end once the iterator is abandoned.
+     */
+    public void testServerPagingStreamingAbandoned() throws Exception {
+        Query<Cafe> query = service.createCafeQuery("/Cafes").skipToken(
+                "Skip1");
+        final AtomicInteger tasks = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        Executor executor = new Executor() {
+            public void execute(final Runnable command) {
+                tasks.incrementAndGet();
+                new Thread(new Runnable() {
+                    public void run() {
+                        command.run();
+                        done.countDown();
+                    }
+                }).start();
+            }
+        };
+
+        Iterator<Cafe> iterator = query.streamingIterator(1, executor);
+        assertTrue(iterator.hasNext());
+        assertEquals("1", iterator.next().getId());
+        assertEquals(1, tasks.get());
+
+        // The task waits for the consumer of the next entities, until the
+        // iterator is garbage collected
+        assertFalse(done.await(300, TimeUnit.MILLISECONDS));
+        iterator = null;
+
+        for (int i = 0; (i < 50) && (done.getCount() > 0); i++) {
+            System.gc();
+            done.await(100, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals(0, done.getCount());
+    }
+
+    /**
+     * Tests the failure of a streaming iterator when the next page can't be
+     * retrieved, after the entities of the first page.
+     */
+    public void testServerPagingStreamingFailure() throws Exception {
+        Query<Cafe> query = service.createCafeQuery("/Cafes").skipToken(
+                "Failing");
+        Iterator<Cafe> iterator = query.streamingIterator(1);
+
+        for (String id : new String[] { "1", "2" }) {
+            assertTrue(iterator.hasNext());
+            assertEquals(id, iterator.next().getId());
+        }
+
+        // The missing page isn't mistaken for the end of the entity set
+        try {
+            iterator.hasNext();
+            fail("The failure of the second page wasn't reported");
+        } catch (ResourceException e) {
+            assertEquals(Status.CLIENT_ERROR_NOT_FOUND, e.getStatus());
+        }
+
+        try {
+            iterator.next();
+            fail("The failure of the second page wasn't reported");
+        } catch (ResourceException e) {
+            assertEquals(Status.CLIENT_ERROR_NOT_FOUND, e.getStatus());
+        }
+    }
 }
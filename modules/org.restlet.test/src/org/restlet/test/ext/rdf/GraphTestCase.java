@@ -0,0 +1,169 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.ext.rdf;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.ext.rdf.Graph;
+import org.restlet.ext.rdf.Link;
+import org.restlet.ext.rdf.Literal;
+import org.restlet.ext.rdf.RdfRepresentation;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test case for the {@link Graph} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class GraphTestCase extends RestletTestCase {
+
+    private static final String EX = "http://www.example.com/";
+
+    private Graph createGraph() {
+        Graph result = new Graph();
+        result.add(EX + "alice", EX + "knows", new Reference(EX + "bob"));
+        result.add(EX + "alice", EX + "name", new Literal("Alice"));
+        result.add(EX + "bob", EX + "knows", new Reference(EX + "carol"));
+        result.add(EX + "bob", EX + "name", new Literal("Bob"));
+        result.add(EX + "carol", EX + "knows", new Reference(EX + "alice"));
+        return result;
+    }
+
+    public void testAdd() {
+        Graph graph = createGraph();
+        assertEquals(5, graph.size());
+        assertFalse(graph.add(new Link(new Reference(EX + "alice"), EX
+                + "name", new Literal("Alice"))));
+        assertEquals(5, graph.size());
+        assertTrue(graph.contains(new Link(new Reference(EX + "bob"), EX
+                + "knows", new Reference(EX + "carol"))));
+        assertFalse(graph.contains(new Link(new Reference(EX + "bob"), EX
+                + "knows", new Reference(EX + "alice"))));
+
+        // References are shared between links
+        List<Link> links = graph.getLinks(null, new Reference(EX + "knows"),
+                null);
+        assertSame(links.get(0).getTypeRef(), links.get(1).getTypeRef());
+    }
+
+    public void testGraphSource() {
+        Graph graph = new Graph();
+        Graph formula = new Graph();
+        graph.add(formula, new Reference(EX + "says"), new Literal("Hi"));
+        formula.add(EX + "alice", EX + "name", new Literal("Alice"));
+        assertEquals(1, graph.getLinks(formula, null, null).size());
+        assertTrue(graph.remove(new Link(formula, EX + "says", new Literal(
+                "Hi"))));
+        assertTrue(graph.isEmpty());
+    }
+
+    public void testGetLinks() {
+        Graph graph = createGraph();
+        Reference alice = new Reference(EX + "alice");
+        Reference bob = new Reference(EX + "bob");
+        Reference knows = new Reference(EX + "knows");
+
+        assertEquals(2, graph.getLinks(alice, null, null).size());
+        assertEquals(1, graph.getLinks(alice, knows, null).size());
+        assertEquals(1, graph.getLinks(alice, knows, bob).size());
+        assertEquals(1, graph.getLinks(alice, null, bob).size());
+        assertEquals(0, graph.getLinks(bob, null, alice).size());
+        assertEquals(3, graph.getLinks(null, knows, null).size());
+        assertEquals(1, graph.getLinks(null, knows, alice).size());
+        assertEquals(1, graph.getLinks(null, null, new Literal("Bob")).size());
+        assertEquals(5, graph.getLinks(null, null, null).size());
+    }
+
+    public void testIterator() {
+        Graph graph = createGraph();
+        Iterator<Link> iter = graph.iterator();
+        assertEquals(new Reference(EX + "alice"), iter.next()
+                .getSourceAsReference());
+        iter.next();
+
+        // The iterator works on a snapshot
+        graph.add(EX + "dave", EX + "knows", new Reference(EX + "alice"));
+        int count = 2;
+
+        while (iter.hasNext()) {
+            iter.next();
+            iter.remove();
+            count++;
+        }
+
+        assertEquals(5, count);
+        assertEquals(3, graph.size());
+        assertEquals(1, graph.getLinks(null, null, new Reference(EX + "bob"))
+                .size());
+    }
+
+    public void testNTriples() throws Exception {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 100; i++) {
+            sb.append("<" + EX + "s" + (i % 10) + "> <" + EX + "p> \"" + i
+                    + "\" .\n");
+        }
+
+        // Duplicate statement
+        sb.append("<" + EX + "s0> <" + EX + "p> \"0\" .\n");
+
+        Graph graph = new RdfRepresentation(new StringRepresentation(
+                sb.toString(), MediaType.TEXT_PLAIN)).getGraph();
+        assertEquals(100, graph.size());
+        assertEquals(10, graph.getLinks(new Reference(EX + "s3"), null, null)
+                .size());
+    }
+
+    public void testRemove() {
+        Graph graph = createGraph();
+        assertTrue(graph.remove(new Link(new Reference(EX + "alice"), EX
+                + "knows", new Reference(EX + "bob"))));
+        assertFalse(graph.remove(new Link(new Reference(EX + "alice"), EX
+                + "knows", new Reference(EX + "bob"))));
+        assertEquals(4, graph.size());
+        assertEquals(0, graph.getLinks(null, null, new Reference(EX + "bob"))
+                .size());
+        assertEquals(2, graph.getLinks(null, new Reference(EX + "knows"), null)
+                .size());
+        graph.clear();
+        assertTrue(graph.isEmpty());
+        assertTrue(graph.getLinks(null, null, null).isEmpty());
+    }
+
+}
@@ -33,7 +33,15 @@
 
 package org.restlet.test.ext.rdf;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.restlet.data.MediaType;
+import org.restlet.data.Reference;
+import org.restlet.ext.rdf.Graph;
+import org.restlet.ext.rdf.GraphHandler;
+import org.restlet.ext.rdf.Link;
+import org.restlet.ext.rdf.Literal;
 import org.restlet.ext.rdf.RdfRepresentation;
 import org.restlet.representation.Representation;
 import org.restlet.representation.StringRepresentation;
@@ -44,6 +52,21 @@ import org.restlet.test.RestletTestCase;
  */
 public class RdfTestCase extends RestletTestCase {
 
+    public void testConversion() throws Exception {
+        Representation turtle = new StringRepresentation(
+                "@prefix ex: <http://www.example.com/> .\n"
+                        + "ex:alice ex:knows ex:bob ; ex:name \"Alice\" .\n"
+                        + "ex:bob ex:knows ex:alice .\n",
+                MediaType.APPLICATION_RDF_TURTLE);
+        RdfRepresentation rdf = new RdfRepresentation(turtle);
+        rdf.setMediaType(MediaType.TEXT_RDF_NTRIPLES);
+        String text = rdf.getText();
+        assertTrue(text
+                .contains("<http://www.example.com/alice> <http://www.example.com/knows> <http://www.example.com/bob>"));
+        assertTrue(text.contains("\"Alice\""));
+        assertEquals(3, text.split("\n").length);
+    }
+
     public void testN3() throws Exception {
         Representation rep = new StringRepresentation(
                 "@prefix rdf: <http://www.w3.org/1999/02/22-rdf-syntax-ns#> ."
@@ -82,4 +105,55 @@ public class RdfTestCase extends RestletTestCase {
         Representation n3Rep = new RdfRepresentation(rep);
         n3Rep.write(System.out);
     }
+
+    public void testParse() throws Exception {
+        final List<String> sources = new ArrayList<String>();
+        Representation rep = new StringRepresentation(
+                "<http://www.example.com/a> <http://www.example.com/p> \"1\" .\n"
+                        + "<http://www.example.com/b> <http://www.example.com/p> <http://www.example.com/a> .\n",
+                MediaType.TEXT_RDF_NTRIPLES);
+        new RdfRepresentation(rep).parse(new GraphHandler() {
+            @Override
+            public void link(Graph source, Reference typeRef, Literal target) {
+            }
+
+            @Override
+            public void link(Graph source, Reference typeRef, Reference target) {
+            }
+
+            @Override
+            public void link(Reference source, Reference typeRef,
+                    Literal target) {
+                sources.add(source.toString());
+            }
+
+            @Override
+            public void link(Reference source, Reference typeRef,
+                    Reference target) {
+                sources.add(source.toString());
+            }
+        });
+        assertEquals(2, sources.size());
+        assertEquals("http://www.example.com/b", sources.get(1));
+    }
+
+    public void testWriteIterator() throws Exception {
+        List<Link> links = new ArrayList<Link>();
+        links.add(new Link(new Reference("http://www.example.com/a"),
+                "http://www.example.com/p", new Literal("1")));
+        links.add(new Link(new Reference("http://www.example.com/b"),
+                "http://www.example.com/p", new Reference(
+                        "http://www.example.com/a")));
+        RdfRepresentation rdf = new RdfRepresentation(links.iterator(),
+                MediaType.TEXT_RDF_NTRIPLES);
+        assertTrue(rdf.isTransient());
+        assertEquals(
+                "<http://www.example.com/a> <http://www.example.com/p> \"1\".\n"
+                        + "<http://www.example.com/b> <http://www.example.com/p> <http://www.example.com/a>.\n",
+                rdf.getText());
+
+        rdf = new RdfRepresentation(links.iterator(), MediaType.TEXT_XML);
+        assertTrue(rdf.getText().contains("rdf:Description"));
+    }
+
 }
@@ -0,0 +1,187 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.representation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.restlet.data.Encoding;
+import org.restlet.engine.application.EncodeRepresentation;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit test case for the {@link EncodeRepresentation} class.
+ * 
+ * @author Jerome Louvel
+ */
+public class EncodeRepresentationTestCase extends RestletTestCase {
+
+    /**
+     * Returns the content to encode, compressible but not trivially.
+     * 
+     * @return The content to encode.
+     */
+    private static byte[] createContent() {
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; sb.length() < 100000; i++) {
+            sb.append("Line ").append(i).append(" of the content, ")
+                    .append(Integer.toHexString(i * 31)).append('\n');
+        }
+
+        return sb.toString().getBytes();
+    }
+
+    /**
+     * Decodes the given bytes.
+     * 
+     * @param encoding
+     *            The encoding applied.
+     * @param encoded
+     *            The encoded bytes.
+     * @return The decoded bytes.
+     */
+    private static byte[] decode(Encoding encoding, byte[] encoded)
+            throws IOException {
+        InputStream in = new ByteArrayInputStream(encoded);
+
+        if (Encoding.GZIP.equals(encoding)) {
+            in = new GZIPInputStream(in);
+        } else {
+            in = new InflaterInputStream(in);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BioUtils.copy(in, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Reads the whole channel of a representation, using a small buffer.
+     * 
+     * @param representation
+     *            The representation to read.
+     * @return The bytes read.
+     */
+    private static byte[] readChannel(Representation representation)
+            throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ReadableByteChannel channel = representation.getChannel();
+        ByteBuffer buffer = ByteBuffer.allocate(7);
+
+        try {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                out.write(buffer.array(), 0, buffer.limit());
+                buffer.clear();
+            }
+        } finally {
+            channel.close();
+        }
+
+        return out.toByteArray();
+    }
+
+    public void testChannel() throws Exception {
+        byte[] content = createContent();
+
+        for (Encoding encoding : new Encoding[] { Encoding.GZIP,
+                Encoding.DEFLATE }) {
+            EncodeRepresentation er = new EncodeRepresentation(encoding,
+                    new ByteArrayRepresentation(content));
+            byte[] encoded = readChannel(er);
+            assertTrue(encoded.length < content.length);
+            assertTrue(Arrays.equals(content,
+                    decode(encoding, encoded)));
+        }
+    }
+
+    public void testCompressionLevel() throws Exception {
+        byte[] content = createContent();
+        byte[] stored = readChannel(new EncodeRepresentation(Encoding.GZIP,
+                new ByteArrayRepresentation(content), 0));
+        byte[] best = readChannel(new EncodeRepresentation(Encoding.GZIP,
+                new ByteArrayRepresentation(content), 9));
+        assertTrue(stored.length > content.length);
+        assertTrue(best.length < stored.length);
+        assertTrue(Arrays.equals(content,
+                decode(Encoding.GZIP, stored)));
+    }
+
+    public void testEmpty() throws Exception {
+        EncodeRepresentation er = new EncodeRepresentation(Encoding.GZIP,
+                new ByteArrayRepresentation(new byte[0]));
+        assertEquals(0, decode(Encoding.GZIP, readChannel(er)).length);
+    }
+
+    public void testStream() throws Exception {
+        byte[] content = createContent();
+
+        for (Encoding encoding : new Encoding[] { Encoding.GZIP,
+                Encoding.DEFLATE }) {
+            EncodeRepresentation er = new EncodeRepresentation(encoding,
+                    new InputRepresentation(new ByteArrayInputStream(content)));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BioUtils.copy(er.getStream(), out);
+            assertTrue(Arrays.equals(content,
+                    decode(encoding, out.toByteArray())));
+        }
+    }
+
+    public void testWrite() throws Exception {
+        byte[] content = createContent();
+
+        for (Encoding encoding : new Encoding[] { Encoding.GZIP,
+                Encoding.DEFLATE }) {
+            EncodeRepresentation er = new EncodeRepresentation(encoding,
+                    new ByteArrayRepresentation(content), 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            er.write(out);
+            assertTrue(Arrays.equals(content,
+                    decode(encoding, out.toByteArray())));
+        }
+    }
+
+}
@@ -34,17 +34,21 @@
 package org.restlet.test.resource;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Date;
+import java.util.zip.GZIPOutputStream;
 
 import org.restlet.Application;
 import org.restlet.Component;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.data.Encoding;
 import org.restlet.data.Language;
 import org.restlet.data.LocalReference;
 import org.restlet.data.Method;
+import org.restlet.data.Preference;
 import org.restlet.data.Protocol;
 import org.restlet.data.Reference;
 import org.restlet.data.Status;
@@ -230,6 +234,58 @@ public class DirectoryTestCase extends RestletTestCase {
         clientComponent.stop();
     }
 
+    public void testPrecompressed() throws Exception {
+        this.testDir = new File(System.getProperty("java.io.tmpdir"),
+                "DirectoryTestCase/precompressed" + new Date().getTime());
+        this.testDir.mkdirs();
+
+        String text = "function test() { return 'test'; }";
+        FileOutputStream fos = new FileOutputStream(new File(this.testDir,
+                "app.js"));
+        fos.write(text.getBytes("UTF-8"));
+        fos.close();
+        GZIPOutputStream gzos = new GZIPOutputStream(new FileOutputStream(
+                new File(this.testDir, "app.js.gz")));
+        gzos.write(text.getBytes("UTF-8"));
+        gzos.close();
+
+        Component clientComponent = new Component();
+        clientComponent.getClients().add(Protocol.FILE);
+        MyApplication application = new MyApplication(this.testDir);
+        application.getDirectory().setPrecompressedServed(true);
+        clientComponent.getDefaultHost().attach("", application);
+        clientComponent.start();
+
+        try {
+            // The client doesn't accept the GZip encoding
+            Request request = new Request(Method.GET,
+                    this.webSiteURL.concat("app.js"));
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            Response response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(response.getEntity().getEncodings().isEmpty());
+            assertEquals(text, response.getEntity().getText());
+
+            // The client accepts the GZip encoding
+            request = new Request(Method.GET, this.webSiteURL.concat("app.js"));
+            request.getResourceRef().setBaseRef(this.webSiteURL);
+            request.getClientInfo().getAcceptedEncodings()
+                    .add(new Preference<Encoding>(Encoding.GZIP));
+            response = new Response(request);
+            application.handle(request, response);
+            assertEquals(Status.SUCCESS_OK, response.getStatus());
+            assertTrue(response.getEntity().getEncodings()
+                    .contains(Encoding.GZIP));
+            assertEquals(new File(this.testDir, "app.js.gz").length(),
+                    response.getEntity().getSize());
+            response.getEntity().release();
+        } finally {
+            clientComponent.stop();
+            BioUtils.delete(this.testDir, true);
+        }
+    }
+
     /**
      * Helper
      * 
@@ -0,0 +1,128 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.routing;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.Method;
+import org.restlet.routing.Route;
+import org.restlet.routing.Router;
+import org.restlet.routing.TemplateRoute;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.RouteTree;
+
+/**
+ * Test case for RouteTree class.
+ * 
+ * @author Jerome Louvel
+ */
+public class RouteTreeTestCase extends RestletTestCase {
+
+    private Router router;
+
+    private Route getFirst(String uri) {
+        Request request = new Request(Method.GET, uri);
+        Response response = new Response(request);
+        return this.router.getRoutes().getFirst(request, response,
+                this.router.getRequiredScore());
+    }
+
+    private Route getTreeFirst(String uri) {
+        Request request = new Request(Method.GET, uri);
+        Response response = new Response(request);
+        return new RouteTree(this.router.getRoutes()).getFirst(request,
+                response, this.router.getRequiredScore());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.router = new Router();
+        Restlet target = new Restlet() {
+        };
+        this.router.attach("/users", target);
+        this.router.attach("/users/{id}", target);
+        this.router.attach("/users/{id}/orders", target);
+        this.router.attach("/user{id}", target);
+        this.router.attach("/orders/{id}", target);
+        this.router.attach("/orders/{id}/items?page={page}", target);
+        this.router.attach("/{any}/items", target);
+        this.router.attach("/static", new Router());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.router = null;
+        super.tearDown();
+    }
+
+    public void testGetFirst() {
+        String[] uris = new String[] { "/users", "/users/12", "/users/12/",
+                "/users/12/orders", "/user34", "/orders/5", "/orders/5/items",
+                "/orders/5/items?page=2", "/carts/items", "/static/img.png",
+                "/unknown", "", "/" };
+
+        for (String uri : uris) {
+            assertSame(uri, getFirst(uri), getTreeFirst(uri));
+        }
+
+        assertNull(getTreeFirst("/unknown"));
+        assertSame(this.router.getRoutes().get(1), getTreeFirst("/users/12"));
+    }
+
+    public void testRoutingMode() {
+        this.router.setRoutingMode(Router.MODE_TREE_MATCH);
+        Request request = new Request(Method.GET, "/orders/5");
+        Response response = new Response(request);
+        assertSame(this.router.getRoutes().get(4),
+                this.router.getNext(request, response));
+
+        // Modifications of the routes must be taken into account
+        TemplateRoute route = this.router.attach("/carts/{id}",
+                new Restlet() {
+                });
+        this.router.getRoutes().add(0, this.router.getRoutes().remove(
+                this.router.getRoutes().size() - 1));
+        request = new Request(Method.GET, "/carts/1");
+        response = new Response(request);
+        assertSame(route, this.router.getNext(request, response));
+
+        this.router.getRoutes().remove(route);
+        request = new Request(Method.GET, "/carts/1");
+        response = new Response(request);
+        assertNull(this.router.getNext(request, response));
+    }
+
+}
@@ -0,0 +1,279 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.test.service;
+
+import java.io.File;
+import java.util.List;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.Restlet;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Dimension;
+import org.restlet.data.MediaType;
+import org.restlet.data.Method;
+import org.restlet.data.Preference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.engine.cache.CacheEntry;
+import org.restlet.engine.cache.CacheStore;
+import org.restlet.engine.cache.FileCacheStore;
+import org.restlet.engine.cache.MemoryCacheStore;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.representation.StringRepresentation;
+import org.restlet.service.CacheService;
+import org.restlet.test.RestletTestCase;
+
+/**
+ * Unit tests for the cache service and its filter.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheServiceTestCase extends RestletTestCase {
+
+    /**
+     * Restlet counting the calls, returning a tagged entity and honoring the
+     * "If-None-Match" condition.
+     */
+    private static class CountingRestlet extends Restlet {
+
+        private volatile CacheDirective directive = CacheDirective.maxAge(60);
+
+        private volatile int full;
+
+        private volatile int notModified;
+
+        private volatile String tag = "v1";
+
+        @Override
+        public void handle(Request request, Response response) {
+            StringRepresentation entity = new StringRepresentation("Hello "
+                    + request.getClientInfo().getAcceptedMediaTypes().size()
+                    + " " + this.tag, MediaType.TEXT_PLAIN);
+            entity.setTag(new Tag(this.tag));
+
+            if (request.getConditions().getNoneMatch().contains(entity.getTag())) {
+                this.notModified++;
+                response.setStatus(Status.REDIRECTION_NOT_MODIFIED);
+            } else {
+                this.full++;
+                response.setEntity(entity);
+            }
+
+            if (this.directive != null) {
+                response.getCacheDirectives().add(this.directive);
+            }
+
+            if (request.getClientInfo().getAcceptedMediaTypes().size() > 0) {
+                response.getDimensions().add(Dimension.MEDIA_TYPE);
+            }
+        }
+    }
+
+    private CountingRestlet restlet;
+
+    private Response get(CacheFilter filter) throws Exception {
+        return handle(filter, new Request(Method.GET, "http://localhost/test"));
+    }
+
+    private Response handle(CacheFilter filter, Request request)
+            throws Exception {
+        Response response = new Response(request);
+        filter.handle(request, response);
+        return response;
+    }
+
+    private CacheFilter newFilter(CacheStore store, boolean shared) {
+        CacheFilter result = new CacheFilter(null, store, shared);
+        result.setNext(this.restlet);
+        return result;
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.restlet = new CountingRestlet();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.restlet = null;
+        super.tearDown();
+    }
+
+    public void testFileStore() throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"),
+                "restlet-cache-" + System.currentTimeMillis());
+
+        try {
+            CacheFilter filter = newFilter(new FileCacheStore(directory), true);
+            assertEquals("Hello 0 v1", get(filter).getEntity().getText());
+
+            // The entries survive a new store on the same directory
+            FileCacheStore store = new FileCacheStore(directory);
+            assertTrue(store.getSize() > 0);
+            filter = newFilter(store, true);
+            Response response = get(filter);
+            assertEquals("Hello 0 v1", response.getEntity().getText());
+            assertEquals(MediaType.TEXT_PLAIN, response.getEntity()
+                    .getMediaType());
+            assertEquals(new Tag("v1"), response.getEntity().getTag());
+            assertEquals(1, this.restlet.full);
+
+            store.clear();
+            assertEquals(0, store.getSize());
+            assertEquals(0, directory.list().length);
+        } finally {
+            BioUtils.delete(directory, true);
+        }
+    }
+
+    public void testFreshHit() throws Exception {
+        CacheFilter filter = newFilter(new MemoryCacheStore(), true);
+        assertEquals("Hello 0 v1", get(filter).getEntity().getText());
+
+        Response response = get(filter);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("Hello 0 v1", response.getEntity().getText());
+        assertEquals(new Tag("v1"), response.getEntity().getTag());
+        assertEquals(1, response.getCacheDirectives().size());
+        assertEquals(1, this.restlet.full);
+
+        // Client conditions are evaluated against the stored entry
+        Request request = new Request(Method.GET, "http://localhost/test");
+        request.getConditions().getNoneMatch().add(new Tag("v1"));
+        assertEquals(Status.REDIRECTION_NOT_MODIFIED,
+                handle(filter, request).getStatus());
+        assertEquals(1, this.restlet.full);
+
+        // Request "no-store" bypasses the cache
+        request = new Request(Method.GET, "http://localhost/test");
+        request.getCacheDirectives().add(CacheDirective.noStore());
+        handle(filter, request);
+        assertEquals(2, this.restlet.full);
+    }
+
+    public void testInvalidation() throws Exception {
+        CacheStore store = new MemoryCacheStore();
+        CacheFilter filter = newFilter(store, true);
+        get(filter);
+        assertEquals(1, store.get("http://localhost/test").size());
+
+        handle(filter, new Request(Method.DELETE, "http://localhost/test"));
+        assertTrue(store.get("http://localhost/test").isEmpty());
+    }
+
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        CacheStore store = new MemoryCacheStore(1000, 1000);
+        CacheFilter filter = newFilter(store, true);
+
+        for (int i = 0; i < 10; i++) {
+            handle(filter, new Request(Method.GET, "http://localhost/test" + i));
+            handle(filter, new Request(Method.GET, "http://localhost/test0"));
+        }
+
+        assertTrue(store.getSize() <= 1000);
+        assertFalse(store.get("http://localhost/test0").isEmpty());
+        assertTrue(store.get("http://localhost/test1").isEmpty());
+    }
+
+    public void testPrivate() throws Exception {
+        this.restlet.directive = CacheDirective.privateInfo();
+        CacheStore store = new MemoryCacheStore();
+        get(newFilter(store, true));
+        assertEquals(0, store.getSize());
+
+        get(newFilter(store, false));
+        assertEquals(1, store.get("http://localhost/test").size());
+    }
+
+    public void testRevalidation() throws Exception {
+        this.restlet.directive = CacheDirective.noCache();
+        CacheFilter filter = newFilter(new MemoryCacheStore(), true);
+        get(filter);
+
+        Response response = get(filter);
+        assertEquals(Status.SUCCESS_OK, response.getStatus());
+        assertEquals("Hello 0 v1", response.getEntity().getText());
+        assertEquals(1, this.restlet.full);
+        assertEquals(1, this.restlet.notModified);
+
+        // The original request isn't left conditional
+        Request request = new Request(Method.GET, "http://localhost/test");
+        handle(filter, request);
+        assertFalse(request.getConditions().hasSome());
+
+        // A new version replaces the stored entry
+        this.restlet.tag = "v2";
+        assertEquals("Hello 0 v2", get(filter).getEntity().getText());
+        assertEquals(2, this.restlet.full);
+    }
+
+    public void testService() throws Exception {
+        CacheService service = new CacheService();
+        assertNotNull(service.createInboundFilter(null));
+        assertNull(service.createOutboundFilter(null));
+
+        service.setOutboundStore(new MemoryCacheStore());
+        assertFalse(((CacheFilter) service.createOutboundFilter(null))
+                .isShared());
+    }
+
+    public void testVary() throws Exception {
+        CacheStore store = new MemoryCacheStore();
+        CacheFilter filter = newFilter(store, true);
+        Request request = new Request(Method.GET, "http://localhost/test");
+        request.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.TEXT_PLAIN));
+        assertEquals("Hello 1 v1", handle(filter, request).getEntity()
+                .getText());
+
+        // Different preferences, different entry
+        request = new Request(Method.GET, "http://localhost/test");
+        request.getClientInfo().getAcceptedMediaTypes()
+                .add(new Preference<MediaType>(MediaType.TEXT_HTML));
+        Response response = handle(filter, request);
+        assertEquals("Hello 1 v1", response.getEntity().getText());
+        assertTrue(response.getDimensions().contains(Dimension.MEDIA_TYPE));
+        assertEquals(2, this.restlet.full);
+
+        List<CacheEntry> entries = store.get("http://localhost/test");
+        assertEquals(2, entries.size());
+
+        handle(filter, request);
+        assertEquals(2, this.restlet.full);
+    }
+
+}
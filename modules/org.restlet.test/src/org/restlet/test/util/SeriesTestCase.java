@@ -0,0 +1,150 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.test.util;
+
+import java.util.Iterator;
+
+import org.restlet.data.Form;
+import org.restlet.data.Parameter;
+import org.restlet.engine.header.Header;
+import org.restlet.test.RestletTestCase;
+import org.restlet.util.Series;
+
+/**
+ * Test case for the {@link Series} class and its index of names.
+ * 
+ * @author Jerome Louvel
+ */
+public class SeriesTestCase extends RestletTestCase {
+
+    /**
+     * Returns a series of headers large enough to be indexed.
+     * 
+     * @return A series of headers.
+     */
+    private Series<Header> createHeaders() {
+        Series<Header> result = new Series<Header>(Header.class);
+        result.add("Host", "localhost");
+        result.add("Accept", "text/html");
+        result.add("Accept-Language", "en");
+        result.add("Accept-Encoding", "gzip");
+        result.add("Cache-Control", "no-cache");
+        result.add("accept", "application/xml");
+        result.add("Connection", "keep-alive");
+        result.add("User-Agent", "Test");
+        result.add("ACCEPT", "*/*");
+        result.add("X-Custom", "1");
+        return result;
+    }
+
+    public void testGetFirst() {
+        Series<Header> headers = createHeaders();
+        assertEquals("text/html", headers.getFirstValue("accept", true));
+        assertEquals("application/xml", headers.getFirstValue("accept"));
+        assertEquals("*/*", headers.getFirstValue("ACCEPT"));
+        assertNull(headers.getFirstValue("Accept-Charset", true));
+        assertNull(headers.getFirst("host"));
+        assertEquals("localhost", headers.getFirst("host", true).getValue());
+    }
+
+    public void testGetValues() {
+        Series<Header> headers = createHeaders();
+        assertEquals("text/html,application/xml,*/*",
+                headers.getValues("Accept"));
+        assertEquals("application/xml",
+                headers.getValues("accept", ",", false));
+        assertEquals(3, headers.subList("aCCept", true).size());
+        assertEquals(1, headers.getValuesArray("Accept").length);
+    }
+
+    public void testModifications() {
+        Series<Header> headers = createHeaders();
+        assertEquals("localhost", headers.getFirstValue("HOST", true));
+
+        // Kept up to date on add and remove
+        headers.add("Via", "proxy");
+        assertEquals("proxy", headers.getFirstValue("via", true));
+        headers.remove(headers.getFirst("Via"));
+        assertNull(headers.getFirstValue("via", true));
+        headers.remove(0);
+        assertNull(headers.getFirstValue("host", true));
+
+        // Rebuilt after other modifications
+        headers.add(0, new Header("Accept", "text/plain"));
+        assertEquals("text/plain", headers.getFirstValue("accept", true));
+        headers.set(0, new Header("Referer", "http://localhost/"));
+        assertEquals("text/html", headers.getFirstValue("accept", true));
+        assertEquals("http://localhost/",
+                headers.getFirstValue("referer", true));
+
+        for (Iterator<Header> iter = headers.iterator(); iter.hasNext();) {
+            if (iter.next().getName().equalsIgnoreCase("accept")) {
+                iter.remove();
+            }
+        }
+
+        assertNull(headers.getFirstValue("accept", true));
+        headers.subList(0, 1).clear();
+        assertNull(headers.getFirstValue("referer", true));
+
+        assertTrue(headers.removeAll("cache-control", true));
+        assertFalse(headers.removeAll("cache-control", true));
+        headers.set("x-custom", "2", true);
+        assertEquals("2", headers.getFirstValue("X-Custom"));
+        headers.set("X-Other", "3");
+        assertEquals("3", headers.getFirstValue("x-other", true));
+        assertEquals("X-Other", headers.get(headers.size() - 1).getName());
+    }
+
+    public void testOrderAndDuplicates() {
+        Form form = new Form();
+
+        for (int i = 0; i < 20; i++) {
+            form.add("p" + (i % 5), Integer.toString(i));
+        }
+
+        assertEquals("0", form.getFirstValue("P0", true));
+        assertEquals(4, form.subList("p3").size());
+        assertEquals("3,8,13,18", form.getValues("p3"));
+        assertTrue(form.removeFirst("P1", true));
+        assertEquals("6", form.getFirstValue("p1"));
+        assertEquals(19, form.size());
+
+        Parameter parameter = form.get(0);
+        assertEquals("p0", parameter.getName());
+        assertEquals("0", parameter.getValue());
+    }
+
+}
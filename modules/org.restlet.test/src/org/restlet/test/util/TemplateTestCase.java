@@ -49,6 +49,21 @@ import org.restlet.test.RestletTestCase;
  */
 public class TemplateTestCase extends RestletTestCase {
 
+    public void testBacktracking() {
+        Template template = new Template("/files/{name}.{ext}");
+        Map<String, Object> variables = new HashMap<String, Object>();
+        assertEquals(21, template.parse("/files/archive.tar.gz", variables));
+        assertEquals("archive.tar", variables.get("name"));
+        assertEquals("gz", variables.get("ext"));
+
+        template = new Template("/{a}/{a}", Template.MODE_STARTS_WITH,
+                Variable.TYPE_URI_SEGMENT, "", true, false);
+        variables.clear();
+        assertEquals(8, template.parse("/abc/abc/def", variables));
+        assertEquals("abc", variables.get("a"));
+        assertEquals(-1, template.match("/abc/abd"));
+    }
+
     public void testEncodedCharacters() {
         Template template = new Template(
                 "http://localhost/{token}/bookstore/{bookid}");
@@ -90,6 +105,16 @@ public class TemplateTestCase extends RestletTestCase {
         assertEquals("123/456", variables3.get("v1"));
     }
 
+    public void testRegexFallback() {
+        Template template = new Template("/agents/{agent}");
+        template.getVariables().put("agent",
+                new Variable(Variable.TYPE_TOKEN));
+        Map<String, Object> variables = new HashMap<String, Object>();
+        assertEquals(15, template.parse("/agents/Mozilla", variables));
+        assertEquals("Mozilla", variables.get("agent"));
+        assertEquals(-1, template.match("/users/Mozilla"));
+    }
+
     public void testVariableNames() throws Exception {
         Template tpl = new Template(
                 "http://{userId}.restlet.com/invoices/{invoiceId}");
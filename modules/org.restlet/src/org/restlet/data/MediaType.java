@@ -857,9 +857,15 @@ public final class MediaType extends Metadata {
         return result;
     }
 
+    /** The cached main type. */
+    private volatile String mainType;
+
     /** The list of parameters. */
     private volatile Series<Parameter> parameters;
 
+    /** The cached sub-type. */
+    private volatile String subType;
+
     /**
      * Constructor.
      * 
@@ -960,9 +966,9 @@ public final class MediaType extends Metadata {
      * @return The main type.
      */
     public String getMainType() {
-        String result = null;
+        String result = this.mainType;
 
-        if (getName() != null) {
+        if ((result == null) && (getName() != null)) {
             int index = getName().indexOf('/');
 
             // Some clients appear to use name types without subtypes
@@ -975,6 +981,8 @@ public final class MediaType extends Metadata {
             } else {
                 result = getName().substring(0, index);
             }
+
+            this.mainType = result;
         }
 
         return result;
@@ -1056,9 +1064,9 @@ public final class MediaType extends Metadata {
      * @return The sub-type.
      */
     public String getSubType() {
-        String result = null;
+        String result = this.subType;
 
-        if (getName() != null) {
+        if ((result == null) && (getName() != null)) {
             final int slash = getName().indexOf('/');
 
             if (slash == -1) {
@@ -1072,6 +1080,8 @@ public final class MediaType extends Metadata {
                     result = getName().substring(slash + 1, separator);
                 }
             }
+
+            this.subType = result;
         }
 
         return result;
@@ -265,6 +265,9 @@ public final class Method implements Comparable<Method> {
         String name = (method == null) ? null : method.getName().toLowerCase();
         if ((name != null) && !name.equals("")) {
             _methods.put(name, method);
+
+            // Also registered with its exact name for faster lookups
+            _methods.put(method.getName(), method);
         }
     }
 
@@ -294,7 +297,12 @@ public final class Method implements Comparable<Method> {
         Method result = null;
 
         if ((name != null) && !name.equals("")) {
-            result = Method._methods.get(name.toLowerCase());
+            result = Method._methods.get(name);
+
+            if (result == null) {
+                result = Method._methods.get(name.toLowerCase());
+            }
+
             if (result == null) {
                 result = new Method(name);
             }
@@ -0,0 +1,595 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.application;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Dimension;
+import org.restlet.data.Method;
+import org.restlet.data.Reference;
+import org.restlet.data.Status;
+import org.restlet.data.Tag;
+import org.restlet.engine.cache.CacheEntry;
+import org.restlet.engine.cache.CacheStore;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderConstants;
+import org.restlet.engine.header.HeaderUtils;
+import org.restlet.representation.InputRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.routing.Filter;
+import org.restlet.util.Series;
+
+// [excludes gwt]
+/**
+ * Filter caching the response entities of GET requests, following the HTTP
+ * caching rules. Fresh entries are returned without invoking the next Restlet,
+ * stale entries having a validator (entity tag or modification date) are
+ * revalidated with a conditional request. Entries are stored by target
+ * resource URI and by the request values of the response dimensions (Vary
+ * header).<br>
+ * <br>
+ * The freshness lifetime is computed from the "s-maxage" (shared caches only)
+ * and "max-age" response cache directives, then from the expiration date of
+ * the entity and finally heuristically from its modification date. The
+ * "no-store", "no-cache" and "max-age" request cache directives are honored.
+ * Responses with a "no-store" directive, setting cookies or depending on the
+ * client address or on the request authorization aren't stored. Only the
+ * status, the entity and the cache directives of responses are replayed.<br>
+ * <br>
+ * Successful unsafe requests, such as POST, PUT or DELETE, invalidate the
+ * entries of their target resource.<br>
+ * <br>
+ * Concurrency note: instances of this class or its subclasses can be invoked by
+ * several threads at the same time and therefore must be thread-safe. You
+ * should be especially careful when storing state in member variables.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheFilter extends Filter {
+
+    /** The maximum heuristic freshness lifetime in seconds. */
+    private static final long MAX_HEURISTIC_LIFETIME = 24 * 3600;
+
+    /**
+     * Returns the integer value of a cache directive.
+     * 
+     * @param directive
+     *            The cache directive.
+     * @return The integer value or 0 if it can't be parsed.
+     */
+    private static long getSeconds(CacheDirective directive) {
+        try {
+            return Math.max(0, Long.parseLong(directive.getValue()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Indicates if a list of cache directives contains a given directive.
+     * 
+     * @param directives
+     *            The cache directives.
+     * @param name
+     *            The directive name.
+     * @return True if the directive is present.
+     */
+    private static boolean hasDirective(List<CacheDirective> directives,
+            String name) {
+        for (CacheDirective directive : directives) {
+            if (name.equalsIgnoreCase(directive.getName())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /** Indicates if the cache is shared between several users. */
+    private final boolean shared;
+
+    /** The cache store. */
+    private final CacheStore store;
+
+    /**
+     * Constructor.
+     * 
+     * @param context
+     *            The context.
+     * @param store
+     *            The cache store.
+     * @param shared
+     *            Indicates if the cache is shared between several users, as
+     *            for server-side caches. In this case, private responses
+     *            aren't stored.
+     */
+    public CacheFilter(Context context, CacheStore store, boolean shared) {
+        super(context);
+        this.store = store;
+        this.shared = shared;
+    }
+
+    @Override
+    protected int doHandle(Request request, Response response) {
+        int result = CONTINUE;
+        Method method = request.getMethod();
+        String key = getKey(request.getResourceRef());
+
+        if ((key == null)
+                || !(Method.GET.equals(method) || Method.HEAD.equals(method))
+                || hasDirective(request.getCacheDirectives(),
+                        HeaderConstants.CACHE_NO_STORE)) {
+            result = super.doHandle(request, response);
+
+            if ((method != null) && !method.isSafe()
+                    && (response.getStatus().isSuccess() || response
+                            .getStatus().isRedirection())) {
+                invalidate(key, request, response);
+            }
+
+            return result;
+        }
+
+        long now = System.currentTimeMillis();
+        CacheEntry entry = lookup(key, request);
+
+        if ((entry != null)
+                && !hasDirective(request.getCacheDirectives(),
+                        HeaderConstants.CACHE_NO_CACHE)
+                && entry.isFresh(now, getMaxAge(request))) {
+            // Fresh hit
+            serve(entry, request, response, now);
+            return result;
+        }
+
+        // Revalidate the stale entry unless the client sent its own conditions
+        boolean revalidating = false;
+
+        if ((entry != null) && !request.getConditions().hasSome()) {
+            Representation cached = entry.createEntity();
+            Tag tag = cached.getTag();
+            Date modificationDate = cached.getModificationDate();
+
+            if (tag != null) {
+                List<Tag> tags = new ArrayList<Tag>();
+                tags.add(tag);
+                request.getConditions().setNoneMatch(tags);
+                revalidating = true;
+            } else if (modificationDate != null) {
+                request.getConditions().setModifiedSince(modificationDate);
+                revalidating = true;
+            }
+        }
+
+        try {
+            result = super.doHandle(request, response);
+        } finally {
+            if (revalidating) {
+                request.getConditions().setNoneMatch(null);
+                request.getConditions().setModifiedSince(null);
+            }
+        }
+
+        now = System.currentTimeMillis();
+
+        if (revalidating
+                && Status.REDIRECTION_NOT_MODIFIED.equals(response.getStatus())) {
+            List<CacheDirective> directives = response.getCacheDirectives()
+                    .isEmpty() ? entry.getCacheDirectives() : response
+                    .getCacheDirectives();
+            Representation cached = entry.createEntity();
+            entry = entry.refresh(
+                    directives,
+                    now,
+                    getInitialAge(response, now),
+                    getFreshnessLifetime(directives, response.getDate(),
+                            cached.getExpirationDate(),
+                            cached.getModificationDate(), now));
+            getStore().put(entry);
+
+            if (response.getEntity() != null) {
+                response.getEntity().release();
+            }
+
+            serve(entry, request, response, now);
+        } else if (Method.GET.equals(method)) {
+            store(key, request, response, now);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the freshness lifetime of a response in seconds.
+     * 
+     * @param directives
+     *            The response cache directives.
+     * @param date
+     *            The response date or null.
+     * @param expirationDate
+     *            The entity expiration date or null.
+     * @param modificationDate
+     *            The entity modification date or null.
+     * @param now
+     *            The current time in milliseconds.
+     * @return The freshness lifetime in seconds.
+     */
+    protected long getFreshnessLifetime(List<CacheDirective> directives,
+            Date date, Date expirationDate, Date modificationDate, long now) {
+        long result = -1;
+
+        for (CacheDirective directive : directives) {
+            String name = directive.getName();
+
+            if (HeaderConstants.CACHE_NO_CACHE.equalsIgnoreCase(name)) {
+                // Must be revalidated before each use
+                return 0;
+            } else if (isShared()
+                    && HeaderConstants.CACHE_SHARED_MAX_AGE
+                            .equalsIgnoreCase(name)) {
+                result = getSeconds(directive);
+            } else if (HeaderConstants.CACHE_MAX_AGE.equalsIgnoreCase(name)
+                    && (result < 0)) {
+                result = getSeconds(directive);
+            }
+        }
+
+        long origin = (date == null) ? now : date.getTime();
+
+        if (result >= 0) {
+            // Explicit lifetime
+        } else if (expirationDate != null) {
+            result = Math.max(0, (expirationDate.getTime() - origin) / 1000);
+        } else if (modificationDate != null) {
+            // Heuristic lifetime, a fraction of the time since modification
+            result = Math.min(MAX_HEURISTIC_LIFETIME,
+                    Math.max(0, (origin - modificationDate.getTime()) / 10000));
+        } else {
+            result = 0;
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the age in seconds of a response when it is received.
+     * 
+     * @param response
+     *            The response.
+     * @param now
+     *            The current time in milliseconds.
+     * @return The age in seconds of the response.
+     */
+    private long getInitialAge(Response response, long now) {
+        long apparentAge = (response.getDate() == null) ? 0 : Math.max(0,
+                (now - response.getDate().getTime()) / 1000);
+        return Math.max(response.getAge(), apparentAge);
+    }
+
+    /**
+     * Returns the cache key of a resource reference, its target URI without
+     * fragment.
+     * 
+     * @param resourceRef
+     *            The resource reference.
+     * @return The cache key or null.
+     */
+    protected String getKey(Reference resourceRef) {
+        return (resourceRef == null) ? null : resourceRef.getTargetRef()
+                .toString(true, false);
+    }
+
+    /**
+     * Returns the maximum age accepted by the client in seconds.
+     * 
+     * @param request
+     *            The request.
+     * @return The maximum age in seconds or -1.
+     */
+    private long getMaxAge(Request request) {
+        for (CacheDirective directive : request.getCacheDirectives()) {
+            if (HeaderConstants.CACHE_MAX_AGE.equalsIgnoreCase(directive
+                    .getName())) {
+                return getSeconds(directive);
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the cache store.
+     * 
+     * @return The cache store.
+     */
+    public CacheStore getStore() {
+        return store;
+    }
+
+    /**
+     * Removes the entries of the resources updated by a successful unsafe
+     * request, the target resource and the locations returned.
+     * 
+     * @param key
+     *            The cache key of the target resource or null.
+     * @param request
+     *            The unsafe request.
+     * @param response
+     *            The response.
+     */
+    protected void invalidate(String key, Request request, Response response) {
+        if (key != null) {
+            getStore().remove(key);
+        }
+
+        if (response.getLocationRef() != null) {
+            getStore().remove(getKey(response.getLocationRef()));
+        }
+
+        if (response.isEntityAvailable()
+                && (response.getEntity().getLocationRef() != null)) {
+            getStore().remove(getKey(response.getEntity().getLocationRef()));
+        }
+    }
+
+    /**
+     * Indicates if the cache is shared between several users.
+     * 
+     * @return True if the cache is shared between several users.
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Indicates if a response can be stored, apart from the size of its
+     * entity.
+     * 
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @return True if the response can be stored.
+     */
+    protected boolean isStorable(Request request, Response response) {
+        List<CacheDirective> directives = response.getCacheDirectives();
+        boolean result = Status.SUCCESS_OK.equals(response.getStatus())
+                && response.isEntityAvailable()
+                && (response.getEntity().getRange() == null)
+                && response.getCookieSettings().isEmpty()
+                && !hasDirective(directives, HeaderConstants.CACHE_NO_STORE);
+
+        if (result && isShared()) {
+            result = !hasDirective(directives, HeaderConstants.CACHE_PRIVATE)
+                    && ((request.getChallengeResponse() == null)
+                            || hasDirective(directives,
+                                    HeaderConstants.CACHE_PUBLIC)
+                            || hasDirective(directives,
+                                    HeaderConstants.CACHE_SHARED_MAX_AGE) || hasDirective(
+                                directives,
+                                HeaderConstants.CACHE_MUST_REVALIDATE));
+        }
+
+        return result;
+    }
+
+    /**
+     * Looks up the entry matching a request.
+     * 
+     * @param key
+     *            The cache key.
+     * @param request
+     *            The request.
+     * @return The matching entry or null.
+     */
+    private CacheEntry lookup(String key, Request request) {
+        for (CacheEntry entry : getStore().get(key)) {
+            if (entry.matches(request)) {
+                return entry;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads the content of an entity if it isn't larger than a given size. If
+     * it is larger, the response entity is replaced by an equivalent one,
+     * starting with the bytes already read.
+     * 
+     * @param response
+     *            The response.
+     * @param entityHeaders
+     *            The entity headers.
+     * @param maxSize
+     *            The maximum size of the content.
+     * @return The content read or null if it is too large.
+     */
+    private byte[] read(Response response, Series<Header> entityHeaders,
+            long maxSize) {
+        Representation entity = response.getEntity();
+        long size = entity.getAvailableSize();
+
+        if ((size > maxSize) || (maxSize > Integer.MAX_VALUE)) {
+            return null;
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(
+                (size == Representation.UNKNOWN_SIZE) ? 1024 : (int) size);
+        InputStream stream = null;
+
+        try {
+            stream = entity.getStream();
+
+            if (stream != null) {
+                byte[] buffer = new byte[4096];
+                int read;
+
+                while ((baos.size() <= maxSize)
+                        && ((read = stream.read(buffer)) != -1)) {
+                    baos.write(buffer, 0, read);
+                }
+
+                if (baos.size() <= maxSize) {
+                    stream.close();
+                    entity.release();
+                    return baos.toByteArray();
+                }
+            }
+        } catch (IOException e) {
+            getLogger().log(Level.WARNING,
+                    "Unable to read the entity to cache", e);
+        }
+
+        if (stream != null) {
+            // Replay the bytes already read
+            Representation replaced = new InputRepresentation(
+                    new SequenceInputStream(new ByteArrayInputStream(
+                            baos.toByteArray()), stream));
+            HeaderUtils.extractEntityHeaders(entityHeaders, replaced);
+            response.setEntity(replaced);
+        }
+
+        return null;
+    }
+
+    /**
+     * Updates a response with a stored entry.
+     * 
+     * @param entry
+     *            The stored entry.
+     * @param request
+     *            The request.
+     * @param response
+     *            The response to update.
+     * @param now
+     *            The current time in milliseconds.
+     */
+    protected void serve(CacheEntry entry, Request request, Response response,
+            long now) {
+        Representation entity = entry.createEntity();
+        response.setStatus(Status.SUCCESS_OK);
+        response.setEntity(entity);
+        response.setCacheDirectives(new ArrayList<CacheDirective>(entry
+                .getCacheDirectives()));
+        response.getDimensions().clear();
+        response.getDimensions().addAll(entry.getDimensions());
+        response.setAge((int) Math.min(Integer.MAX_VALUE, entry.getAge(now)));
+
+        // Evaluate the conditions of the client
+        Status status = request.getConditions().getStatus(request.getMethod(),
+                entity);
+
+        if (status != null) {
+            response.setStatus(status);
+
+            if (status.isError()) {
+                response.setEntity(null);
+            }
+        }
+    }
+
+    /**
+     * Stores the entity of a response if allowed, and replaces it by a
+     * representation of the stored entry.
+     * 
+     * @param key
+     *            The cache key.
+     * @param request
+     *            The request.
+     * @param response
+     *            The response.
+     * @param now
+     *            The current time in milliseconds.
+     */
+    protected void store(String key, Request request, Response response,
+            long now) {
+        if (!isStorable(request, response)) {
+            return;
+        }
+
+        Map<Dimension, String> varyValues = new EnumMap<Dimension, String>(
+                Dimension.class);
+
+        for (Dimension dimension : response.getDimensions()) {
+            String value = CacheEntry.getVaryValue(request, dimension);
+
+            if (value == null) {
+                // Depends on properties that can't be compared
+                return;
+            }
+
+            varyValues.put(dimension, value);
+        }
+
+        Representation entity = response.getEntity();
+        List<CacheDirective> directives = response.getCacheDirectives();
+        long lifetime = getFreshnessLifetime(directives, response.getDate(),
+                entity.getExpirationDate(), entity.getModificationDate(), now);
+
+        if ((lifetime == 0) && (entity.getTag() == null)
+                && (entity.getModificationDate() == null)) {
+            // Would never be reused
+            return;
+        }
+
+        Series<Header> entityHeaders = new Series<Header>(Header.class);
+        HeaderUtils.addEntityHeaders(entity, entityHeaders);
+        byte[] content = read(response, entityHeaders,
+                getStore().getMaxEntrySize());
+
+        if (content != null) {
+            CacheEntry entry = new CacheEntry(key, content, entityHeaders,
+                    directives, varyValues, now,
+                    getInitialAge(response, now), lifetime);
+            getStore().put(entry);
+            response.setEntity(entry.createEntity());
+        }
+    }
+
+}
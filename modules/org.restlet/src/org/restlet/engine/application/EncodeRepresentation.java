@@ -43,6 +43,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
@@ -51,7 +52,9 @@ import java.util.zip.ZipOutputStream;
 import org.restlet.data.Disposition;
 import org.restlet.data.Encoding;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.IoUtils;
 import org.restlet.engine.io.NioUtils;
+import org.restlet.engine.io.ReadableDeflatingChannel;
 import org.restlet.representation.Representation;
 import org.restlet.util.WrapperList;
 import org.restlet.util.WrapperRepresentation;
@@ -59,6 +62,8 @@ import org.restlet.util.WrapperRepresentation;
 // [excludes gwt]
 /**
  * Content that encodes a wrapped content. Allows to apply only one encoding.
+ * The GZIP and DEFLATE encodings are applied incrementally by the channel
+ * returned by {@link #getChannel()}, without requiring an additional thread.
  * 
  * @author Jerome Louvel
  */
@@ -76,6 +81,9 @@ public class EncodeRepresentation extends WrapperRepresentation {
     /** Indicates if the encoding can happen. */
     private volatile boolean canEncode;
 
+    /** The compression level, from 0 to 9 or -1 for the default level. */
+    private volatile int compressionLevel;
+
     /** The encoding to apply. */
     private volatile Encoding encoding;
 
@@ -92,8 +100,25 @@ public class EncodeRepresentation extends WrapperRepresentation {
      */
     public EncodeRepresentation(Encoding encoding,
             Representation wrappedRepresentation) {
+        this(encoding, wrappedRepresentation, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param encoding
+     *            Encoder algorithm.
+     * @param wrappedRepresentation
+     *            The wrapped representation.
+     * @param compressionLevel
+     *            The compression level, from 0 to 9 or -1 for the default
+     *            level.
+     */
+    public EncodeRepresentation(Encoding encoding,
+            Representation wrappedRepresentation, int compressionLevel) {
         super(wrappedRepresentation);
         this.canEncode = getSupportedEncodings().contains(encoding);
+        this.compressionLevel = compressionLevel;
         this.encodings = null;
         this.encoding = encoding;
     }
@@ -130,20 +155,38 @@ public class EncodeRepresentation extends WrapperRepresentation {
     }
 
     /**
-     * Returns a readable byte channel. If it is supported by a file a read-only
-     * instance of FileChannel is returned.
+     * Returns a readable byte channel. For the GZIP and DEFLATE encodings, the
+     * bytes of the wrapped representation are compressed as they are read.
      * 
      * @return A readable byte channel.
      */
     @Override
     public ReadableByteChannel getChannel() throws IOException {
         if (canEncode()) {
+            if (this.encoding.equals(Encoding.GZIP)
+                    || this.encoding.equals(Encoding.DEFLATE)) {
+                return new ReadableDeflatingChannel(getWrappedRepresentation()
+                        .getChannel(), this.encoding.equals(Encoding.GZIP),
+                        getCompressionLevel(), IoUtils.BUFFER_SIZE);
+            } else if (this.encoding.equals(Encoding.IDENTITY)) {
+                return getWrappedRepresentation().getChannel();
+            }
+
             return NioUtils.getChannel(this);
         } else {
             return getWrappedRepresentation().getChannel();
         }
     }
 
+    /**
+     * Returns the compression level, from 0 to 9 or -1 for the default level.
+     * 
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
     /**
      * Returns the applied encodings.
      * 
@@ -250,6 +293,11 @@ public class EncodeRepresentation extends WrapperRepresentation {
     @Override
     public InputStream getStream() throws IOException {
         if (canEncode()) {
+            if (this.encoding.equals(Encoding.GZIP)
+                    || this.encoding.equals(Encoding.DEFLATE)) {
+                return NioUtils.getStream(getChannel());
+            }
+
             return BioUtils.getInputStream(this);
         } else {
             return getWrappedRepresentation().getStream();
@@ -271,9 +319,17 @@ public class EncodeRepresentation extends WrapperRepresentation {
             DeflaterOutputStream encoderOutputStream = null;
 
             if (this.encoding.equals(Encoding.GZIP)) {
-                encoderOutputStream = new GZIPOutputStream(outputStream);
+                encoderOutputStream = new GZIPOutputStream(outputStream) {
+                    {
+                        def.setLevel(getCompressionLevel());
+                    }
+                };
             } else if (this.encoding.equals(Encoding.DEFLATE)) {
-                encoderOutputStream = new DeflaterOutputStream(outputStream);
+                encoderOutputStream = new DeflaterOutputStream(outputStream) {
+                    {
+                        def.setLevel(getCompressionLevel());
+                    }
+                };
             } else if (this.encoding.equals(Encoding.ZIP)) {
                 @SuppressWarnings("resource")
                 final ZipOutputStream stream = new ZipOutputStream(outputStream);
@@ -151,7 +151,8 @@ public class Encoder extends Filter {
         Encoding bestEncoding = getBestEncoding(client);
 
         if (bestEncoding != null) {
-            result = new EncodeRepresentation(bestEncoding, representation);
+            result = new EncodeRepresentation(bestEncoding, representation,
+                    getEncoderService().getCompressionLevel());
         }
 
         return result;
@@ -0,0 +1,362 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.restlet.Request;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.ClientInfo;
+import org.restlet.data.Dimension;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.header.HeaderUtils;
+import org.restlet.representation.ByteArrayRepresentation;
+import org.restlet.representation.Representation;
+import org.restlet.util.Series;
+
+// [excludes gwt]
+/**
+ * Response entity stored in a {@link CacheStore}. An entry is identified by its
+ * key, usually the target resource URI, and by the values of the request
+ * properties that were used by the origin to select the entity, as reflected by
+ * the response dimensions (Vary header). Entries are immutable, a revalidated
+ * entry replaces the previous one in the store.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheEntry {
+
+    /**
+     * Returns the value of the request property corresponding to a given
+     * dimension, used to select between the entries stored with the same key.
+     * Returns null if the dimension prevents the caching of the entity, for
+     * example the client address or the authorization of the request.
+     * 
+     * @param request
+     *            The request.
+     * @param dimension
+     *            The response dimension.
+     * @return The value of the request property or null.
+     */
+    public static String getVaryValue(Request request, Dimension dimension) {
+        ClientInfo clientInfo = request.getClientInfo();
+
+        switch (dimension) {
+        case CHARACTER_SET:
+            return clientInfo.getAcceptedCharacterSets().toString();
+        case CLIENT_AGENT:
+            return String.valueOf(clientInfo.getAgent());
+        case ENCODING:
+            return clientInfo.getAcceptedEncodings().toString();
+        case LANGUAGE:
+            return clientInfo.getAcceptedLanguages().toString();
+        case MEDIA_TYPE:
+            return clientInfo.getAcceptedMediaTypes().toString();
+        default:
+            return null;
+        }
+    }
+
+    /** The response cache directives. */
+    private final List<CacheDirective> cacheDirectives;
+
+    /** The entity content. */
+    private final byte[] content;
+
+    /** The entity headers. */
+    private final Series<Header> entityHeaders;
+
+    /** The freshness lifetime in seconds. */
+    private final long freshnessLifetime;
+
+    /** The age in seconds of the response when it was stored. */
+    private final long initialAge;
+
+    /** The key, usually the target resource URI. */
+    private final String key;
+
+    /** The approximate memory size of the entry in bytes. */
+    private final long size;
+
+    /** The time when the entry was stored, in milliseconds. */
+    private final long storedTime;
+
+    /** The request values of the response dimensions. */
+    private final Map<Dimension, String> varyValues;
+
+    /**
+     * Constructor.
+     * 
+     * @param key
+     *            The key, usually the target resource URI.
+     * @param content
+     *            The entity content.
+     * @param entityHeaders
+     *            The entity headers.
+     * @param cacheDirectives
+     *            The response cache directives.
+     * @param varyValues
+     *            The request values of the response dimensions.
+     * @param storedTime
+     *            The time when the entry was stored, in milliseconds.
+     * @param initialAge
+     *            The age in seconds of the response when it was stored.
+     * @param freshnessLifetime
+     *            The freshness lifetime in seconds.
+     */
+    public CacheEntry(String key, byte[] content, Series<Header> entityHeaders,
+            List<CacheDirective> cacheDirectives,
+            Map<Dimension, String> varyValues, long storedTime,
+            long initialAge, long freshnessLifetime) {
+        this.key = key;
+        this.content = content;
+        this.entityHeaders = entityHeaders;
+        this.cacheDirectives = Collections
+                .unmodifiableList(new ArrayList<CacheDirective>(
+                        cacheDirectives));
+        this.varyValues = varyValues.isEmpty() ? Collections
+                .<Dimension, String> emptyMap() : Collections
+                .unmodifiableMap(new EnumMap<Dimension, String>(varyValues));
+        this.storedTime = storedTime;
+        this.initialAge = initialAge;
+        this.freshnessLifetime = freshnessLifetime;
+
+        long entrySize = content.length + 2 * key.length() + 64;
+
+        for (Header header : entityHeaders) {
+            entrySize += 2 * (header.getName().length() + header.getValue()
+                    .length()) + 32;
+        }
+
+        for (String value : this.varyValues.values()) {
+            entrySize += 2 * value.length() + 32;
+        }
+
+        this.size = entrySize;
+    }
+
+    /**
+     * Creates a new representation of the stored entity.
+     * 
+     * @return A new representation of the stored entity.
+     */
+    public Representation createEntity() {
+        Representation result = new ByteArrayRepresentation(getContent(),
+                null, getContent().length);
+        HeaderUtils.extractEntityHeaders(getEntityHeaders(), result);
+        return result;
+    }
+
+    /**
+     * Returns the current age in seconds of the stored response.
+     * 
+     * @param now
+     *            The current time in milliseconds.
+     * @return The current age in seconds.
+     */
+    public long getAge(long now) {
+        return getInitialAge() + Math.max(0, (now - getStoredTime()) / 1000);
+    }
+
+    /**
+     * Returns the response cache directives.
+     * 
+     * @return The response cache directives.
+     */
+    public List<CacheDirective> getCacheDirectives() {
+        return cacheDirectives;
+    }
+
+    /**
+     * Returns the entity content. The returned array must not be modified.
+     * 
+     * @return The entity content.
+     */
+    public byte[] getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the set of dimensions of the stored response.
+     * 
+     * @return The set of dimensions of the stored response.
+     */
+    public Set<Dimension> getDimensions() {
+        return getVaryValues().keySet();
+    }
+
+    /**
+     * Returns the entity headers.
+     * 
+     * @return The entity headers.
+     */
+    public Series<Header> getEntityHeaders() {
+        return entityHeaders;
+    }
+
+    /**
+     * Returns the freshness lifetime in seconds.
+     * 
+     * @return The freshness lifetime in seconds.
+     */
+    public long getFreshnessLifetime() {
+        return freshnessLifetime;
+    }
+
+    /**
+     * Returns the age in seconds of the response when it was stored.
+     * 
+     * @return The age in seconds of the response when it was stored.
+     */
+    public long getInitialAge() {
+        return initialAge;
+    }
+
+    /**
+     * Returns the key, usually the target resource URI.
+     * 
+     * @return The key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the approximate memory size of the entry in bytes, used to bound
+     * the size of the stores.
+     * 
+     * @return The approximate memory size of the entry in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the time when the entry was stored, in milliseconds.
+     * 
+     * @return The time when the entry was stored, in milliseconds.
+     */
+    public long getStoredTime() {
+        return storedTime;
+    }
+
+    /**
+     * Returns the request values of the response dimensions.
+     * 
+     * @return The request values of the response dimensions.
+     */
+    public Map<Dimension, String> getVaryValues() {
+        return varyValues;
+    }
+
+    /**
+     * Indicates if the stored response is still fresh.
+     * 
+     * @param now
+     *            The current time in milliseconds.
+     * @param maxAge
+     *            The maximum age in seconds accepted by the client or -1.
+     * @return True if the stored response is still fresh.
+     */
+    public boolean isFresh(long now, long maxAge) {
+        long age = getAge(now);
+        return (age < getFreshnessLifetime())
+                && ((maxAge < 0) || (age <= maxAge));
+    }
+
+    /**
+     * Indicates if the entry can be used for a given request, based on the
+     * request values of the response dimensions.
+     * 
+     * @param request
+     *            The request.
+     * @return True if the entry can be used for the request.
+     */
+    public boolean matches(Request request) {
+        for (Map.Entry<Dimension, String> entry : getVaryValues().entrySet()) {
+            if (!entry.getValue().equals(
+                    getVaryValue(request, entry.getKey()))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Indicates if the entry was stored for the same request values of the
+     * response dimensions as the given entry, which should then replace it.
+     * 
+     * @param entry
+     *            The other entry.
+     * @return True if the entry was stored for the same request values.
+     */
+    public boolean matches(CacheEntry entry) {
+        return getVaryValues().equals(entry.getVaryValues());
+    }
+
+    /**
+     * Returns a copy of this entry refreshed after a successful revalidation.
+     * 
+     * @param cacheDirectives
+     *            The new response cache directives.
+     * @param storedTime
+     *            The time of the revalidation, in milliseconds.
+     * @param initialAge
+     *            The age in seconds of the revalidation response.
+     * @param freshnessLifetime
+     *            The new freshness lifetime in seconds.
+     * @return The refreshed entry.
+     */
+    public CacheEntry refresh(List<CacheDirective> cacheDirectives,
+            long storedTime, long initialAge, long freshnessLifetime) {
+        return new CacheEntry(getKey(), getContent(), getEntityHeaders(),
+                cacheDirectives, getVaryValues(), storedTime, initialAge,
+                freshnessLifetime);
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + " " + getVaryValues() + " ("
+                + getContent().length + " bytes, stored on "
+                + new Date(getStoredTime()) + ")";
+    }
+
+}
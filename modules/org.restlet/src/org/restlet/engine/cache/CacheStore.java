@@ -0,0 +1,149 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.cache;
+
+import java.util.List;
+
+// [excludes gwt]
+/**
+ * Store of cache entries, bounded in size. Several entries can be stored under
+ * the same key when the origin selected different entities based on the
+ * request properties listed by the response dimensions. When the store is
+ * full, the least recently used keys are evicted first.<br>
+ * <br>
+ * Implementations must be thread-safe.
+ * 
+ * @author Jerome Louvel
+ */
+public abstract class CacheStore {
+
+    /** The maximum size of a single entry in bytes. */
+    private volatile long maxEntrySize;
+
+    /** The maximum size of the store in bytes. */
+    private volatile long maxSize;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum size of the store in bytes.
+     * @param maxEntrySize
+     *            The maximum size of a single entry in bytes.
+     */
+    public CacheStore(long maxSize, long maxEntrySize) {
+        this.maxSize = maxSize;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Removes all the entries.
+     */
+    public abstract void clear();
+
+    /**
+     * Returns the entries stored under a given key.
+     * 
+     * @param key
+     *            The key, usually the target resource URI.
+     * @return The entries stored or an empty list.
+     */
+    public abstract List<CacheEntry> get(String key);
+
+    /**
+     * Returns the maximum size of a single entry in bytes. Larger entities
+     * aren't stored.
+     * 
+     * @return The maximum size of a single entry in bytes.
+     */
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    /**
+     * Returns the maximum size of the store in bytes.
+     * 
+     * @return The maximum size of the store in bytes.
+     */
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the current size of the store in bytes.
+     * 
+     * @return The current size of the store in bytes.
+     */
+    public abstract long getSize();
+
+    /**
+     * Stores an entry, replacing the entry stored under the same key for the
+     * same request values of the response dimensions, if any. Least recently
+     * used keys are then evicted until the size of the store is below its
+     * maximum.
+     * 
+     * @param entry
+     *            The entry to store.
+     */
+    public abstract void put(CacheEntry entry);
+
+    /**
+     * Removes all the entries stored under a given key.
+     * 
+     * @param key
+     *            The key, usually the target resource URI.
+     */
+    public abstract void remove(String key);
+
+    /**
+     * Sets the maximum size of a single entry in bytes.
+     * 
+     * @param maxEntrySize
+     *            The maximum size of a single entry in bytes.
+     */
+    public void setMaxEntrySize(long maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * Sets the maximum size of the store in bytes.
+     * 
+     * @param maxSize
+     *            The maximum size of the store in bytes.
+     */
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+}
@@ -0,0 +1,402 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.restlet.Context;
+import org.restlet.data.CacheDirective;
+import org.restlet.data.Dimension;
+import org.restlet.engine.header.CacheDirectiveReader;
+import org.restlet.engine.header.CacheDirectiveWriter;
+import org.restlet.engine.header.Header;
+import org.restlet.engine.io.BioUtils;
+import org.restlet.util.Series;
+
+// [excludes gwt]
+/**
+ * Cache store keeping the entries in files of a local directory, one file per
+ * key. The keys of the files already present in the directory are indexed when
+ * the store is created, so the entries survive restarts.<br>
+ * <br>
+ * Only the index is kept in memory, each lookup reads the entries from their
+ * file.
+ * 
+ * @author Jerome Louvel
+ */
+public class FileCacheStore extends CacheStore {
+
+    /** The default maximum size of a single entry in bytes. */
+    public static final long DEFAULT_MAX_ENTRY_SIZE = 8 * 1024 * 1024;
+
+    /** The default maximum size of the store in bytes. */
+    public static final long DEFAULT_MAX_SIZE = 256 * 1024 * 1024;
+
+    /** The extension of the entry files. */
+    private static final String EXTENSION = ".cache";
+
+    /** The marker of the file format. */
+    private static final int MAGIC = 0x52434531;
+
+    /** The directory of the entry files. */
+    private final File directory;
+
+    /** The size of the file of each key, in least recently used order. */
+    private final LinkedHashMap<String, Long> index;
+
+    /** The current size in bytes. */
+    private long size;
+
+    /**
+     * Constructor using the default sizes.
+     * 
+     * @param directory
+     *            The directory of the entry files, created if necessary.
+     */
+    public FileCacheStore(File directory) {
+        this(directory, DEFAULT_MAX_SIZE, DEFAULT_MAX_ENTRY_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param directory
+     *            The directory of the entry files, created if necessary.
+     * @param maxSize
+     *            The maximum size of the store in bytes.
+     * @param maxEntrySize
+     *            The maximum size of a single entry in bytes.
+     */
+    public FileCacheStore(File directory, long maxSize, long maxEntrySize) {
+        super(maxSize, maxEntrySize);
+        this.directory = directory;
+        this.index = new LinkedHashMap<String, Long>(16, 0.75f, true);
+        this.size = 0;
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(EXTENSION)) {
+                    try {
+                        List<CacheEntry> entries = read(file);
+
+                        if (!entries.isEmpty()) {
+                            this.index.put(entries.get(0).getKey(),
+                                    file.length());
+                            this.size += file.length();
+                        }
+                    } catch (IOException e) {
+                        Context.getCurrentLogger().log(Level.FINE,
+                                "Unable to read the cache file " + file, e);
+                        file.delete();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (String key : this.index.keySet()) {
+            getFile(key).delete();
+        }
+
+        this.index.clear();
+        this.size = 0;
+    }
+
+    @Override
+    public List<CacheEntry> get(String key) {
+        synchronized (this) {
+            if (this.index.get(key) == null) {
+                return Collections.emptyList();
+            }
+        }
+
+        File file = getFile(key);
+
+        try {
+            List<CacheEntry> result = read(file);
+
+            if (result.isEmpty() || key.equals(result.get(0).getKey())) {
+                return result;
+            }
+        } catch (IOException e) {
+            // The file may have been concurrently removed
+            Context.getCurrentLogger().log(Level.FINE,
+                    "Unable to read the cache file " + file, e);
+        }
+
+        remove(key);
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the directory of the entry files.
+     * 
+     * @return The directory of the entry files.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the file storing the entries of a given key, named after the
+     * SHA-1 digest of the key.
+     * 
+     * @param key
+     *            The key.
+     * @return The file storing the entries.
+     */
+    protected File getFile(String key) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-1");
+            return new File(getDirectory(), BioUtils.toHexString(md
+                    .digest(key.getBytes("UTF-8"))) + EXTENSION);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    @Override
+    public synchronized void put(CacheEntry entry) {
+        if (entry.getSize() > getMaxEntrySize()) {
+            remove(entry.getKey());
+            return;
+        }
+
+        List<CacheEntry> updated = new ArrayList<CacheEntry>();
+        updated.add(entry);
+
+        for (CacheEntry other : get(entry.getKey())) {
+            if (!other.matches(entry)) {
+                updated.add(other);
+            }
+        }
+
+        File file = getFile(entry.getKey());
+        Long previous = this.index.remove(entry.getKey());
+
+        if (previous != null) {
+            this.size -= previous;
+        }
+
+        try {
+            write(file, updated);
+            this.index.put(entry.getKey(), file.length());
+            this.size += file.length();
+        } catch (IOException e) {
+            Context.getCurrentLogger().log(Level.WARNING,
+                    "Unable to write the cache file " + file, e);
+            file.delete();
+        }
+
+        // Evict the least recently used keys
+        for (Iterator<Map.Entry<String, Long>> iter = this.index.entrySet()
+                .iterator(); (this.size > getMaxSize()) && iter.hasNext();) {
+            Map.Entry<String, Long> eldest = iter.next();
+            getFile(eldest.getKey()).delete();
+            this.size -= eldest.getValue();
+            iter.remove();
+        }
+    }
+
+    /**
+     * Reads the entries stored in a file.
+     * 
+     * @param file
+     *            The file to read.
+     * @return The entries read.
+     * @throws IOException
+     */
+    private List<CacheEntry> read(File file) throws IOException {
+        List<CacheEntry> result = new ArrayList<CacheEntry>();
+        DataInputStream dis = null;
+
+        try {
+            dis = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+
+            if (dis.readInt() != MAGIC) {
+                throw new IOException("Invalid cache file format");
+            }
+
+            String key = dis.readUTF();
+
+            for (int i = dis.readInt(); i > 0; i--) {
+                long storedTime = dis.readLong();
+                long initialAge = dis.readLong();
+                long freshnessLifetime = dis.readLong();
+                List<CacheDirective> cacheDirectives = new ArrayList<CacheDirective>();
+                String cacheControl = dis.readUTF();
+
+                if (cacheControl.length() > 0) {
+                    new CacheDirectiveReader(cacheControl)
+                            .addValues(cacheDirectives);
+                }
+
+                Map<Dimension, String> varyValues = new EnumMap<Dimension, String>(
+                        Dimension.class);
+
+                for (int j = dis.readInt(); j > 0; j--) {
+                    varyValues.put(Dimension.valueOf(dis.readUTF()),
+                            dis.readUTF());
+                }
+
+                Series<Header> entityHeaders = new Series<Header>(
+                        Header.class);
+
+                for (int j = dis.readInt(); j > 0; j--) {
+                    entityHeaders.add(dis.readUTF(), dis.readUTF());
+                }
+
+                byte[] content = new byte[dis.readInt()];
+                dis.readFully(content);
+                result.add(new CacheEntry(key, content, entityHeaders,
+                        cacheDirectives, varyValues, storedTime, initialAge,
+                        freshnessLifetime));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid cache file format");
+        } finally {
+            if (dis != null) {
+                dis.close();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        Long removed = this.index.remove(key);
+
+        if (removed != null) {
+            getFile(key).delete();
+            this.size -= removed;
+        }
+    }
+
+    /**
+     * Writes entries into a file. The entries are first written to a temporary
+     * file which then replaces the target file, so readers never see a partial
+     * file.
+     * 
+     * @param file
+     *            The file to write.
+     * @param entries
+     *            The entries to write, all stored under the same key.
+     * @throws IOException
+     */
+    private void write(File file, List<CacheEntry> entries) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(tmpFile)));
+
+        try {
+            dos.writeInt(MAGIC);
+            dos.writeUTF(entries.get(0).getKey());
+            dos.writeInt(entries.size());
+
+            for (CacheEntry entry : entries) {
+                dos.writeLong(entry.getStoredTime());
+                dos.writeLong(entry.getInitialAge());
+                dos.writeLong(entry.getFreshnessLifetime());
+                dos.writeUTF(entry.getCacheDirectives().isEmpty() ? ""
+                        : CacheDirectiveWriter.write(entry
+                                .getCacheDirectives()));
+                dos.writeInt(entry.getVaryValues().size());
+
+                for (Map.Entry<Dimension, String> varyValue : entry
+                        .getVaryValues().entrySet()) {
+                    dos.writeUTF(varyValue.getKey().name());
+                    dos.writeUTF(varyValue.getValue());
+                }
+
+                dos.writeInt(entry.getEntityHeaders().size());
+
+                for (Header header : entry.getEntityHeaders()) {
+                    dos.writeUTF(header.getName());
+                    dos.writeUTF(header.getValue());
+                }
+
+                dos.writeInt(entry.getContent().length);
+                dos.write(entry.getContent());
+            }
+        } finally {
+            dos.close();
+        }
+
+        if (!tmpFile.renameTo(file)) {
+            // Some platforms don't replace existing files
+            file.delete();
+
+            if (!tmpFile.renameTo(file)) {
+                tmpFile.delete();
+                throw new IOException("Unable to replace the cache file "
+                        + file);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// [excludes gwt]
+/**
+ * Cache store keeping the entries in memory.
+ * 
+ * @author Jerome Louvel
+ */
+public class MemoryCacheStore extends CacheStore {
+
+    /** The default maximum size of a single entry in bytes. */
+    public static final long DEFAULT_MAX_ENTRY_SIZE = 1024 * 1024;
+
+    /** The default maximum size of the store in bytes. */
+    public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+    /** The entries stored under each key, in least recently used order. */
+    private final LinkedHashMap<String, List<CacheEntry>> entries;
+
+    /** The current size in bytes. */
+    private long size;
+
+    /**
+     * Constructor using the default sizes.
+     */
+    public MemoryCacheStore() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_MAX_ENTRY_SIZE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param maxSize
+     *            The maximum size of the store in bytes.
+     * @param maxEntrySize
+     *            The maximum size of a single entry in bytes.
+     */
+    public MemoryCacheStore(long maxSize, long maxEntrySize) {
+        super(maxSize, maxEntrySize);
+        this.entries = new LinkedHashMap<String, List<CacheEntry>>(16, 0.75f,
+                true);
+        this.size = 0;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.entries.clear();
+        this.size = 0;
+    }
+
+    @Override
+    public synchronized List<CacheEntry> get(String key) {
+        List<CacheEntry> result = this.entries.get(key);
+        return (result == null) ? Collections.<CacheEntry> emptyList()
+                : result;
+    }
+
+    @Override
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Returns the total size of a list of entries.
+     * 
+     * @param entries
+     *            The entries.
+     * @return The total size of the entries.
+     */
+    private long getSize(List<CacheEntry> entries) {
+        long result = 0;
+
+        for (CacheEntry entry : entries) {
+            result += entry.getSize();
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized void put(CacheEntry entry) {
+        if (entry.getSize() > getMaxEntrySize()) {
+            remove(entry.getKey());
+            return;
+        }
+
+        List<CacheEntry> current = this.entries.get(entry.getKey());
+        List<CacheEntry> updated = new ArrayList<CacheEntry>();
+        updated.add(entry);
+        this.size += entry.getSize();
+
+        if (current != null) {
+            for (CacheEntry other : current) {
+                if (other.matches(entry)) {
+                    this.size -= other.getSize();
+                } else {
+                    updated.add(other);
+                }
+            }
+        }
+
+        // Stored lists are never modified, only replaced
+        this.entries.put(entry.getKey(),
+                Collections.unmodifiableList(updated));
+
+        // Evict the least recently used keys
+        for (Iterator<Map.Entry<String, List<CacheEntry>>> iter = this.entries
+                .entrySet().iterator(); (this.size > getMaxSize())
+                && iter.hasNext();) {
+            this.size -= getSize(iter.next().getValue());
+            iter.remove();
+        }
+    }
+
+    @Override
+    public synchronized void remove(String key) {
+        List<CacheEntry> removed = this.entries.remove(key);
+
+        if (removed != null) {
+            this.size -= getSize(removed);
+        }
+    }
+
+}
@@ -34,17 +34,23 @@
 package org.restlet.engine.connector;
 
 import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.restlet.Connector;
@@ -53,6 +59,7 @@ import org.restlet.Response;
 import org.restlet.data.Status;
 import org.restlet.engine.ConnectorHelper;
 import org.restlet.engine.Engine;
+import org.restlet.engine.io.BufferPool;
 import org.restlet.engine.log.LoggingThreadFactory;
 
 /**
@@ -73,6 +80,14 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * exit).</td>
  * </tr>
  * <tr>
+ * <td>controllerCount</td>
+ * <td>int</td>
+ * <td>1</td>
+ * <td>Number of controller threads, each one with its own NIO selector. New
+ * connections are spread across them in a round-robin fashion. The first
+ * controller also dispatches the inbound and outbound messages.</td>
+ * </tr>
+ * <tr>
  * <td>controllerSleepTimeMs</td>
  * <td>int</td>
  * <td>1</td>
@@ -164,6 +179,15 @@ import org.restlet.engine.log.LoggingThreadFactory;
  * use direct buffers.</td>
  * </tr>
  * <tr>
+ * <td>pooledBuffers</td>
+ * <td>boolean</td>
+ * <td>true</td>
+ * <td>Indicates if the NIO buffers of the connections should be borrowed from
+ * pools shared by all the connections, only while messages are being read or
+ * written. The pools allocate the buffers by slabs. Idle connections then
+ * don't hold any buffer.</td>
+ * </tr>
+ * <tr>
  * <td>throttleTimeMs</td>
  * <td>int</td>
  * <td>0</td>
@@ -183,18 +207,27 @@ import org.restlet.engine.log.LoggingThreadFactory;
 public abstract class BaseHelper<T extends Connector> extends
         ConnectorHelper<T> {
 
+    /** The pools of NIO buffers, by buffer size. */
+    private final ConcurrentMap<Integer, BufferPool> bufferPools;
+
     /** Indicates if it is helping a client connector. */
     protected final boolean clientSide;
 
     /** The controller task. */
     protected final ConnectionController controller;
 
+    /** The list of controller tasks, starting with the main one. */
+    private final List<ConnectionController> controllers;
+
     /** The controller service. */
     private volatile ExecutorService controllerService;
 
     /** The queue of inbound messages. */
     protected final Queue<Response> inboundMessages;
 
+    /** The index of the controller that will handle the next connection. */
+    private final AtomicInteger nextControllerIndex;
+
     /** The queue of outbound messages. */
     protected final Queue<Response> outboundMessages;
 
@@ -211,10 +244,13 @@ public abstract class BaseHelper<T extends Connector> extends
      */
     public BaseHelper(T connector, boolean clientSide) {
         super(connector);
+        this.bufferPools = new ConcurrentHashMap<Integer, BufferPool>();
         this.clientSide = clientSide;
         this.inboundMessages = new ConcurrentLinkedQueue<Response>();
         this.outboundMessages = new ConcurrentLinkedQueue<Response>();
         this.controller = createController();
+        this.controllers = new CopyOnWriteArrayList<ConnectionController>();
+        this.nextControllerIndex = new AtomicInteger();
     }
 
     /**
@@ -225,13 +261,14 @@ public abstract class BaseHelper<T extends Connector> extends
     protected boolean control() {
         boolean result = false;
 
-        // Control pending inbound messages
-        for (int i = 0; i < getInboundMessages().size(); i++) {
+        // Control pending inbound messages. The queue sizes are read once as
+        // they shrink while being polled.
+        for (int i = getInboundMessages().size(); i > 0; i--) {
             handleInbound(getInboundMessages().poll());
         }
 
         // Control pending outbound messages
-        for (int i = 0; i < getOutboundMessages().size(); i++) {
+        for (int i = getOutboundMessages().size(); i > 0; i--) {
             handleOutbound(getOutboundMessages().poll());
         }
 
@@ -251,10 +288,23 @@ public abstract class BaseHelper<T extends Connector> extends
      * @return The connector controller service.
      */
     protected ExecutorService createControllerService() {
+        if (getControllerCount() > 1) {
+            return Executors.newFixedThreadPool(getControllerCount(),
+                    new LoggingThreadFactory(getLogger(), isControllerDaemon()));
+        }
+
         return Executors.newSingleThreadExecutor(new LoggingThreadFactory(
                 getLogger(), isControllerDaemon()));
     }
 
+    /**
+     * Creates an additional controller, with its own NIO selector, that only
+     * takes care of the IO work of the connections assigned to it.
+     * 
+     * @return A new additional controller.
+     */
+    protected abstract ConnectionController createSecondaryController();
+
     /**
      * Creates the request object.
      * 
@@ -283,19 +333,10 @@ public abstract class BaseHelper<T extends Connector> extends
             queue = new ArrayBlockingQueue<Runnable>(getMaxQueued());
         }
 
+        // Rejected tasks are retried by the controller, see execute()
         ThreadPoolExecutor result = new ThreadPoolExecutor(minThreads,
                 maxThreads, getMaxThreadIdleTimeMs(), TimeUnit.MILLISECONDS,
                 queue, new LoggingThreadFactory(getLogger(), true));
-        result.setRejectedExecutionHandler(new RejectedExecutionHandler() {
-            public void rejectedExecution(Runnable r,
-                    ThreadPoolExecutor executor) {
-                getLogger().warning(
-                        "Unable to run the following "
-                                + (isClientSide() ? "client-side"
-                                        : "server-side") + " task: " + r);
-                traceWorkerService();
-            }
-        });
 
         // Ensure that core threads act like a minimum number of threads
         result.prestartAllCoreThreads();
@@ -317,9 +358,12 @@ public abstract class BaseHelper<T extends Connector> extends
             }
         }
 
-        // Stops the controller
+        // Stops the controllers
         if (this.controllerService != null) {
-            this.controller.shutdown();
+            for (ConnectionController c : getControllers()) {
+                c.shutdown();
+            }
+
             this.controllerService.shutdown();
 
             try {
@@ -365,14 +409,25 @@ public abstract class BaseHelper<T extends Connector> extends
      * 
      * @param task
      *            The next task to execute.
+     * @return True if the task was accepted, false if the worker service is
+     *         busy, overloaded or shut down.
      */
-    protected void execute(Runnable task) {
+    protected boolean execute(Runnable task) {
+        boolean result = false;
+
         try {
             if (!getController().isOverloaded() && (getWorkerService() != null)
                     && !getWorkerService().isShutdown()
                     && getController().isRunning()) {
                 getWorkerService().execute(task);
+                result = true;
             }
+        } catch (RejectedExecutionException e) {
+            getLogger().fine(
+                    "Unable to run the following "
+                            + (isClientSide() ? "client-side" : "server-side")
+                            + " task, it will be retried: " + task);
+            traceWorkerService();
         } catch (Exception e) {
             getLogger().log(
                     Level.WARNING,
@@ -380,6 +435,42 @@ public abstract class BaseHelper<T extends Connector> extends
                             + (isClientSide() ? "client-side" : "server-side")
                             + " controller task", e);
         }
+
+        return result;
+    }
+
+    /**
+     * Returns the pool of NIO buffers of a given size, shared by all the
+     * connections. Creates it if needed.
+     * 
+     * @param bufferSize
+     *            The size of the buffers.
+     * @return The pool of NIO buffers.
+     */
+    public BufferPool getBufferPool(int bufferSize) {
+        BufferPool result = this.bufferPools.get(bufferSize);
+
+        if (result == null) {
+            result = new BufferPool(bufferSize, isDirectBuffers());
+            BufferPool existing = this.bufferPools.putIfAbsent(bufferSize,
+                    result);
+
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the pools of NIO buffers created so far. Useful to monitor the
+     * memory used by the buffers.
+     * 
+     * @return The pools of NIO buffers.
+     */
+    public Collection<BufferPool> getBufferPools() {
+        return this.bufferPools.values();
     }
 
     /**
@@ -391,6 +482,27 @@ public abstract class BaseHelper<T extends Connector> extends
         return controller;
     }
 
+    /**
+     * Returns the number of controller threads, each one with its own NIO
+     * selector.
+     * 
+     * @return The number of controller threads.
+     */
+    public int getControllerCount() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "controllerCount", "1"));
+    }
+
+    /**
+     * Returns the list of controller tasks, starting with the main one
+     * returned by {@link #getController()}.
+     * 
+     * @return The list of controller tasks.
+     */
+    public List<ConnectionController> getControllers() {
+        return controllers;
+    }
+
     /**
      * Returns the time for the controller thread to sleep between each control.
      * 
@@ -493,6 +605,24 @@ public abstract class BaseHelper<T extends Connector> extends
                 "minThreads", "1"));
     }
 
+    /**
+     * Returns the controller that should handle the next new connection.
+     * Controllers are selected in a round-robin fashion.
+     * 
+     * @return The controller that should handle the next new connection.
+     */
+    public ConnectionController getNextController() {
+        int size = getControllers().size();
+
+        if (size <= 1) {
+            return getController();
+        }
+
+        int index = (this.nextControllerIndex.getAndIncrement() & Integer.MAX_VALUE)
+                % size;
+        return getControllers().get(index);
+    }
+
     /**
      * Returns the size of the content buffer for sending responses.
      * 
@@ -582,7 +712,7 @@ public abstract class BaseHelper<T extends Connector> extends
             if (synchronous || !hasWorkerThreads()) {
                 doHandleInbound(response);
             } else {
-                execute(new Runnable() {
+                Runnable task = new Runnable() {
                     public void run() {
                         try {
                             doHandleInbound(response);
@@ -595,7 +725,13 @@ public abstract class BaseHelper<T extends Connector> extends
                     public String toString() {
                         return "Handle inbound messages";
                     }
-                });
+                };
+
+                if (!execute(task) && getController().isRunning()) {
+                    // Retry during a next control, once worker threads are
+                    // available again
+                    getInboundMessages().add(response);
+                }
             }
         }
     }
@@ -621,7 +757,7 @@ public abstract class BaseHelper<T extends Connector> extends
             if (synchronous || !hasWorkerThreads()) {
                 doHandleOutbound(response);
             } else {
-                execute(new Runnable() {
+                Runnable task = new Runnable() {
                     public void run() {
                         try {
                             doHandleOutbound(response);
@@ -634,7 +770,13 @@ public abstract class BaseHelper<T extends Connector> extends
                     public String toString() {
                         return "Handle outbound messages";
                     }
-                });
+                };
+
+                if (!execute(task) && getController().isRunning()) {
+                    // Retry during a next control, once worker threads are
+                    // available again
+                    getOutboundMessages().add(response);
+                }
             }
         }
     }
@@ -679,6 +821,17 @@ public abstract class BaseHelper<T extends Connector> extends
                         "directBuffers", "false"));
     }
 
+    /**
+     * Indicates if the NIO buffers of the connections should be borrowed from
+     * shared pools only while messages are being read or written.
+     * 
+     * @return True if the NIO buffers should be pooled.
+     */
+    public boolean isPooledBuffers() {
+        return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
+                "pooledBuffers", "true"));
+    }
+
     /**
      * Indicates if it is helping a server connector.
      * 
@@ -722,6 +875,7 @@ public abstract class BaseHelper<T extends Connector> extends
         if (message != null) {
             message.setStatus(status);
             getInboundMessages().add(message);
+            getController().wakeup();
         }
     }
 
@@ -743,19 +897,29 @@ public abstract class BaseHelper<T extends Connector> extends
             }
 
             getInboundMessages().add(message);
+            getController().wakeup();
         }
     }
 
     @Override
     public void start() throws Exception {
         super.start();
+        this.controllers.clear();
+        this.controllers.add(this.controller);
+
+        for (int i = 1; i < getControllerCount(); i++) {
+            this.controllers.add(createSecondaryController());
+        }
+
         this.controllerService = createControllerService();
 
         if (hasWorkerThreads()) {
             this.workerService = createWorkerService();
         }
 
-        this.controllerService.submit(this.controller);
+        for (ConnectionController c : getControllers()) {
+            this.controllerService.submit(c);
+        }
     }
 
     @Override
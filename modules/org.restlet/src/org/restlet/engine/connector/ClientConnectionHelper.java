@@ -38,8 +38,13 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
 import java.nio.channels.SocketChannel;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 
 import org.restlet.Client;
@@ -118,14 +123,105 @@ import org.restlet.data.Status;
  * <td>0</td>
  * <td>Type of service to set in IP packets.</td>
  * </tr>
+ * <tr>
+ * <td>dnsCacheTimeToLiveMs</td>
+ * <td>int</td>
+ * <td>30000</td>
+ * <td>Time during which the resolved address of a host is reused, or 0 to
+ * resolve it for each request.</td>
+ * </tr>
+ * <tr>
+ * <td>maxPipelinedRequests</td>
+ * <td>int</td>
+ * <td>8</td>
+ * <td>Maximum number of requests in flight on a connection when the
+ * "pipeliningConnections" parameter is enabled.</td>
+ * </tr>
+ * <tr>
+ * <td>maxRetries</td>
+ * <td>int</td>
+ * <td>3</td>
+ * <td>Maximum number of times a request that can be replayed is sent again
+ * when its connection is closed before its response is received.</td>
+ * </tr>
  * </table>
+ * <br>
+ * The connections are grouped by host address, so looking up a connection for
+ * a request only inspects the connections opened to the same host. When the
+ * "maxConnectionsPerHost" or "maxTotalConnections" limits are reached, requests
+ * wait in a queue of their host and are sent in arrival order as soon as a
+ * connection becomes available. See {@link #getHostConnections()} for the
+ * number of idle, busy and pending connections of each host.<br>
+ * <br>
+ * When the "pipeliningConnections" parameter is enabled, idempotent requests
+ * without entity are written on an open connection of their host without
+ * waiting for the previous responses, up to the "maxPipelinedRequests" limit,
+ * before new connections are created. Responses are matched to requests in
+ * sending order. If the connection closes before their response arrives, such
+ * requests are sent again on another connection, up to "maxRetries" times.
  * 
  * @author Jerome Louvel
  */
 public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
 
+    /**
+     * Resolved host address, valid until a given time.
+     */
+    private static final class ResolvedAddress {
+        /** The resolved socket address. */
+        private final InetSocketAddress address;
+
+        /** The expiration time, in milliseconds. */
+        private final long expirationTime;
+
+        /**
+         * Constructor.
+         * 
+         * @param address
+         *            The resolved socket address.
+         * @param expirationTime
+         *            The expiration time, in milliseconds.
+         */
+        private ResolvedAddress(InetSocketAddress address, long expirationTime) {
+            this.address = address;
+            this.expirationTime = expirationTime;
+        }
+    }
+
     protected static final String CONNECTOR_LATCH = "org.restlet.engine.connector.latch";
 
+    /** Request attribute counting the times a request has been sent again. */
+    protected static final String CONNECTOR_RETRIES = "org.restlet.engine.connector.retries";
+
+    /** The period between two sweeps of the host caches, in milliseconds. */
+    private static final long SWEEP_PERIOD = 1000L;
+
+    /**
+     * Indicates if a request can be pipelined or sent again after a connection
+     * failure. This is the case of idempotent requests without entity.
+     * 
+     * @param request
+     *            The request to test.
+     * @return True if the request can be pipelined or sent again.
+     */
+    public static boolean isReplayable(Request request) {
+        return request.getMethod().isIdempotent()
+                && ((request.getEntity() == null) || request.getEntity()
+                        .isEmpty());
+    }
+
+    /** The connections grouped by host address. */
+    private final ConcurrentMap<InetSocketAddress, HostConnections> hostConnections;
+
+    /** The time of the last sweep of the host caches. */
+    private volatile long lastSweep;
+
+    /** The total number of responses waiting for a connection. */
+    private final AtomicInteger pendingCount;
+
+    /** The resolved addresses, indexed by host domain and port. */
+    private final ConcurrentMap<String, ResolvedAddress> resolvedAddresses;
+
     /**
      * Constructor.
      * 
@@ -134,6 +230,88 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
      */
     public ClientConnectionHelper(Client connector) {
         super(connector, true);
+        this.hostConnections = new ConcurrentHashMap<InetSocketAddress, HostConnections>();
+        this.pendingCount = new AtomicInteger();
+        this.resolvedAddresses = new ConcurrentHashMap<String, ResolvedAddress>();
+    }
+
+    /**
+     * Sends the responses waiting for a connection, in arrival order for each
+     * host, then handles the new inbound and outbound messages. Also
+     * periodically removes the expired host addresses and the hosts without
+     * connections. Once the client is stopped, the waiting responses are left
+     * to {@link #stop()} instead of being sent on new connections.
+     */
+    @Override
+    protected boolean control() {
+        if ((this.pendingCount.get() > 0) && getHelped().isStarted()) {
+            for (HostConnections host : this.hostConnections.values()) {
+                controlPendingResponses(host);
+            }
+        }
+
+        long now = System.currentTimeMillis();
+
+        if (now - this.lastSweep > SWEEP_PERIOD) {
+            this.lastSweep = now;
+
+            for (Iterator<ResolvedAddress> iter = this.resolvedAddresses
+                    .values().iterator(); iter.hasNext();) {
+                if (iter.next().expirationTime <= now) {
+                    iter.remove();
+                }
+            }
+
+            // Hosts are only added by the main controller, which runs this
+            // method
+            for (Iterator<HostConnections> iter = this.hostConnections
+                    .values().iterator(); iter.hasNext();) {
+                if (iter.next().isEmpty()) {
+                    iter.remove();
+                }
+            }
+        }
+
+        return super.control();
+    }
+
+    /**
+     * Sends the responses waiting for a connection to a given host, as long as
+     * connections are available.
+     * 
+     * @param host
+     *            The host connections.
+     */
+    private void controlPendingResponses(HostConnections host) {
+        Response response = host.getPendingResponses().peek();
+
+        while (response != null) {
+            Connection<Client> bestConn = null;
+
+            try {
+                bestConn = getBestConnection(response.getRequest(), host);
+            } catch (Throwable t) {
+                host.getPendingResponses().poll();
+                this.pendingCount.decrementAndGet();
+                getLogger()
+                        .log(Level.FINE,
+                                "An error occured during the communication with the remote server.",
+                                t);
+                response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION, t);
+                unblock(response);
+            }
+
+            if (bestConn != null) {
+                host.getPendingResponses().poll();
+                this.pendingCount.decrementAndGet();
+                send(bestConn, response);
+            } else if (host.getPendingResponses().peek() == response) {
+                // No connection available yet
+                break;
+            }
+
+            response = host.getPendingResponses().peek();
+        }
     }
 
     @Override
@@ -240,11 +418,28 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                                     + response.getRequest());
                 }
 
-                Connection<Client> bestConn = getBestConnection(response
+                // Determine the target host domain and port of the request.
+                InetSocketAddress socketAddress = getSocketAddress(response
                         .getRequest());
+                HostConnections host = (socketAddress == null) ? null
+                        : getHostConnections(socketAddress);
+                Connection<Client> bestConn = null;
+
+                if (host == null) {
+                    getLogger()
+                            .log(Level.WARNING,
+                                    "Unable to create a socket address related to the request.");
+                } else if (getHelped().isStarted()
+                        && host.getPendingResponses().isEmpty()) {
+                    bestConn = getBestConnection(response.getRequest(), host);
+                }
 
                 if (bestConn != null) {
-                    bestConn.getOutboundWay().handle(response);
+                    send(bestConn, response);
+                } else if (host != null) {
+                    // Wait for a connection, behind the previous requests
+                    host.getPendingResponses().add(response);
+                    this.pendingCount.incrementAndGet();
                 } else {
                     getLogger().log(Level.WARNING,
                             "Unable to find a connection to send the request");
@@ -278,12 +473,6 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
             throws UnknownHostException, IOException {
         Connection<Client> result = null;
 
-        // Try to reuse an existing connection for the same host and
-        // port
-        int hostConnectionCount = 0;
-        int bestScore = 0;
-        boolean foundConn = false;
-
         // Determine the target host domain and port of the request.
         InetSocketAddress socketAddress = getSocketAddress(request);
 
@@ -292,71 +481,137 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                     .log(Level.WARNING,
                             "Unable to create a socket address related to the request.");
         } else {
-            // Associate the given request to the first available connection
-            // opened on the same host domain and port.
-            for (Iterator<Connection<Client>> iterator = getConnections()
-                    .iterator(); !foundConn && iterator.hasNext();) {
-                Connection<Client> currConn = iterator.next();
-
-                if (socketAddress.equals(currConn.getSocketAddress())) {
-                    if (currConn.isAvailable()) {
-                        result = currConn;
-                        foundConn = true;
-                    } else {
-                        // Assign the request to the busy connection that
-                        // handles the less number of messages. This is useful
-                        // in case the maximum number of connections has been
-                        // reached. As a drawback, the message will only be
-                        // handled as soon as possible.
-                        int currScore = currConn.getLoadScore();
-
-                        if (bestScore > currScore) {
-                            bestScore = currScore;
-                            result = currConn;
-                        }
-
-                        hostConnectionCount++;
-                    }
-                }
+            result = getBestConnection(request,
+                    getHostConnections(socketAddress));
+        }
+
+        return result;
+    }
+
+    /**
+     * Tries to reuse an available connection to the given host, or creates a
+     * new one. Returns null if the maximum number of connections per host or
+     * in general is reached.
+     * 
+     * @param request
+     *            The request to handle.
+     * @param host
+     *            The connections to the target host.
+     * @return An existing connection able to handle the request or new one.
+     * @throws UnknownHostException
+     * @throws IOException
+     */
+    private Connection<Client> getBestConnection(Request request,
+            HostConnections host) throws UnknownHostException, IOException {
+        InetSocketAddress socketAddress = host.getSocketAddress();
+
+        // Associate the given request to the first available connection
+        // opened on the same host domain and port.
+        Connection<Client> result = host.getAvailableConnection();
+
+        if ((result == null) && isPipeliningConnections()
+                && isReplayable(request)) {
+            result = host.getPipeliningConnection(getMaxPipelinedRequests());
+        }
+
+        if (result != null) {
+            getLogger().log(Level.FINE,
+                    "Reusing an existing client connection to: "
+                            + socketAddress);
+        } else if ((getMaxTotalConnections() != -1)
+                && (getConnections().size() >= getMaxTotalConnections())) {
+            getLogger()
+                    .log(Level.FINE,
+                            "Unable to create a new connection. Maximum total number of connections reached!");
+        } else if ((getMaxConnectionsPerHost() != -1)
+                && (host.getConnections().size() >= getMaxConnectionsPerHost())) {
+            getLogger().log(
+                    Level.FINE,
+                    "Unable to create a new connection. Maximum number of connections reached for host: "
+                            + socketAddress);
+        } else {
+            // Create a new connection
+            if (getLogger().isLoggable(Level.FINE)) {
+                getLogger().log(Level.FINE,
+                        "Creating a new client connection to: " + socketAddress);
             }
 
-            // No connection has been found, try to create a new one that will
-            // handle the message soon.
-            if (foundConn) {
-                getLogger().log(
-                        Level.FINE,
-                        "Reusing an existing client connection to: "
-                                + socketAddress);
-            } else if ((getMaxTotalConnections() != -1)
-                    && (getConnections().size() >= getMaxTotalConnections())) {
-                getLogger()
-                        .log(Level.WARNING,
-                                "Unable to create a new connection. Maximum total number of connections reached!");
-            } else if ((getMaxConnectionsPerHost() != -1)
-                    && (hostConnectionCount >= getMaxConnectionsPerHost())) {
-                getLogger()
-                        .log(Level.WARNING,
-                                "Unable to create a new connection. Maximum number of connections reached for host: "
-                                        + socketAddress);
-            } else {
-                // Create a new connection
-                if (getLogger().isLoggable(Level.FINE)) {
-                    getLogger().log(
-                            Level.FINE,
-                            "Creating a new client connection to: "
-                                    + socketAddress);
-                }
+            result = checkout(
+                    createSocketChannel(request.isConfidential(),
+                            socketAddress), getNextController(), socketAddress);
+            addConnection(result);
+            host.getConnections().add(result);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the time during which the resolved address of a host is reused,
+     * or 0 to resolve it for each request. Defaults to 30000 ms.
+     * 
+     * @return The time to live of the resolved host addresses.
+     */
+    public int getDnsCacheTimeToLiveMs() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "dnsCacheTimeToLiveMs", "30000"));
+    }
 
-                result = checkout(
-                        createSocketChannel(request.isConfidential(),
-                                socketAddress), getController(), socketAddress);
-                getConnections().add(result);
+    /**
+     * Returns the unmodifiable map of the connections grouped by host address.
+     * 
+     * @return The unmodifiable map of the connections grouped by host address.
+     */
+    public Map<InetSocketAddress, HostConnections> getHostConnections() {
+        return Collections.unmodifiableMap(this.hostConnections);
+    }
+
+    /**
+     * Returns the connections to a given host address, creating the group if
+     * needed.
+     * 
+     * @param socketAddress
+     *            The host address.
+     * @return The connections to the host address.
+     */
+    private HostConnections getHostConnections(InetSocketAddress socketAddress) {
+        HostConnections result = this.hostConnections.get(socketAddress);
+
+        if (result == null) {
+            result = new HostConnections(socketAddress);
+            HostConnections previous = this.hostConnections.putIfAbsent(
+                    socketAddress, result);
+
+            if (previous != null) {
+                result = previous;
             }
         }
 
         return result;
     }
 
+    /**
+     * Returns the maximum number of times a request is sent again when its
+     * connection is closed before its response is received. Defaults to 3.
+     * 
+     * @return The maximum number of times a request is sent again.
+     */
+    public int getMaxRetries() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxRetries", "3"));
+    }
+
+    /**
+     * Returns the maximum number of requests in flight on a connection when
+     * pipelining is enabled. Defaults to 8.
+     * 
+     * @return The maximum number of requests in flight on a connection.
+     */
+    public int getMaxPipelinedRequests() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxPipelinedRequests", "8"));
+    }
+
     /**
      * Returns the host name of the HTTP proxy, if specified.
      * 
@@ -432,10 +687,7 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
         }
 
         if (hostDomain != null) {
-            result = new InetSocketAddress(hostDomain, hostPort);
-            if (result != null && result.getAddress() == null) {
-                throw new UnknownHostException(hostDomain);
-            }
+            result = resolve(hostDomain, hostPort);
         }
 
         return result;
@@ -585,6 +837,121 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
                 "socketOobInline", "false"));
     }
 
+    /**
+     * Called when a connection may have become available or has been closed.
+     * Wakes up the main controller if responses are waiting for a connection,
+     * as no other event may interrupt its NIO selection.
+     */
+    protected void onConnectionReleased() {
+        if (this.pendingCount.get() > 0) {
+            getController().wakeup();
+        }
+    }
+
+    @Override
+    protected void removeConnection(Connection<?> connection) {
+        super.removeConnection(connection);
+        HostConnections host = this.hostConnections.get(connection
+                .getSocketAddress());
+
+        if (host != null) {
+            host.getConnections().remove(connection);
+        }
+
+        onConnectionReleased();
+    }
+
+    /**
+     * Sends again a request that didn't receive its response because its
+     * connection was closed. Requests that weren't processed by the server
+     * are always sent again. Requests that may have been processed are only
+     * sent again if they can be replayed, up to {@link #getMaxRetries()} times.
+     * 
+     * @param response
+     *            The response whose request must be sent again.
+     * @param processed
+     *            Indicates if the request may have been processed by the
+     *            server.
+     * @return True if the request will be sent again.
+     * @see #isReplayable(Request)
+     */
+    public boolean retry(Response response, boolean processed) {
+        Request request = response.getRequest();
+        boolean result = getHelped().isStarted();
+
+        if (result && processed) {
+            Integer retries = (Integer) request.getAttributes().get(
+                    CONNECTOR_RETRIES);
+            int count = (retries == null) ? 0 : retries.intValue();
+            result = isReplayable(request) && (count < getMaxRetries());
+
+            if (result) {
+                request.getAttributes().put(CONNECTOR_RETRIES, count + 1);
+            }
+        }
+
+        if (result) {
+            getOutboundMessages().add(response);
+            getController().wakeup();
+        }
+
+        return result;
+    }
+
+    /**
+     * Resolves the address of a host, reusing the addresses previously
+     * resolved during the time returned by {@link #getDnsCacheTimeToLiveMs()}.
+     * 
+     * @param hostDomain
+     *            The host domain name.
+     * @param hostPort
+     *            The host port.
+     * @return The resolved socket address.
+     * @throws UnknownHostException
+     *             If the host couldn't be resolved.
+     */
+    protected InetSocketAddress resolve(String hostDomain, int hostPort)
+            throws UnknownHostException {
+        InetSocketAddress result = null;
+        int timeToLive = getDnsCacheTimeToLiveMs();
+        String key = (timeToLive > 0) ? hostDomain + ':' + hostPort : null;
+        ResolvedAddress resolved = (key == null) ? null
+                : this.resolvedAddresses.get(key);
+        long now = System.currentTimeMillis();
+
+        if ((resolved != null) && (resolved.expirationTime > now)) {
+            result = resolved.address;
+        } else {
+            result = new InetSocketAddress(hostDomain, hostPort);
+
+            if (result.getAddress() == null) {
+                throw new UnknownHostException(hostDomain);
+            }
+
+            if (key != null) {
+                this.resolvedAddresses.put(key, new ResolvedAddress(result,
+                        now + timeToLive));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Sends a response's request through a given connection.
+     * 
+     * @param connection
+     *            The connection to use.
+     * @param response
+     *            The response whose request must be sent.
+     */
+    private void send(Connection<Client> connection, Response response) {
+        connection.getOutboundWay().handle(response);
+
+        // Let the controller update the NIO interest
+        connection.setDirty(true);
+    }
+
     @Override
     public void start() throws Exception {
         getLogger().info("Starting the internal " + getProtocols() + " client");
@@ -595,6 +962,47 @@ public abstract class ClientConnectionHelper extends ConnectionHelper<Client> {
     public void stop() throws Exception {
         getLogger().info("Stopping the internal " + getProtocols() + " client");
         super.stop();
+
+        // The controllers are stopped, so close the connections left open,
+        // which fails their requests in flight
+        for (Connection<Client> connection : getConnections()) {
+            if (connection.getState() != ConnectionState.CLOSED) {
+                connection.close(false);
+            }
+        }
+
+        // Release the requests still waiting for a connection
+        for (HostConnections host : this.hostConnections.values()) {
+            Response response = host.getPendingResponses().poll();
+
+            while (response != null) {
+                this.pendingCount.decrementAndGet();
+                response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION,
+                        "The client connector has been stopped");
+                unblock(response);
+                response = host.getPendingResponses().poll();
+            }
+        }
+
+        // Release the requests not sent yet and the responses not handled
+        Response response = getOutboundMessages().poll();
+
+        while (response != null) {
+            response.setStatus(Status.CONNECTOR_ERROR_COMMUNICATION,
+                    "The client connector has been stopped");
+            doHandleInbound(response);
+            response = getOutboundMessages().poll();
+        }
+
+        response = getInboundMessages().poll();
+
+        while (response != null) {
+            doHandleInbound(response);
+            response = getInboundMessages().poll();
+        }
+
+        this.hostConnections.clear();
+        this.resolvedAddresses.clear();
     }
 
     /**
@@ -40,12 +40,15 @@ import java.util.logging.Level;
 import org.restlet.Client;
 import org.restlet.Message;
 import org.restlet.Response;
+import org.restlet.data.Method;
 import org.restlet.data.Status;
 import org.restlet.engine.Engine;
 import org.restlet.engine.header.Header;
 import org.restlet.engine.header.HeaderConstants;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.IoState;
+import org.restlet.representation.EmptyRepresentation;
+import org.restlet.representation.Representation;
 import org.restlet.util.Series;
 
 /**
@@ -80,6 +83,38 @@ public abstract class ClientInboundWay extends InboundWay {
         HeaderUtils.copyResponseTransportHeaders(headers, response);
     }
 
+    /**
+     * Creates the response entity. Responses to HEAD requests and responses
+     * with a 1xx, 204 or 304 status never have a body, whatever their headers
+     * announce, so the next response can be read right after their headers.
+     */
+    @Override
+    protected Representation createEntity(Series<Header> headers) {
+        Response response = getMessage();
+
+        if ((response != null)
+                && (Method.HEAD.equals(response.getRequest().getMethod())
+                        || response.getStatus().isInformational()
+                        || Status.SUCCESS_NO_CONTENT.equals(response
+                                .getStatus()) || Status.REDIRECTION_NOT_MODIFIED
+                            .equals(response.getStatus()))) {
+            Representation result = new EmptyRepresentation();
+
+            if (headers != null) {
+                try {
+                    result = HeaderUtils.extractEntityHeaders(headers, result);
+                } catch (Throwable t) {
+                    getLogger().log(Level.WARNING,
+                            "Error while parsing entity headers", t);
+                }
+            }
+
+            return result;
+        }
+
+        return super.createEntity(headers);
+    }
+
     /**
      * Creates a response object for the given status.
      * 
@@ -138,6 +173,7 @@ public abstract class ClientInboundWay extends InboundWay {
         }
 
         super.onCompleted(endDetected);
+        getHelper().onConnectionReleased();
     }
 
     @Override
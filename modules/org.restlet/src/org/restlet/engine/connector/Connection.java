@@ -38,7 +38,9 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -49,6 +51,7 @@ import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableSelectionChannel;
 import org.restlet.engine.io.ReadableSocketChannel;
 import org.restlet.engine.io.ReadableTraceChannel;
+import org.restlet.engine.io.WakeupListener;
 import org.restlet.engine.io.WritableSelectionChannel;
 import org.restlet.engine.io.WritableSocketChannel;
 import org.restlet.engine.io.WritableTraceChannel;
@@ -63,7 +66,14 @@ import org.restlet.util.SelectionRegistration;
  *            The parent connector type.
  * @author Jerome Louvel
  */
-public class Connection<T extends Connector> implements SelectionListener {
+public class Connection<T extends Connector> implements SelectionListener,
+        WakeupListener {
+
+    /** The IO controller managing this connection. */
+    private volatile ConnectionController controller;
+
+    /** Indicates if the connection is waiting to be controlled. */
+    private final AtomicBoolean dirty;
 
     /** The parent connector helper. */
     private final ConnectionHelper<T> helper;
@@ -127,6 +137,7 @@ public class Connection<T extends Connector> implements SelectionListener {
             ConnectionController controller, InetSocketAddress socketAddress,
             int inboundBufferSize, int outboundBufferSize) throws IOException {
         this.helper = helper;
+        this.dirty = new AtomicBoolean(false);
         this.inboundWay = helper.createInboundWay(this, inboundBufferSize);
         this.outboundWay = helper.createOutboundWay(this, outboundBufferSize);
         init(socketChannel, controller, socketAddress);
@@ -139,6 +150,8 @@ public class Connection<T extends Connector> implements SelectionListener {
     public void clear() {
         this.inboundWay.clear();
         this.outboundWay.clear();
+        this.controller = null;
+        this.dirty.set(false);
         this.readableSelectionChannel = null;
         this.socketChannel = null;
         this.registration = null;
@@ -241,11 +254,25 @@ public class Connection<T extends Connector> implements SelectionListener {
      */
     protected WritableSelectionChannel createWritableSelectionChannel() {
         return new WritableSocketChannel(getSocketChannel(), getRegistration()) {
+            @Override
+            public long transferFrom(FileChannel fileChannel, long position,
+                    long count) throws IOException {
+                onActivity();
+                return super.transferFrom(fileChannel, position, count);
+            }
+
             @Override
             public int write(ByteBuffer src) throws IOException {
                 onActivity();
                 return super.write(src);
             }
+
+            @Override
+            public long write(ByteBuffer[] srcs, int offset, int length)
+                    throws IOException {
+                onActivity();
+                return super.write(srcs, offset, length);
+            }
         };
     }
 
@@ -260,6 +287,15 @@ public class Connection<T extends Connector> implements SelectionListener {
                         .getInetAddress().getHostAddress();
     }
 
+    /**
+     * Returns the IO controller managing this connection.
+     * 
+     * @return The IO controller managing this connection.
+     */
+    public ConnectionController getController() {
+        return controller;
+    }
+
     /**
      * Returns the parent connector helper.
      * 
@@ -448,6 +484,7 @@ public class Connection<T extends Connector> implements SelectionListener {
         this.persistent = helper.isPersistingConnections();
         this.pipelining = helper.isPipeliningConnections();
         this.maxIoIdleTimeMs = helper.getMaxIoIdleTimeMs();
+        this.controller = controller;
         this.state = ConnectionState.OPENING;
         this.socketChannel = socketChannel;
         this.socketAddress = socketAddress;
@@ -456,6 +493,7 @@ public class Connection<T extends Connector> implements SelectionListener {
                 && (socketAddress != null)) {
             this.registration = (controller == null) ? null : controller
                     .register(socketChannel, 0, this);
+            this.registration.setWakeupListener(this);
             this.readableSelectionChannel = createReadableSelectionChannel();
             this.writableSelectionChannel = createWritableSelectionChannel();
 
@@ -467,8 +505,8 @@ public class Connection<T extends Connector> implements SelectionListener {
             }
 
             // Setup the wakeup listener
-            getInboundWay().getRegistration().setWakeupListener(controller);
-            getOutboundWay().getRegistration().setWakeupListener(controller);
+            getInboundWay().getRegistration().setWakeupListener(this);
+            getOutboundWay().getRegistration().setWakeupListener(this);
         }
 
         onActivity();
@@ -494,6 +532,16 @@ public class Connection<T extends Connector> implements SelectionListener {
         return getHelper().isClientSide();
     }
 
+    /**
+     * Indicates if the connection is waiting to be controlled by its
+     * controller because its state changed.
+     * 
+     * @return True if the connection is waiting to be controlled.
+     */
+    public boolean isDirty() {
+        return dirty.get();
+    }
+
     /**
      * Indicates if the connection is empty of messages and bytes.
      * 
@@ -562,6 +610,39 @@ public class Connection<T extends Connector> implements SelectionListener {
         close(false);
     }
 
+    /**
+     * Processes the ways that are in the {@link IoState#READY} state, without
+     * going back to NIO selection. Keeps looping while ways are ready, which
+     * is useful for SSL connections that can alternate between ways. Finally
+     * lets the controller update the NIO interest.
+     */
+    public void onReady() {
+        boolean readyFound;
+
+        do {
+            readyFound = false;
+
+            synchronized (getInboundWay().getBuffer().getLock()) {
+                if (getInboundWay().getIoState() == IoState.READY) {
+                    readyFound = true;
+                    getInboundWay().onSelected(
+                            getInboundWay().getRegistration());
+                }
+            }
+
+            synchronized (getOutboundWay().getBuffer().getLock()) {
+                if (getOutboundWay().getIoState() == IoState.READY) {
+                    readyFound = true;
+                    getOutboundWay().onSelected(
+                            getOutboundWay().getRegistration());
+                }
+            }
+        } while (readyFound);
+
+        // Let the controller update the NIO interest
+        setDirty(true);
+    }
+
     /**
      * Callback method invoked when the connection has been selected for IO
      * operations it registered interest in. By default it updates the timestamp
@@ -628,30 +709,7 @@ public class Connection<T extends Connector> implements SelectionListener {
                 }
             }
 
-            // Keep looping while ways are ready
-            // Useful for SSL connections that can alternate between ways
-            // without going back to NIO selection.
-            boolean readyFound;
-
-            do {
-                readyFound = false;
-
-                synchronized (getInboundWay().getBuffer().getLock()) {
-                    if (getInboundWay().getIoState() == IoState.READY) {
-                        readyFound = true;
-                        getInboundWay().onSelected(
-                                getInboundWay().getRegistration());
-                    }
-                }
-
-                synchronized (getOutboundWay().getBuffer().getLock()) {
-                    if (getInboundWay().getIoState() == IoState.READY) {
-                        readyFound = true;
-                        getOutboundWay().onSelected(
-                                getOutboundWay().getRegistration());
-                    }
-                }
-            } while (readyFound);
+            onReady();
         } catch (Throwable t) {
             onError("Unexpected error detected. Closing the connection.", t,
                     Status.CONNECTOR_ERROR_INTERNAL);
@@ -675,6 +733,18 @@ public class Connection<T extends Connector> implements SelectionListener {
         close(false);
     }
 
+    /**
+     * Invoked when one of the registrations of the connection needs to wake up
+     * the controller. By default, it marks the connection as dirty.
+     * 
+     * @param selectionRegistration
+     *            The registration requesting the wake up.
+     */
+    public void onWokeup(SelectionRegistration selectionRegistration)
+            throws IOException {
+        setDirty(true);
+    }
+
     /**
      * Opens the connection. By default, set the IO state of the connection to
      * {@link ConnectionState#OPEN} and the IO state of the inbound way to
@@ -702,6 +772,27 @@ public class Connection<T extends Connector> implements SelectionListener {
         init(socketChannel, controller, socketAddress);
     }
 
+    /**
+     * Indicates if the connection is waiting to be controlled by its
+     * controller. When set to true, the connection is queued by its controller
+     * unless it was already waiting.
+     * 
+     * @param dirty
+     *            True if the connection is waiting to be controlled.
+     */
+    public void setDirty(boolean dirty) {
+        if (!dirty) {
+            this.dirty.set(false);
+        } else {
+            ConnectionController connectionController = getController();
+
+            if ((connectionController != null)
+                    && this.dirty.compareAndSet(false, true)) {
+                connectionController.onDirty(this);
+            }
+        }
+    }
+
     /**
      * Indicates if the connection should be persisted across calls.
      * 
@@ -750,6 +841,7 @@ public class Connection<T extends Connector> implements SelectionListener {
             }
 
             this.state = state;
+            setDirty(true);
         }
     }
 
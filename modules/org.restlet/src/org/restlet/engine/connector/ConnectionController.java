@@ -39,30 +39,84 @@ import java.nio.channels.ClosedByInterruptException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
 import org.restlet.Context;
+import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.WakeupListener;
 import org.restlet.util.SelectionListener;
 import org.restlet.util.SelectionRegistration;
 
 /**
  * Controls the IO work of parent connector helper and manages its connections.
+ * Only the connections whose state changed, as signaled via
+ * {@link #onDirty(Connection)}, are controlled at each loop. Idle and IO time
+ * outs are detected using a queue of deadlines.
  * 
  * @author Jerome Louvel
  */
 public class ConnectionController extends Controller implements Runnable,
         WakeupListener {
 
+    /**
+     * Deadline after which a connection should be checked for time out.
+     */
+    private static class Deadline implements Comparable<Deadline> {
+
+        /** The connection to check. */
+        private final Connection<?> connection;
+
+        /** The time of the check. */
+        private final long time;
+
+        /**
+         * Constructor.
+         * 
+         * @param connection
+         *            The connection to check.
+         * @param time
+         *            The time of the check.
+         */
+        public Deadline(Connection<?> connection, long time) {
+            this.connection = connection;
+            this.time = time;
+        }
+
+        public int compareTo(Deadline other) {
+            return (this.time < other.time) ? -1
+                    : ((this.time == other.time) ? 0 : 1);
+        }
+    }
+
+    /** The connections being controlled during the current loop. */
+    private final List<Connection<?>> controlledConnections;
+
+    /** The current deadline of each connection, indexed by connection. */
+    private final Map<Connection<?>, Deadline> deadlines;
+
+    /** The queue of deadlines, ordered by time. */
+    private final PriorityQueue<Deadline> deadlinesQueue;
+
+    /** The queue of connections whose state changed. */
+    private final Queue<Connection<?>> dirtyConnections;
+
     /** The list of new selection registrations. */
     private final Queue<SelectionRegistration> newRegistrations;
 
     /** The NIO selector. */
     private volatile Selector selector;
 
+    /** The controller thread. */
+    private volatile Thread thread;
+
     /** The list of updated selection registrations. */
     private final Queue<SelectionRegistration> updatedRegistrations;
 
@@ -74,6 +128,10 @@ public class ConnectionController extends Controller implements Runnable,
      */
     public ConnectionController(ConnectionHelper<?> helper) {
         super(helper);
+        this.controlledConnections = new ArrayList<Connection<?>>();
+        this.deadlines = new HashMap<Connection<?>, Deadline>();
+        this.deadlinesQueue = new PriorityQueue<Deadline>();
+        this.dirtyConnections = new ConcurrentLinkedQueue<Connection<?>>();
         this.newRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
         this.updatedRegistrations = new ConcurrentLinkedQueue<SelectionRegistration>();
     }
@@ -94,26 +152,98 @@ public class ConnectionController extends Controller implements Runnable,
 
         if (conn.getState() == ConnectionState.CLOSED) {
             // Detach the connection and collect it
-            getHelper().getConnections().remove(conn);
+            this.deadlines.remove(conn);
+            getHelper().removeConnection(conn);
             getHelper().checkin(conn);
-        } else if ((conn.getState() == ConnectionState.CLOSING)
-                && conn.isEmpty()) {
-            conn.close(false);
-        } else if (conn.hasTimedOut()) {
-            conn.onTimeOut();
-        } else if (conn.updateState()) {
-            getUpdatedRegistrations().add(conn.getRegistration());
+        } else {
+            if (!this.deadlines.containsKey(conn)) {
+                scheduleTimeOut(conn);
+            }
+
+            if ((conn.getState() == ConnectionState.CLOSING) && conn.isEmpty()) {
+                conn.close(false);
+            } else {
+                if (conn.updateState()) {
+                    getUpdatedRegistrations().add(conn.getRegistration());
+                }
+
+                InboundWay inboundWay = conn.getInboundWay();
+
+                if ((inboundWay.getMessageState() == MessageState.START)
+                        && (inboundWay.getIoState() == IoState.INTEREST)
+                        && inboundWay.getBuffer().canDrain()) {
+                    // The next pipelined message has already been received,
+                    // no NIO selection will occur to read it
+                    synchronized (inboundWay.getBuffer().getLock()) {
+                        inboundWay.onSelected(inboundWay.getRegistration());
+                    }
+
+                    conn.setDirty(true);
+                } else if ((inboundWay.getIoState() == IoState.READY)
+                        || (conn.getOutboundWay().getIoState() == IoState.READY)) {
+                    // Ways made ready outside of a NIO selection, for example
+                    // after the completion of SSL delegated tasks
+                    conn.onReady();
+                }
+            }
         }
     }
 
     /**
-     * Controls all helper connections.
+     * Controls the connections whose state changed since the previous loop.
+     * Connections marked as dirty while being controlled are controlled
+     * during the next loop.
      * 
      * @throws IOException
      */
     protected void controlConnections() throws IOException {
-        for (int i = 0; i < getHelper().getConnections().size(); i++) {
-            controlConnection(getHelper().getConnections().get(i));
+        Connection<?> conn = getDirtyConnections().poll();
+
+        while (conn != null) {
+            this.controlledConnections.add(conn);
+            conn = getDirtyConnections().poll();
+        }
+
+        for (int i = 0; i < this.controlledConnections.size(); i++) {
+            conn = this.controlledConnections.get(i);
+            conn.setDirty(false);
+
+            if (conn.getController() == this) {
+                controlConnection(conn);
+            }
+        }
+
+        this.controlledConnections.clear();
+    }
+
+    /**
+     * Controls the connections whose time out deadline has been reached. Time
+     * out connections are notified, others are scheduled again based on their
+     * last activity.
+     */
+    protected void controlTimeOuts() {
+        long now = System.currentTimeMillis();
+        Deadline deadline = this.deadlinesQueue.peek();
+
+        while ((deadline != null) && (deadline.time <= now)) {
+            this.deadlinesQueue.poll();
+            Connection<?> conn = deadline.connection;
+
+            // Ignore obsolete deadlines
+            if (this.deadlines.get(conn) == deadline) {
+                this.deadlines.remove(conn);
+
+                if ((conn.getController() == this)
+                        && (conn.getState() != ConnectionState.CLOSED)) {
+                    if (conn.hasTimedOut()) {
+                        conn.onTimeOut();
+                    } else {
+                        scheduleTimeOut(conn);
+                    }
+                }
+            }
+
+            deadline = this.deadlinesQueue.peek();
         }
     }
 
@@ -138,9 +268,13 @@ public class ConnectionController extends Controller implements Runnable,
     @Override
     protected void doInit() {
         this.selector = createSelector();
-        // Done in the controller for thread safety reason regarding the byte
-        // buffers part of the pooled connections
-        getHelper().createConnectionPool();
+        this.thread = Thread.currentThread();
+
+        if (isMain()) {
+            // Done in the controller for thread safety reason regarding the
+            // byte buffers part of the pooled connections
+            getHelper().createConnectionPool();
+        }
     }
 
     @Override
@@ -155,11 +289,32 @@ public class ConnectionController extends Controller implements Runnable,
 
     @Override
     protected void doRun(long sleepTime) throws IOException {
-        super.doRun(sleepTime);
+        if (isMain()) {
+            super.doRun(sleepTime);
+        }
+
         controlConnections();
+        controlTimeOuts();
         registerKeys();
         updateKeys();
         selectKeys(sleepTime);
+
+        if (!isMain()
+                && (!getHelper().getInboundMessages().isEmpty() || !getHelper()
+                        .getOutboundMessages().isEmpty())) {
+            // Let the main controller dispatch the queued messages
+            getHelper().getController().wakeup();
+        }
+    }
+
+    /**
+     * Returns the queue of connections whose state changed and that should be
+     * controlled during the next loop.
+     * 
+     * @return The queue of connections whose state changed.
+     */
+    protected Queue<Connection<?>> getDirtyConnections() {
+        return dirtyConnections;
     }
 
     /**
@@ -189,6 +344,17 @@ public class ConnectionController extends Controller implements Runnable,
         return this.updatedRegistrations;
     }
 
+    /**
+     * Indicates if this controller is the main controller of the parent helper,
+     * in charge of dispatching inbound and outbound messages in addition to its
+     * own IO work.
+     * 
+     * @return True if this controller is the main controller.
+     */
+    public boolean isMain() {
+        return getHelper().getController() == this;
+    }
+
     /**
      * Called back when a ready key has been selected.
      * 
@@ -216,6 +382,22 @@ public class ConnectionController extends Controller implements Runnable,
         }
     }
 
+    /**
+     * Invoked when the state of a connection managed by this controller
+     * changed. Queues the connection so it can be controlled during the next
+     * loop and wakes up the controller if called from another thread.
+     * 
+     * @param connection
+     *            The dirty connection.
+     */
+    public void onDirty(Connection<?> connection) {
+        getDirtyConnections().add(connection);
+
+        if (Thread.currentThread() != this.thread) {
+            wakeup();
+        }
+    }
+
     /**
      * Invoked when one of the connections needs to wake up the controller.
      */
@@ -264,6 +446,22 @@ public class ConnectionController extends Controller implements Runnable,
         }
     }
 
+    /**
+     * Schedules the next time out check of a connection based on its last
+     * activity.
+     * 
+     * @param conn
+     *            The connection to check.
+     */
+    protected void scheduleTimeOut(Connection<?> conn) {
+        if (conn.getMaxIoIdleTimeMs() > 0) {
+            Deadline deadline = new Deadline(conn, conn.getLastActivity()
+                    + conn.getMaxIoIdleTimeMs());
+            this.deadlines.put(conn, deadline);
+            this.deadlinesQueue.add(deadline);
+        }
+    }
+
     /**
      * Selects the keys ready for IO operations.
      * 
@@ -280,7 +478,25 @@ public class ConnectionController extends Controller implements Runnable,
                     "NIO controller about to sleep " + sleepTime + " ms...");
         }
 
-        int selectCount = getSelector().select();
+        int selectCount = 0;
+        Deadline deadline = this.deadlinesQueue.peek();
+
+        if (!getDirtyConnections().isEmpty()) {
+            // Some connections are waiting to be controlled
+            selectCount = getSelector().selectNow();
+        } else {
+            // Sleep at most the given time, so that queued messages and the
+            // overload state are checked again, and wake up in time for the
+            // next time out check
+            long timeout = sleepTime;
+
+            if (deadline != null) {
+                timeout = Math.min(timeout,
+                        deadline.time - System.currentTimeMillis());
+            }
+
+            selectCount = getSelector().select(Math.max(1L, timeout));
+        }
 
         if (selectCount > 0) {
             if (getHelper().getLogger().isLoggable(Level.FINER)) {
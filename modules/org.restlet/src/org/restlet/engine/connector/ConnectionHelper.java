@@ -130,6 +130,18 @@ public abstract class ConnectionHelper<T extends Connector> extends
         this.connectionPool = null;
     }
 
+    /**
+     * Adds a new connection to the set of active connections and marks it as
+     * dirty so its controller takes care of it.
+     * 
+     * @param connection
+     *            The connection to add.
+     */
+    protected void addConnection(Connection<T> connection) {
+        getConnections().add(connection);
+        connection.setDirty(true);
+    }
+
     /**
      * Checks in the connection back into the pool.
      * 
@@ -188,6 +200,11 @@ public abstract class ConnectionHelper<T extends Connector> extends
             SocketChannel socketChannel, ConnectionController controller,
             InetSocketAddress socketAddress) throws IOException;
 
+    @Override
+    protected ConnectionController createSecondaryController() {
+        return new ConnectionController(this);
+    }
+
     /**
      * Creates the connection pool.
      */
@@ -359,4 +376,14 @@ public abstract class ConnectionHelper<T extends Connector> extends
         return Boolean.parseBoolean(getHelpedParameters().getFirstValue(
                 "socketReuseAddress", "true"));
     }
+
+    /**
+     * Removes a closed connection from the set of active connections.
+     * 
+     * @param connection
+     *            The connection to remove.
+     */
+    protected void removeConnection(Connection<?> connection) {
+        getConnections().remove(connection);
+    }
 }
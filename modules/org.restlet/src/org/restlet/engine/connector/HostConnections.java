@@ -0,0 +1,229 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.connector;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.restlet.Client;
+import org.restlet.Response;
+
+/**
+ * Connections opened by a client connector to a given host address, with the
+ * queue of the responses waiting for one of them to become available. The
+ * queue is served in arrival order, when the limits on the number of
+ * connections prevent the creation of new ones and no connection can pipeline
+ * the request.
+ * 
+ * @author Jerome Louvel
+ */
+public class HostConnections {
+
+    /** The connections opened to the host. */
+    private final List<Connection<Client>> connections;
+
+    /** The responses waiting for an available connection. */
+    private final Queue<Response> pendingResponses;
+
+    /** The host socket address. */
+    private final InetSocketAddress socketAddress;
+
+    /**
+     * Constructor.
+     * 
+     * @param socketAddress
+     *            The host socket address.
+     */
+    public HostConnections(InetSocketAddress socketAddress) {
+        this.connections = new CopyOnWriteArrayList<Connection<Client>>();
+        this.pendingResponses = new ConcurrentLinkedQueue<Response>();
+        this.socketAddress = socketAddress;
+    }
+
+    /**
+     * Returns the first connection available to handle new messages.
+     * 
+     * @return The first available connection or null.
+     */
+    public Connection<Client> getAvailableConnection() {
+        for (Connection<Client> connection : getConnections()) {
+            if (connection.isAvailable()) {
+                return connection;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the number of connections handling messages.
+     * 
+     * @return The number of connections handling messages.
+     */
+    public int getBusyCount() {
+        return getConnections().size() - getIdleCount();
+    }
+
+    /**
+     * Returns the modifiable list of connections opened to the host.
+     * 
+     * @return The modifiable list of connections opened to the host.
+     */
+    public List<Connection<Client>> getConnections() {
+        return connections;
+    }
+
+    /**
+     * Returns the number of connections available to handle new messages.
+     * 
+     * @return The number of connections available to handle new messages.
+     */
+    public int getIdleCount() {
+        int result = 0;
+
+        for (Connection<Client> connection : getConnections()) {
+            if (connection.isAvailable()) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of responses waiting for an available connection.
+     * 
+     * @return The number of responses waiting for an available connection.
+     */
+    public int getPendingCount() {
+        return getPendingResponses().size();
+    }
+
+    /**
+     * Returns the queue of responses waiting for an available connection.
+     * 
+     * @return The queue of responses waiting for an available connection.
+     */
+    public Queue<Response> getPendingResponses() {
+        return pendingResponses;
+    }
+
+    /**
+     * Returns the open connection with the least requests in flight that can
+     * pipeline one more request. Only connections with pipelining enabled and
+     * whose requests in flight can all be replayed are considered.
+     * 
+     * @param maxDepth
+     *            The maximum number of requests in flight per connection.
+     * @return The least loaded pipelining connection or null.
+     */
+    public Connection<Client> getPipeliningConnection(int maxDepth) {
+        Connection<Client> result = null;
+        int bestScore = maxDepth;
+
+        for (Connection<Client> connection : getConnections()) {
+            if (connection.isPipelining() && connection.isPersistent()
+                    && (connection.getState() == ConnectionState.OPEN)) {
+                int score = connection.getLoadScore();
+
+                if ((score < bestScore) && isReplayable(connection)) {
+                    bestScore = score;
+                    result = connection;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the host socket address.
+     * 
+     * @return The host socket address.
+     */
+    public InetSocketAddress getSocketAddress() {
+        return socketAddress;
+    }
+
+    /**
+     * Indicates if all the requests in flight on a connection can be replayed.
+     * Requests with side effects must not be followed by pipelined requests.
+     * 
+     * @param connection
+     *            The connection to inspect.
+     * @return True if all the requests in flight can be replayed.
+     */
+    private boolean isReplayable(Connection<Client> connection) {
+        if (!(connection.getInboundWay() instanceof HttpClientInboundWay)
+                || !(connection.getOutboundWay() instanceof HttpClientOutboundWay)) {
+            return false;
+        }
+
+        for (Response response : ((HttpClientInboundWay) connection
+                .getInboundWay()).getMessages()) {
+            if (!ClientConnectionHelper.isReplayable(response.getRequest())) {
+                return false;
+            }
+        }
+
+        for (Response response : ((HttpClientOutboundWay) connection
+                .getOutboundWay()).getMessages()) {
+            if (!ClientConnectionHelper.isReplayable(response.getRequest())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Indicates if no connection is opened and no response is waiting.
+     * 
+     * @return True if no connection is opened and no response is waiting.
+     */
+    public boolean isEmpty() {
+        return getConnections().isEmpty() && getPendingResponses().isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return getSocketAddress() + " (idle: " + getIdleCount() + ", busy: "
+                + getBusyCount() + ", pending: " + getPendingCount() + ")";
+    }
+
+}
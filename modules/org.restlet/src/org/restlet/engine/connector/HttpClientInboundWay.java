@@ -40,6 +40,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.restlet.Client;
 import org.restlet.Response;
 import org.restlet.data.Status;
+import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.IoState;
 
 /**
@@ -102,7 +103,12 @@ public class HttpClientInboundWay extends ClientInboundWay {
 
     @Override
     public boolean isEmpty() {
-        return super.isEmpty() && getMessages().isEmpty();
+        // Once the connection is closing and the buffer drained, no response
+        // will be read anymore, except the body of the current one. The
+        // requests still waiting are retried when the connection is closed.
+        boolean closing = (getConnection().getState() == ConnectionState.CLOSING)
+                && (getMessageState() != MessageState.BODY);
+        return super.isEmpty() && (getMessages().isEmpty() || closing);
     }
 
     /**
@@ -116,38 +122,82 @@ public class HttpClientInboundWay extends ClientInboundWay {
                         .getSelectionListener() != null));
     }
 
+    @Override
+    public void onClosed() {
+        if ((getMessage() != null)
+                && (getMessageState() == MessageState.BODY)) {
+            // The response has already been handed to the caller
+            getMessages().remove(getMessage());
+        }
+
+        retryMessages(Status.CONNECTOR_ERROR_COMMUNICATION, true);
+        super.onClosed();
+    }
+
     @Override
     public void onCompleted(boolean endDetected) throws IOException {
+        boolean closeAnnounced = HeaderUtils.isConnectionClose(getHeaders());
+
         if (getMessage() != null) {
             getMessages().remove(getMessage());
         }
 
         super.onCompleted(endDetected);
+
+        if ((getConnection().getState() != ConnectionState.OPEN)
+                && !getBuffer().canDrain()) {
+            // No more response will be read on this connection. If the server
+            // announced it, the next requests weren't processed.
+            retryMessages(Status.CONNECTOR_ERROR_COMMUNICATION,
+                    !closeAnnounced);
+            ((HttpClientOutboundWay) getConnection().getOutboundWay())
+                    .retryMessages(Status.CONNECTOR_ERROR_COMMUNICATION);
+        } else if (!getMessages().isEmpty()) {
+            // Read the response to the next pipelined request, which may
+            // already be buffered even if the connection is closing
+            setMessageState(MessageState.START);
+        }
     }
 
     @Override
     public void onError(Status status) {
-        for (Response rsp : getMessages()) {
-            if (rsp != getMessage()) {
-                getMessages().remove(rsp);
-                getHelper().onInboundError(status, rsp);
-            }
+        if (getMessageState() == MessageState.BODY) {
+            // The response has already been handed to the caller
+            getMessages().remove(getMessage());
+        } else {
+            // Nothing was handed to the caller yet
+            setMessage(null);
         }
 
+        retryMessages(status, true);
         super.onError(status);
     }
 
     @Override
     public void onTimeOut() {
+        getMessages().remove(getMessage());
+        retryMessages(Status.CONNECTOR_ERROR_COMMUNICATION, true);
+        super.onTimeOut();
+    }
+
+    /**
+     * Hands the messages whose request has been written but whose response
+     * hasn't been read back to the helper, so that they are sent again on
+     * another connection, or fail with the given status.
+     * 
+     * @param status
+     *            The error status to set if a message can't be sent again.
+     * @param processed
+     *            Indicates if the requests may have been processed by the
+     *            server.
+     */
+    protected void retryMessages(Status status, boolean processed) {
         for (Response rsp : getMessages()) {
-            if (rsp != getMessage()) {
-                getMessages().remove(rsp);
-                getHelper().onInboundError(
-                        Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+            if (getMessages().remove(rsp)
+                    && !getHelper().retry(rsp, processed)) {
+                getHelper().onInboundError(status, rsp);
             }
         }
-
-        super.onTimeOut();
     }
 
     @Override
@@ -95,21 +95,53 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
     }
 
     @Override
-    public void onCompleted(boolean endDetected) throws IOException {
+    public void onClosed() {
         Response message = getMessage();
 
-        if (message != null) {
-            Request request = message.getRequest();
-            Queue<Response> inboundMessages = ((HttpClientInboundWay) getConnection()
-                    .getInboundWay()).getMessages();
+        if ((message != null) && getMessages().remove(message)
+                && !getHelper().retry(message, true)) {
+            getHelper().onOutboundError(Status.CONNECTOR_ERROR_COMMUNICATION,
+                    message);
+        }
 
-            // The request has been written
-            getMessages().remove(message);
+        retryMessages(Status.CONNECTOR_ERROR_COMMUNICATION);
+        super.onClosed();
+    }
+
+    @Override
+    public void onCompleted(boolean endDetected) throws IOException {
+        Response message = getMessage();
 
-            if (request.isExpectingResponse()) {
-                inboundMessages.add(message);
-                getConnection().getInboundWay().setMessageState(
-                        MessageState.START);
+        // The request has been written, unless it was already retried
+        if ((message != null) && getMessages().remove(message)) {
+            Request request = message.getRequest();
+            HttpClientInboundWay inboundWay = (HttpClientInboundWay) getConnection()
+                    .getInboundWay();
+
+            if (!request.isExpectingResponse()) {
+                // Nothing to wait for
+            } else if (getConnection().getState() != ConnectionState.OPEN) {
+                // No response will be read on this connection
+                if (!getHelper().retry(message, true)) {
+                    getHelper().onOutboundError(
+                            Status.CONNECTOR_ERROR_COMMUNICATION, message);
+                }
+            } else {
+                inboundWay.getMessages().add(message);
+
+                if ((getConnection().getState() != ConnectionState.OPEN)
+                        && inboundWay.getMessages().remove(message)) {
+                    // The connection started to close meanwhile, while the
+                    // caller thread was reading the previous response, and
+                    // the waiting messages may have already been retried
+                    if (!getHelper().retry(message, true)) {
+                        getHelper().onOutboundError(
+                                Status.CONNECTOR_ERROR_COMMUNICATION, message);
+                    }
+                } else if (inboundWay.getMessageState() == MessageState.IDLE) {
+                    // Don't interrupt the reading of a previous response
+                    inboundWay.setMessageState(MessageState.START);
+                }
             }
         }
 
@@ -118,27 +150,39 @@ public class HttpClientOutboundWay extends ClientOutboundWay {
 
     @Override
     public void onError(Status status) {
-        for (Response rsp : getMessages()) {
-            if (rsp != getMessage()) {
-                getMessages().remove(rsp);
-                getHelper().onOutboundError(status, rsp);
-            }
+        Response message = getMessage();
+
+        if ((message != null) && getMessages().remove(message)
+                && getHelper().retry(message, true)) {
+            setMessage(null);
         }
 
+        retryMessages(status);
         super.onError(status);
     }
 
     @Override
     public void onTimeOut() {
+        getMessages().remove(getMessage());
+        retryMessages(Status.CONNECTOR_ERROR_COMMUNICATION);
+        super.onTimeOut();
+    }
+
+    /**
+     * Hands the queued messages that aren't being written back to the helper,
+     * so that they are sent on another connection, or fail with the given
+     * status.
+     * 
+     * @param status
+     *            The error status to set if a message can't be sent again.
+     */
+    protected void retryMessages(Status status) {
         for (Response rsp : getMessages()) {
-            if (rsp != getMessage()) {
-                getMessages().remove(rsp);
-                getHelper().onOutboundError(
-                        Status.CONNECTOR_ERROR_COMMUNICATION, rsp);
+            if ((rsp != getMessage()) && getMessages().remove(rsp)
+                    && !getHelper().retry(rsp, false)) {
+                getHelper().onOutboundError(status, rsp);
             }
         }
-
-        super.onTimeOut();
     }
 
     @Override
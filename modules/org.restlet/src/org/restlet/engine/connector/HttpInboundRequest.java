@@ -176,14 +176,20 @@ public class HttpInboundRequest extends Request implements InboundRequest {
                 .getProtocols().get(0);
 
         if (versionSeparator != -1) {
-            String name = protocol.substring(0, versionSeparator);
-            String version = protocol.substring(versionSeparator + 1);
-
-            if (connectorProtocol.getTechnicalName().equals(name)
-                    && connectorProtocol.getVersion().equals(version)) {
+            String technicalName = connectorProtocol.getTechnicalName();
+            String version = connectorProtocol.getVersion();
+
+            // Compare in place to avoid creating substrings
+            if ((versionSeparator == technicalName.length())
+                    && protocol.startsWith(technicalName)
+                    && (protocol.length() == versionSeparator + 1
+                            + version.length())
+                    && protocol.endsWith(version)) {
                 setProtocol(connectorProtocol);
             } else {
-                setProtocol(Protocol.valueOf(name, version));
+                setProtocol(Protocol.valueOf(
+                        protocol.substring(0, versionSeparator),
+                        protocol.substring(versionSeparator + 1)));
             }
         }
 
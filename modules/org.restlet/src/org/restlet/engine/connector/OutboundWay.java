@@ -34,6 +34,8 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SelectableChannel;
@@ -43,6 +45,7 @@ import java.util.logging.Level;
 import org.restlet.Message;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.CharacterSet;
 import org.restlet.data.Protocol;
 import org.restlet.data.Status;
 import org.restlet.engine.ConnectorHelper;
@@ -54,8 +57,11 @@ import org.restlet.engine.io.Buffer;
 import org.restlet.engine.io.IoState;
 import org.restlet.engine.io.ReadableChunkingChannel;
 import org.restlet.engine.io.ReadableSizedChannel;
+import org.restlet.engine.io.WritableSocketChannel;
 import org.restlet.engine.util.StringUtils;
+import org.restlet.representation.ByteArrayRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.representation.StringRepresentation;
 import org.restlet.service.ConnectorService;
 import org.restlet.util.Series;
 
@@ -81,12 +87,27 @@ public abstract class OutboundWay extends Way {
                 + ((protocolVersion == null) ? "1.1" : protocolVersion);
     }
 
+    /**
+     * The in-memory entity bytes, directly written to the socket channel after
+     * the headers.
+     */
+    private volatile ByteBuffer entityBytes;
+
     /** The entity as a NIO readable byte channel. */
     private volatile ReadableByteChannel entityChannel;
 
     /** The type of the entity channel. */
     private volatile EntityType entityChannelType;
 
+    /**
+     * The entity as a NIO file channel, directly transferred to the socket
+     * channel after the headers.
+     */
+    private volatile FileChannel entityFileChannel;
+
+    /** The number of entity bytes remaining to be transferred from the file. */
+    private volatile long entityRemaining;
+
     /**
      * The entity's NIO selection key holding the link between the entity to be
      * written and the way.
@@ -106,7 +127,10 @@ public abstract class OutboundWay extends Way {
      */
     public OutboundWay(Connection<?> connection, int bufferSize) {
         super(connection, bufferSize);
+        this.entityBytes = null;
         this.entityChannel = null;
+        this.entityFileChannel = null;
+        this.entityRemaining = 0;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
     }
@@ -162,11 +186,76 @@ public abstract class OutboundWay extends Way {
     @Override
     public void clear() {
         super.clear();
+        this.entityBytes = null;
         this.entityChannel = null;
+        this.entityFileChannel = null;
+        this.entityRemaining = 0;
         this.entitySelectionKey = null;
         this.headerIndex = 0;
     }
 
+    /**
+     * Returns the in-memory entity bytes, directly written to the socket
+     * channel after the headers.
+     * 
+     * @return The in-memory entity bytes or null.
+     */
+    protected ByteBuffer getEntityBytes() {
+        return entityBytes;
+    }
+
+    /**
+     * Returns the in-memory bytes of an entity that can be directly written
+     * to the socket channel without being copied into the IO buffer. Only
+     * {@link StringRepresentation} and {@link ByteArrayRepresentation}
+     * entities are supported.
+     * 
+     * @param entity
+     *            The entity to inspect.
+     * @return The in-memory entity bytes or null.
+     * @throws IOException
+     */
+    protected ByteBuffer getEntityBytes(Representation entity)
+            throws IOException {
+        ByteBuffer result = null;
+
+        if (entity instanceof StringRepresentation) {
+            String text = entity.getText();
+
+            if (text != null) {
+                CharacterSet charset = (entity.getCharacterSet() == null) ? CharacterSet.ISO_8859_1
+                        : entity.getCharacterSet();
+                result = ByteBuffer.wrap(text.getBytes(charset.getName()));
+            }
+        } else if (entity instanceof ByteArrayRepresentation) {
+            InputStream stream = entity.getStream();
+
+            if (stream != null) {
+                // The stream is backed by a byte array, fully available
+                byte[] bytes = new byte[stream.available()];
+                int length = 0;
+                int read = 0;
+
+                while ((length < bytes.length)
+                        && ((read = stream.read(bytes, length, bytes.length
+                                - length)) > 0)) {
+                    length += read;
+                }
+
+                result = ByteBuffer.wrap(bytes, 0, length);
+            }
+        }
+
+        if ((result != null)
+                && (result.remaining() != entity.getAvailableSize())) {
+            // Inconsistent with the declared size, rely on the usual path
+            // which detects the size mismatch
+            result = null;
+        }
+
+        return result;
+    }
+
     /**
      * Returns the entity as a NIO readable byte channel.
      * 
@@ -186,12 +275,13 @@ public abstract class OutboundWay extends Way {
     }
 
     /**
-     * Returns the entity as a NIO file channel.
+     * Returns the entity as a NIO file channel, directly transferred to the
+     * socket channel after the headers.
      * 
-     * @return The entity as a NIO file channel.
+     * @return The entity as a NIO file channel or null.
      */
     public FileChannel getEntityFileChannel() {
-        return (FileChannel) getEntityChannel();
+        return entityFileChannel;
     }
 
     /**
@@ -209,6 +299,16 @@ public abstract class OutboundWay extends Way {
         return result;
     }
 
+    /**
+     * Returns the number of entity bytes remaining to be transferred from the
+     * file.
+     * 
+     * @return The number of entity bytes remaining to be transferred.
+     */
+    protected long getEntityRemaining() {
+        return entityRemaining;
+    }
+
     /**
      * Returns the entity as a NIO non-blocking selectable channel.
      * 
@@ -267,6 +367,19 @@ public abstract class OutboundWay extends Way {
                 || getBuffer().canDrain();
     }
 
+    /**
+     * Indicates if the entity can be directly written to the underlying socket
+     * channel, using gathering writes for in-memory entities and zero-copy
+     * transfers for file entities. This is only possible with a plain socket
+     * channel, neither secured nor traced, and without throttling.
+     * 
+     * @return True if the entity can be directly written.
+     */
+    protected boolean isDirectWriting() {
+        return (getHelper().getThrottleTimeMs() <= 0)
+                && (getConnection().getWritableSelectionChannel() instanceof WritableSocketChannel);
+    }
+
     @Override
     public void onCompleted(boolean endReached) throws IOException {
         if (getActualMessage() != null) {
@@ -276,6 +389,10 @@ public abstract class OutboundWay extends Way {
                 getEntityChannel().close();
             }
 
+            setEntityBytes(null);
+            setEntityFileChannel(null);
+            setEntityRemaining(0);
+
             // Release entity
             if (messageEntity != null) {
                 messageEntity.release();
@@ -301,8 +418,22 @@ public abstract class OutboundWay extends Way {
     @Override
     public int onDrain(Buffer buffer, int maxDrained, Object... args)
             throws IOException {
-        int result = getBuffer().drain(
-                getConnection().getWritableSelectionChannel());
+        int result = 0;
+
+        if ((getEntityBytes() != null) && getEntityBytes().hasRemaining()) {
+            // Write the pending headers and the entity with a single gathering
+            // write
+            result = (int) ((WritableSocketChannel) getConnection()
+                    .getWritableSelectionChannel()).write(new ByteBuffer[] {
+                    getBuffer().getBytes(), getEntityBytes() });
+
+            if (!getEntityBytes().hasRemaining()) {
+                setMessageState(MessageState.END);
+            }
+        } else {
+            result = getBuffer().drain(
+                    getConnection().getWritableSelectionChannel());
+        }
 
         if (getLogger().isLoggable(Level.FINER)) {
             getLogger().log(Level.FINER, result + " bytes written");
@@ -341,6 +472,11 @@ public abstract class OutboundWay extends Way {
         // Write the message or part of it in the byte
         // buffer
         if (getMessageState() == MessageState.BODY) {
+            if ((getEntityBytes() != null) || (getEntityFileChannel() != null)) {
+                // The entity is directly written after the pending headers
+                return 0;
+            }
+
             try {
                 int filled = buffer.fill(getEntityChannel());
 
@@ -420,6 +556,14 @@ public abstract class OutboundWay extends Way {
     public int processIoBuffer() throws IOException {
         int result = super.processIoBuffer();
 
+        if ((getMessageState() == MessageState.BODY) && getBuffer().isEmpty()) {
+            int written = writeEntity();
+
+            if (written > 0) {
+                result = Math.max(result, 0) + written;
+            }
+        }
+
         if (getMessage() != null) {
             if (getMessageState() == MessageState.END) {
                 // Message fully written, ready for a new one
@@ -433,6 +577,17 @@ public abstract class OutboundWay extends Way {
         return result;
     }
 
+    /**
+     * Sets the in-memory entity bytes, directly written to the socket channel
+     * after the headers.
+     * 
+     * @param entityBytes
+     *            The in-memory entity bytes.
+     */
+    protected void setEntityBytes(ByteBuffer entityBytes) {
+        this.entityBytes = entityBytes;
+    }
+
     /**
      * Sets the entity as a NIO readable byte channel.
      * 
@@ -453,6 +608,28 @@ public abstract class OutboundWay extends Way {
         this.entityChannelType = entityChannelType;
     }
 
+    /**
+     * Sets the entity as a NIO file channel, directly transferred to the socket
+     * channel after the headers.
+     * 
+     * @param entityFileChannel
+     *            The entity as a NIO file channel.
+     */
+    protected void setEntityFileChannel(FileChannel entityFileChannel) {
+        this.entityFileChannel = entityFileChannel;
+    }
+
+    /**
+     * Sets the number of entity bytes remaining to be transferred from the
+     * file.
+     * 
+     * @param entityRemaining
+     *            The number of entity bytes remaining to be transferred.
+     */
+    protected void setEntityRemaining(long entityRemaining) {
+        this.entityRemaining = entityRemaining;
+    }
+
     /**
      * Sets the entity's NIO selection key holding the link between the entity
      * to be written and the way.
@@ -553,11 +730,29 @@ public abstract class OutboundWay extends Way {
                     }
 
                     setMessageState(MessageState.BODY);
+                    Representation entity = getActualMessage().getEntity();
+                    boolean direct = isDirectWriting()
+                            && (entity.getAvailableSize() != Representation.UNKNOWN_SIZE);
+
+                    if (direct) {
+                        setEntityBytes(getEntityBytes(entity));
+
+                        if (getEntityBytes() != null) {
+                            // No need for an entity channel
+                            break;
+                        }
+                    }
+
                     ReadableByteChannel rbc = getActualMessage().getEntity()
                             .getChannel();
 
                     if (rbc instanceof FileChannel) {
                         setEntityChannelType(EntityType.TRANSFERABLE);
+
+                        if (direct) {
+                            setEntityFileChannel((FileChannel) rbc);
+                            setEntityRemaining(entity.getAvailableSize());
+                        }
                     } else if (rbc instanceof BlockableChannel) {
                         BlockableChannel bc = (BlockableChannel) rbc;
 
@@ -600,6 +795,74 @@ public abstract class OutboundWay extends Way {
         }
     }
 
+    /**
+     * Directly writes the remaining in-memory entity bytes or transfers the
+     * remaining file entity bytes to the socket channel, once the headers have
+     * been fully written.
+     * 
+     * @return The number of bytes written.
+     * @throws IOException
+     */
+    protected int writeEntity() throws IOException {
+        long result = 0;
+        WritableSocketChannel wsc = (getEntityBytes() == null)
+                && (getEntityFileChannel() == null) ? null
+                : (WritableSocketChannel) getConnection()
+                        .getWritableSelectionChannel();
+        long written = -1;
+
+        if (wsc == null) {
+            return 0;
+        } else if (getEntityBytes() != null) {
+            while (getEntityBytes().hasRemaining() && (written != 0)) {
+                written = wsc.write(getEntityBytes());
+                result += written;
+            }
+
+            if (!getEntityBytes().hasRemaining()) {
+                setMessageState(MessageState.END);
+            }
+        } else {
+            FileChannel fc = getEntityFileChannel();
+
+            while ((getEntityRemaining() > 0) && (written != 0)) {
+                long position = fc.position();
+
+                if (position >= fc.size()) {
+                    throw new IOException(
+                            "Unable to transfer the entity. End of file reached with "
+                                    + getEntityRemaining()
+                                    + " bytes remaining");
+                }
+
+                written = wsc.transferFrom(fc, position, getEntityRemaining());
+
+                if (written > 0) {
+                    fc.position(position + written);
+                    setEntityRemaining(getEntityRemaining() - written);
+                    result += written;
+                }
+            }
+
+            if (getEntityRemaining() == 0) {
+                setMessageState(MessageState.END);
+            }
+        }
+
+        if (getLogger().isLoggable(Level.FINER)) {
+            getLogger().log(Level.FINER,
+                    result + " entity bytes directly written");
+        }
+
+        if ((written == 0) && (getIoState() == IoState.PROCESSING)) {
+            // The socket channel can't write more, wait for a new NIO
+            // selection
+            setIoState(IoState.INTEREST);
+        }
+
+        return (int) result;
+    }
+
     /**
      * Writes the start line of the current outbound message.
      * 
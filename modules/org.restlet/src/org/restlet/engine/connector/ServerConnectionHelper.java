@@ -208,6 +208,9 @@ public abstract class ServerConnectionHelper extends ConnectionHelper<Server> {
                     if (canHandle(connection, response)) {
                         // Add the response to the outbound queue
                         connection.getOutboundWay().handle(response);
+
+                        // Let the controller update the NIO interest
+                        connection.setDirty(true);
                     } else {
                         // Put the response at the end of the queue
                         getOutboundMessages().add(response);
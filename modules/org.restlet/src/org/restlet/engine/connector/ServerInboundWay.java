@@ -34,14 +34,20 @@
 package org.restlet.engine.connector;
 
 import java.io.IOException;
+import java.util.logging.Level;
 
 import org.restlet.Message;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Server;
+import org.restlet.data.Method;
+import org.restlet.engine.header.Header;
 import org.restlet.engine.header.HeaderUtils;
 import org.restlet.engine.io.IoState;
+import org.restlet.engine.util.StringTable;
+import org.restlet.representation.EmptyRepresentation;
 import org.restlet.representation.Representation;
+import org.restlet.util.Series;
 
 /**
  * Server-side inbound way.
@@ -50,6 +56,21 @@ import org.restlet.representation.Representation;
  */
 public abstract class ServerInboundWay extends InboundWay {
 
+    /** The well-known method names, reused when parsing request lines. */
+    private static final StringTable METHOD_NAMES = new StringTable(
+            Method.CONNECT.getName(), Method.COPY.getName(),
+            Method.DELETE.getName(), Method.GET.getName(),
+            Method.HEAD.getName(), Method.LOCK.getName(),
+            Method.MKCOL.getName(), Method.MOVE.getName(),
+            Method.OPTIONS.getName(), Method.POST.getName(),
+            Method.PROPFIND.getName(), Method.PROPPATCH.getName(),
+            Method.PUT.getName(), Method.TRACE.getName(),
+            Method.UNLOCK.getName());
+
+    /** The well-known protocol versions, reused when parsing request lines. */
+    private static final StringTable PROTOCOLS = new StringTable("HTTP/1.0",
+            "HTTP/1.1");
+
     /**
      * Constructor.
      * 
@@ -62,6 +83,32 @@ public abstract class ServerInboundWay extends InboundWay {
         super(connection, bufferSize);
     }
 
+    /**
+     * Returns the request entity. A request without a content length or a
+     * chunked encoding has no entity, even if the connection must be closed
+     * after the response.
+     */
+    @Override
+    protected Representation createEntity(Series<Header> headers) {
+        if ((HeaderUtils.getContentLength(headers) == Representation.UNKNOWN_SIZE)
+                && !HeaderUtils.isChunkedEncoding(headers)) {
+            Representation result = new EmptyRepresentation();
+
+            if (headers != null) {
+                try {
+                    result = HeaderUtils.extractEntityHeaders(headers, result);
+                } catch (Throwable t) {
+                    getLogger().log(Level.WARNING,
+                            "Error while parsing entity headers", t);
+                }
+            }
+
+            return result;
+        }
+
+        return super.createEntity(headers);
+    }
+
     /**
      * Creates a response object for the given request.
      * 
@@ -152,7 +199,8 @@ public abstract class ServerInboundWay extends InboundWay {
                 next = getLineBuilder().charAt(i);
 
                 if (HeaderUtils.isSpace(next)) {
-                    requestMethod = getLineBuilder().substring(start, i);
+                    requestMethod = METHOD_NAMES.get(getLineBuilder(), start,
+                            i);
                     start = i + 1;
                 }
             }
@@ -182,13 +230,8 @@ public abstract class ServerInboundWay extends InboundWay {
             }
 
             // Parse the protocol version
-            for (i = start; (protocol == null) && (i < size); i++) {
-                next = getLineBuilder().charAt(i);
-            }
-
-            if (i == size) {
-                protocol = getLineBuilder().substring(start, i);
-                start = i + 1;
+            if (start < size) {
+                protocol = PROTOCOLS.get(getLineBuilder(), start, size);
             }
 
             if (protocol == null) {
@@ -97,7 +97,9 @@ public abstract class Way implements SelectionListener, CompletionListener,
      */
     public Way(Connection<?> connection, int bufferSize) {
         this.connection = connection;
-        this.buffer = new Buffer(bufferSize, getHelper().isDirectBuffers());
+        this.buffer = getHelper().isPooledBuffers() ? new Buffer(getHelper()
+                .getBufferPool(bufferSize)) : new Buffer(bufferSize,
+                getHelper().isDirectBuffers());
         this.headers = null;
         this.ioState = IoState.IDLE;
         this.lineBuilder = new StringBuilder();
@@ -135,6 +137,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         }
 
         this.buffer.clear();
+        this.buffer.release();
         this.headers = null;
         this.ioState = IoState.IDLE;
         clearLineBuilder();
@@ -330,6 +333,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
         setMessage(null);
         setHeaders(null);
         getBuffer().clear();
+        getBuffer().release();
     }
 
     /**
@@ -430,12 +434,19 @@ public abstract class Way implements SelectionListener, CompletionListener,
             int drained = processIoBuffer();
 
             if ((drained == -1)
-                    && (getConnection().getState() == ConnectionState.CLOSING)) {
-                // No hope to drain more bytes, complete the closing
+                    && (getConnection().getState() == ConnectionState.CLOSING)
+                    && (getMessageState() != MessageState.BODY)) {
+                // No hope to drain more bytes, complete the closing. The bytes
+                // of an entity being read are kept for its consumer.
                 getBuffer().clear();
             } else if ((getIoState() == IoState.PROCESSING)) {
                 onPostProcessing();
             }
+
+            if (getMessageState() == MessageState.IDLE) {
+                // Return the NIO buffer to its pool if it is empty
+                getBuffer().release();
+            }
         } catch (Exception e) {
             getConnection().onError("Error while processing a connection", e,
                     Status.CONNECTOR_ERROR_COMMUNICATION);
@@ -506,6 +517,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
             }
 
             this.ioState = ioState;
+            getConnection().setDirty(true);
         }
     }
 
@@ -526,7 +538,10 @@ public abstract class Way implements SelectionListener, CompletionListener,
      *            The current message processed.
      */
     protected void setMessage(Response message) {
-        this.message = message;
+        if (this.message != message) {
+            this.message = message;
+            getConnection().setDirty(true);
+        }
     }
 
     /**
@@ -538,6 +553,7 @@ public abstract class Way implements SelectionListener, CompletionListener,
     protected void setMessageState(MessageState messageState) {
         if (this.messageState != messageState) {
             this.messageState = messageState;
+            getConnection().setDirty(true);
 
             if (getLogger().isLoggable(Level.FINEST)) {
                 if (this instanceof OutboundWay) {
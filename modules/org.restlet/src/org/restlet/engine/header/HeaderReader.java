@@ -47,6 +47,11 @@ import static org.restlet.engine.header.HeaderUtils.isTokenChar;
 
 import java.io.IOException;
 import java.io.InputStream;
+// [ifndef gwt] line
+import java.lang.reflect.Field;
+// [ifndef gwt] line
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
@@ -57,6 +62,8 @@ import org.restlet.Context;
 import org.restlet.data.Encoding;
 import org.restlet.data.Parameter;
 import org.restlet.engine.util.DateUtils;
+// [ifndef gwt] line
+import org.restlet.engine.util.StringTable;
 import org.restlet.util.NamedValue;
 
 /**
@@ -69,6 +76,11 @@ import org.restlet.util.NamedValue;
  */
 public class HeaderReader<V> {
 
+    // [ifndef gwt] member
+    /** The well-known header names, reused when parsing header lines. */
+    private static final StringTable HEADER_NAMES = new StringTable(
+            getHeaderNames());
+
     /**
      * Creates a new named value with a null value.
      * 
@@ -125,6 +137,30 @@ public class HeaderReader<V> {
         // [enddef]
     }
 
+    // [ifndef gwt] method
+    /**
+     * Returns the names of the headers declared in {@link HeaderConstants}.
+     * 
+     * @return The names of the well-known headers.
+     */
+    private static String[] getHeaderNames() {
+        List<String> result = new ArrayList<String>();
+
+        for (Field field : HeaderConstants.class.getFields()) {
+            if (field.getName().startsWith("HEADER_")
+                    && Modifier.isStatic(field.getModifiers())
+                    && (field.getType() == String.class)) {
+                try {
+                    result.add((String) field.get(null));
+                } catch (IllegalAccessException e) {
+                    // Ignore this header name
+                }
+            }
+        }
+
+        return result.toArray(new String[result.size()]);
+    }
+
     /**
      * Parses a date string.
      * 
@@ -179,7 +215,12 @@ public class HeaderReader<V> {
                             "Unable to parse the header name. End of line reached too early.");
                 }
 
-                result.setName(header.subSequence(start, index - 1).toString());
+                // [ifndef gwt] line
+                result.setName(HEADER_NAMES.get(header, start, index - 1));
+                // [ifdef gwt] uncomment
+                // result.setName(header.subSequence(start, index -
+                // 1).toString());
+                // [enddef]
                 next = header.charAt(index++);
 
                 while (isSpace(next)) {
@@ -43,7 +43,11 @@ import org.restlet.Context;
 import org.restlet.engine.header.HeaderUtils;
 
 /**
- * Wrapper around a byte buffer and its state.
+ * Wrapper around a byte buffer and its state. The byte buffer can either be
+ * given or allocated at construction time, or be borrowed from a
+ * {@link BufferPool} when it is first needed. In the latter case, it is
+ * returned to the pool by the {@link #release()} method once the buffer is
+ * empty.
  * 
  * @author Jerome Louvel
  */
@@ -70,15 +74,33 @@ public class Buffer {
         return result;
     }
 
-    /** The byte buffer. */
-    private final ByteBuffer bytes;
+    /** The byte buffer or null if not borrowed from the pool yet. */
+    private volatile ByteBuffer bytes;
 
     /** The index of the buffer's beginning while filling. */
     private volatile int fillBegin;
 
+    /** The pool lending the byte buffer or null. */
+    private final BufferPool pool;
+
     /** The byte buffer IO state. */
     private volatile BufferState state;
 
+    /**
+     * Constructor. The byte buffer is only borrowed from the pool when first
+     * needed.
+     * 
+     * @param pool
+     *            The pool lending the byte buffer.
+     */
+    public Buffer(BufferPool pool) {
+        super();
+        this.fillBegin = 0;
+        this.bytes = null;
+        this.pool = pool;
+        this.state = BufferState.FILLING;
+    }
+
     /**
      * Constructor.
      * 
@@ -101,6 +123,7 @@ public class Buffer {
         super();
         this.fillBegin = 0;
         this.bytes = byteBuffer;
+        this.pool = null;
         this.state = byteBufferState;
     }
 
@@ -181,7 +204,9 @@ public class Buffer {
      * @return The maximum capacity of this buffer.
      */
     public final int capacity() {
-        return getBytes().capacity();
+        ByteBuffer byteBuffer = this.bytes;
+        return (byteBuffer == null) ? this.pool.getBufferSize() : byteBuffer
+                .capacity();
     }
 
     /**
@@ -189,7 +214,12 @@ public class Buffer {
      */
     public void clear() {
         this.fillBegin = 0;
-        this.bytes.clear();
+        ByteBuffer byteBuffer = this.bytes;
+
+        if (byteBuffer != null) {
+            byteBuffer.clear();
+        }
+
         this.state = BufferState.FILLING;
     }
 
@@ -213,7 +243,8 @@ public class Buffer {
      * @return True if bytes could be drained.
      */
     public boolean couldDrain() {
-        return (isFilling() && (getBytes().position() > this.fillBegin));
+        return isFilling() && (this.bytes != null)
+                && (getBytes().position() > this.fillBegin);
     }
 
     /**
@@ -294,6 +325,28 @@ public class Buffer {
             builderState = BufferState.FILLING;
         }
 
+        if ((builderState == BufferState.FILLING) && getBytes().hasArray()) {
+            // Scan the backing array in place up to the end of the line
+            byte[] array = getBytes().array();
+            int offset = getBytes().arrayOffset();
+            int position = getBytes().position();
+            int limit = getBytes().limit();
+            int end = position;
+
+            while ((end < limit)
+                    && !HeaderUtils.isCarriageReturn(array[offset + end])) {
+                end++;
+            }
+
+            lineBuilder.ensureCapacity(lineBuilder.length() + end - position);
+
+            for (int i = offset + position; i < offset + end; i++) {
+                lineBuilder.append((char) array[i]);
+            }
+
+            getBytes().position(end);
+        }
+
         while ((builderState != BufferState.DRAINING)
                 && getBytes().hasRemaining()) {
             next = (int) getBytes().get();
@@ -431,12 +484,25 @@ public class Buffer {
     }
 
     /**
-     * Returns the byte buffer.
+     * Returns the byte buffer. Borrows it from the pool if needed.
      * 
      * @return The byte buffer.
      */
     public ByteBuffer getBytes() {
-        return bytes;
+        ByteBuffer result = this.bytes;
+
+        if (result == null) {
+            synchronized (getLock()) {
+                result = this.bytes;
+
+                if (result == null) {
+                    result = this.pool.checkout();
+                    this.bytes = result;
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -446,7 +512,16 @@ public class Buffer {
      * @return The lock on which multiple thread can synchronize.
      */
     public Object getLock() {
-        return this.bytes;
+        return this;
+    }
+
+    /**
+     * Returns the pool lending the byte buffer or null.
+     * 
+     * @return The pool lending the byte buffer or null.
+     */
+    public BufferPool getPool() {
+        return pool;
     }
 
     /**
@@ -464,7 +539,7 @@ public class Buffer {
      * @return True if the buffer has remaining bytes to be read or written.
      */
     public final boolean hasRemaining() {
-        return getBytes().hasRemaining();
+        return (this.bytes == null) || getBytes().hasRemaining();
     }
 
     /**
@@ -661,7 +736,32 @@ public class Buffer {
      * @return The number of bytes that can be read or written.
      */
     public final int remaining() {
-        return getBytes().remaining();
+        return (this.bytes == null) ? capacity() : getBytes().remaining();
+    }
+
+    /**
+     * Returns the byte buffer to the pool if the buffer is empty and was
+     * borrowed. The next access to the byte buffer borrows one again.
+     * 
+     * @return True if the byte buffer was returned to the pool.
+     */
+    public boolean release() {
+        boolean result = false;
+
+        if ((this.pool != null) && (this.bytes != null)) {
+            synchronized (getLock()) {
+                if ((this.bytes != null) && isEmpty()) {
+                    ByteBuffer byteBuffer = this.bytes;
+                    this.bytes = null;
+                    this.fillBegin = 0;
+                    this.state = BufferState.FILLING;
+                    this.pool.checkin(byteBuffer);
+                    result = true;
+                }
+            }
+        }
+
+        return result;
     }
 
     /**
@@ -676,7 +776,8 @@ public class Buffer {
 
     @Override
     public String toString() {
-        return getBytes().toString() + ", " + getState() + ", " + isEmpty();
+        return ((this.bytes == null) ? "Released buffer" : this.bytes
+                .toString()) + ", " + getState() + ", " + isEmpty();
     }
 
 }
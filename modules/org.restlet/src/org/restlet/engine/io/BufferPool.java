@@ -0,0 +1,269 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.restlet.engine.util.Pool;
+
+/**
+ * Pool of byte buffers of the same size, allocated by slabs. Each slab is a
+ * large byte buffer, direct or not, sliced into several byte buffers. The byte
+ * buffers are borrowed by {@link Buffer} instances only while they are
+ * actually used, and checked in when they become empty again. This way, idle
+ * connections don't hold any byte buffer.<br>
+ * <br>
+ * Note that the slabs are never freed, so the memory used by the pool is the
+ * one required by the peak number of byte buffers borrowed at the same time.
+ * 
+ * @author Jerome Louvel
+ */
+public class BufferPool extends Pool<ByteBuffer> {
+
+    /** The default number of byte buffers per slab. */
+    public static final int DEFAULT_SLAB_SIZE = 16;
+
+    /** The number of byte buffers checked out and not checked in yet. */
+    private final AtomicInteger borrowedCount;
+
+    /** The size of the byte buffers. */
+    private final int bufferSize;
+
+    /** The total number of byte buffers checked out. */
+    private final AtomicLong checkoutCount;
+
+    /** Indicates if direct byte buffers are allocated. */
+    private final boolean direct;
+
+    /** The peak number of byte buffers borrowed at the same time. */
+    private final AtomicInteger peakBorrowedCount;
+
+    /** The number of slabs allocated. */
+    private final AtomicInteger slabCount;
+
+    /** The number of byte buffers per slab. */
+    private final int slabSize;
+
+    /**
+     * Constructor.
+     * 
+     * @param bufferSize
+     *            The size of the byte buffers.
+     * @param direct
+     *            Indicates if direct byte buffers are allocated.
+     */
+    public BufferPool(int bufferSize, boolean direct) {
+        this(bufferSize, DEFAULT_SLAB_SIZE, direct);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param bufferSize
+     *            The size of the byte buffers.
+     * @param slabSize
+     *            The number of byte buffers per slab.
+     * @param direct
+     *            Indicates if direct byte buffers are allocated.
+     */
+    public BufferPool(int bufferSize, int slabSize, boolean direct) {
+        super();
+        this.borrowedCount = new AtomicInteger();
+        this.bufferSize = bufferSize;
+        this.checkoutCount = new AtomicLong();
+        this.direct = direct;
+        this.peakBorrowedCount = new AtomicInteger();
+        this.slabCount = new AtomicInteger();
+        this.slabSize = Math.max(1, slabSize);
+    }
+
+    @Override
+    public void checkin(ByteBuffer byteBuffer) {
+        if (byteBuffer != null) {
+            this.borrowedCount.decrementAndGet();
+            super.checkin(byteBuffer);
+        }
+    }
+
+    @Override
+    public ByteBuffer checkout() {
+        ByteBuffer result = super.checkout();
+        int borrowed = this.borrowedCount.incrementAndGet();
+        int peak = this.peakBorrowedCount.get();
+
+        while ((borrowed > peak)
+                && !this.peakBorrowedCount.compareAndSet(peak, borrowed)) {
+            peak = this.peakBorrowedCount.get();
+        }
+
+        this.checkoutCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    protected void clear(ByteBuffer byteBuffer) {
+        byteBuffer.clear();
+    }
+
+    /**
+     * Allocates a new slab, checks in all its byte buffers except the first
+     * one which is returned.
+     * 
+     * @return The first byte buffer of the new slab.
+     */
+    @Override
+    protected ByteBuffer createObject() {
+        ByteBuffer slab = this.direct ? ByteBuffer
+                .allocateDirect(this.bufferSize * this.slabSize) : ByteBuffer
+                .allocate(this.bufferSize * this.slabSize);
+        ByteBuffer result = null;
+        this.slabCount.incrementAndGet();
+
+        for (int i = 0; i < this.slabSize; i++) {
+            slab.limit((i + 1) * this.bufferSize);
+            slab.position(i * this.bufferSize);
+
+            if (result == null) {
+                result = slab.slice();
+            } else {
+                getStore().offer(slab.slice());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of byte buffers available in the pool.
+     * 
+     * @return The number of byte buffers available in the pool.
+     */
+    public int getAvailableCount() {
+        return getCapacity() - getBorrowedCount();
+    }
+
+    /**
+     * Returns the number of byte buffers currently borrowed.
+     * 
+     * @return The number of byte buffers currently borrowed.
+     */
+    public int getBorrowedCount() {
+        return this.borrowedCount.get();
+    }
+
+    /**
+     * Returns the size of the byte buffers.
+     * 
+     * @return The size of the byte buffers.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Returns the number of byte buffers allocated.
+     * 
+     * @return The number of byte buffers allocated.
+     */
+    public int getCapacity() {
+        return getSlabCount() * getSlabSize();
+    }
+
+    /**
+     * Returns the total number of byte buffers checked out since the creation
+     * of the pool.
+     * 
+     * @return The total number of byte buffers checked out.
+     */
+    public long getCheckoutCount() {
+        return this.checkoutCount.get();
+    }
+
+    /**
+     * Returns the number of bytes allocated by the slabs.
+     * 
+     * @return The number of bytes allocated by the slabs.
+     */
+    public long getMemorySize() {
+        return ((long) getCapacity()) * getBufferSize();
+    }
+
+    /**
+     * Returns the peak number of byte buffers borrowed at the same time.
+     * 
+     * @return The peak number of byte buffers borrowed at the same time.
+     */
+    public int getPeakBorrowedCount() {
+        return this.peakBorrowedCount.get();
+    }
+
+    /**
+     * Returns the number of slabs allocated.
+     * 
+     * @return The number of slabs allocated.
+     */
+    public int getSlabCount() {
+        return this.slabCount.get();
+    }
+
+    /**
+     * Returns the number of byte buffers per slab.
+     * 
+     * @return The number of byte buffers per slab.
+     */
+    public int getSlabSize() {
+        return slabSize;
+    }
+
+    /**
+     * Indicates if direct byte buffers are allocated.
+     * 
+     * @return True if direct byte buffers are allocated.
+     */
+    public boolean isDirect() {
+        return direct;
+    }
+
+    @Override
+    public String toString() {
+        return "Buffer pool (size | direct | borrowed | peak | capacity): "
+                + getBufferSize() + " | " + isDirect() + " | "
+                + getBorrowedCount() + " | " + getPeakBorrowedCount() + " | "
+                + getCapacity();
+    }
+
+}
@@ -188,7 +188,11 @@ public class NbChannelInputStream extends InputStream implements
     public int onFill(Buffer buffer, Object... args) throws IOException {
         int result = buffer.fill(this.channel);
 
-        if (result == 0) {
+        if ((result == 0) && !this.channel.isOpen()) {
+            // The source channel has been closed, for example by the peer
+            // right after the end of the entity. No more bytes will come.
+            result = -1;
+        } else if (result == 0) {
             // No bytes were read, try to register
             // a select key to get more
             if (Context.getCurrentLogger().isLoggable(Level.FINER)) {
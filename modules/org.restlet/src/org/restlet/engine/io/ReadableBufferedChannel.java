@@ -176,15 +176,19 @@ public class ReadableBufferedChannel extends
     }
 
     /**
-     * Indicates if the end of the channel has been reached.
-     * 
+     * Indicates if the end of the channel has been reached. The completion
+     * listener is only notified the first time the end is reached, as later
+     * reads may happen while the next pipelined message is already being
+     * received.
+     *
      * @param endReached
      *            True if the end of the channel has been reached.
      */
     protected void setEndReached(boolean endReached) throws IOException {
+        boolean completed = endReached && !this.endReached;
         this.endReached = endReached;
 
-        if (this.endReached) {
+        if (completed) {
             onCompleted(false);
         }
     }
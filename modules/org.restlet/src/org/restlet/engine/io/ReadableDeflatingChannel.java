@@ -0,0 +1,200 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// [excludes gwt]
+/**
+ * Readable byte channel compressing the bytes of a source channel with the
+ * DEFLATE algorithm, using either the GZIP or the ZLIB format. The bytes are
+ * compressed incrementally, as they are read, in the calling thread.
+ * 
+ * @author Jerome Louvel
+ */
+public class ReadableDeflatingChannel extends
+        WrapperChannel<ReadableByteChannel> implements ReadableByteChannel,
+        BlockableChannel {
+
+    /** The GZIP header, without modification time nor extra fields. */
+    private static final byte[] GZIP_HEADER = new byte[] { 0x1f, (byte) 0x8b,
+            Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 };
+
+    /** The checksum of the uncompressed bytes, for the GZIP format. */
+    private final CRC32 crc;
+
+    /** The compressor. */
+    private final Deflater deflater;
+
+    /** Indicates if the end of the source channel has been reached. */
+    private volatile boolean endReached;
+
+    /** The buffer of uncompressed bytes read from the source channel. */
+    private final ByteBuffer input;
+
+    /** The buffer of compressed bytes not read yet. */
+    private final ByteBuffer output;
+
+    /** Indicates if the GZIP trailer has been put in the output buffer. */
+    private volatile boolean trailerWritten;
+
+    /**
+     * Constructor.
+     * 
+     * @param source
+     *            The source channel.
+     * @param gzip
+     *            True for the GZIP format, false for the ZLIB format.
+     * @param level
+     *            The compression level, from 0 to 9 or -1 for the default
+     *            level.
+     * @param bufferSize
+     *            The size of the internal buffers.
+     */
+    public ReadableDeflatingChannel(ReadableByteChannel source, boolean gzip,
+            int level, int bufferSize) {
+        super(source);
+        this.deflater = new Deflater(level, gzip);
+        this.crc = gzip ? new CRC32() : null;
+        this.endReached = false;
+        this.input = ByteBuffer.allocate(bufferSize);
+        this.output = ByteBuffer.allocate(Math.max(bufferSize,
+                GZIP_HEADER.length));
+        this.trailerWritten = !gzip;
+
+        if (gzip) {
+            this.output.put(GZIP_HEADER);
+        }
+
+        this.output.flip();
+    }
+
+    /**
+     * Closes the source channel and releases the compressor.
+     */
+    @Override
+    public void close() throws IOException {
+        this.deflater.end();
+        super.close();
+    }
+
+    /**
+     * Indicates if the source channel is blocking.
+     * 
+     * @return True if the source channel is blocking.
+     */
+    public boolean isBlocking() {
+        return NioUtils.isBlocking(getWrappedChannel());
+    }
+
+    /**
+     * Compresses some bytes and put them into the destination buffer. The
+     * uncompressed bytes come from the underlying channel.
+     * 
+     * @param dst
+     *            The destination buffer.
+     * @return The number of bytes read, or -1 if the end of the channel has
+     *         been reached.
+     */
+    public int read(ByteBuffer dst) throws IOException {
+        int result = 0;
+
+        while (dst.hasRemaining()) {
+            if (this.output.hasRemaining()) {
+                // Transfer the pending compressed bytes
+                result += NioUtils.copy(this.output, dst, 0);
+            } else if (this.deflater.finished()) {
+                if (this.trailerWritten) {
+                    if (result == 0) {
+                        result = -1;
+                    }
+
+                    break;
+                }
+
+                // Put the GZIP trailer, in little endian order
+                this.output.clear();
+                putInt((int) this.crc.getValue());
+                putInt(this.deflater.getTotalIn());
+                this.output.flip();
+                this.trailerWritten = true;
+            } else if (this.deflater.needsInput() && !this.endReached) {
+                this.input.clear();
+                int read = getWrappedChannel().read(this.input);
+
+                if (read == -1) {
+                    this.endReached = true;
+                    this.deflater.finish();
+                } else if (read == 0) {
+                    // Try again later
+                    break;
+                } else {
+                    this.deflater.setInput(this.input.array(),
+                            this.input.arrayOffset(), read);
+
+                    if (this.crc != null) {
+                        this.crc.update(this.input.array(),
+                                this.input.arrayOffset(), read);
+                    }
+                }
+            } else {
+                this.output.clear();
+                int deflated = this.deflater.deflate(this.output.array(),
+                        this.output.arrayOffset(), this.output.capacity());
+                this.output.position(deflated);
+                this.output.flip();
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Puts an integer in little endian order into the output buffer.
+     * 
+     * @param value
+     *            The integer value.
+     */
+    private void putInt(int value) {
+        this.output.put((byte) value);
+        this.output.put((byte) (value >> 8));
+        this.output.put((byte) (value >> 16));
+        this.output.put((byte) (value >> 24));
+    }
+
+}
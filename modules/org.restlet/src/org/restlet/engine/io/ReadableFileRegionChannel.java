@@ -0,0 +1,257 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+// [excludes gwt]
+/**
+ * Read-only file channel exposing a region of a larger file channel, as if it
+ * was a separate file. Positions and sizes are relative to the beginning of the
+ * region. As all the read operations are delegated to the positional methods
+ * of the wrapped channel, several regions can share the same file channel and
+ * {@link #transferTo(long, long, WritableByteChannel)} still benefits from
+ * zero-copy transfers.<br>
+ * <br>
+ * Closing the region doesn't close the wrapped file channel.
+ */
+public class ReadableFileRegionChannel extends FileChannel {
+
+    /** The wrapped file channel. */
+    private final FileChannel fileChannel;
+
+    /** The offset of the region in the wrapped file channel. */
+    private final long offset;
+
+    /** The current position in the region. */
+    private volatile long position;
+
+    /** The size of the region. */
+    private final long size;
+
+    /**
+     * Constructor.
+     * 
+     * @param fileChannel
+     *            The wrapped file channel.
+     * @param offset
+     *            The offset of the region in the wrapped file channel.
+     * @param size
+     *            The size of the region.
+     */
+    public ReadableFileRegionChannel(FileChannel fileChannel, long offset,
+            long size) {
+        this.fileChannel = fileChannel;
+        this.offset = offset;
+        this.position = 0;
+        this.size = size;
+    }
+
+    /**
+     * Checks that a range is located inside the region.
+     * 
+     * @param position
+     *            The position of the range in the region.
+     * @param count
+     *            The size of the range.
+     */
+    private void checkRange(long position, long count) {
+        if ((position < 0) || (count < 0) || (position + count > this.size)) {
+            throw new IllegalArgumentException("Range outside of the region");
+        }
+    }
+
+    @Override
+    public void force(boolean metaData) throws IOException {
+    }
+
+    @Override
+    protected void implCloseChannel() throws IOException {
+        // The wrapped file channel is left open
+    }
+
+    @Override
+    public FileLock lock(long position, long size, boolean shared)
+            throws IOException {
+        checkRange(position, size);
+        return this.fileChannel.lock(this.offset + position, size, shared);
+    }
+
+    @Override
+    public MappedByteBuffer map(MapMode mode, long position, long size)
+            throws IOException {
+        if (mode != MapMode.READ_ONLY) {
+            throw new NonWritableChannelException();
+        }
+
+        checkRange(position, size);
+        return this.fileChannel.map(mode, this.offset + position, size);
+    }
+
+    @Override
+    public long position() throws IOException {
+        return this.position;
+    }
+
+    @Override
+    public FileChannel position(long newPosition) throws IOException {
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        int result = read(dst, this.position);
+
+        if (result > 0) {
+            this.position += result;
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized long read(ByteBuffer[] dsts, int offset, int length)
+            throws IOException {
+        long result = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            if (dsts[i].hasRemaining()) {
+                int read = read(dsts[i]);
+
+                if (read == -1) {
+                    return (result == 0) ? -1 : result;
+                }
+
+                result += read;
+
+                if (dsts[i].hasRemaining()) {
+                    // No more bytes immediately available
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int read(ByteBuffer dst, long position) throws IOException {
+        if (position < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+
+        if (position >= this.size) {
+            return -1;
+        }
+
+        int max = (int) Math.min(dst.remaining(), this.size - position);
+        ByteBuffer window = dst.duplicate();
+        window.limit(window.position() + max);
+        int result = this.fileChannel.read(window, this.offset + position);
+
+        if (result > 0) {
+            dst.position(dst.position() + result);
+        }
+
+        return result;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return this.size;
+    }
+
+    @Override
+    public long transferFrom(ReadableByteChannel src, long position, long count)
+            throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long transferTo(long position, long count, WritableByteChannel target)
+            throws IOException {
+        if ((position < 0) || (count < 0)) {
+            throw new IllegalArgumentException("Negative position or count");
+        }
+
+        if (position >= this.size) {
+            return 0;
+        }
+
+        return this.fileChannel.transferTo(this.offset + position,
+                Math.min(count, this.size - position), target);
+    }
+
+    @Override
+    public FileChannel truncate(long size) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public FileLock tryLock(long position, long size, boolean shared)
+            throws IOException {
+        checkRange(position, size);
+        return this.fileChannel.tryLock(this.offset + position, size, shared);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long write(ByteBuffer[] srcs, int offset, int length)
+            throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public int write(ByteBuffer src, long position) throws IOException {
+        throw new NonWritableChannelException();
+    }
+
+}
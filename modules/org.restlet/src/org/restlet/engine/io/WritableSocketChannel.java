@@ -35,6 +35,8 @@ package org.restlet.engine.io;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SocketChannel;
 
 import org.restlet.util.SelectionRegistration;
@@ -45,7 +47,7 @@ import org.restlet.util.SelectionRegistration;
  * partially read.
  */
 public class WritableSocketChannel extends WrapperSocketChannel implements
-        WritableSelectionChannel {
+        WritableSelectionChannel, GatheringByteChannel {
 
     /**
      * Constructor.
@@ -60,6 +62,25 @@ public class WritableSocketChannel extends WrapperSocketChannel implements
         super(wrappedChannel, registration);
     }
 
+    /**
+     * Transfers bytes from the given file channel to the wrapped socket
+     * channel, without copying them into an intermediary buffer when the
+     * operating system supports it.
+     * 
+     * @param fileChannel
+     *            The source file channel.
+     * @param position
+     *            The position in the file of the first byte to transfer.
+     * @param count
+     *            The maximum number of bytes to transfer.
+     * @return The number of bytes transferred.
+     * @see FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)
+     */
+    public long transferFrom(FileChannel fileChannel, long position, long count)
+            throws IOException {
+        return fileChannel.transferTo(position, count, getWrappedChannel());
+    }
+
     /**
      * Writes the given bytes to the wrapped socket channel.
      * 
@@ -71,4 +92,33 @@ public class WritableSocketChannel extends WrapperSocketChannel implements
         return getWrappedChannel().write(src);
     }
 
+    /**
+     * Writes the given sequence of byte buffers to the wrapped socket channel,
+     * with a single gathering write.
+     * 
+     * @param srcs
+     *            The source byte buffers.
+     * @return The number of bytes written.
+     */
+    public long write(ByteBuffer[] srcs) throws IOException {
+        return write(srcs, 0, srcs.length);
+    }
+
+    /**
+     * Writes a subsequence of the given byte buffers to the wrapped socket
+     * channel, with a single gathering write.
+     * 
+     * @param srcs
+     *            The source byte buffers.
+     * @param offset
+     *            The index of the first buffer to write.
+     * @param length
+     *            The maximum number of buffers to write.
+     * @return The number of bytes written.
+     */
+    public long write(ByteBuffer[] srcs, int offset, int length)
+            throws IOException {
+        return getWrappedChannel().write(srcs, offset, length);
+    }
+
 }
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded cache of directory listings, shared by the file entities of a file
+ * client connector. A cached listing is reused as long as the modification
+ * date of its directory doesn't change, which happens when entries are added,
+ * removed or renamed. The least recently used listings are discarded first.
+ * 
+ * @author Jerome Louvel
+ */
+public class DirectoryListingCache {
+
+    /** A directory listing taken at a given modification date. */
+    private static class Listing {
+
+        /** The child entities. */
+        private final List<Entity> children;
+
+        /** The modification date of the directory when listed. */
+        private final long lastModified;
+
+        /**
+         * Constructor.
+         * 
+         * @param children
+         *            The child entities.
+         * @param lastModified
+         *            The modification date of the directory when listed.
+         */
+        public Listing(List<Entity> children, long lastModified) {
+            this.children = children;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Delay in milliseconds after a directory modification during which its
+     * listing isn't cached, as file systems may store modification dates
+     * with a resolution as coarse as one or two seconds.
+     */
+    private static final long MODIFICATION_DATE_RESOLUTION = 2000L;
+
+    /** The cached listings by absolute directory path. */
+    private final Map<String, Listing> listings;
+
+    /**
+     * Constructor.
+     * 
+     * @param maxDirectories
+     *            The maximum number of cached directory listings.
+     */
+    public DirectoryListingCache(final int maxDirectories) {
+        this.listings = new LinkedHashMap<String, Listing>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, Listing> eldest) {
+                return size() > maxDirectories;
+            }
+        };
+    }
+
+    /**
+     * Returns the child entities of a directory. The listing is taken from
+     * the cache unless the directory was modified since it was listed.
+     * 
+     * @param directory
+     *            The directory entity.
+     * @return The child entities or null if the directory can't be listed.
+     */
+    public List<Entity> getChildren(FileEntity directory) {
+        File file = directory.getFile();
+        String path = file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        Listing listing;
+
+        synchronized (this.listings) {
+            listing = this.listings.get(path);
+        }
+
+        if ((listing == null) || (listing.lastModified != lastModified)) {
+            File[] files = file.listFiles();
+
+            if (files == null) {
+                invalidate(file);
+                return null;
+            }
+
+            List<Entity> children = new ArrayList<Entity>(files.length);
+
+            for (File f : files) {
+                children.add(new FileEntity(f, f.isDirectory(), directory
+                        .getMetadataService(), this));
+            }
+
+            listing = new Listing(children, lastModified);
+
+            if ((System.currentTimeMillis() - lastModified) > MODIFICATION_DATE_RESOLUTION) {
+                synchronized (this.listings) {
+                    this.listings.put(path, listing);
+                }
+            } else {
+                // The directory could be modified again with the same date
+                invalidate(file);
+            }
+        }
+
+        return new ArrayList<Entity>(listing.children);
+    }
+
+    /**
+     * Discards the cached listing of a directory.
+     * 
+     * @param directory
+     *            The directory.
+     */
+    public void invalidate(File directory) {
+        synchronized (this.listings) {
+            this.listings.remove(directory.getAbsolutePath());
+        }
+    }
+
+}
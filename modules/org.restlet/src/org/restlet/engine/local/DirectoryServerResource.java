@@ -44,6 +44,8 @@ import java.util.logging.Level;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.Restlet;
+import org.restlet.data.Dimension;
+import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Preference;
@@ -499,8 +501,19 @@ public class DirectoryServerResource extends ServerResource {
      * @return A response with the representation if success.
      */
     private Response getRepresentation(String resourceUri) {
-        return getClientDispatcher().handle(
-                new Request(Method.GET, resourceUri));
+        Request request = new Request(Method.GET, resourceUri);
+
+        if (getDirectory().isPrecompressedServed()) {
+            // Let the client connector return a precompressed sibling
+            for (Preference<Encoding> pref : getClientInfo()
+                    .getAcceptedEncodings()) {
+                if (Encoding.GZIP.equals(pref.getMetadata())) {
+                    request.getClientInfo().getAcceptedEncodings().add(pref);
+                }
+            }
+        }
+
+        return getClientDispatcher().handle(request);
     }
 
     /**
@@ -690,6 +703,11 @@ public class DirectoryServerResource extends ServerResource {
                     result.add(this.fileContent);
                 }
 
+                if ((result != null) && getDirectory().isPrecompressedServed()) {
+                    // The representations depend on the accepted encodings
+                    getDimensions().add(Dimension.ENCODING);
+                }
+
                 this.variantsGet = result;
             }
         }
@@ -739,8 +757,12 @@ public class DirectoryServerResource extends ServerResource {
                                     firstDotIndex);
                         }
 
-                        // Check if the current file is a valid variant
-                        if (baseEntryName.equals(this.baseName)) {
+                        // Check if the current file is a valid variant,
+                        // precompressed siblings are served in place of the
+                        // related file instead
+                        if (baseEntryName.equals(this.baseName)
+                                && !(getDirectory().isPrecompressedServed() && fullEntryName
+                                        .endsWith(".gz"))) {
                             // Test if the variant is included in the base
                             // prototype variant
                             Variant variant = new Variant();
@@ -39,6 +39,7 @@ import java.util.Iterator;
 import org.restlet.Client;
 import org.restlet.Request;
 import org.restlet.Response;
+import org.restlet.data.Encoding;
 import org.restlet.data.MediaType;
 import org.restlet.data.Method;
 import org.restlet.data.Preference;
@@ -51,7 +52,11 @@ import org.restlet.representation.Variant;
 /**
  * Connector to the local entities. That connector supports the content
  * negotiation feature (i.e. for GET and HEAD methods) and implements the
- * response to GET/HEAD methods.
+ * response to GET/HEAD methods.<br>
+ * <br>
+ * When a request explicitly accepts the GZip encoding, a precompressed sibling
+ * of the target entity such as "foo.js.gz" for "foo.js" is returned instead,
+ * as long as it isn't older than the target entity.
  * 
  * @author Thierry Boileau
  */
@@ -95,6 +100,40 @@ public abstract class EntityClientHelper extends LocalClientHelper {
         return result;
     }
 
+    /**
+     * Returns the precompressed sibling of a normal entity, if the request
+     * explicitly accepts the GZip encoding. For example, "foo.js.gz" is
+     * returned for "foo.js".
+     * 
+     * @param request
+     *            The request to answer.
+     * @param entity
+     *            The requested entity.
+     * @return The precompressed sibling or null.
+     */
+    protected Entity getCompressedEntity(Request request, Entity entity) {
+        Entity result = null;
+        boolean accepted = false;
+
+        for (Preference<Encoding> pref : request.getClientInfo()
+                .getAcceptedEncodings()) {
+            accepted = accepted
+                    || (Encoding.GZIP.equals(pref.getMetadata()) && (pref
+                            .getQuality() > 0));
+        }
+
+        if (accepted) {
+            String path = Reference.decode(request.getResourceRef().getPath());
+            Entity sibling = getEntity(path + ".gz");
+
+            if (sibling.isNormal()) {
+                result = sibling;
+            }
+        }
+
+        return result;
+    }
+
     /**
      * Returns a local entity for the given path.
      * 
@@ -246,6 +285,23 @@ public abstract class EntityClientHelper extends LocalClientHelper {
                     // Return the file content
                     output = entity.getRepresentation(getMetadataService()
                             .getDefaultMediaType(), getTimeToLive());
+                    Entity compressed = getCompressedEntity(request, entity);
+
+                    if (compressed != null) {
+                        Representation encoded = compressed.getRepresentation(
+                                getMetadataService().getDefaultMediaType(),
+                                getTimeToLive());
+
+                        // Ignore outdated precompressed content
+                        if ((encoded.getModificationDate() == null)
+                                || (output.getModificationDate() == null)
+                                || !encoded.getModificationDate().before(
+                                        output.getModificationDate())) {
+                            output = encoded;
+                            output.getEncodings().add(Encoding.GZIP);
+                        }
+                    }
+
                     output.setLocationRef(request.getResourceRef());
                     Entity.updateMetadata(entity.getName(), output, true,
                             getMetadataService());
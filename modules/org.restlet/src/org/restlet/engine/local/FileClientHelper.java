@@ -90,6 +90,15 @@ import org.restlet.representation.Variant;
  * <td>Indicates if a failed upload can be resumed. This will prevent the
  * deletion of the temporary file created.</td>
  * </tr>
+ * <tr>
+ * <td>maxCachedDirectories</td>
+ * <td>int</td>
+ * <td>100</td>
+ * <td>Maximum number of directory listings kept in memory, along with the
+ * detected directory flags and base names of their entries. A listing is
+ * reused until the modification date of its directory changes. If set to '0',
+ * directories are listed for each call.</td>
+ * </tr>
  * </table>
  * 
  * @author Jerome Louvel
@@ -97,6 +106,9 @@ import org.restlet.representation.Variant;
  */
 public class FileClientHelper extends EntityClientHelper {
 
+    /** The cache of directory listings, lazily created. */
+    private volatile DirectoryListingCache listingCache;
+
     /**
      * Constructor.
      * 
@@ -179,7 +191,35 @@ public class FileClientHelper extends EntityClientHelper {
         // Take care of the file separator.
         return new FileEntity(
                 new File(LocalReference.localizePath(decodedPath)),
-                getMetadataService());
+                getMetadataService(), getListingCache());
+    }
+
+    /**
+     * Returns the cache of directory listings, or null if disabled.
+     * 
+     * @return The cache of directory listings, or null if disabled.
+     */
+    protected DirectoryListingCache getListingCache() {
+        if ((this.listingCache == null) && (getMaxCachedDirectories() > 0)) {
+            synchronized (this) {
+                if (this.listingCache == null) {
+                    this.listingCache = new DirectoryListingCache(
+                            getMaxCachedDirectories());
+                }
+            }
+        }
+
+        return this.listingCache;
+    }
+
+    /**
+     * Returns the maximum number of directory listings kept in memory.
+     * 
+     * @return The maximum number of directory listings kept in memory.
+     */
+    public int getMaxCachedDirectories() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxCachedDirectories", "100"));
     }
 
     /**
@@ -47,6 +47,18 @@ import org.restlet.service.MetadataService;
  */
 public class FileEntity extends Entity {
 
+    /** The cached base name. */
+    private volatile String baseName;
+
+    /** The cache of directory listings, or null. */
+    private final DirectoryListingCache cache;
+
+    /**
+     * Indicates if the file was a directory when listed by its parent, or null
+     * if it wasn't listed.
+     */
+    private final Boolean directory;
+
     /** The underlying regular file. */
     private final File file;
 
@@ -55,16 +67,56 @@ public class FileEntity extends Entity {
      * 
      * @param file
      *            The underlying file.
+     * @param directory
+     *            Indicates if the file was a directory when listed by its
+     *            parent, or null if it wasn't listed.
      * @param metadataService
      *            The metadata service to use.
+     * @param cache
+     *            The cache of directory listings, or null.
      */
-    public FileEntity(File file, MetadataService metadataService) {
+    FileEntity(File file, Boolean directory, MetadataService metadataService,
+            DirectoryListingCache cache) {
         super(metadataService);
+        this.cache = cache;
+        this.directory = directory;
         this.file = file;
     }
 
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The underlying file.
+     * @param metadataService
+     *            The metadata service to use.
+     */
+    public FileEntity(File file, MetadataService metadataService) {
+        this(file, metadataService, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param file
+     *            The underlying file.
+     * @param metadataService
+     *            The metadata service to use.
+     * @param cache
+     *            The cache of directory listings, or null.
+     */
+    public FileEntity(File file, MetadataService metadataService,
+            DirectoryListingCache cache) {
+        this(file, null, metadataService, cache);
+    }
+
     @Override
     public boolean exists() {
+        if (this.directory != null) {
+            // Listed by a directory that wasn't modified since
+            return true;
+        }
+
         // [ifndef gae] instruction
         return getFile().exists();
         // [ifdef gae] uncomment
@@ -80,7 +132,9 @@ public class FileEntity extends Entity {
     public List<Entity> getChildren() {
         List<Entity> result = null;
 
-        if (isDirectory()) {
+        if (isDirectory() && (this.cache != null)) {
+            result = this.cache.getChildren(this);
+        } else if (isDirectory()) {
             result = new ArrayList<Entity>();
 
             // [ifdef gae] uncomment
@@ -98,6 +152,15 @@ public class FileEntity extends Entity {
         return result;
     }
 
+    @Override
+    public String getBaseName() {
+        if (this.baseName == null) {
+            this.baseName = super.getBaseName();
+        }
+
+        return this.baseName;
+    }
+
     /**
      * Returns the underlying regular file.
      * 
@@ -116,7 +179,7 @@ public class FileEntity extends Entity {
     public Entity getParent() {
         File parentFile = getFile().getParentFile();
         return (parentFile == null) ? null : new FileEntity(parentFile,
-                getMetadataService());
+                getMetadataService(), this.cache);
     }
 
     @Override
@@ -127,6 +190,10 @@ public class FileEntity extends Entity {
 
     @Override
     public boolean isDirectory() {
+        if (this.directory != null) {
+            return this.directory.booleanValue();
+        }
+
         // [ifndef gae] instruction
         return getFile().isDirectory();
         // [ifdef gae] uncomment
@@ -141,6 +208,10 @@ public class FileEntity extends Entity {
 
     @Override
     public boolean isNormal() {
+        if (this.directory != null) {
+            return !this.directory.booleanValue();
+        }
+
         // [ifndef gae] instruction
         return getFile().isFile();
         // [ifdef gae] uncomment
@@ -0,0 +1,433 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.restlet.engine.io.ReadableFileRegionChannel;
+
+/**
+ * Zip archive opened once and shared by the calls to its entries. The central
+ * directory is only parsed when the archive is opened, and the entries are
+ * indexed by name and by parent directory so that lookups and directory
+ * listings don't need to scan all the entries.<br>
+ * <br>
+ * The archive is reference counted. The opener holds a first reference, then
+ * each user must call {@link #acquire()} and later {@link #release()}. The
+ * underlying files are closed when the last reference is released.<br>
+ * <br>
+ * The content of the entries stored without compression can be read through a
+ * {@link FileChannel}, which allows zero-copy transfers.
+ * 
+ * @author Jerome Louvel
+ */
+public class ZipArchive {
+
+    /** Signature of the central directory file headers. */
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+    /** Signature of the end of central directory record. */
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    /** Signature of the local file headers. */
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+    /** Maximum size of the end of central directory record. */
+    private static final int MAX_END_SIZE = 22 + 0xFFFF;
+
+    /**
+     * Reads a range of bytes of a file channel.
+     * 
+     * @param fileChannel
+     *            The file channel.
+     * @param position
+     *            The position of the range.
+     * @param size
+     *            The size of the range.
+     * @return The little endian buffer containing the bytes read.
+     * @throws IOException
+     */
+    private static ByteBuffer readFully(FileChannel fileChannel,
+            long position, int size) throws IOException {
+        ByteBuffer result = ByteBuffer.allocate(size).order(
+                ByteOrder.LITTLE_ENDIAN);
+
+        while (result.hasRemaining()) {
+            if (fileChannel.read(result, position + result.position()) == -1) {
+                throw new IOException("Unexpected end of the Zip archive");
+            }
+        }
+
+        result.flip();
+        return result;
+    }
+
+    /**
+     * Reads the offsets of the local headers of the entries stored without
+     * compression, based on the central directory of the archive. Returns an
+     * empty map for the archives that can't be read this way, such as ZIP64
+     * archives.
+     * 
+     * @param fileChannel
+     *            The archive file channel.
+     * @return The offsets of the local headers of the stored entries.
+     * @throws IOException
+     */
+    private static Map<String, Long> readStoredOffsets(FileChannel fileChannel)
+            throws IOException {
+        Map<String, Long> result = new HashMap<String, Long>();
+        long fileSize = fileChannel.size();
+        int endSize = (int) Math.min(fileSize, MAX_END_SIZE);
+        ByteBuffer end = readFully(fileChannel, fileSize - endSize, endSize);
+        int endPosition = -1;
+
+        for (int i = endSize - 22; (i >= 0) && (endPosition == -1); i--) {
+            if (end.getInt(i) == END_SIGNATURE) {
+                endPosition = i;
+            }
+        }
+
+        if (endPosition != -1) {
+            long directorySize = end.getInt(endPosition + 12) & 0xFFFFFFFFL;
+            long directoryOffset = end.getInt(endPosition + 16) & 0xFFFFFFFFL;
+
+            if ((directorySize != 0xFFFFFFFFL)
+                    && (directoryOffset != 0xFFFFFFFFL)
+                    && (directoryOffset + directorySize <= fileSize)) {
+                ByteBuffer directory = readFully(fileChannel, directoryOffset,
+                        (int) directorySize);
+                Charset utf8 = Charset.forName("UTF-8");
+                int position = 0;
+
+                while ((position + 46 <= directorySize)
+                        && (directory.getInt(position) == CENTRAL_HEADER_SIGNATURE)) {
+                    int flags = directory.getShort(position + 8) & 0xFFFF;
+                    int method = directory.getShort(position + 10) & 0xFFFF;
+                    int nameLength = directory.getShort(position + 28) & 0xFFFF;
+                    int extraLength = directory.getShort(position + 30) & 0xFFFF;
+                    int commentLength = directory.getShort(position + 32) & 0xFFFF;
+                    long localOffset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+
+                    if ((method == ZipEntry.STORED) && ((flags & 1) == 0)
+                            && (localOffset != 0xFFFFFFFFL)) {
+                        byte[] name = new byte[nameLength];
+                        directory.position(position + 46);
+                        directory.get(name);
+                        result.put(new String(name, utf8), localOffset);
+                    }
+
+                    position += 46 + nameLength + extraLength + commentLength;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    /** The offsets of the content of the stored entries already located. */
+    private final ConcurrentMap<String, Long> dataOffsets;
+
+    /** The entries located under each directory, at any depth. */
+    private final Map<String, List<ZipEntry>> descendants;
+
+    /** The entries by name. */
+    private final Map<String, ZipEntry> entries;
+
+    /** The archive file. */
+    private final File file;
+
+    /** The channel of the archive file, used to read the stored entries. */
+    private final FileChannel fileChannel;
+
+    /** The last access time, used to evict unused archives. */
+    private volatile long lastAccess;
+
+    /** The last modification date of the file when it was opened. */
+    private final long lastModified;
+
+    /** The length of the file when it was opened. */
+    private final long length;
+
+    /** The number of references to the archive. */
+    private final AtomicInteger references;
+
+    /** The offsets of the local headers of the stored entries. */
+    private final Map<String, Long> storedOffsets;
+
+    /** The underlying Zip file. */
+    private final ZipFile zipFile;
+
+    /**
+     * Constructor. Opens the archive and indexes its entries. The caller holds
+     * the first reference to the archive.
+     * 
+     * @param file
+     *            The archive file.
+     * @throws IOException
+     */
+    public ZipArchive(File file) throws IOException {
+        this.file = file;
+        this.lastModified = file.lastModified();
+        this.length = file.length();
+        this.lastAccess = System.currentTimeMillis();
+        this.references = new AtomicInteger(1);
+        this.dataOffsets = new ConcurrentHashMap<String, Long>();
+        this.entries = new HashMap<String, ZipEntry>();
+        this.descendants = new HashMap<String, List<ZipEntry>>();
+        this.zipFile = new ZipFile(file);
+        RandomAccessFile randomAccessFile = null;
+
+        try {
+            for (Enumeration<? extends ZipEntry> e = this.zipFile.entries(); e
+                    .hasMoreElements();) {
+                ZipEntry entry = e.nextElement();
+                String name = entry.getName();
+                this.entries.put(name, entry);
+
+                // Index the entry under each of its parent directories
+                addDescendant("", entry);
+
+                for (int i = name.indexOf('/'); (i != -1)
+                        && (i < name.length() - 1); i = name.indexOf('/', i + 1)) {
+                    addDescendant(name.substring(0, i + 1), entry);
+                }
+            }
+
+            randomAccessFile = new RandomAccessFile(file, "r");
+            this.fileChannel = randomAccessFile.getChannel();
+        } catch (IOException ioe) {
+            this.zipFile.close();
+
+            if (randomAccessFile != null) {
+                randomAccessFile.close();
+            }
+
+            throw ioe;
+        }
+
+        Map<String, Long> offsets;
+
+        try {
+            offsets = readStoredOffsets(this.fileChannel);
+        } catch (Exception e) {
+            // The stored entries will be read as streams
+            offsets = Collections.emptyMap();
+        }
+
+        this.storedOffsets = offsets;
+    }
+
+    /**
+     * Acquires a reference to the archive. Fails if the archive has already
+     * been closed.
+     * 
+     * @return True if a reference was acquired.
+     */
+    public boolean acquire() {
+        int count = this.references.get();
+
+        while (count > 0) {
+            if (this.references.compareAndSet(count, count + 1)) {
+                this.lastAccess = System.currentTimeMillis();
+                return true;
+            }
+
+            count = this.references.get();
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds an entry to the list of entries located under a directory.
+     * 
+     * @param directoryName
+     *            The directory name.
+     * @param entry
+     *            The entry to add.
+     */
+    private void addDescendant(String directoryName, ZipEntry entry) {
+        List<ZipEntry> list = this.descendants.get(directoryName);
+
+        if (list == null) {
+            list = new ArrayList<ZipEntry>();
+            this.descendants.put(directoryName, list);
+        }
+
+        list.add(entry);
+    }
+
+    /**
+     * Returns a channel reading the content of an entry, if it is stored
+     * without compression. Closing the channel doesn't close the archive.
+     * 
+     * @param entry
+     *            The entry to read.
+     * @return A channel reading the content of the entry or null.
+     * @throws IOException
+     */
+    public FileChannel getChannel(ZipEntry entry) throws IOException {
+        FileChannel result = null;
+
+        if ((entry.getMethod() == ZipEntry.STORED) && (entry.getSize() >= 0)) {
+            Long dataOffset = this.dataOffsets.get(entry.getName());
+
+            if (dataOffset == null) {
+                Long localOffset = this.storedOffsets.get(entry.getName());
+
+                if (localOffset != null) {
+                    ByteBuffer header = readFully(this.fileChannel,
+                            localOffset, 30);
+
+                    if (header.getInt(0) == LOCAL_HEADER_SIGNATURE) {
+                        dataOffset = localOffset + 30
+                                + (header.getShort(26) & 0xFFFF)
+                                + (header.getShort(28) & 0xFFFF);
+                        this.dataOffsets.put(entry.getName(), dataOffset);
+                    }
+                }
+            }
+
+            if (dataOffset != null) {
+                result = new ReadableFileRegionChannel(this.fileChannel,
+                        dataOffset, entry.getSize());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the entries located under a directory, at any depth, in the
+     * order of the archive.
+     * 
+     * @param directoryName
+     *            The directory name, ending with a slash, or an empty string
+     *            for the root directory.
+     * @return The entries located under the directory.
+     */
+    public List<ZipEntry> getDescendants(String directoryName) {
+        List<ZipEntry> result = this.descendants.get(directoryName);
+        return (result == null) ? Collections.<ZipEntry> emptyList()
+                : Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the entry with the given name.
+     * 
+     * @param name
+     *            The entry name.
+     * @return The entry or null.
+     */
+    public ZipEntry getEntry(String name) {
+        return this.entries.get(name);
+    }
+
+    /**
+     * Returns the archive file.
+     * 
+     * @return The archive file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the last access time.
+     * 
+     * @return The last access time.
+     */
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    /**
+     * Returns the underlying Zip file.
+     * 
+     * @return The underlying Zip file.
+     */
+    public ZipFile getZipFile() {
+        return zipFile;
+    }
+
+    /**
+     * Indicates if the archive file was modified since it was opened, based on
+     * its last modification date and its length.
+     * 
+     * @return True if the archive file was modified since it was opened.
+     */
+    public boolean isStale() {
+        return (this.file.lastModified() != this.lastModified)
+                || (this.file.length() != this.length);
+    }
+
+    /**
+     * Releases a reference to the archive. Closes the underlying files when
+     * the last reference is released.
+     */
+    public void release() {
+        if (this.references.decrementAndGet() == 0) {
+            try {
+                this.zipFile.close();
+            } catch (IOException e) {
+                // Nothing more can be done
+            }
+
+            try {
+                this.fileChannel.close();
+            } catch (IOException e) {
+                // Nothing more can be done
+            }
+        }
+    }
+
+}
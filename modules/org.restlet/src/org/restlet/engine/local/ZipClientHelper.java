@@ -41,6 +41,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipOutputStream;
@@ -62,12 +65,36 @@ import org.restlet.service.MetadataService;
  * files.<br>
  * <br>
  * Handles GET, HEAD and PUT request on resources referenced as :
- * zip:file://<file path>
+ * zip:file://<file path><br>
+ * <br>
+ * Opened archives are cached and shared by the calls, so that their central
+ * directory is only parsed once. A cached archive is opened again when the
+ * last modification date or the length of its file changes. Here is the list
+ * of additional parameters that are supported. They should be set in the
+ * Client's context before it is started:
+ * <table>
+ * <tr>
+ * <th>Parameter name</th>
+ * <th>Value type</th>
+ * <th>Default value</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>maxCachedArchives</td>
+ * <td>int</td>
+ * <td>16</td>
+ * <td>Maximum number of archives kept open. The least recently used ones are
+ * closed beyond. If set to '0', the archives are opened for each call.</td>
+ * </tr>
+ * </table>
  * 
  * @author Remi Dewitte <remi@gide.net>
  */
 public class ZipClientHelper extends LocalClientHelper {
 
+    /** The cached archives by file path. */
+    private final ConcurrentMap<String, ZipArchive> archives;
+
     /**
      * Constructor.
      * 
@@ -76,10 +103,95 @@ public class ZipClientHelper extends LocalClientHelper {
      */
     public ZipClientHelper(Client client) {
         super(client);
+        this.archives = new ConcurrentHashMap<String, ZipArchive>();
         getProtocols().add(Protocol.ZIP);
         getProtocols().add(Protocol.JAR);
     }
 
+    /**
+     * Closes the least recently used archives beyond the maximum number of
+     * cached archives.
+     */
+    private void evictArchives() {
+        while (this.archives.size() > getMaxCachedArchives()) {
+            Map.Entry<String, ZipArchive> eldest = null;
+
+            for (Map.Entry<String, ZipArchive> entry : this.archives.entrySet()) {
+                if ((eldest == null)
+                        || (entry.getValue().getLastAccess() < eldest
+                                .getValue().getLastAccess())) {
+                    eldest = entry;
+                }
+            }
+
+            if ((eldest != null)
+                    && this.archives.remove(eldest.getKey(), eldest.getValue())) {
+                eldest.getValue().release();
+            }
+        }
+    }
+
+    /**
+     * Returns the archive of a given file, acquired for the caller which must
+     * release it. The archive is taken from the cache unless its file was
+     * modified since it was opened.
+     * 
+     * @param file
+     *            The Zip archive file.
+     * @return The acquired archive.
+     * @throws IOException
+     */
+    protected ZipArchive getArchive(File file) throws IOException {
+        if (getMaxCachedArchives() <= 0) {
+            return new ZipArchive(file);
+        }
+
+        String path = file.getAbsolutePath();
+        ZipArchive result = null;
+
+        while (result == null) {
+            ZipArchive archive = this.archives.get(path);
+
+            if ((archive != null) && archive.isStale()) {
+                // Calls still using the previous archive keep it open
+                if (this.archives.remove(path, archive)) {
+                    archive.release();
+                }
+
+                archive = null;
+            }
+
+            if (archive == null) {
+                ZipArchive opened = new ZipArchive(file);
+                archive = this.archives.putIfAbsent(path, opened);
+
+                if (archive == null) {
+                    archive = opened;
+                    evictArchives();
+                } else {
+                    // Already opened by another call
+                    opened.release();
+                }
+            }
+
+            if (archive.acquire()) {
+                result = archive;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the maximum number of archives kept open.
+     * 
+     * @return The maximum number of archives kept open.
+     */
+    public int getMaxCachedArchives() {
+        return Integer.parseInt(getHelpedParameters().getFirstValue(
+                "maxCachedArchives", "16"));
+    }
+
     /**
      * Handles a call for a local entity. By default, only GET and HEAD methods
      * are implemented.
@@ -113,7 +225,12 @@ public class ZipClientHelper extends LocalClientHelper {
                 handleGet(request, response, file, entryName,
                         getMetadataService());
             } else if (Method.PUT.equals(request.getMethod())) {
-                handlePut(request, response, file, entryName);
+                try {
+                    handlePut(request, response, file, entryName);
+                } finally {
+                    // The file may have been modified in the same second
+                    invalidateArchive(file);
+                }
             } else {
                 response.setStatus(Status.CLIENT_ERROR_METHOD_NOT_ALLOWED);
                 response.getAllowedMethods().add(Method.GET);
@@ -146,18 +263,19 @@ public class ZipClientHelper extends LocalClientHelper {
         if (!file.exists()) {
             response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
         } else {
-            ZipFile zipFile;
+            ZipArchive archive;
 
             try {
-                zipFile = new ZipFile(file);
+                archive = getArchive(file);
             } catch (Exception e) {
                 response.setStatus(Status.SERVER_ERROR_INTERNAL, e);
                 return;
             }
 
-            Entity entity = new ZipEntryEntity(zipFile, entryName,
+            Entity entity = new ZipEntryEntity(archive, entryName,
                     metadataService);
             if (!entity.exists()) {
+                archive.release();
                 response.setStatus(Status.CLIENT_ERROR_NOT_FOUND);
             } else {
                 final Representation output;
@@ -176,14 +294,9 @@ public class ZipClientHelper extends LocalClientHelper {
                     }
 
                     output = rl.getTextRepresentation();
-
-                    try {
-                        zipFile.close();
-                    } catch (IOException e) {
-                        // Do something ???
-                    }
+                    archive.release();
                 } else {
-                    // Return the file content
+                    // Return the file content, which releases the archive
                     output = entity.getRepresentation(metadataService
                             .getDefaultMediaType(), getTimeToLive());
                     output.setLocationRef(request.getResourceRef());
@@ -342,6 +455,31 @@ public class ZipClientHelper extends LocalClientHelper {
         }
     }
 
+    /**
+     * Removes the archive of a given file from the cache. It is closed once
+     * the calls still using it release it.
+     * 
+     * @param file
+     *            The Zip archive file.
+     */
+    protected void invalidateArchive(File file) {
+        String path = file.getAbsolutePath();
+        ZipArchive archive = this.archives.remove(path);
+
+        if (archive != null) {
+            archive.release();
+        }
+    }
+
+    @Override
+    public synchronized void stop() throws Exception {
+        for (String path : this.archives.keySet()) {
+            invalidateArchive(new File(path));
+        }
+
+        super.stop();
+    }
+
     /**
      * Writes an entity to a given ZIP output stream with a given ZIP entry
      * name.
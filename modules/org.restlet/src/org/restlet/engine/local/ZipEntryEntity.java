@@ -50,12 +50,59 @@ import org.restlet.service.MetadataService;
  */
 public class ZipEntryEntity extends Entity {
 
+    /** The shared Zip archive or null. */
+    protected final ZipArchive archive;
+
     /** The Zip file. */
     protected final ZipFile zipFile;
 
     /** The Zip entry. */
     protected final ZipEntry entry;
 
+    /**
+     * Constructor. The entry is looked up in the index of the archive.
+     * 
+     * @param archive
+     *            The shared Zip archive.
+     * @param entryName
+     *            The Zip entry name.
+     * @param metadataService
+     *            The metadata service to use.
+     */
+    public ZipEntryEntity(ZipArchive archive, String entryName,
+            MetadataService metadataService) {
+        super(metadataService);
+        this.archive = archive;
+        this.zipFile = archive.getZipFile();
+
+        // Checking we don't have a directory
+        ZipEntry entry = archive.getEntry(entryName + "/");
+
+        if (entry == null) {
+            entry = archive.getEntry(entryName);
+        }
+
+        this.entry = (entry == null) ? new ZipEntry(entryName) : entry;
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param archive
+     *            The shared Zip archive.
+     * @param entry
+     *            The Zip entry.
+     * @param metadataService
+     *            The metadata service to use.
+     */
+    public ZipEntryEntity(ZipArchive archive, ZipEntry entry,
+            MetadataService metadataService) {
+        super(metadataService);
+        this.archive = archive;
+        this.zipFile = archive.getZipFile();
+        this.entry = entry;
+    }
+
     /**
      * Constructor.
      * 
@@ -69,6 +116,7 @@ public class ZipEntryEntity extends Entity {
     public ZipEntryEntity(ZipFile zipFile, String entryName,
             MetadataService metadataService) {
         super(metadataService);
+        this.archive = null;
         this.zipFile = zipFile;
         ZipEntry entry = zipFile.getEntry(entryName);
         if (entry == null)
@@ -96,6 +144,7 @@ public class ZipEntryEntity extends Entity {
     public ZipEntryEntity(ZipFile zipFile, ZipEntry entry,
             MetadataService metadataService) {
         super(metadataService);
+        this.archive = null;
         this.zipFile = zipFile;
         this.entry = entry;
     }
@@ -113,7 +162,14 @@ public class ZipEntryEntity extends Entity {
     public List<Entity> getChildren() {
         List<Entity> result = null;
 
-        if (isDirectory()) {
+        if (isDirectory() && (this.archive != null)) {
+            result = new ArrayList<Entity>();
+
+            for (ZipEntry e : this.archive.getDescendants(entry.getName())) {
+                result.add(new ZipEntryEntity(this.archive, e,
+                        getMetadataService()));
+            }
+        } else if (isDirectory()) {
             result = new ArrayList<Entity>();
             Enumeration<? extends ZipEntry> entries = zipFile.entries();
             String n = entry.getName();
@@ -141,6 +197,11 @@ public class ZipEntryEntity extends Entity {
 
         String n = entry.getName();
         String pn = n.substring(0, n.lastIndexOf('/') + 1);
+
+        if (this.archive != null) {
+            return new ZipEntryEntity(this.archive, pn, getMetadataService());
+        }
+
         return new ZipEntryEntity(zipFile, zipFile.getEntry(pn),
                 getMetadataService());
     }
@@ -148,6 +209,11 @@ public class ZipEntryEntity extends Entity {
     @Override
     public Representation getRepresentation(MediaType defaultMediaType,
             int timeToLive) {
+        if (this.archive != null) {
+            return new ZipEntryRepresentation(defaultMediaType, this.archive,
+                    entry);
+        }
+
         return new ZipEntryRepresentation(defaultMediaType, zipFile, entry);
     }
 
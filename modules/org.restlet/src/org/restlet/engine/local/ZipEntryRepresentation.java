@@ -36,44 +36,78 @@ package org.restlet.engine.local;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import org.restlet.data.Disposition;
 import org.restlet.data.MediaType;
 import org.restlet.engine.io.BioUtils;
+import org.restlet.engine.io.NioUtils;
 import org.restlet.representation.StreamRepresentation;
 
 /**
  * An entry in a Zip/JAR file.
  * 
  * It is very important {@link #release()} is called to close the underlying Zip
- * file.
+ * file, or to release the shared Zip archive. When the entry of a shared
+ * archive is stored without compression, {@link #getChannel()} returns a
+ * {@link FileChannel} so that connectors can transfer it without copy.
  * 
  * @author Remi Dewitte <remi@gide.net>
  */
 public class ZipEntryRepresentation extends StreamRepresentation {
 
+    /** The shared Zip archive or null. */
+    protected final ZipArchive archive;
+
+    /** Indicates if the Zip file or archive has been released. */
+    private final AtomicBoolean released;
+
     /** The Zip file. */
     protected final ZipFile zipFile;
 
     /** The Zip entry. */
     protected final ZipEntry entry;
 
+    /**
+     * Constructor. The representation must be released to release its
+     * reference to the shared archive.
+     * 
+     * @param mediaType
+     *            The entry media type.
+     * @param archive
+     *            The shared Zip archive, already acquired for this
+     *            representation.
+     * @param entry
+     *            The Zip entry.
+     */
+    public ZipEntryRepresentation(MediaType mediaType, ZipArchive archive,
+            ZipEntry entry) {
+        this(mediaType, archive, archive.getZipFile(), entry);
+    }
+
     /**
      * Constructor.
      * 
      * @param mediaType
      *            The entry media type.
+     * @param archive
+     *            The shared Zip archive or null.
      * @param zipFile
      *            The parent Zip archive file.
      * @param entry
      *            The Zip entry.
      */
-    public ZipEntryRepresentation(MediaType mediaType, ZipFile zipFile,
-            ZipEntry entry) {
+    private ZipEntryRepresentation(MediaType mediaType, ZipArchive archive,
+            ZipFile zipFile, ZipEntry entry) {
         super(mediaType);
+        this.archive = archive;
+        this.released = new AtomicBoolean(false);
         this.zipFile = zipFile;
         this.entry = entry;
         Disposition disposition = new Disposition();
@@ -83,12 +117,33 @@ public class ZipEntryRepresentation extends StreamRepresentation {
         setModificationDate(new Date(entry.getTime()));
     }
 
+    /**
+     * Constructor.
+     * 
+     * @param mediaType
+     *            The entry media type.
+     * @param zipFile
+     *            The parent Zip archive file.
+     * @param entry
+     *            The Zip entry.
+     */
+    public ZipEntryRepresentation(MediaType mediaType, ZipFile zipFile,
+            ZipEntry entry) {
+        this(mediaType, null, zipFile, entry);
+    }
+
+    /**
+     * Returns a readable byte channel. If the entry of a shared archive is
+     * stored without compression, a read-only {@link FileChannel} limited to
+     * the entry content is returned.
+     * 
+     * @return A readable byte channel.
+     */
     @Override
-    public void release() {
-        try {
-            zipFile.close();
-        } catch (IOException e) {
-        }
+    public ReadableByteChannel getChannel() throws IOException {
+        FileChannel result = (this.archive == null) ? null : this.archive
+                .getChannel(entry);
+        return (result == null) ? super.getChannel() : result;
     }
 
     @Override
@@ -96,9 +151,41 @@ public class ZipEntryRepresentation extends StreamRepresentation {
         return zipFile.getInputStream(entry);
     }
 
+    @Override
+    public void release() {
+        if (this.released.compareAndSet(false, true)) {
+            if (this.archive != null) {
+                this.archive.release();
+            } else {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                }
+            }
+        }
+    }
+
     @Override
     public void write(OutputStream outputStream) throws IOException {
         BioUtils.copy(getStream(), outputStream);
     }
 
+    /**
+     * Writes the representation to a byte channel. Optimizes using the file
+     * channel transferTo method for the entries stored without compression.
+     * 
+     * @param writableChannel
+     *            A writable byte channel.
+     */
+    @Override
+    public void write(WritableByteChannel writableChannel) throws IOException {
+        ReadableByteChannel channel = getChannel();
+
+        if (channel instanceof FileChannel) {
+            NioUtils.copy((FileChannel) channel, writableChannel);
+        } else {
+            super.write(writableChannel);
+        }
+    }
+
 }
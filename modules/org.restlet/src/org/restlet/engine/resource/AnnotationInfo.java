@@ -35,10 +35,12 @@ package org.restlet.engine.resource;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -52,16 +54,70 @@ import org.restlet.data.Method;
 import org.restlet.data.Parameter;
 import org.restlet.representation.Representation;
 import org.restlet.representation.Variant;
+import org.restlet.service.ConverterService;
 import org.restlet.service.MetadataService;
 
 // [excludes gwt]
 /**
- * Descriptor for method annotations.
+ * Descriptor for method annotations. The Java types, the parsed query and the
+ * variants derived from the annotation value are computed once and cached, as
+ * they are looked up for each call handled by an annotated resource. The
+ * variants are cached for the last metadata and converter services used, so
+ * changes made to these services after the first call aren't reflected.
  * 
  * @author Jerome Louvel
  */
 public class AnnotationInfo {
 
+    /**
+     * Value cached for a given pair of metadata and converter services.
+     * 
+     * @param <T>
+     *            The type of the cached value.
+     */
+    private static final class ServiceEntry<T> {
+        /** The converter service used. */
+        private final ConverterService converterService;
+
+        /** The metadata service used. */
+        private final MetadataService metadataService;
+
+        /** The cached value. */
+        private final T value;
+
+        /**
+         * Constructor.
+         * 
+         * @param metadataService
+         *            The metadata service used.
+         * @param converterService
+         *            The converter service used.
+         * @param value
+         *            The cached value.
+         */
+        private ServiceEntry(MetadataService metadataService,
+                ConverterService converterService, T value) {
+            this.metadataService = metadataService;
+            this.converterService = converterService;
+            this.value = value;
+        }
+
+        /**
+         * Indicates if the value was computed with the given services.
+         * 
+         * @param metadataService
+         *            The metadata service.
+         * @param converterService
+         *            The converter service.
+         * @return True if the value was computed with the given services.
+         */
+        private boolean matches(MetadataService metadataService,
+                ConverterService converterService) {
+            return (this.metadataService == metadataService)
+                    && (this.converterService == converterService);
+        }
+    }
+
     /**
      * Returns the actual type for a given generic type name.
      * 
@@ -158,24 +214,42 @@ public class AnnotationInfo {
     /** The input part of the annotation value. */
     private final String input;
 
+    /** The cached media types of the input part of the annotation value. */
+    private volatile ServiceEntry<List<MediaType>> inputMediaTypes;
+
+    /** The cached input types of the Java method. */
+    private volatile Class<?>[] javaInputTypes;
+
     /** The annotated Java method. */
     private final java.lang.reflect.Method javaMethod;
 
     /** The upper implementation of the annotated Java method. */
     private final java.lang.reflect.Method javaMethodImpl;
 
+    /** The cached output type of the Java method. */
+    private volatile Class<?> javaOutputType;
+
     /** The output part of the annotation value. */
     private final String output;
 
     /** The optional query part of the annotation value. */
     private final String query;
 
+    /** The parsed query parameters required by the annotation value. */
+    private final Form queryParameters;
+
+    /** The cached request variants. */
+    private volatile ServiceEntry<List<Variant>> requestVariants;
+
     /** The class that hosts the annotated Java method. */
     private final Class<?> resourceClass;
 
     /** The matching Restlet method. */
     private final Method restletMethod;
 
+    /** The cached response variants. */
+    private volatile ServiceEntry<List<Variant>> responseVariants;
+
     /**
      * Constructor.
      * 
@@ -233,6 +307,18 @@ public class AnnotationInfo {
             this.input = null;
             this.output = null;
         }
+
+        this.queryParameters = (this.query == null) ? null : new Form(
+                this.query);
+
+        if (Modifier.isPublic(javaMethod.getModifiers())) {
+            try {
+                // Skip the access checks done by each invocation
+                javaMethod.setAccessible(true);
+            } catch (SecurityException se) {
+                // Keep the access checks
+            }
+        }
     }
 
     /**
@@ -307,6 +393,29 @@ public class AnnotationInfo {
         return input;
     }
 
+    /**
+     * Returns the media types of the input part of the annotation value.
+     * 
+     * @param metadataService
+     *            The metadata service to use.
+     * @return The media types of the input part of the annotation value or
+     *         null.
+     */
+    public List<MediaType> getInputMediaTypes(MetadataService metadataService) {
+        ServiceEntry<List<MediaType>> entry = this.inputMediaTypes;
+
+        if ((entry == null) || !entry.matches(metadataService, null)) {
+            List<MediaType> mediaTypes = metadataService
+                    .getAllMediaTypes(getInput());
+            entry = new ServiceEntry<List<MediaType>>(metadataService, null,
+                    (mediaTypes == null) ? null : Collections
+                            .unmodifiableList(mediaTypes));
+            this.inputMediaTypes = entry;
+        }
+
+        return entry.value;
+    }
+
     /**
      * Returns the actual type for a given generic type.
      * 
@@ -346,19 +455,26 @@ public class AnnotationInfo {
     }
 
     /**
-     * Returns the input types of the Java method.
+     * Returns the input types of the Java method. The array returned is shared
+     * and must not be modified.
      * 
      * @return The input types of the Java method.
      */
     public Class<?>[] getJavaInputTypes() {
-        int count = getJavaMethod().getParameterTypes().length;
-        Class<?>[] classes = new Class[count];
+        Class<?>[] result = this.javaInputTypes;
+
+        if (result == null) {
+            int count = getJavaMethod().getParameterTypes().length;
+            result = new Class[count];
+
+            for (int i = 0; i < count; i++) {
+                result[i] = getJavaInputType(i);
+            }
 
-        for (int i = 0; i < count; i++) {
-            classes[i] = getJavaInputType(i);
+            this.javaInputTypes = result;
         }
 
-        return classes;
+        return result;
     }
 
     /**
@@ -376,8 +492,15 @@ public class AnnotationInfo {
      * @return The output type of the Java method.
      */
     public Class<?> getJavaOutputType() {
-        return getJavaActualType(javaMethodImpl.getReturnType(),
-                javaMethodImpl.getGenericReturnType());
+        Class<?> result = this.javaOutputType;
+
+        if (result == null) {
+            result = getJavaActualType(javaMethodImpl.getReturnType(),
+                    javaMethodImpl.getGenericReturnType());
+            this.javaOutputType = result;
+        }
+
+        return result;
     }
 
     /**
@@ -400,17 +523,48 @@ public class AnnotationInfo {
 
     // [ifndef gwt] method
     /**
-     * Returns a list of request variants based on the annotation value.
+     * Returns a list of request variants based on the annotation value. The
+     * list returned is cached and can't be modified.
      * 
      * @param metadataService
      *            The metadata service to use.
+     * @param converterService
+     *            The converter service to use.
      * @return A list of request variants.
      */
-    @SuppressWarnings("unchecked")
     public List<Variant> getRequestVariants(MetadataService metadataService,
-            org.restlet.service.ConverterService converterService) {
+            ConverterService converterService) {
+        ServiceEntry<List<Variant>> entry = this.requestVariants;
+
+        if ((entry == null)
+                || !entry.matches(metadataService, converterService)) {
+            List<Variant> variants = getRequestVariants(metadataService,
+                    converterService, getJavaInputTypes());
+            entry = new ServiceEntry<List<Variant>>(metadataService,
+                    converterService, (variants == null) ? null : Collections
+                            .unmodifiableList(variants));
+            this.requestVariants = entry;
+        }
+
+        return entry.value;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Computes a list of request variants based on the annotation value.
+     * 
+     * @param metadataService
+     *            The metadata service to use.
+     * @param converterService
+     *            The converter service to use.
+     * @param classes
+     *            The input types of the Java method.
+     * @return A list of request variants.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Variant> getRequestVariants(MetadataService metadataService,
+            ConverterService converterService, Class<?>[] classes) {
         List<Variant> result = null;
-        Class<?>[] classes = getJavaInputTypes();
 
         if (classes != null && classes.length >= 1) {
             result = getVariants(metadataService, getInput());
@@ -438,7 +592,8 @@ public class AnnotationInfo {
 
     // [ifndef gwt] method
     /**
-     * Returns a list of response variants based on the annotation value.
+     * Returns a list of response variants based on the annotation value. The
+     * list returned is cached and can't be modified.
      * 
      * @param metadataService
      *            The metadata service to use.
@@ -448,21 +603,31 @@ public class AnnotationInfo {
      */
     @SuppressWarnings("unchecked")
     public List<Variant> getResponseVariants(MetadataService metadataService,
-            org.restlet.service.ConverterService converterService) {
-        List<Variant> result = null;
+            ConverterService converterService) {
+        ServiceEntry<List<Variant>> entry = this.responseVariants;
 
-        if ((getJavaOutputType() != null)
-                && (getJavaOutputType() != void.class)
-                && (getJavaOutputType() != Void.class)) {
-            result = getVariants(metadataService, getOutput());
+        if ((entry == null)
+                || !entry.matches(metadataService, converterService)) {
+            List<Variant> variants = null;
+            Class<?> outputType = getJavaOutputType();
 
-            if (result == null) {
-                result = (List<Variant>) converterService.getVariants(
-                        getJavaOutputType(), null);
+            if ((outputType != null) && (outputType != void.class)
+                    && (outputType != Void.class)) {
+                variants = getVariants(metadataService, getOutput());
+
+                if (variants == null) {
+                    variants = (List<Variant>) converterService.getVariants(
+                            outputType, null);
+                }
             }
+
+            entry = new ServiceEntry<List<Variant>>(metadataService,
+                    converterService, (variants == null) ? null : Collections
+                            .unmodifiableList(variants));
+            this.responseVariants = entry;
         }
 
-        return result;
+        return entry.value;
     }
 
     /**
@@ -576,24 +741,18 @@ public class AnnotationInfo {
      */
     public boolean isCompatible(Method restletMethod, Form queryParams,
             Representation requestEntity, MetadataService metadataService,
-            org.restlet.service.ConverterService converterService) {
-        boolean result = true;
+            ConverterService converterService) {
+        // Verify HTTP method
+        boolean result = getRestletMethod().equals(restletMethod);
 
         // Verify query parameters
-        if (getQuery() != null) {
-            Form requiredParams = new Form(getQuery());
-
-            for (Iterator<Parameter> iter = requiredParams.iterator(); iter
+        if (result && (this.queryParameters != null)) {
+            for (Iterator<Parameter> iter = this.queryParameters.iterator(); iter
                     .hasNext() && result;) {
                 result = queryParams.contains(iter.next());
             }
         }
 
-        // Verify HTTP method
-        if (result) {
-            result = getRestletMethod().equals(restletMethod);
-        }
-
         // Verify request entity
         if (result) {
             result = isCompatibleRequestEntity(requestEntity, metadataService,
@@ -619,7 +778,7 @@ public class AnnotationInfo {
      */
     public boolean isCompatibleRequestEntity(Representation requestEntity,
             MetadataService metadataService,
-            org.restlet.service.ConverterService converterService) {
+            ConverterService converterService) {
         boolean result = true;
 
         if ((requestEntity != null) && requestEntity.isAvailable()) {
@@ -85,8 +85,10 @@ public class VariantInfo extends Variant {
     public VariantInfo(Variant variant, AnnotationInfo annotationInfo) {
         this(variant.getMediaType(), annotationInfo);
         setCharacterSet(variant.getCharacterSet());
-        setEncodings(variant.getEncodings());
-        setLanguages(variant.getLanguages());
+
+        // Copy the lists as the variant may be shared
+        getEncodings().addAll(variant.getEncodings());
+        getLanguages().addAll(variant.getLanguages());
     }
 
     /**
@@ -36,15 +36,91 @@ package org.restlet.engine.util;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+// [ifndef gwt] line
+import java.util.HashMap;
 import java.util.List;
+// [ifndef gwt] line
+import java.util.Map;
 
 /**
- * Date manipulation utilities.
+ * Date manipulation utilities.<br>
+ * <br>
+ * The date formats are cached per thread, the last date formatted with the
+ * RFC 1123 format is cached for a second, and the RFC 1123 and asctime formats
+ * are parsed and formatted without relying on SimpleDateFormat when the date
+ * strictly follows them. The last dates parsed are also kept in a small cache
+ * as the same values, such as If-Modified-Since headers, are often received
+ * many times.
  * 
  * @author Jerome Louvel
  */
 public final class DateUtils {
 
+    // [ifndef gwt] member
+    /**
+     * Formatted date, with a precision of one second.
+     */
+    private static final class FormattedDate {
+
+        /** The number of seconds since January 1, 1970, 00:00:00 GMT. */
+        private final long seconds;
+
+        /** The formatted date. */
+        private final String value;
+
+        /**
+         * Constructor.
+         * 
+         * @param seconds
+         *            The number of seconds since January 1, 1970, 00:00:00
+         *            GMT.
+         * @param value
+         *            The formatted date.
+         */
+        private FormattedDate(long seconds, String value) {
+            this.seconds = seconds;
+            this.value = value;
+        }
+    }
+
+    // [ifndef gwt] member
+    /**
+     * Parsed date, associated to the formatted value and the formats used.
+     */
+    private static final class ParsedDate {
+
+        /** The date formats used. */
+        private final List<String> formats;
+
+        /** The number of milliseconds since January 1, 1970, 00:00:00 GMT. */
+        private final long time;
+
+        /** The formatted date. */
+        private final String value;
+
+        /**
+         * Constructor.
+         * 
+         * @param value
+         *            The formatted date.
+         * @param formats
+         *            The date formats used.
+         * @param time
+         *            The number of milliseconds since January 1, 1970,
+         *            00:00:00 GMT.
+         */
+        private ParsedDate(String value, List<String> formats, long time) {
+            this.formats = formats;
+            this.time = time;
+            this.value = value;
+        }
+    }
+
+    // [ifndef gwt] member
+    /** The short names of the days, starting with Sunday. */
+    private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu",
+            "Fri", "Sat" };
+
     /**
      * Obsoleted HTTP date format (ANSI C asctime() format). Pattern:
      * "EEE MMM dd HH:mm:ss yyyy".
@@ -77,6 +153,41 @@ public final class DateUtils {
             "EEE, dd MMM yy HH:mm:ss z", "EEE, dd MMM yy HH:mm z",
             "dd MMM yy HH:mm:ss z", "dd MMM yy HH:mm z");
 
+    // [ifndef gwt] member
+    /** The date formats cached for the current thread, by pattern. */
+    private static final ThreadLocal<Map<String, java.text.DateFormat>> FORMATS = new ThreadLocal<Map<String, java.text.DateFormat>>() {
+        @Override
+        protected Map<String, java.text.DateFormat> initialValue() {
+            return new HashMap<String, java.text.DateFormat>();
+        }
+    };
+
+    // [ifndef gwt] member
+    /** The last date formatted with the RFC 1123 format. */
+    private static volatile FormattedDate lastFormatted;
+
+    // [ifndef gwt] member
+    /** The largest time handled without SimpleDateFormat (year 9999). */
+    private static final long MAX_TIME = 253402300799999L;
+
+    // [ifndef gwt] member
+    /** The smallest time handled without SimpleDateFormat (year 1600). */
+    private static final long MIN_TIME = -11676096000000L;
+
+    // [ifndef gwt] member
+    /** The number of days of the months, for leap years. */
+    private static final int[] MONTH_LENGTHS = { 31, 29, 31, 30, 31, 30, 31,
+            31, 30, 31, 30, 31 };
+
+    // [ifndef gwt] member
+    /** The short names of the months. */
+    private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr",
+            "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec" };
+
+    // [ifndef gwt] member
+    /** The cache of the last dates parsed, indexed by the hash of the value. */
+    private static final ParsedDate[] PARSED_DATES = new ParsedDate[256];
+
     // [ifndef gwt] member
     /** Remember the often used GMT time zone. */
     private static final java.util.TimeZone TIMEZONE_GMT = java.util.TimeZone
@@ -105,6 +216,20 @@ public final class DateUtils {
         return baseTime < afterTime;
     }
 
+    // [ifndef gwt] method
+    /**
+     * Appends a number between 0 and 99 as two digits.
+     * 
+     * @param sb
+     *            The string builder to append to.
+     * @param number
+     *            The number to append.
+     */
+    private static void appendDigits(StringBuilder sb, int number) {
+        sb.append((char) ('0' + (number / 10)));
+        sb.append((char) ('0' + (number % 10)));
+    }
+
     /**
      * Compares two date with a precision of one second.
      * 
@@ -184,17 +309,32 @@ public final class DateUtils {
         }
 
         // [ifndef gwt]
-        java.text.DateFormat formatter = null;
+        long time = date.getTime();
 
-        if (FORMAT_RFC_3339.get(0).equals(format)) {
-            formatter = new InternetDateFormat(TIMEZONE_GMT);
-        } else {
-            formatter = new java.text.SimpleDateFormat(format,
-                    java.util.Locale.US);
-            formatter.setTimeZone(TIMEZONE_GMT);
+        if (FORMAT_RFC_1123.get(0).equals(format)) {
+            long seconds = (time >= 0) ? (time / 1000) : ((time - 999) / 1000);
+            FormattedDate formatted = lastFormatted;
+
+            if ((formatted == null) || (formatted.seconds != seconds)) {
+                String value;
+
+                if ((time >= MIN_TIME) && (time <= MAX_TIME)) {
+                    value = formatGmt(time, false);
+                } else {
+                    value = getDateFormat(format).format(date);
+                }
+
+                formatted = new FormattedDate(seconds, value);
+                lastFormatted = formatted;
+            }
+
+            return formatted.value;
+        } else if (FORMAT_ASC_TIME.get(0).equals(format) && (time >= MIN_TIME)
+                && (time <= MAX_TIME)) {
+            return formatGmt(time, true);
         }
 
-        return formatter.format(date);
+        return getDateFormat(format).format(date);
         // [enddef]
         // [ifdef gwt]
         /*
@@ -213,6 +353,117 @@ public final class DateUtils {
         // [enddef]
     }
 
+    // [ifndef gwt] method
+    /**
+     * Formats a time located between the years 1600 and 9999 in the RFC 1123
+     * format or in the asctime format, in the GMT time zone.
+     * 
+     * @param time
+     *            The number of milliseconds since January 1, 1970, 00:00:00
+     *            GMT.
+     * @param ascTime
+     *            Indicates if the asctime format should be used.
+     * @return The formatted date.
+     */
+    private static String formatGmt(long time, boolean ascTime) {
+        long seconds = (time >= 0) ? (time / 1000) : ((time - 999) / 1000);
+        long days = (seconds >= 0) ? (seconds / 86400)
+                : ((seconds - 86399) / 86400);
+        int secondOfDay = (int) (seconds - (days * 86400));
+        int dayOfWeek = (int) (((days % 7) + 11) % 7);
+
+        // Converts the number of days into a date of the Gregorian calendar
+        long dayOfEra = days + 719468;
+        long era = dayOfEra / 146097;
+        dayOfEra -= era * 146097;
+        long yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524)
+                - (dayOfEra / 146096)) / 365;
+        long dayOfYear = dayOfEra
+                - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+        long shiftedMonth = ((5 * dayOfYear) + 2) / 153;
+        int day = (int) (dayOfYear - (((153 * shiftedMonth) + 2) / 5) + 1);
+        int month = (int) ((shiftedMonth < 10) ? shiftedMonth + 2
+                : shiftedMonth - 10);
+        int year = (int) (yearOfEra + (era * 400) + ((month < 2) ? 1 : 0));
+
+        StringBuilder sb = new StringBuilder(29);
+        sb.append(DAYS[dayOfWeek]);
+
+        if (ascTime) {
+            sb.append(' ').append(MONTHS[month]).append(' ');
+            appendDigits(sb, day);
+        } else {
+            sb.append(", ");
+            appendDigits(sb, day);
+            sb.append(' ').append(MONTHS[month]).append(' ').append(year);
+        }
+
+        sb.append(' ');
+        appendDigits(sb, secondOfDay / 3600);
+        sb.append(':');
+        appendDigits(sb, (secondOfDay / 60) % 60);
+        sb.append(':');
+        appendDigits(sb, secondOfDay % 60);
+
+        if (ascTime) {
+            sb.append(' ').append(year);
+        } else {
+            sb.append(" GMT");
+        }
+
+        return sb.toString();
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns the date format cached for the current thread for a given
+     * pattern.
+     * 
+     * @param format
+     *            The date format pattern.
+     * @return The date format.
+     */
+    private static java.text.DateFormat getDateFormat(String format) {
+        Map<String, java.text.DateFormat> formats = FORMATS.get();
+        java.text.DateFormat result = formats.get(format);
+
+        if (result == null) {
+            if (FORMAT_RFC_3339.get(0).equals(format)) {
+                result = new InternetDateFormat(TIMEZONE_GMT);
+            } else {
+                result = new java.text.SimpleDateFormat(format,
+                        java.util.Locale.US);
+                result.setTimeZone(TIMEZONE_GMT);
+            }
+
+            formats.put(format, result);
+        }
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Returns the index of a name found in a date at a given position.
+     * 
+     * @param date
+     *            The formatted date.
+     * @param index
+     *            The position of the name.
+     * @param names
+     *            The names to look for.
+     * @return The index of the name found or -1.
+     */
+    private static int indexOf(String date, int index, String[] names) {
+        for (int i = 0; i < names.length; i++) {
+            if (date.startsWith(names[i], index)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * Parses a formatted date into a Date object using the default HTTP format
      * (RFC 1123).
@@ -241,21 +492,33 @@ public final class DateUtils {
             throw new IllegalArgumentException("Date is null");
         }
 
+        // [ifndef gwt]
+        int slot = date.hashCode() & (PARSED_DATES.length - 1);
+        ParsedDate parsed = PARSED_DATES[slot];
+
+        if ((parsed != null) && (parsed.formats == formats)
+                && parsed.value.equals(date)) {
+            return new Date(parsed.time);
+        }
+        // [enddef]
+
         String format = null;
         int formatsSize = formats.size();
 
         for (int i = 0; (result == null) && (i < formatsSize); i++) {
             format = formats.get(i);
             // [ifndef gwt]
-            java.text.DateFormat parser = null;
+            if (FORMAT_RFC_1123.get(0).equals(format)) {
+                result = parseGmt(date, false);
+            } else if (FORMAT_ASC_TIME.get(0).equals(format)) {
+                result = parseGmt(date, true);
+            }
 
-            if (FORMAT_RFC_3339.get(0).equals(format)) {
-                parser = new InternetDateFormat(TIMEZONE_GMT);
-            } else {
-                parser = new java.text.SimpleDateFormat(format,
-                        java.util.Locale.US);
-                parser.setTimeZone(TIMEZONE_GMT);
+            if (result != null) {
+                break;
             }
+
+            java.text.DateFormat parser = getDateFormat(format);
             // [enddef]
             // [ifdef gwt]
             /*
@@ -278,6 +541,133 @@ public final class DateUtils {
             }
         }
 
+        // [ifndef gwt]
+        if ((result != null)
+                && ((formats == FORMAT_RFC_1123)
+                        || (formats == FORMAT_RFC_1036)
+                        || (formats == FORMAT_ASC_TIME)
+                        || (formats == FORMAT_RFC_822))) {
+            // Only the unmodifiable lists of formats can be safely cached
+            PARSED_DATES[slot] = new ParsedDate(date, formats,
+                    result.getTime());
+        }
+        // [enddef]
+
+        return result;
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Parses a date which strictly follows the RFC 1123 format or the asctime
+     * format, in the GMT time zone, between the years 1600 and 9999. Returns
+     * null for any other date, which must then be parsed by a date format.
+     * 
+     * @param date
+     *            The date to parse.
+     * @param ascTime
+     *            Indicates if the asctime format should be used.
+     * @return The parsed date or null.
+     */
+    private static Date parseGmt(String date, boolean ascTime) {
+        int dayIndex;
+        int monthIndex;
+        int timeIndex;
+        int yearIndex;
+
+        if (ascTime) {
+            // Example: "Sun Nov  6 08:49:37 1994"
+            if ((date.length() != 24) || (date.charAt(3) != ' ')
+                    || (date.charAt(7) != ' ') || (date.charAt(10) != ' ')
+                    || (date.charAt(19) != ' ')) {
+                return null;
+            }
+
+            monthIndex = 4;
+            dayIndex = 8;
+            timeIndex = 11;
+            yearIndex = 20;
+        } else {
+            // Example: "Sun, 06 Nov 1994 08:49:37 GMT"
+            if ((date.length() != 29) || (date.charAt(3) != ',')
+                    || (date.charAt(4) != ' ') || (date.charAt(7) != ' ')
+                    || (date.charAt(11) != ' ') || (date.charAt(16) != ' ')
+                    || !date.endsWith(" GMT")) {
+                return null;
+            }
+
+            dayIndex = 5;
+            monthIndex = 8;
+            yearIndex = 12;
+            timeIndex = 17;
+        }
+
+        if ((indexOf(date, 0, DAYS) == -1)
+                || (date.charAt(timeIndex + 2) != ':')
+                || (date.charAt(timeIndex + 5) != ':')) {
+            return null;
+        }
+
+        int month = indexOf(date, monthIndex, MONTHS);
+        int day = parseNumber(date, dayIndex, 2, ascTime);
+        int year = parseNumber(date, yearIndex, 4, false);
+        int hour = parseNumber(date, timeIndex, 2, false);
+        int minute = parseNumber(date, timeIndex + 3, 2, false);
+        int second = parseNumber(date, timeIndex + 6, 2, false);
+
+        if ((month == -1) || (year < 1600) || (hour < 0) || (hour > 23)
+                || (minute < 0) || (minute > 59) || (second < 0)
+                || (second > 59) || (day < 1)
+                || (day > MONTH_LENGTHS[month])) {
+            return null;
+        } else if ((month == 1) && (day == 29)
+                && (((year % 4) != 0) || (((year % 100) == 0)
+                        && ((year % 400) != 0)))) {
+            // Not a leap year, let the date format handle it
+            return null;
+        }
+
+        // Converts the Gregorian calendar date into a number of days
+        long shiftedYear = (month < 2) ? year - 1 : year;
+        long era = shiftedYear / 400;
+        long yearOfEra = shiftedYear - (era * 400);
+        long shiftedMonth = (month > 1) ? month - 2 : month + 10;
+        long dayOfYear = (((153 * shiftedMonth) + 2) / 5) + day - 1;
+        long dayOfEra = (yearOfEra * 365) + (yearOfEra / 4)
+                - (yearOfEra / 100) + dayOfYear;
+        long days = (era * 146097) + dayOfEra - 719468;
+
+        return new Date(((days * 86400) + (hour * 3600) + (minute * 60)
+                + second) * 1000);
+    }
+
+    // [ifndef gwt] method
+    /**
+     * Parses a positive number made of a fixed count of digits.
+     * 
+     * @param date
+     *            The formatted date.
+     * @param index
+     *            The position of the number.
+     * @param length
+     *            The count of digits.
+     * @param spacePadded
+     *            Indicates if the first digit can be replaced by a space.
+     * @return The number parsed or -1.
+     */
+    private static int parseNumber(String date, int index, int length,
+            boolean spacePadded) {
+        int result = 0;
+
+        for (int i = index; i < index + length; i++) {
+            char c = date.charAt(i);
+
+            if ((c >= '0') && (c <= '9')) {
+                result = (result * 10) + (c - '0');
+            } else if (!spacePadded || (i != index) || (c != ' ')) {
+                return -1;
+            }
+        }
+
         return result;
     }
 
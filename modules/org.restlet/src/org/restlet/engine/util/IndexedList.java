@@ -0,0 +1,391 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+
+import org.restlet.util.NamedValue;
+
+/**
+ * Vector of named values with a case insensitive hash index of the names. The
+ * index is lazily built by the first lookup once the list contains enough
+ * entries, then kept up to date when entries are added at the end of the list
+ * or removed. Other structural modifications, including the ones done through
+ * iterators and sub lists, are detected and cause the index to be rebuilt by
+ * the next lookup. The insertion order and the duplicate entries are
+ * preserved.<br>
+ * <br>
+ * Note that the names of the entries are supposed to stay unchanged while they
+ * are in the list. Changing the name of an entry requires it to be removed
+ * then added again.
+ * 
+ * @author Jerome Louvel
+ * @param <T>
+ *            The contained type
+ */
+public class IndexedList<T extends NamedValue<String>> extends Vector<T> {
+
+    /**
+     * Bucket of the index, grouping the entries whose names are equal
+     * ignoring the case.
+     * 
+     * @param <T>
+     *            The contained type
+     */
+    private static final class Bucket<T> {
+
+        /** The entries, in the list order. */
+        private final List<T> entries;
+
+        /** The hash code of the name. */
+        private final int hash;
+
+        /** The name of the first entry added. */
+        private final String name;
+
+        /** The next bucket with the same table slot. */
+        private Bucket<T> next;
+
+        /**
+         * Constructor.
+         * 
+         * @param name
+         *            The name of the entries.
+         * @param hash
+         *            The hash code of the name.
+         * @param next
+         *            The next bucket with the same table slot.
+         */
+        private Bucket(String name, int hash, Bucket<T> next) {
+            this.entries = new ArrayList<T>(2);
+            this.hash = hash;
+            this.name = name;
+            this.next = next;
+        }
+    }
+
+    /**
+     * The minimum number of entries required to build the index. Scanning
+     * smaller lists is cheaper.
+     */
+    public static final int INDEX_THRESHOLD = 8;
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Returns a hash code of a name which is consistent with
+     * {@link String#equalsIgnoreCase(String)}.
+     * 
+     * @param name
+     *            The name.
+     * @return The hash code.
+     */
+    private static int hash(String name) {
+        int result = 0;
+
+        if (name != null) {
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+
+                if (c < 128) {
+                    if ((c >= 'A') && (c <= 'Z')) {
+                        c += 'a' - 'A';
+                    }
+                } else {
+                    c = Character.toLowerCase(Character.toUpperCase(c));
+                }
+
+                result = 31 * result + c;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Indicates if two names are equal ignoring the case.
+     * 
+     * @param name1
+     *            The first name, potentially null.
+     * @param name2
+     *            The second name, potentially null.
+     * @return True if both names are equal ignoring the case.
+     */
+    private static boolean matches(String name1, String name2) {
+        return (name1 == name2)
+                || ((name1 != null) && name1.equalsIgnoreCase(name2));
+    }
+
+    /** The modification count reflected by the index. */
+    private transient int indexCount;
+
+    /** The number of buckets in the index. */
+    private transient int indexSize;
+
+    /** The table of buckets or null if the index isn't built. */
+    private transient Bucket<T>[] indexTable;
+
+    /** The number of entries replaced. */
+    private int replaceCount;
+
+    /**
+     * Constructor.
+     */
+    public IndexedList() {
+        super();
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param initialCapacity
+     *            The initial list capacity.
+     */
+    public IndexedList(int initialCapacity) {
+        super(initialCapacity);
+    }
+
+    @Override
+    public synchronized boolean add(T element) {
+        boolean valid = isIndexValid();
+        boolean result = super.add(element);
+
+        if (valid) {
+            index(element);
+            this.indexCount = getModificationCount();
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the bucket of the index for a given name.
+     * 
+     * @param name
+     *            The name.
+     * @return The bucket found or null.
+     */
+    private Bucket<T> getBucket(String name) {
+        int hash = hash(name);
+        Bucket<T> bucket = this.indexTable[hash & (this.indexTable.length - 1)];
+
+        while ((bucket != null)
+                && ((bucket.hash != hash) || !matches(bucket.name, name))) {
+            bucket = bucket.next;
+        }
+
+        return bucket;
+    }
+
+    /**
+     * Returns the number of structural modifications and replacements of
+     * entries.
+     * 
+     * @return The number of modifications.
+     */
+    private int getModificationCount() {
+        return this.modCount + this.replaceCount;
+    }
+
+    /**
+     * Adds an entry to the index, after the entries with the same name.
+     * 
+     * @param element
+     *            The entry to add.
+     */
+    private void index(T element) {
+        String name = (element == null) ? null : element.getName();
+        Bucket<T> bucket = getBucket(name);
+
+        if (bucket == null) {
+            if (this.indexSize >= (this.indexTable.length * 3) / 4) {
+                resizeIndex();
+            }
+
+            int hash = hash(name);
+            int slot = hash & (this.indexTable.length - 1);
+            bucket = new Bucket<T>(name, hash, this.indexTable[slot]);
+            this.indexTable[slot] = bucket;
+            this.indexSize++;
+        }
+
+        bucket.entries.add(element);
+    }
+
+    /**
+     * Indicates if the index is built and reflects the current entries.
+     * 
+     * @return True if the index is built and reflects the current entries.
+     */
+    private boolean isIndexValid() {
+        return (this.indexTable != null)
+                && (this.indexCount == getModificationCount());
+    }
+
+    /**
+     * Returns the entries whose name is equal to the given name ignoring the
+     * case, in the list order. Builds the index if needed.
+     * 
+     * @param name
+     *            The name to look up.
+     * @return The matching entries, or null if the list is too small to be
+     *         indexed.
+     */
+    public synchronized List<T> lookup(String name) {
+        if (!isIndexValid()) {
+            if (size() < INDEX_THRESHOLD) {
+                this.indexTable = null;
+                return null;
+            }
+
+            rebuildIndex();
+        }
+
+        Bucket<T> bucket = getBucket(name);
+        List<T> result;
+
+        if (bucket == null) {
+            result = Collections.emptyList();
+        } else {
+            result = bucket.entries;
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds the index based on the current entries.
+     */
+    @SuppressWarnings("unchecked")
+    private void rebuildIndex() {
+        int capacity = 16;
+
+        while (capacity < size() * 2) {
+            capacity <<= 1;
+        }
+
+        this.indexTable = (Bucket<T>[]) new Bucket<?>[capacity];
+        this.indexSize = 0;
+
+        for (int i = 0; i < size(); i++) {
+            index(get(i));
+        }
+
+        this.indexCount = getModificationCount();
+    }
+
+    @Override
+    public synchronized T remove(int index) {
+        boolean valid = isIndexValid();
+        T result = super.remove(index);
+
+        if (valid) {
+            unindex(result);
+            this.indexCount = getModificationCount();
+        }
+
+        return result;
+    }
+
+    @Override
+    public synchronized boolean remove(Object element) {
+        int index = indexOf(element);
+
+        if (index >= 0) {
+            remove(index);
+        }
+
+        return (index >= 0);
+    }
+
+    /**
+     * Doubles the size of the table of buckets.
+     */
+    @SuppressWarnings("unchecked")
+    private void resizeIndex() {
+        Bucket<T>[] oldTable = this.indexTable;
+        this.indexTable = (Bucket<T>[]) new Bucket<?>[oldTable.length * 2];
+
+        for (int i = 0; i < oldTable.length; i++) {
+            Bucket<T> bucket = oldTable[i];
+
+            while (bucket != null) {
+                Bucket<T> next = bucket.next;
+                int slot = bucket.hash & (this.indexTable.length - 1);
+                bucket.next = this.indexTable[slot];
+                this.indexTable[slot] = bucket;
+                bucket = next;
+            }
+        }
+    }
+
+    @Override
+    public synchronized T set(int index, T element) {
+        this.replaceCount++;
+        return super.set(index, element);
+    }
+
+    @Override
+    public synchronized void setElementAt(T element, int index) {
+        this.replaceCount++;
+        super.setElementAt(element, index);
+    }
+
+    /**
+     * Removes an entry from the index.
+     * 
+     * @param element
+     *            The entry to remove.
+     */
+    private void unindex(T element) {
+        Bucket<T> bucket = getBucket((element == null) ? null : element
+                .getName());
+
+        if (bucket != null) {
+            for (int i = 0; i < bucket.entries.size(); i++) {
+                if (bucket.entries.get(i) == element) {
+                    bucket.entries.remove(i);
+                    break;
+                }
+            }
+
+            // Empty buckets are kept until the next rebuild
+        }
+    }
+
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+/**
+ * Immutable table of well-known strings that can be looked up from a region of
+ * a character sequence without creating a new string. This is useful to
+ * intern the header names, methods or protocols parsed from a line builder.<br>
+ * <br>
+ * Concurrency note: instances of this class are immutable and can be shared by
+ * several threads.
+ * 
+ * @author Jerome Louvel
+ */
+public class StringTable {
+
+    /**
+     * Computes a cheap hash code of a region of a character sequence, based on
+     * its length and on its first, middle and last characters.
+     * 
+     * @param source
+     *            The source character sequence.
+     * @param start
+     *            The start index, inclusive.
+     * @param end
+     *            The end index, exclusive.
+     * @return The hash code.
+     */
+    private static int hashCode(CharSequence source, int start, int end) {
+        int length = end - start;
+        int result = length;
+
+        if (length > 0) {
+            result = 31 * result + source.charAt(start);
+            result = 31 * result + source.charAt(start + length / 2);
+            result = 31 * result + source.charAt(end - 1);
+        }
+
+        return result;
+    }
+
+    /** The table of strings, using open addressing. */
+    private final String[] strings;
+
+    /**
+     * Constructor.
+     * 
+     * @param strings
+     *            The well-known strings.
+     */
+    public StringTable(String... strings) {
+        int capacity = 16;
+
+        while (capacity < strings.length * 4) {
+            capacity *= 2;
+        }
+
+        this.strings = new String[capacity];
+
+        for (String string : strings) {
+            int index = hashCode(string, 0, string.length()) & (capacity - 1);
+
+            while ((this.strings[index] != null)
+                    && !this.strings[index].equals(string)) {
+                index = (index + 1) & (capacity - 1);
+            }
+
+            this.strings[index] = string;
+        }
+    }
+
+    /**
+     * Returns the string corresponding to a region of a character sequence.
+     * If the region matches a well-known string, this string is returned,
+     * otherwise a new string is created.
+     * 
+     * @param source
+     *            The source character sequence.
+     * @param start
+     *            The start index, inclusive.
+     * @param end
+     *            The end index, exclusive.
+     * @return The corresponding string.
+     */
+    public String get(CharSequence source, int start, int end) {
+        String result = lookup(source, start, end);
+        return (result == null) ? source.subSequence(start, end).toString()
+                : result;
+    }
+
+    /**
+     * Returns the well-known string corresponding to a region of a character
+     * sequence.
+     * 
+     * @param source
+     *            The source character sequence.
+     * @param start
+     *            The start index, inclusive.
+     * @param end
+     *            The end index, exclusive.
+     * @return The well-known string or null if the region doesn't match.
+     */
+    public String lookup(CharSequence source, int start, int end) {
+        int length = end - start;
+        int index = hashCode(source, start, end) & (this.strings.length - 1);
+        String candidate = this.strings[index];
+
+        while (candidate != null) {
+            if (candidate.length() == length) {
+                boolean matched = true;
+
+                for (int i = 0; matched && (i < length); i++) {
+                    matched = (candidate.charAt(i) == source.charAt(start + i));
+                }
+
+                if (matched) {
+                    return candidate;
+                }
+            }
+
+            index = (index + 1) & (this.strings.length - 1);
+            candidate = this.strings[index];
+        }
+
+        return null;
+    }
+
+}
@@ -0,0 +1,472 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.engine.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.restlet.routing.Template;
+import org.restlet.routing.Variable;
+
+/**
+ * Compiled form of a URI {@link Template} that matches formatted strings
+ * without relying on regular expressions. The template is compiled into a
+ * sequence of literal, variable and back reference tokens which are matched
+ * with the same greedy and backtracking semantics as the Regex pattern
+ * generated by the template, so the matched length and the extracted variable
+ * values are identical.<br>
+ * <br>
+ * Only the common variable types are supported. For other types such as
+ * {@link Variable#TYPE_TOKEN} or {@link Variable#TYPE_COMMENT}, the template
+ * must keep using its Regex pattern. Use {@link #isSupported()} to check
+ * this.<br>
+ * <br>
+ * Concurrency note: once compiled, instances of this class are immutable and
+ * can be shared by several threads.
+ * 
+ * @author Jerome Louvel
+ */
+public class TemplateMatcher {
+
+    /**
+     * Token of a compiled template.
+     */
+    private static class Token {
+
+        /** The literal text to match, for literal tokens. */
+        private String literal;
+
+        /** The index of the variable, for variable and reference tokens. */
+        private final int index;
+
+        /** The variable descriptor, for variable tokens. */
+        private final Variable variable;
+
+        /**
+         * Constructor.
+         * 
+         * @param literal
+         *            The literal text to match.
+         * @param index
+         *            The index of the variable.
+         * @param variable
+         *            The variable descriptor.
+         */
+        private Token(String literal, int index, Variable variable) {
+            this.literal = literal;
+            this.index = index;
+            this.variable = variable;
+        }
+    }
+
+    /**
+     * Indicates if a variable type accepts percent-encoded characters.
+     * 
+     * @param type
+     *            The variable type.
+     * @return True if the variable type accepts percent-encoded characters.
+     */
+    private static boolean isEncodable(int type) {
+        return (type == Variable.TYPE_URI_ALL)
+                || (type == Variable.TYPE_URI_FRAGMENT)
+                || (type == Variable.TYPE_URI_PATH)
+                || (type == Variable.TYPE_URI_QUERY)
+                || (type == Variable.TYPE_URI_QUERY_PARAM)
+                || (type == Variable.TYPE_URI_SEGMENT);
+    }
+
+    /**
+     * Indicates if a character is an hexadecimal digit.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is an hexadecimal digit.
+     */
+    private static boolean isHexa(char character) {
+        return ((character >= '0') && (character <= '9'))
+                || ((character >= 'a') && (character <= 'f'))
+                || ((character >= 'A') && (character <= 'F'));
+    }
+
+    /**
+     * Indicates if a character is a URI sub-delimiter.
+     * 
+     * @param character
+     *            The character to test.
+     * @return True if the character is a URI sub-delimiter.
+     */
+    private static boolean isSubDelimiter(char character) {
+        switch (character) {
+        case '!':
+        case '$':
+        case '&':
+        case '\'':
+        case '(':
+        case ')':
+        case '*':
+        case '+':
+        case ',':
+        case ';':
+        case '=':
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Indicates if a variable type can be compiled.
+     * 
+     * @param type
+     *            The variable type.
+     * @return True if the variable type can be compiled.
+     */
+    private static boolean isSupported(int type) {
+        switch (type) {
+        case Variable.TYPE_ALL:
+        case Variable.TYPE_ALPHA:
+        case Variable.TYPE_ALPHA_DIGIT:
+        case Variable.TYPE_DIGIT:
+        case Variable.TYPE_URI_ALL:
+        case Variable.TYPE_URI_FRAGMENT:
+        case Variable.TYPE_URI_PATH:
+        case Variable.TYPE_URI_QUERY:
+        case Variable.TYPE_URI_QUERY_PARAM:
+        case Variable.TYPE_URI_SEGMENT:
+        case Variable.TYPE_URI_UNRESERVED:
+        case Variable.TYPE_WORD:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Indicates if a character belongs to the character class of a given
+     * variable type, as defined by the Regex pattern of the {@link Template}
+     * class.
+     * 
+     * @param type
+     *            The variable type.
+     * @param character
+     *            The character to test.
+     * @return True if the character belongs to the character class.
+     */
+    private static boolean isValid(int type, char character) {
+        boolean alpha = ((character >= 'a') && (character <= 'z'))
+                || ((character >= 'A') && (character <= 'Z'));
+        boolean digit = (character >= '0') && (character <= '9');
+        boolean unreserved = alpha || digit || (character == '-')
+                || (character == '.') || (character == '_')
+                || (character == '~');
+
+        switch (type) {
+        case Variable.TYPE_ALL:
+            return (character != '\n') && (character != '\r')
+                    && (character != '\u0085') && (character != '\u2028')
+                    && (character != '\u2029');
+        case Variable.TYPE_ALPHA:
+            return alpha;
+        case Variable.TYPE_DIGIT:
+            return digit;
+        case Variable.TYPE_ALPHA_DIGIT:
+            return alpha || digit;
+        case Variable.TYPE_URI_UNRESERVED:
+            return unreserved;
+        case Variable.TYPE_WORD:
+            return alpha || digit || (character == '_');
+        case Variable.TYPE_URI_SEGMENT:
+            return unreserved || isSubDelimiter(character)
+                    || (character == ':') || (character == '@');
+        case Variable.TYPE_URI_PATH:
+            return unreserved || isSubDelimiter(character)
+                    || (character == ':') || (character == '@')
+                    || (character == '/');
+        case Variable.TYPE_URI_QUERY:
+        case Variable.TYPE_URI_FRAGMENT:
+            return unreserved || isSubDelimiter(character)
+                    || (character == ':') || (character == '@')
+                    || (character == '/') || (character == '?');
+        case Variable.TYPE_URI_QUERY_PARAM:
+            return unreserved || (character == '!') || (character == '$')
+                    || (character == '\'') || (character == '(')
+                    || (character == ')') || (character == '*')
+                    || (character == '+') || (character == ',')
+                    || (character == ';') || (character == ':')
+                    || (character == '@') || (character == '/')
+                    || (character == '?');
+        case Variable.TYPE_URI_ALL:
+            return unreserved || isSubDelimiter(character)
+                    || (character == ':') || (character == '/')
+                    || (character == '?') || (character == '#')
+                    || (character == '[') || (character == ']')
+                    || (character == '@');
+        default:
+            return false;
+        }
+    }
+
+    /** Indicates if the template could be compiled. */
+    private volatile boolean supported;
+
+    /** The list of tokens. */
+    private final List<Token> tokens;
+
+    /** The number of distinct variables. */
+    private volatile int variableCount;
+
+    /**
+     * Default constructor. Tokens must then be added in the order of the
+     * template pattern.
+     */
+    public TemplateMatcher() {
+        this.supported = true;
+        this.tokens = new ArrayList<Token>();
+        this.variableCount = 0;
+    }
+
+    /**
+     * Adds a literal character.
+     * 
+     * @param character
+     *            The literal character.
+     */
+    public void addLiteral(char character) {
+        if (character == '+') {
+            // Not quoted by the template, so it keeps its Regex meaning
+            this.supported = false;
+        }
+
+        Token last = this.tokens.isEmpty() ? null : this.tokens
+                .get(this.tokens.size() - 1);
+
+        if ((last == null) || (last.literal == null)) {
+            last = new Token("", -1, null);
+            this.tokens.add(last);
+        }
+
+        last.literal += character;
+    }
+
+    /**
+     * Adds a reference to a variable previously added. The same value must be
+     * matched again.
+     * 
+     * @param index
+     *            The index of the variable.
+     */
+    public void addReference(int index) {
+        this.tokens.add(new Token(null, index, null));
+    }
+
+    /**
+     * Adds a new variable.
+     * 
+     * @param variable
+     *            The variable descriptor.
+     */
+    public void addVariable(Variable variable) {
+        if (!variable.isFixed() && !isSupported(variable.getType())) {
+            this.supported = false;
+        }
+
+        this.tokens.add(new Token(null, this.variableCount++, variable));
+    }
+
+    /**
+     * Returns the end index of the unit of a variable value starting at a
+     * given index. A unit is either a single valid character or a
+     * percent-encoded character.
+     * 
+     * @param type
+     *            The variable type.
+     * @param formattedString
+     *            The formatted string to match.
+     * @param index
+     *            The start index.
+     * @return The end index of the unit or -1 if no unit could be matched.
+     */
+    private int getUnitEnd(int type, String formattedString, int index) {
+        int result = -1;
+
+        if (index < formattedString.length()) {
+            char next = formattedString.charAt(index);
+
+            if (isValid(type, next)) {
+                result = index + 1;
+            } else if ((next == '%') && isEncodable(type)
+                    && (index + 2 < formattedString.length())
+                    && isHexa(formattedString.charAt(index + 1))
+                    && isHexa(formattedString.charAt(index + 2))) {
+                result = index + 3;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the number of distinct variables.
+     * 
+     * @return The number of distinct variables.
+     */
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Indicates if the template could be compiled. If false, the Regex pattern
+     * of the template must be used instead.
+     * 
+     * @return True if the template could be compiled.
+     */
+    public boolean isSupported() {
+        return supported;
+    }
+
+    /**
+     * Indicates if the compiled template matches the given formatted string.
+     * 
+     * @param formattedString
+     *            The formatted string to match.
+     * @param matchingMode
+     *            The matching mode, either {@link Template#MODE_EQUALS} or
+     *            {@link Template#MODE_STARTS_WITH}.
+     * @param groups
+     *            The array updated with the start and end indexes of each
+     *            variable value, or null. Its length must be twice the number
+     *            of variables.
+     * @return The number of matched characters or -1 if the match failed.
+     */
+    public int match(String formattedString, int matchingMode, int[] groups) {
+        int result = -1;
+
+        if ((matchingMode == Template.MODE_EQUALS)
+                || (matchingMode == Template.MODE_STARTS_WITH)) {
+            result = match(formattedString, 0, 0,
+                    matchingMode == Template.MODE_EQUALS,
+                    (groups == null) ? new int[2 * getVariableCount()]
+                            : groups);
+        }
+
+        return result;
+    }
+
+    /**
+     * Matches the tokens starting at a given token index against the formatted
+     * string starting at a given index. Variables are greedy and backtrack if
+     * the rest of the tokens can't be matched, like Regex quantifiers.
+     * 
+     * @param formattedString
+     *            The formatted string to match.
+     * @param tokenIndex
+     *            The index of the first token to match.
+     * @param index
+     *            The index of the first character to match.
+     * @param equals
+     *            True if the whole string must be matched.
+     * @param groups
+     *            The start and end indexes of each variable value.
+     * @return The number of matched characters or -1 if the match failed.
+     */
+    private int match(String formattedString, int tokenIndex, int index,
+            boolean equals, int[] groups) {
+        if (tokenIndex == this.tokens.size()) {
+            return (!equals || (index == formattedString.length())) ? index
+                    : -1;
+        }
+
+        Token token = this.tokens.get(tokenIndex);
+
+        if (token.literal != null) {
+            // Literal text
+            String literal = token.literal;
+
+            return formattedString.startsWith(literal, index) ? match(
+                    formattedString, tokenIndex + 1, index + literal.length(),
+                    equals, groups) : -1;
+        } else if (token.variable == null) {
+            // Reference to a previous variable value
+            int start = groups[2 * token.index];
+            int length = groups[2 * token.index + 1] - start;
+
+            return formattedString.regionMatches(index, formattedString, start,
+                    length) ? match(formattedString, tokenIndex + 1, index
+                    + length, equals, groups) : -1;
+        } else if (token.variable.isFixed()) {
+            // Fixed value
+            String value = token.variable.getDefaultValue();
+
+            if (formattedString.startsWith(value, index)) {
+                groups[2 * token.index] = index;
+                groups[2 * token.index + 1] = index + value.length();
+                return match(formattedString, tokenIndex + 1,
+                        index + value.length(), equals, groups);
+            }
+
+            return -1;
+        }
+
+        // Collect the possible ends of the value, unit by unit
+        int type = token.variable.getType();
+        int[] ends = new int[8];
+        int count = 0;
+        ends[count++] = index;
+
+        for (int end = getUnitEnd(type, formattedString, index); end != -1; end = getUnitEnd(
+                type, formattedString, end)) {
+            if (count == ends.length) {
+                int[] newEnds = new int[2 * ends.length];
+                System.arraycopy(ends, 0, newEnds, 0, count);
+                ends = newEnds;
+            }
+
+            ends[count++] = end;
+        }
+
+        // Try the longest value first, then backtrack
+        int min = token.variable.isRequired() ? 1 : 0;
+        int result = -1;
+        groups[2 * token.index] = index;
+
+        for (int i = count - 1; (result == -1) && (i >= min); i--) {
+            groups[2 * token.index + 1] = ends[i];
+            result = match(formattedString, tokenIndex + 1, ends[i], equals,
+                    groups);
+        }
+
+        return result;
+    }
+
+}
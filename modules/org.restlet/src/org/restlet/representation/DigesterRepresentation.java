@@ -44,6 +44,8 @@ import java.security.DigestInputStream;
 import java.security.DigestOutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 import org.restlet.Context;
@@ -68,6 +70,35 @@ import org.restlet.util.WrapperRepresentation;
  * @author Jerome Louvel
  */
 public class DigesterRepresentation extends WrapperRepresentation {
+    /** The unused message digests cloned instead of looked up, by algorithm. */
+    private static final Map<String, MessageDigest> prototypes = new ConcurrentHashMap<String, MessageDigest>();
+
+    /**
+     * Returns a new message digest for the given algorithm. The provider
+     * lookup is only done once per algorithm, as the following message
+     * digests are cloned when supported.
+     * 
+     * @param algorithm
+     *            The digest algorithm.
+     * @return A new message digest.
+     * @throws NoSuchAlgorithmException
+     */
+    private static MessageDigest createMessageDigest(String algorithm)
+            throws NoSuchAlgorithmException {
+        MessageDigest prototype = prototypes.get(algorithm);
+
+        if (prototype == null) {
+            prototype = MessageDigest.getInstance(algorithm);
+            prototypes.put(algorithm, prototype);
+        }
+
+        try {
+            return (MessageDigest) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            return MessageDigest.getInstance(algorithm);
+        }
+    }
+
     /** The digest algorithm. */
     private final String algorithm;
 
@@ -101,7 +132,7 @@ public class DigesterRepresentation extends WrapperRepresentation {
             String algorithm) throws NoSuchAlgorithmException {
         super(wrappedRepresentation);
         this.algorithm = algorithm;
-        this.computedDigest = MessageDigest.getInstance(algorithm);
+        this.computedDigest = createMessageDigest(algorithm);
     }
 
     /**
@@ -186,8 +217,7 @@ public class DigesterRepresentation extends WrapperRepresentation {
             result = getComputedDigest();
         } else if (isAvailable()) {
             try {
-                java.security.MessageDigest md = java.security.MessageDigest
-                        .getInstance(algorithm);
+                java.security.MessageDigest md = createMessageDigest(algorithm);
                 java.security.DigestInputStream dis = new java.security.DigestInputStream(
                         getStream(), md);
                 org.restlet.engine.io.BioUtils.exhaust(dis);
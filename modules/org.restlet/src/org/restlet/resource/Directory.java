@@ -79,6 +79,11 @@ import org.restlet.representation.Variant;
  * idea</a>, using a different and faster implementation contributed by Rob
  * Heittman.<br>
  * <br>
+ * Static content can also be compressed in advance, for example "app.js.gz"
+ * next to "app.js". If the "precompressedServed" property is turned on, such
+ * siblings are returned with the GZip encoding to the clients accepting it,
+ * instead of compressing the content on the fly.<br>
+ * <br>
  * Concurrency note: instances of this class or its subclasses can be invoked by
  * several threads at the same time and therefore must be thread-safe. You
  * should be especially careful when storing state in member variables.
@@ -115,6 +120,12 @@ public class Directory extends Finder {
     /** Indicates if the best content is automatically negotiated. */
     private volatile boolean negotiatingContent;
 
+    /**
+     * Indicates if precompressed siblings are served to the clients accepting
+     * their encoding (false by default).
+     */
+    private volatile boolean precompressedServed;
+
     /** The absolute root reference (file, clap URI). */
     private volatile Reference rootRef;
 
@@ -148,6 +159,7 @@ public class Directory extends Finder {
         this.listingAllowed = false;
         this.modifiable = false;
         this.negotiatingContent = true;
+        this.precompressedServed = false;
         setTargetClass(DirectoryServerResource.class);
     }
 
@@ -287,6 +299,17 @@ public class Directory extends Finder {
         return this.negotiatingContent;
     }
 
+    /**
+     * Indicates if precompressed siblings, such as "app.js.gz" for "app.js",
+     * are served to the clients accepting the GZip encoding. Returns false by
+     * default.
+     * 
+     * @return True if precompressed siblings are served.
+     */
+    public boolean isPrecompressedServed() {
+        return this.precompressedServed;
+    }
+
     /**
      * Sets the reference comparator based on classic alphabetical order.
      * 
@@ -377,6 +400,17 @@ public class Directory extends Finder {
         this.negotiatingContent = negotiatingContent;
     }
 
+    /**
+     * Indicates if precompressed siblings, such as "app.js.gz" for "app.js",
+     * are served to the clients accepting the GZip encoding.
+     * 
+     * @param precompressedServed
+     *            True if precompressed siblings are served.
+     */
+    public void setPrecompressedServed(boolean precompressedServed) {
+        this.precompressedServed = precompressedServed;
+    }
+
     /**
      * Sets the root URI from which the relative resource URIs will be lookep
      * up.
@@ -63,6 +63,8 @@ import org.restlet.representation.RepresentationInfo;
 import org.restlet.representation.Variant;
 import org.restlet.routing.Filter;
 import org.restlet.routing.Router;
+import org.restlet.service.ConverterService;
+import org.restlet.service.MetadataService;
 import org.restlet.util.Series;
 
 /**
@@ -472,12 +474,14 @@ public abstract class ServerResource extends UniformResource {
         Object resultObject = null;
         try {
             if (parameterTypes.length > 0) {
-                List<Object> parameters = new ArrayList<Object>();
+                Object[] parameters = new Object[parameterTypes.length];
                 Object parameter = null;
 
-                for (Class<?> parameterType : parameterTypes) {
+                for (int i = 0; i < parameterTypes.length; i++) {
+                    Class<?> parameterType = parameterTypes[i];
+
                     if (Variant.class.equals(parameterType)) {
-                        parameters.add(variant);
+                        parameters[i] = variant;
                     } else {
                         if (getRequestEntity() != null
                                 && getRequestEntity().isAvailable()
@@ -496,12 +500,12 @@ public abstract class ServerResource extends UniformResource {
                             parameter = null;
                         }
 
-                        parameters.add(parameter);
+                        parameters[i] = parameter;
                     }
                 }
 
                 resultObject = annotationInfo.getJavaMethod().invoke(this,
-                        parameters.toArray());
+                        parameters);
             } else {
                 resultObject = annotationInfo.getJavaMethod().invoke(this);
             }
@@ -873,13 +877,15 @@ public abstract class ServerResource extends UniformResource {
             if (isAnnotated() && hasAnnotations()) {
                 List<Variant> annoVariants = null;
                 method = (Method.HEAD.equals(method)) ? Method.GET : method;
+                MetadataService metadataService = getMetadataService();
+                ConverterService converterService = getConverterService();
 
                 for (AnnotationInfo annotationInfo : getAnnotations()) {
                     if (annotationInfo.isCompatible(method, getQuery(),
-                            getRequestEntity(), getMetadataService(),
-                            getConverterService())) {
+                            getRequestEntity(), metadataService,
+                            converterService)) {
                         annoVariants = annotationInfo.getResponseVariants(
-                                getMetadataService(), getConverterService());
+                                metadataService, converterService);
 
                         if (annoVariants != null) {
                             // Compute an affinity score between this annotation
@@ -889,9 +895,8 @@ public abstract class ServerResource extends UniformResource {
                                     && getRequest().getEntity().isAvailable()) {
                                 MediaType emt = getRequest().getEntity()
                                         .getMediaType();
-                                List<MediaType> amts = getMetadataService()
-                                        .getAllMediaTypes(
-                                                annotationInfo.getInput());
+                                List<MediaType> amts = annotationInfo
+                                        .getInputMediaTypes(metadataService);
                                 if (amts != null) {
                                     for (MediaType amt : amts) {
                                         if (amt.equals(emt)) {
@@ -44,6 +44,7 @@ import org.restlet.resource.Directory;
 import org.restlet.resource.Finder;
 import org.restlet.resource.ServerResource;
 import org.restlet.util.RouteList;
+import org.restlet.util.RouteTree;
 
 /**
  * Restlet routing calls to one of the attached routes. Each route can compute
@@ -59,6 +60,7 @@ import org.restlet.util.RouteList;
  * <li>Last match</li>
  * <li>Random match</li>
  * <li>Round robin</li>
+ * <li>Tree match</li>
  * <li>Custom</li>
  * </ul>
  * <br>
@@ -133,6 +135,18 @@ public class Router extends Restlet {
      */
     public static final int MODE_RANDOM_MATCH = 5;
 
+    /**
+     * Each call is routed to the first route if the required score is reached,
+     * like with {@link #MODE_FIRST_MATCH}. However, the routes are first
+     * looked up in a radix tree built from the literal prefix of their URI
+     * template, so only the routes whose prefix matches the remaining part of
+     * the resource reference are scored. This mode is recommended for routers
+     * with many attached routes. See
+     * {@link RouteTree#getFirst(Request, Response, float)} method for
+     * implementation details.
+     */
+    public static final int MODE_TREE_MATCH = 7;
+
     /** The default matching mode to use when selecting routes based on URIs. */
     private volatile int defaultMatchingMode;
 
@@ -160,6 +174,9 @@ public class Router extends Restlet {
     /** The modifiable list of routes. */
     private volatile RouteList routes;
 
+    /** The radix tree of routes used by the {@link #MODE_TREE_MATCH} mode. */
+    private volatile RouteTree routeTree;
+
     /** The routing mode. */
     private volatile int routingMode;
 
@@ -565,6 +582,11 @@ public class Router extends Restlet {
                             getRequiredScore());
                     break;
 
+                case MODE_TREE_MATCH:
+                    result = getRouteTree().getFirst(request, response,
+                            getRequiredScore());
+                    break;
+
                 case MODE_CUSTOM:
                     result = getCustom(request, response);
                     break;
@@ -621,6 +643,23 @@ public class Router extends Restlet {
         return this.routes;
     }
 
+    /**
+     * Returns the radix tree of routes used by the {@link #MODE_TREE_MATCH}
+     * mode. The tree is built again if the list of routes has been modified.
+     * 
+     * @return The radix tree of routes.
+     */
+    private RouteTree getRouteTree() {
+        RouteTree result = this.routeTree;
+
+        if ((result == null) || !result.isValid(getRoutes())) {
+            result = new RouteTree(getRoutes());
+            this.routeTree = result;
+        }
+
+        return result;
+    }
+
     /**
      * Returns the routing mode. By default, it returns the
      * {@link #MODE_FIRST_MATCH} mode.
@@ -46,6 +46,7 @@ import org.restlet.Context;
 import org.restlet.Request;
 import org.restlet.Response;
 import org.restlet.data.Reference;
+import org.restlet.engine.util.TemplateMatcher;
 import org.restlet.util.Resolver;
 
 /**
@@ -249,6 +250,12 @@ public class Template {
     /** The logger to use. */
     private volatile Logger logger;
 
+    /**
+     * The compiled form of the pattern used instead of the Regex pattern when
+     * all the variables types are supported, or null.
+     */
+    private volatile TemplateMatcher matcher;
+
     /** The matching mode to use when parsing a formatted reference. */
     private volatile int matchingMode;
 
@@ -341,6 +348,7 @@ public class Template {
         this.matchingMode = matchingMode;
         this.variables = new ConcurrentHashMap<String, Variable>();
         this.regexPattern = null;
+        this.matcher = null;
         this.encodingVariables = encodingVariables;
     }
 
@@ -474,6 +482,19 @@ public class Template {
         return this.logger;
     }
 
+    /**
+     * Returns the compiled form of the pattern, used instead of the Regex
+     * pattern when all the variable types are supported.
+     * 
+     * @return The compiled form of the pattern or null if the Regex pattern
+     *         must be used.
+     */
+    private TemplateMatcher getMatcher() {
+        // Compiles the pattern if needed
+        getRegexPattern();
+        return this.matcher;
+    }
+
     /**
      * Returns the matching mode to use when parsing a formatted reference.
      * 
@@ -502,6 +523,7 @@ public class Template {
             synchronized (this) {
                 if (this.regexPattern == null) {
                     getRegexVariables().clear();
+                    final TemplateMatcher templateMatcher = new TemplateMatcher();
                     final StringBuilder patternBuffer = new StringBuilder();
                     StringBuilder varBuffer = null;
                     char next;
@@ -530,6 +552,7 @@ public class Template {
                                         // constraint is enforced when parsing.
                                         patternBuffer.append("\\"
                                                 + (varIndex + 1));
+                                        templateMatcher.addReference(varIndex);
                                     } else {
                                         // New variable detected. Insert a
                                         // capturing group.
@@ -541,6 +564,7 @@ public class Template {
                                         }
                                         patternBuffer
                                                 .append(getVariableRegex(var));
+                                        templateMatcher.addVariable(var);
                                     }
 
                                     // Reset the variable name buffer
@@ -563,10 +587,13 @@ public class Template {
                                                 + this.regexPattern);
                             } else {
                                 patternBuffer.append(quote(next));
+                                templateMatcher.addLiteral(next);
                             }
                         }
                     }
 
+                    this.matcher = templateMatcher.isSupported() ? templateMatcher
+                            : null;
                     this.regexPattern = Pattern.compile(patternBuffer
                             .toString());
                 }
@@ -684,6 +711,13 @@ public class Template {
 
         try {
             if (formattedString != null) {
+                final TemplateMatcher templateMatcher = getMatcher();
+
+                if (templateMatcher != null) {
+                    return templateMatcher.match(formattedString,
+                            getMatchingMode(), null);
+                }
+
                 final Matcher matcher = getRegexPattern().matcher(
                         formattedString);
 
@@ -743,37 +777,40 @@ public class Template {
 
         if (formattedString != null) {
             try {
-                Matcher matcher = getRegexPattern().matcher(formattedString);
-                boolean matched = ((getMatchingMode() == MODE_EQUALS) && matcher
-                        .matches())
-                        || ((getMatchingMode() == MODE_STARTS_WITH) && matcher
-                                .lookingAt());
-
-                if (matched) {
-                    // Update the number of matched characters
-                    result = matcher.end();
-
-                    // Update the attributes with the variables value
-                    String attributeName = null;
-                    String attributeValue = null;
-
-                    for (int i = 0; i < getRegexVariables().size(); i++) {
-                        attributeName = getRegexVariables().get(i);
-                        attributeValue = matcher.group(i + 1);
-                        Variable var = getVariables().get(attributeName);
-
-                        if ((var != null) && var.isDecodingOnParse()) {
-                            attributeValue = Reference.decode(attributeValue);
+                TemplateMatcher templateMatcher = getMatcher();
+
+                if (templateMatcher != null) {
+                    int[] groups = new int[2 * templateMatcher
+                            .getVariableCount()];
+                    result = templateMatcher.match(formattedString,
+                            getMatchingMode(), groups);
+
+                    if (result != -1) {
+                        // Update the attributes with the variables value
+                        for (int i = 0; i < getRegexVariables().size(); i++) {
+                            setVariable(getRegexVariables().get(i),
+                                    formattedString.substring(groups[2 * i],
+                                            groups[2 * i + 1]), variables,
+                                    loggable);
                         }
-
-                        if (loggable) {
-                            getLogger().fine(
-                                    "Template variable \"" + attributeName
-                                            + "\" matched with value \""
-                                            + attributeValue + "\"");
+                    }
+                } else {
+                    Matcher matcher = getRegexPattern()
+                            .matcher(formattedString);
+                    boolean matched = ((getMatchingMode() == MODE_EQUALS) && matcher
+                            .matches())
+                            || ((getMatchingMode() == MODE_STARTS_WITH) && matcher
+                                    .lookingAt());
+
+                    if (matched) {
+                        // Update the number of matched characters
+                        result = matcher.end();
+
+                        // Update the attributes with the variables value
+                        for (int i = 0; i < getRegexVariables().size(); i++) {
+                            setVariable(getRegexVariables().get(i),
+                                    matcher.group(i + 1), variables, loggable);
                         }
-
-                        variables.put(attributeName, attributeValue);
                     }
                 }
             } catch (StackOverflowError soe) {
@@ -901,6 +938,37 @@ public class Template {
     public void setPattern(String pattern) {
         this.pattern = pattern;
         this.regexPattern = null;
+        this.matcher = null;
+    }
+
+    /**
+     * Sets the value of a parsed variable, percent-decoding it if the variable
+     * descriptor requires it.
+     * 
+     * @param name
+     *            The variable name.
+     * @param value
+     *            The value parsed.
+     * @param variables
+     *            The map of variables to update.
+     * @param loggable
+     *            True if the parsing should be logged.
+     */
+    private void setVariable(String name, String value,
+            Map<String, Object> variables, boolean loggable) {
+        Variable var = getVariables().get(name);
+
+        if ((var != null) && var.isDecodingOnParse()) {
+            value = Reference.decode(value);
+        }
+
+        if (loggable) {
+            getLogger().fine(
+                    "Template variable \"" + name + "\" matched with value \""
+                            + value + "\"");
+        }
+
+        variables.put(name, value);
     }
 
     /**
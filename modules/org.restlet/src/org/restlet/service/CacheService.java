@@ -0,0 +1,137 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.service;
+
+import org.restlet.Context;
+import org.restlet.engine.application.CacheFilter;
+import org.restlet.engine.cache.CacheStore;
+import org.restlet.engine.cache.MemoryCacheStore;
+import org.restlet.routing.Filter;
+
+/**
+ * Application service caching response entities following the HTTP caching
+ * rules (Cache-Control, Expires, ETag, Last-Modified and Vary). On the inbound
+ * side, it acts as a shared cache in front of the resources, so fresh entities
+ * are returned without invoking them and stale ones are revalidated with
+ * conditional requests. On the outbound side, it acts as a private cache for
+ * the calls of the application's client resources.<br>
+ * <br>
+ * The inbound cache uses a {@link MemoryCacheStore} by default, the outbound
+ * cache is only enabled when an outbound store is set. Other stores, such as
+ * {@link org.restlet.engine.cache.FileCacheStore}, can be plugged in. This
+ * service can also be added to the services of a {@link org.restlet.Component}
+ * to cache the responses of all its applications.
+ * 
+ * @author Jerome Louvel
+ */
+public class CacheService extends Service {
+
+    /** The store of the inbound cache. */
+    private volatile CacheStore inboundStore;
+
+    /** The store of the outbound cache. */
+    private volatile CacheStore outboundStore;
+
+    /**
+     * Constructor.
+     */
+    public CacheService() {
+        this(true);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param enabled
+     *            True if the service has been enabled.
+     */
+    public CacheService(boolean enabled) {
+        super(enabled);
+        this.inboundStore = new MemoryCacheStore();
+        this.outboundStore = null;
+    }
+
+    @Override
+    public Filter createInboundFilter(Context context) {
+        return (getInboundStore() == null) ? null : new CacheFilter(context,
+                getInboundStore(), true);
+    }
+
+    @Override
+    public Filter createOutboundFilter(Context context) {
+        return (getOutboundStore() == null) ? null : new CacheFilter(context,
+                getOutboundStore(), false);
+    }
+
+    /**
+     * Returns the store of the inbound cache, shared between all the clients.
+     * 
+     * @return The store of the inbound cache or null.
+     */
+    public CacheStore getInboundStore() {
+        return inboundStore;
+    }
+
+    /**
+     * Returns the store of the outbound cache, private to the application.
+     * 
+     * @return The store of the outbound cache or null.
+     */
+    public CacheStore getOutboundStore() {
+        return outboundStore;
+    }
+
+    /**
+     * Sets the store of the inbound cache. Set to null to disable the inbound
+     * cache. Must be set before the service is started.
+     * 
+     * @param inboundStore
+     *            The store of the inbound cache.
+     */
+    public void setInboundStore(CacheStore inboundStore) {
+        this.inboundStore = inboundStore;
+    }
+
+    /**
+     * Sets the store of the outbound cache. Set to null to disable the
+     * outbound cache. Must be set before the service is started.
+     * 
+     * @param outboundStore
+     *            The store of the outbound cache.
+     */
+    public void setOutboundStore(CacheStore outboundStore) {
+        this.outboundStore = outboundStore;
+    }
+
+}
@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.Deflater;
 
 import org.restlet.Context;
 import org.restlet.data.Encoding;
@@ -55,6 +56,12 @@ public class EncoderService extends Service {
     /** Indicates if the encoding should always occur, regardless of the size. */
     public static final int ANY_SIZE = -1;
 
+    /**
+     * The default compression level, balancing the compression ratio and the
+     * processing cost.
+     */
+    public static final int DEFAULT_COMPRESSION_LEVEL = Deflater.DEFAULT_COMPRESSION;
+
     /** Indicates if the default minimum size for encoding to occur. */
     public static final int DEFAULT_MINIMUM_SIZE = 1000;
 
@@ -93,6 +100,11 @@ public class EncoderService extends Service {
      */
     private volatile List<MediaType> acceptedMediaTypes;
 
+    /**
+     * The compression level, from 0 to 9 or -1 for the default level.
+     */
+    private volatile int compressionLevel;
+
     /**
      * The media types that should be ignored.
      */
@@ -118,6 +130,7 @@ public class EncoderService extends Service {
      */
     public EncoderService(boolean enabled) {
         super(enabled);
+        this.compressionLevel = DEFAULT_COMPRESSION_LEVEL;
         this.mininumSize = DEFAULT_MINIMUM_SIZE;
         this.acceptedMediaTypes = getDefaultAcceptedMediaTypes();
         this.ignoredMediaTypes = getDefaultIgnoredMediaTypes();
@@ -201,6 +214,17 @@ public class EncoderService extends Service {
         return this.acceptedMediaTypes;
     }
 
+    /**
+     * Returns the compression level, from 0 (no compression) to 9 (best
+     * compression), or -1 for the default level. Lower levels reduce the
+     * processing cost of the compression at the expense of larger entities.
+     * 
+     * @return The compression level.
+     */
+    public int getCompressionLevel() {
+        return this.compressionLevel;
+    }
+
     /**
      * Returns the media types that should be ignored.
      * 
@@ -221,6 +245,23 @@ public class EncoderService extends Service {
         return this.mininumSize;
     }
 
+    /**
+     * Sets the compression level, from 0 (no compression) to 9 (best
+     * compression), or -1 for the default level.
+     * 
+     * @param compressionLevel
+     *            The compression level.
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        if ((compressionLevel < Deflater.DEFAULT_COMPRESSION)
+                || (compressionLevel > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("Invalid compression level: "
+                    + compressionLevel);
+        }
+
+        this.compressionLevel = compressionLevel;
+    }
+
     /**
      * Sets the minimum size a representation must have before compression is
      * done.
@@ -33,10 +33,12 @@
 
 package org.restlet.util;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.restlet.Request;
 import org.restlet.Response;
@@ -60,12 +62,16 @@ public final class RouteList extends WrapperList<Route> {
     /** The index of the last route used in the round robin mode. */
     private volatile int lastIndex;
 
+    /** The number of modifications of the list. */
+    private final AtomicInteger modificationCount;
+
     /**
      * Constructor.
      */
     public RouteList() {
         super(new CopyOnWriteArrayList<Route>());
         this.lastIndex = -1;
+        this.modificationCount = new AtomicInteger();
     }
 
     /**
@@ -77,6 +83,40 @@ public final class RouteList extends WrapperList<Route> {
     public RouteList(List<Route> delegate) {
         super(new CopyOnWriteArrayList<Route>(delegate));
         this.lastIndex = -1;
+        this.modificationCount = new AtomicInteger();
+    }
+
+    @Override
+    public boolean add(Route route) {
+        boolean result = super.add(route);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public void add(int index, Route route) {
+        super.add(index, route);
+        this.modificationCount.incrementAndGet();
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Route> routes) {
+        boolean result = super.addAll(routes);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Route> routes) {
+        boolean result = super.addAll(index, routes);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.modificationCount.incrementAndGet();
     }
 
     /**
@@ -154,6 +194,16 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    /**
+     * Returns the number of modifications of the list. This lets derived
+     * structures such as {@link RouteTree} detect that they must be rebuilt.
+     * 
+     * @return The number of modifications of the list.
+     */
+    public int getModificationCount() {
+        return this.modificationCount.get();
+    }
+
     /**
      * Returns a next route match in a round robin mode for a given call.
      * 
@@ -229,6 +279,27 @@ public final class RouteList extends WrapperList<Route> {
         return null;
     }
 
+    @Override
+    public Route remove(int index) {
+        Route result = super.remove(index);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public boolean remove(Object route) {
+        boolean result = super.remove(route);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> routes) {
+        boolean result = super.removeAll(routes);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
     /**
      * Removes all routes routing to a given target.
      * 
@@ -243,6 +314,20 @@ public final class RouteList extends WrapperList<Route> {
         }
     }
 
+    @Override
+    public boolean retainAll(Collection<?> routes) {
+        boolean result = super.retainAll(routes);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
+    @Override
+    public Route set(int index, Route route) {
+        Route result = super.set(index, route);
+        this.modificationCount.incrementAndGet();
+        return result;
+    }
+
     /**
      * Returns a view of the portion of this list between the specified
      * fromIndex, inclusive, and toIndex, exclusive.
@@ -0,0 +1,368 @@
+/**
+ * Copyright 2005-2012 Restlet S.A.S.
+ * 
+ * The contents of this file are subject to the terms of one of the following
+ * open source licenses: Apache 2.0 or LGPL 3.0 or LGPL 2.1 or CDDL 1.0 or EPL
+ * 1.0 (the "Licenses"). You can select the license that you prefer but you may
+ * not use this file except in compliance with one of these Licenses.
+ * 
+ * You can obtain a copy of the Apache 2.0 license at
+ * http://www.opensource.org/licenses/apache-2.0
+ * 
+ * You can obtain a copy of the LGPL 3.0 license at
+ * http://www.opensource.org/licenses/lgpl-3.0
+ * 
+ * You can obtain a copy of the LGPL 2.1 license at
+ * http://www.opensource.org/licenses/lgpl-2.1
+ * 
+ * You can obtain a copy of the CDDL 1.0 license at
+ * http://www.opensource.org/licenses/cddl1
+ * 
+ * You can obtain a copy of the EPL 1.0 license at
+ * http://www.opensource.org/licenses/eclipse-1.0
+ * 
+ * See the Licenses for the specific language governing permissions and
+ * limitations under the Licenses.
+ * 
+ * Alternatively, you can obtain a royalty free commercial license with less
+ * limitations, transferable or non-transferable, directly at
+ * http://www.restlet.com/products/restlet-framework
+ * 
+ * Restlet is a registered trademark of Restlet S.A.S.
+ */
+
+package org.restlet.util;
+
+import java.util.Arrays;
+
+import org.restlet.Request;
+import org.restlet.Response;
+import org.restlet.data.Reference;
+import org.restlet.routing.Route;
+import org.restlet.routing.TemplateRoute;
+
+/**
+ * Radix tree indexing a snapshot of a {@link RouteList} by the literal prefix
+ * of the URI template of each {@link TemplateRoute}, which is the part of the
+ * pattern located before the first variable. Looking up the candidate routes
+ * for a call only requires to walk the tree along the remaining part of the
+ * resource reference, which costs at most its length, instead of scoring all
+ * the routes.<br>
+ * <br>
+ * The candidate routes are then scored in their list order, so the route
+ * selected is the same as the one selected by
+ * {@link RouteList#getFirst(Request, Response, float)}. Routes that aren't
+ * plain {@link TemplateRoute} instances are always considered as candidates.<br>
+ * <br>
+ * The tree is immutable. Use {@link #isValid(RouteList)} to detect that the
+ * list of routes has been modified and that a new tree must be built. Note
+ * that changes of the URI templates of routes already attached aren't
+ * detected.
+ * 
+ * @author Jerome Louvel
+ */
+public final class RouteTree {
+
+    /**
+     * Node of the tree. Each node is reached from its parent through a label
+     * made of one or more characters.
+     */
+    private static final class Node {
+
+        /** The child nodes. */
+        private Node[] children;
+
+        /** The label leading to this node from its parent. */
+        private String label;
+
+        /** The indexes of the routes whose prefix ends at this node. */
+        private int[] routes;
+
+        /**
+         * Constructor.
+         * 
+         * @param label
+         *            The label leading to this node from its parent.
+         */
+        private Node(String label) {
+            this.children = new Node[0];
+            this.label = label;
+            this.routes = new int[0];
+        }
+
+        /**
+         * Adds a child node.
+         * 
+         * @param child
+         *            The child node to add.
+         */
+        private void addChild(Node child) {
+            Node[] newChildren = new Node[this.children.length + 1];
+            System.arraycopy(this.children, 0, newChildren, 0,
+                    this.children.length);
+            newChildren[this.children.length] = child;
+            this.children = newChildren;
+        }
+
+        /**
+         * Adds the index of a route whose prefix ends at this node.
+         * 
+         * @param index
+         *            The route index.
+         */
+        private void addRoute(int index) {
+            int[] newRoutes = new int[this.routes.length + 1];
+            System.arraycopy(this.routes, 0, newRoutes, 0, this.routes.length);
+            newRoutes[this.routes.length] = index;
+            this.routes = newRoutes;
+        }
+
+        /**
+         * Returns the index of the child node whose label starts with the given
+         * character.
+         * 
+         * @param character
+         *            The first character of the label.
+         * @return The index of the child node or -1.
+         */
+        private int getChildIndex(char character) {
+            for (int i = 0; i < this.children.length; i++) {
+                if (this.children[i].label.charAt(0) == character) {
+                    return i;
+                }
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * Returns the literal prefix of a route that must be found at the
+     * beginning of the remaining part of the resource reference for the route
+     * to match. Returns an empty string if the route doesn't have a literal
+     * prefix or if it isn't a plain {@link TemplateRoute}.
+     * 
+     * @param route
+     *            The route.
+     * @return The literal prefix of the route.
+     */
+    private static String getPrefix(Route route) {
+        String result = "";
+
+        if ((route != null) && (route.getClass() == TemplateRoute.class)
+                && (((TemplateRoute) route).getTemplate() != null)) {
+            String pattern = ((TemplateRoute) route).getTemplate()
+                    .getPattern();
+
+            if (pattern != null) {
+                int end = 0;
+
+                while ((end < pattern.length())
+                        && (pattern.charAt(end) != '{')
+                        && (pattern.charAt(end) != '}')
+                        && (pattern.charAt(end) != '+')) {
+                    end++;
+                }
+
+                if ((end < pattern.length()) && (pattern.charAt(end) == '+')) {
+                    // The previous character is quantified
+                    end--;
+                }
+
+                result = pattern.substring(0, Math.max(0, end));
+            }
+        }
+
+        return result;
+    }
+
+    /** The number of modifications of the list of routes indexed. */
+    private final int modificationCount;
+
+    /** The root node. */
+    private final Node root;
+
+    /** The snapshot of the list of routes indexed. */
+    private final Route[] routes;
+
+    /** The list of routes indexed. */
+    private final RouteList routeList;
+
+    /**
+     * Constructor. Builds the tree based on the current routes of the list.
+     * 
+     * @param routeList
+     *            The list of routes to index.
+     */
+    public RouteTree(RouteList routeList) {
+        // Must be read before the snapshot is taken
+        this.modificationCount = routeList.getModificationCount();
+        this.routeList = routeList;
+        this.routes = routeList.toArray(new Route[0]);
+        this.root = new Node("");
+
+        for (int i = 0; i < this.routes.length; i++) {
+            add(getPrefix(this.routes[i]), i);
+        }
+    }
+
+    /**
+     * Adds the index of a route to the tree.
+     * 
+     * @param prefix
+     *            The literal prefix of the route.
+     * @param index
+     *            The route index.
+     */
+    private void add(String prefix, int index) {
+        Node node = this.root;
+        int position = 0;
+
+        while (position < prefix.length()) {
+            int childIndex = node.getChildIndex(prefix.charAt(position));
+
+            if (childIndex == -1) {
+                Node child = new Node(prefix.substring(position));
+                node.addChild(child);
+                node = child;
+                position = prefix.length();
+            } else {
+                Node child = node.children[childIndex];
+                String label = child.label;
+                int common = 1;
+
+                while ((common < label.length())
+                        && (position + common < prefix.length())
+                        && (label.charAt(common) == prefix.charAt(position
+                                + common))) {
+                    common++;
+                }
+
+                if (common < label.length()) {
+                    // Split the child node
+                    Node middle = new Node(label.substring(0, common));
+                    child.label = label.substring(common);
+                    middle.addChild(child);
+                    node.children[childIndex] = middle;
+                    child = middle;
+                }
+
+                node = child;
+                position += common;
+            }
+        }
+
+        node.addRoute(index);
+    }
+
+    /**
+     * Returns the indexes of the candidate routes for a given remaining part,
+     * in the list order.
+     * 
+     * @param remainingPart
+     *            The remaining part of the resource reference or null.
+     * @return The indexes of the candidate routes.
+     */
+    private int[] getCandidates(String remainingPart) {
+        int[] result = this.root.routes;
+
+        if (remainingPart != null) {
+            Node node = this.root;
+            int position = 0;
+            boolean merged = false;
+
+            while (position < remainingPart.length()) {
+                int childIndex = node.getChildIndex(remainingPart
+                        .charAt(position));
+
+                if (childIndex == -1) {
+                    break;
+                }
+
+                Node child = node.children[childIndex];
+
+                if (!remainingPart.startsWith(child.label, position)) {
+                    break;
+                }
+
+                node = child;
+                position += child.label.length();
+
+                if (node.routes.length > 0) {
+                    if (result.length == 0) {
+                        result = node.routes;
+                    } else {
+                        // Merge the indexes found so far
+                        int[] newResult = new int[result.length
+                                + node.routes.length];
+                        System.arraycopy(result, 0, newResult, 0,
+                                result.length);
+                        System.arraycopy(node.routes, 0, newResult,
+                                result.length, node.routes.length);
+                        result = newResult;
+                        merged = true;
+                    }
+                }
+            }
+
+            if (merged) {
+                Arrays.sort(result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the first route match for a given call. Only the routes whose
+     * literal prefix matches the beginning of the remaining part of the
+     * resource reference are scored.
+     * 
+     * @param request
+     *            The request to score.
+     * @param response
+     *            The response to score.
+     * @param requiredScore
+     *            The minimum score required to have a match.
+     * @return The first route match or null.
+     */
+    public Route getFirst(Request request, Response response,
+            float requiredScore) {
+        String remainingPart = null;
+        Reference resourceRef = request.getResourceRef();
+
+        if (resourceRef != null) {
+            remainingPart = resourceRef.getRemainingPart(false, true);
+
+            if (remainingPart == null) {
+                remainingPart = resourceRef.getRemainingPart(false, false);
+            }
+        }
+
+        int[] candidates = getCandidates(remainingPart);
+
+        for (int i = 0; i < candidates.length; i++) {
+            Route current = this.routes[candidates[i]];
+
+            if (current.score(request, response) >= requiredScore) {
+                return current;
+            }
+        }
+
+        // No match found
+        return null;
+    }
+
+    /**
+     * Indicates if the tree still reflects the given list of routes.
+     * 
+     * @param routeList
+     *            The current list of routes.
+     * @return True if the tree still reflects the given list of routes.
+     */
+    public boolean isValid(RouteList routeList) {
+        return (routeList == this.routeList)
+                && (routeList.getModificationCount() == this.modificationCount);
+    }
+
+}
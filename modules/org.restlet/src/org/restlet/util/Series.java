@@ -43,12 +43,20 @@ import java.util.Set;
 import java.util.logging.Level;
 
 import org.restlet.Context;
+// [ifndef gwt] line
+import org.restlet.engine.util.IndexedList;
 
 /**
  * Modifiable list of entries with many helper methods. Note that this class
  * uses the Parameter class as the template type. This allows you to use an
  * instance of this class as any other java.util.List, in particular all the
- * helper methods in java.util.Collections.
+ * helper methods in java.util.Collections.<br>
+ * <br>
+ * Unless a delegate list is given, the entries are stored in a list with a
+ * case insensitive index of their names, which is built by the first lookup of
+ * a large enough series and kept up to date afterwards. This is notably the
+ * case for HTTP headers and Web forms. Note that the names of the entries must
+ * not be changed while they are in such a series.
  * 
  * @author Jerome Louvel
  * @param <T>
@@ -93,7 +101,10 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      * Constructor.
      */
     public Series(Class<T> entryClass) {
-        super();
+        // [ifndef gwt] instruction
+        super(new IndexedList<T>());
+        // [ifdef gwt] instruction uncomment
+        // super();
         this.entryClass = entryClass;
     }
 
@@ -104,7 +115,10 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      *            The initial list capacity.
      */
     public Series(Class<T> entryClass, int initialCapacity) {
-        super(initialCapacity);
+        // [ifndef gwt] instruction
+        super(new IndexedList<T>(initialCapacity));
+        // [ifdef gwt] instruction uncomment
+        // super(initialCapacity);
         this.entryClass = entryClass;
     }
 
@@ -268,6 +282,30 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         return result;
     }
 
+    /**
+     * Returns the entries that may have the given name, in the series order.
+     * Relies on the index of names when available, otherwise returns the whole
+     * series.
+     * 
+     * @param name
+     *            The name to look up.
+     * @return The candidate entries.
+     */
+    @SuppressWarnings("unchecked")
+    private List<T> getCandidates(String name) {
+        // [ifndef gwt]
+        if (getDelegate() instanceof IndexedList) {
+            List<T> result = ((IndexedList<T>) getDelegate()).lookup(name);
+
+            if (result != null) {
+                return result;
+            }
+        }
+        // [enddef]
+
+        return this;
+    }
+
     /**
      * Returns the first parameter found with the given name.
      * 
@@ -289,7 +327,7 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
      * @return The first parameter found with the given name.
      */
     public T getFirst(String name, boolean ignoreCase) {
-        for (T param : this) {
+        for (T param : getCandidates(name)) {
             if (equals(param.getName(), name, ignoreCase)) {
                 return param;
             }
@@ -407,9 +445,8 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         String result = null;
         StringBuilder sb = null;
 
-        for (final T param : this) {
-            if ((ignoreCase && param.getName().equalsIgnoreCase(name))
-                    || param.getName().equals(name)) {
+        for (final T param : getCandidates(name)) {
+            if (equals(param.getName(), name, ignoreCase)) {
                 if (sb == null) {
                     if (result == null) {
                         result = param.getValue();
@@ -547,6 +584,10 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         boolean changed = false;
         NamedValue<String> param = null;
 
+        if (getCandidates(name).isEmpty()) {
+            return false;
+        }
+
         for (Iterator<T> iter = iterator(); iter.hasNext();) {
             param = iter.next();
 
@@ -585,6 +626,10 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         boolean changed = false;
         NamedValue<String> param = null;
 
+        if (getCandidates(name).isEmpty()) {
+            return false;
+        }
+
         for (final Iterator<T> iter = iterator(); iter.hasNext() && !changed;) {
             param = iter.next();
             if (equals(param.getName(), name, ignoreCase)) {
@@ -628,6 +673,11 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         T param = null;
         boolean found = false;
 
+        if (getCandidates(name).isEmpty()) {
+            add(name, value);
+            return result;
+        }
+
         for (final Iterator<T> iter = iterator(); iter.hasNext();) {
             param = iter.next();
 
@@ -698,7 +748,7 @@ public class Series<T extends NamedValue<String>> extends WrapperList<T> {
         // [ifdef gwt] instruction uncomment
         // Series<T> result = createSeries(null);
 
-        for (T param : this) {
+        for (T param : getCandidates(name)) {
             if (equals(param.getName(), name, ignoreCase)) {
                 result.add(param);
             }